@@ -0,0 +1,132 @@
+package io.breland.bbagent.server;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A bounded buffer drained by a single background virtual thread. Items are handed to {@code
+ * flusher} in batches once {@code batchSize} are waiting or {@code flushInterval} has passed since
+ * the oldest one. Callers decide what happens to an item the buffer refuses; {@link #shutdown}
+ * flushes everything still buffered.
+ */
+@Slf4j
+public final class BatchingBuffer<T> {
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+  private static final Object STOP = new Object();
+
+  private final BlockingQueue<Object> buffer;
+  private final int batchSize;
+  private final Duration flushInterval;
+  private final Consumer<List<T>> flusher;
+  private final ExecutorService flushThread;
+  private volatile boolean running = true;
+
+  public BatchingBuffer(
+      String threadName,
+      int capacity,
+      int batchSize,
+      Duration flushInterval,
+      Consumer<List<T>> flusher) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("buffer capacity and batch size must be positive");
+    }
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.flushInterval = Objects.requireNonNull(flushInterval, "flushInterval");
+    this.flusher = Objects.requireNonNull(flusher, "flusher");
+    this.flushThread = ExecutorSupport.virtualThreadPool(threadName, 1);
+    this.flushThread.execute(this::flushLoop);
+  }
+
+  /**
+   * Buffers {@code item} unless the buffer is full. Callers should stop offering once {@link
+   * #isRunning} is false; what is offered after {@link #shutdown} has drained is never flushed.
+   */
+  public boolean offer(T item) {
+    return buffer.offer(item);
+  }
+
+  /** Buffers {@code item}, waiting up to {@code timeout} for space. */
+  public boolean offer(T item, Duration timeout) {
+    try {
+      return buffer.offer(item, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public int size() {
+    return buffer.size();
+  }
+
+  /** Stops the background thread and flushes what is left in the caller's thread. */
+  public void shutdown() {
+    running = false;
+    // Wakes the flush thread if it is waiting out the flush interval on a partial batch.
+    buffer.offer(STOP);
+    ExecutorSupport.shutdown(flushThread, flushInterval.plus(SHUTDOWN_TIMEOUT));
+    List<Object> remaining = new ArrayList<>(batchSize);
+    while (buffer.drainTo(remaining, batchSize) > 0) {
+      remaining.remove(STOP);
+      flush(remaining);
+      remaining.clear();
+    }
+  }
+
+  private void flushLoop() {
+    List<Object> batch = new ArrayList<>(batchSize);
+    try {
+      while (running) {
+        Object first = buffer.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null || first == STOP) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+          buffer.drainTo(batch, batchSize - batch.size());
+          long remainingNanos = deadline - System.nanoTime();
+          if (batch.remove(STOP) || batch.size() >= batchSize || remainingNanos <= 0) {
+            break;
+          }
+          Object next = buffer.poll(remainingNanos, TimeUnit.NANOSECONDS);
+          if (next == null || next == STOP) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      flush(batch);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void flush(List<Object> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      flusher.accept((List<T>) List.copyOf(batch));
+    } catch (RuntimeException e) {
+      log.warn("Failed to flush a batch of {} buffered items", batch.size(), e);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package io.breland.bbagent.server;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.springframework.lang.Nullable;
+
+public final class ExecutorSupport {
+  private ExecutorSupport() {}
+
+  /** Runs at most {@code concurrency} tasks at once, each on a virtual thread. */
+  public static ExecutorService virtualThreadPool(String namePrefix, int concurrency) {
+    return Executors.newFixedThreadPool(
+        Math.max(1, concurrency), Thread.ofVirtual().name(namePrefix, 0).factory());
+  }
+
+  /** Runs every task on its own virtual thread. */
+  public static ExecutorService virtualThreadPerTask(String namePrefix) {
+    return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+  }
+
+  /**
+   * Stops {@code executor} if it is an {@link ExecutorService}, giving running tasks up to {@code
+   * timeout} to finish before interrupting them. Plain executors such as {@code Runnable::run} are
+   * left alone.
+   */
+  public static void shutdown(@Nullable Executor executor, Duration timeout) {
+    if (!(executor instanceof ExecutorService service)) {
+      return;
+    }
+    service.shutdown();
+    try {
+      if (!service.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        service.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      service.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
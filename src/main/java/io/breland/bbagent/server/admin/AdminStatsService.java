@@ -17,19 +17,21 @@ import io.breland.bbagent.server.agent.canary.AgentCanaryService;
 import io.breland.bbagent.server.agent.model_picker.ModelAccessService;
 import io.breland.bbagent.server.analytics.UmamiAnalyticsService;
 import io.breland.bbagent.server.metrics.AgentMessageMetric;
+import io.breland.bbagent.server.metrics.AgentMetricRollupStore;
 import io.breland.bbagent.server.metrics.AgentMetricsService;
 import io.breland.bbagent.server.metrics.AgentMetricsStore;
 import io.breland.bbagent.server.metrics.AgentToolMetric;
 import io.breland.bbagent.server.metrics.AgentToolMetricEvent;
-import io.breland.bbagent.server.metrics.MessageMetricTotals;
+import io.breland.bbagent.server.metrics.MessageMetricRollup;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
-import io.breland.bbagent.server.metrics.ToolMetricTotals;
+import io.breland.bbagent.server.metrics.ToolMetricRollup;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,6 +50,7 @@ public class AdminStatsService implements AgentMetricsService {
   private static final int ACCOUNT_BUCKET_PREFIX_LENGTH = 12;
 
   private final AgentMetricsStore metricsStore;
+  private final AgentMetricRollupStore rollupStore;
   private final ModelAccessService modelAccessService;
   private final AgentAccountResolver accountResolver;
   private final UmamiAnalyticsService umamiAnalyticsService;
@@ -56,12 +59,14 @@ public class AdminStatsService implements AgentMetricsService {
 
   public AdminStatsService(
       AgentMetricsStore metricsStore,
+      AgentMetricRollupStore rollupStore,
       ModelAccessService modelAccessService,
       @Nullable AgentAccountResolver accountResolver,
       @Nullable UmamiAnalyticsService umamiAnalyticsService,
       @Nullable OperationalMetricsService operationalMetricsService,
       @Nullable AgentCanaryService canaryService) {
     this.metricsStore = metricsStore;
+    this.rollupStore = rollupStore;
     this.modelAccessService = modelAccessService;
     this.accountResolver = accountResolver;
     this.umamiAnalyticsService = umamiAnalyticsService;
@@ -154,16 +159,31 @@ public class AdminStatsService implements AgentMetricsService {
     recordToolCallAnalytics(event, context);
   }
 
+  /**
+   * Builds the dashboard from {@link AgentMetricRollupStore} rows: daily and hourly rollups for the
+   * rolled-up part of the range and grouped raw metrics only for its unrolled edges. Memory grows
+   * with senders, models and buckets in the range, not with the number of recorded metrics.
+   */
   @Transactional(readOnly = true)
   @Override
   public AdminStatsResponse getStatistics(Instant from, Instant to) {
-    MessageMetricTotals totals = metricsStore.summarizeMessages(from, to);
-    long messageCount = totals.messageCount();
-    long activeUsers = totals.activeUsers();
-    ToolMetricTotals toolTotals = metricsStore.summarizeTools(from, to);
-    long toolCallCount = toolTotals.toolCallCount();
     BucketSize bucketSize = chooseBucketSize(from, to);
-    List<AgentMessageMetric> events = metricsStore.findMessageMetrics(from, to);
+    List<MessageMetricRollup> messageRows =
+        rollupStore.findMessageRollups(from, to, bucketSize.unit);
+    List<ToolMetricRollup> toolRows = rollupStore.findToolRollups(from, to);
+
+    Set<String> users = new HashSet<>();
+    long messageCount = 0;
+    for (MessageMetricRollup row : messageRows) {
+      messageCount += row.messageCount();
+      users.add(row.userKeyHash());
+    }
+    long activeUsers = users.size();
+    MutableToolStats toolTotals = new MutableToolStats(null, null, null);
+    for (ToolMetricRollup row : toolRows) {
+      toolTotals.record(row);
+    }
+    long toolCallCount = toolTotals.callCount;
 
     return new AdminStatsResponse()
         .period(
@@ -175,14 +195,14 @@ public class AdminStatsService implements AgentMetricsService {
         .activeUsers(activeUsers)
         .averageMessagesPerUser(activeUsers == 0 ? 0.0 : (double) messageCount / activeUsers)
         .totalToolCalls(toolCallCount)
-        .successfulToolCalls(toolTotals.successfulToolCalls())
-        .failedToolCalls(toolTotals.failedToolCalls())
-        .toolSuccessRate(successRate(toolTotals.successfulToolCalls(), toolCallCount))
-        .models(modelStats(from, to, messageCount))
-        .senders(senderStats(events, messageCount))
-        .timeline(bucketStats(from, to, bucketSize, events))
-        .tools(toolStats(from, to, toolCallCount))
-        .toolAccountTypes(toolAccountTypeStats(from, to, toolCallCount));
+        .successfulToolCalls(toolTotals.successfulCalls)
+        .failedToolCalls(toolTotals.failedCalls)
+        .toolSuccessRate(successRate(toolTotals.successfulCalls, toolCallCount))
+        .models(modelStats(messageRows, messageCount))
+        .senders(senderStats(messageRows, messageCount))
+        .timeline(bucketStats(from, to, bucketSize, messageRows))
+        .tools(toolStats(toolRows, toolCallCount))
+        .toolAccountTypes(toolAccountTypeStats(toolRows, toolCallCount));
   }
 
   private void recordAcceptedMessageAnalytics(IncomingMessage message, MetricContext context) {
@@ -225,64 +245,99 @@ public class AdminStatsService implements AgentMetricsService {
         "agent_tool_call", "/server/agent/tool", context.userKeyHash(), data);
   }
 
-  private List<AdminModelStats> modelStats(Instant from, Instant to, long totalMessages) {
-    return metricsStore.summarizeMessagesByModel(from, to).stream()
+  private List<AdminModelStats> modelStats(List<MessageMetricRollup> rows, long totalMessages) {
+    Map<ModelKey, MutableModelStats> models = new HashMap<>();
+    for (MessageMetricRollup row : rows) {
+      ModelKey key =
+          new ModelKey(row.modelKey(), row.modelLabel(), row.responsesModel(), row.premium());
+      models.computeIfAbsent(key, MutableModelStats::new).record(row);
+    }
+    return models.values().stream()
+        .sorted(
+            Comparator.comparingLong(MutableModelStats::messageCount)
+                .reversed()
+                .thenComparing(model -> String.valueOf(model.key.modelKey())))
         .map(
-            row ->
+            model ->
                 new AdminModelStats()
-                    .modelKey(firstNonBlank(row.modelKey(), "unknown"))
-                    .modelLabel(firstNonBlank(row.modelLabel(), row.modelKey(), "Unknown"))
-                    .responsesModel(firstNonBlank(row.responsesModel(), "unknown"))
-                    .isPremium(row.premium())
-                    .messageCount(row.messageCount())
-                    .activeUsers(row.activeUsers())
+                    .modelKey(firstNonBlank(model.key.modelKey(), "unknown"))
+                    .modelLabel(
+                        firstNonBlank(model.key.modelLabel(), model.key.modelKey(), "Unknown"))
+                    .responsesModel(firstNonBlank(model.key.responsesModel(), "unknown"))
+                    .isPremium(model.key.premium())
+                    .messageCount(model.messageCount)
+                    .activeUsers((long) model.users.size())
                     .percentage(
-                        totalMessages == 0 ? 0.0 : (double) row.messageCount() / totalMessages))
+                        totalMessages == 0 ? 0.0 : (double) model.messageCount / totalMessages))
         .toList();
   }
 
-  private List<AdminToolStats> toolStats(Instant from, Instant to, long totalToolCalls) {
-    return metricsStore.summarizeToolsByTool(from, to).stream()
+  private List<AdminToolStats> toolStats(List<ToolMetricRollup> rows, long totalToolCalls) {
+    Map<ToolKey, MutableToolStats> tools = new HashMap<>();
+    for (ToolMetricRollup row : rows) {
+      tools
+          .computeIfAbsent(
+              new ToolKey(row.toolName(), row.toolCategory()),
+              key -> new MutableToolStats(key.toolName(), key.toolCategory(), null))
+          .record(row);
+    }
+    return tools.values().stream()
+        .sorted(
+            Comparator.comparingLong(MutableToolStats::callCount)
+                .reversed()
+                .thenComparing(tool -> String.valueOf(tool.toolName)))
         .map(
-            row ->
+            tool ->
                 new AdminToolStats()
-                    .toolName(firstNonBlank(row.toolName(), "unknown"))
-                    .toolCategory(firstNonBlank(row.toolCategory(), "other"))
-                    .callCount(row.callCount())
-                    .successfulCalls(row.successfulCalls())
-                    .failedCalls(row.failedCalls())
-                    .activeUsers(row.activeUsers())
-                    .successRate(successRate(row.successfulCalls(), row.callCount()))
-                    .averageDurationMs(row.averageDurationMs())
-                    .lastUsedAt(offset(row.lastUsedAt()))
+                    .toolName(firstNonBlank(tool.toolName, "unknown"))
+                    .toolCategory(firstNonBlank(tool.toolCategory, "other"))
+                    .callCount(tool.callCount)
+                    .successfulCalls(tool.successfulCalls)
+                    .failedCalls(tool.failedCalls)
+                    .activeUsers((long) tool.users.size())
+                    .successRate(successRate(tool.successfulCalls, tool.callCount))
+                    .averageDurationMs(
+                        tool.callCount == 0
+                            ? 0.0
+                            : (double) tool.totalDurationMillis / tool.callCount)
+                    .lastUsedAt(offset(tool.lastUsedAt))
                     .percentage(
-                        totalToolCalls == 0 ? 0.0 : (double) row.callCount() / totalToolCalls))
+                        totalToolCalls == 0 ? 0.0 : (double) tool.callCount / totalToolCalls))
         .toList();
   }
 
   private List<AdminToolAccountTypeStats> toolAccountTypeStats(
-      Instant from, Instant to, long totalToolCalls) {
-    return metricsStore.summarizeToolsByAccountType(from, to).stream()
+      List<ToolMetricRollup> rows, long totalToolCalls) {
+    Map<Boolean, MutableToolStats> accountTypes = new HashMap<>();
+    for (ToolMetricRollup row : rows) {
+      accountTypes
+          .computeIfAbsent(row.premium(), premium -> new MutableToolStats(null, null, premium))
+          .record(row);
+    }
+    return accountTypes.values().stream()
+        .sorted(Comparator.comparingLong(MutableToolStats::callCount).reversed())
         .map(
-            row ->
+            accountType ->
                 new AdminToolAccountTypeStats()
-                    .isPremium(row.premium())
-                    .callCount(row.callCount())
-                    .successfulCalls(row.successfulCalls())
-                    .failedCalls(row.failedCalls())
-                    .activeUsers(row.activeUsers())
-                    .successRate(successRate(row.successfulCalls(), row.callCount()))
+                    .isPremium(accountType.premium)
+                    .callCount(accountType.callCount)
+                    .successfulCalls(accountType.successfulCalls)
+                    .failedCalls(accountType.failedCalls)
+                    .activeUsers((long) accountType.users.size())
+                    .successRate(successRate(accountType.successfulCalls, accountType.callCount))
                     .percentage(
-                        totalToolCalls == 0 ? 0.0 : (double) row.callCount() / totalToolCalls))
+                        totalToolCalls == 0
+                            ? 0.0
+                            : (double) accountType.callCount / totalToolCalls))
         .toList();
   }
 
-  private List<AdminSenderStats> senderStats(List<AgentMessageMetric> events, long totalMessages) {
+  private List<AdminSenderStats> senderStats(List<MessageMetricRollup> rows, long totalMessages) {
     Map<String, MutableSenderStats> senders = new HashMap<>();
-    for (AgentMessageMetric event : events) {
-      String accountKeyHash = firstNonBlank(event.userKeyHash(), "unknown");
+    for (MessageMetricRollup row : rows) {
+      String accountKeyHash = firstNonBlank(row.userKeyHash(), "unknown");
       MutableSenderStats sender = senders.computeIfAbsent(accountKeyHash, MutableSenderStats::new);
-      sender.record(event);
+      sender.record(row);
     }
 
     return senders.values().stream()
@@ -296,21 +351,21 @@ public class AdminStatsService implements AgentMetricsService {
   }
 
   private List<AdminStatsBucket> bucketStats(
-      Instant from, Instant to, BucketSize bucketSize, List<AgentMessageMetric> events) {
+      Instant from, Instant to, BucketSize bucketSize, List<MessageMetricRollup> rows) {
     TreeMap<Instant, MutableBucket> buckets = new TreeMap<>();
     Instant cursor = bucketStart(from, bucketSize);
     while (cursor.isBefore(to)) {
       buckets.put(cursor, new MutableBucket(cursor, bucketEnd(cursor, bucketSize)));
       cursor = bucketEnd(cursor, bucketSize);
     }
-    for (AgentMessageMetric event : events) {
-      Instant start = bucketStart(event.occurredAt(), bucketSize);
+    for (MessageMetricRollup row : rows) {
+      Instant start = bucketStart(row.bucketStart(), bucketSize);
       MutableBucket bucket =
           buckets.computeIfAbsent(start, key -> new MutableBucket(key, bucketEnd(key, bucketSize)));
-      bucket.messageCount++;
-      bucket.users.add(event.userKeyHash());
-      BucketModelKey modelKey = new BucketModelKey(event.modelKey(), event.modelLabel());
-      bucket.modelCounts.merge(modelKey, 1L, Long::sum);
+      bucket.messageCount += row.messageCount();
+      bucket.users.add(row.userKeyHash());
+      BucketModelKey modelKey = new BucketModelKey(row.modelKey(), row.modelLabel());
+      bucket.modelCounts.merge(modelKey, row.messageCount(), Long::sum);
     }
     return buckets.values().stream().map(MutableBucket::toResponse).toList();
   }
@@ -371,18 +426,25 @@ public class AdminStatsService implements AgentMetricsService {
   }
 
   private enum BucketSize {
-    HOUR("hour"),
-    DAY("day");
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS);
 
     private final String value;
+    private final ChronoUnit unit;
 
-    BucketSize(String value) {
+    BucketSize(String value, ChronoUnit unit) {
       this.value = value;
+      this.unit = unit;
     }
   }
 
   private record BucketModelKey(String modelKey, String modelLabel) {}
 
+  private record ModelKey(
+      String modelKey, String modelLabel, String responsesModel, boolean premium) {}
+
+  private record ToolKey(String toolName, String toolCategory) {}
+
   private record MetricContext(String userKeyHash, ModelAccessService.ModelAccess modelAccess) {}
 
   private static class MutableSenderStats {
@@ -403,13 +465,13 @@ public class AdminStatsService implements AgentMetricsService {
       return messageCount;
     }
 
-    private void record(AgentMessageMetric event) {
-      messageCount++;
-      if (lastSeenAt == null || event.occurredAt().isAfter(lastSeenAt)) {
-        lastSeenAt = event.occurredAt();
+    private void record(MessageMetricRollup row) {
+      messageCount += row.messageCount();
+      if (lastSeenAt == null || row.lastSeenAt().isAfter(lastSeenAt)) {
+        lastSeenAt = row.lastSeenAt();
       }
-      BucketModelKey modelKey = new BucketModelKey(event.modelKey(), event.modelLabel());
-      modelCounts.merge(modelKey, 1L, Long::sum);
+      BucketModelKey modelKey = new BucketModelKey(row.modelKey(), row.modelLabel());
+      modelCounts.merge(modelKey, row.messageCount(), Long::sum);
     }
 
     private AdminSenderStats toResponse(long totalMessages) {
@@ -440,11 +502,63 @@ public class AdminStatsService implements AgentMetricsService {
     }
   }
 
+  private static class MutableModelStats {
+    private final ModelKey key;
+    private long messageCount;
+    private final Set<String> users = new HashSet<>();
+
+    private MutableModelStats(ModelKey key) {
+      this.key = key;
+    }
+
+    private long messageCount() {
+      return messageCount;
+    }
+
+    private void record(MessageMetricRollup row) {
+      messageCount += row.messageCount();
+      users.add(row.userKeyHash());
+    }
+  }
+
+  private static class MutableToolStats {
+    private final String toolName;
+    private final String toolCategory;
+    private final Boolean premium;
+    private long callCount;
+    private long successfulCalls;
+    private long failedCalls;
+    private long totalDurationMillis;
+    private Instant lastUsedAt;
+    private final Set<String> users = new HashSet<>();
+
+    private MutableToolStats(String toolName, String toolCategory, Boolean premium) {
+      this.toolName = toolName;
+      this.toolCategory = toolCategory;
+      this.premium = premium;
+    }
+
+    private long callCount() {
+      return callCount;
+    }
+
+    private void record(ToolMetricRollup row) {
+      callCount += row.callCount();
+      successfulCalls += row.successfulCalls();
+      failedCalls += row.failedCalls();
+      totalDurationMillis += row.totalDurationMillis();
+      if (lastUsedAt == null || row.lastUsedAt().isAfter(lastUsedAt)) {
+        lastUsedAt = row.lastUsedAt();
+      }
+      users.add(row.userKeyHash());
+    }
+  }
+
   private static class MutableBucket {
     private final Instant start;
     private final Instant end;
     private long messageCount;
-    private final Set<String> users = new java.util.HashSet<>();
+    private final Set<String> users = new HashSet<>();
     private final Map<BucketModelKey, Long> modelCounts = new HashMap<>();
 
     private MutableBucket(Instant start, Instant end) {
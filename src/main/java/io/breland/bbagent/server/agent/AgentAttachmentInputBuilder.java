@@ -8,11 +8,12 @@ import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
@@ -23,34 +24,44 @@ public final class AgentAttachmentInputBuilder {
   private static final int MAX_FILE_ATTACHMENTS = 4;
 
   private final BBHttpClientWrapper bbHttpClientWrapper;
+  private final AttachmentCache attachmentCache;
 
   public AgentAttachmentInputBuilder(BBHttpClientWrapper bbHttpClientWrapper) {
+    this(bbHttpClientWrapper, null);
+  }
+
+  @Autowired
+  public AgentAttachmentInputBuilder(
+      BBHttpClientWrapper bbHttpClientWrapper, @Nullable AttachmentCache attachmentCache) {
     this.bbHttpClientWrapper = bbHttpClientWrapper;
+    this.attachmentCache = attachmentCache == null ? new AttachmentCache() : attachmentCache;
   }
 
   ResolvedAttachments resolve(IncomingMessage message) {
     if (message == null || message.attachments() == null || message.attachments().isEmpty()) {
       return ResolvedAttachments.empty();
     }
-    List<String> imageUrls =
-        message.attachments().stream()
-            .map(this::resolveAttachmentImageUrl)
-            .flatMap(Optional::stream)
-            .toList();
-    List<ResponseInputFile> files =
-        message.attachments().stream()
-            .map(this::resolveAttachmentFile)
-            .flatMap(Optional::stream)
-            .toList();
-    return new ResolvedAttachments(imageUrls, files);
+    List<String> imageUrls = new ArrayList<>();
+    List<ResponseInputFile> files = new ArrayList<>();
+    for (IncomingAttachment attachment : message.attachments()) {
+      if (attachment == null) {
+        continue;
+      }
+      // Attachments without a mime type are offered as both an image and a file; load once.
+      LazyAttachmentData data = new LazyAttachmentData(attachment);
+      resolveAttachmentImageUrl(attachment, data).ifPresent(imageUrls::add);
+      resolveAttachmentFile(attachment, data).ifPresent(files::add);
+    }
+    return new ResolvedAttachments(List.copyOf(imageUrls), List.copyOf(files));
   }
 
   List<String> resolveImageUrls(IncomingMessage message) {
     return resolve(message).imageUrls();
   }
 
-  private Optional<String> resolveAttachmentImageUrl(IncomingAttachment attachment) {
-    if (attachment == null || isKnownNonImage(attachment.mimeType())) {
+  private Optional<String> resolveAttachmentImageUrl(
+      IncomingAttachment attachment, LazyAttachmentData data) {
+    if (isKnownNonImage(attachment.mimeType())) {
       return Optional.empty();
     }
     if (StringUtils.isNotBlank(attachment.dataUrl())) {
@@ -64,21 +75,36 @@ public final class AgentAttachmentInputBuilder {
     if (StringUtils.isNotBlank(attachment.url())) {
       return Optional.of(attachment.url());
     }
-    return loadAttachmentData(attachment)
-        .map(data -> dataUrl(defaultMimeType(data.mimeType()), data.base64()));
+    return data.get()
+        .flatMap(
+            loaded ->
+                encode(attachment, () -> loaded.dataUrl(defaultMimeType(loaded.mimeType()))));
+  }
+
+  private Optional<ResponseInputFile> resolveAttachmentFile(
+      IncomingAttachment attachment, LazyAttachmentData data) {
+    if (isImageMime(attachment.mimeType())) {
+      return Optional.empty();
+    }
+    return data.get()
+        .flatMap(
+            loaded ->
+                encode(attachment, loaded::base64)
+                    .map(
+                        base64 ->
+                            ResponseInputFile.builder()
+                                .fileData(base64)
+                                .filename(defaultFilename(loaded.filename(), attachment.filename()))
+                                .build()));
   }
 
-  private Optional<ResponseInputFile> resolveAttachmentFile(IncomingAttachment attachment) {
-    if (attachment == null || isImageMime(attachment.mimeType())) {
+  private static Optional<String> encode(IncomingAttachment attachment, Supplier<String> encoder) {
+    try {
+      return Optional.ofNullable(encoder.get());
+    } catch (RuntimeException e) {
+      log.warn("Failed to encode attachment {}", attachment.guid(), e);
       return Optional.empty();
     }
-    return loadAttachmentData(attachment)
-        .map(
-            data ->
-                ResponseInputFile.builder()
-                    .fileData(data.base64())
-                    .filename(defaultFilename(data.filename(), attachment.filename()))
-                    .build());
   }
 
   private Optional<AttachmentData> loadAttachmentData(IncomingAttachment attachment) {
@@ -90,14 +116,15 @@ public final class AgentAttachmentInputBuilder {
       return downloaded;
     }
     if (StringUtils.isNotBlank(attachment.base64())) {
-      return Optional.of(new AttachmentData(attachment.base64(), attachment.mimeType(), null));
+      return Optional.of(
+          AttachmentData.inline(attachment.base64(), attachment.mimeType(), null));
     }
     if (StringUtils.isNotBlank(attachment.dataUrl())) {
       String dataUrl = attachment.dataUrl();
       String prefix = StringUtils.substringBefore(dataUrl, ",");
       String base64 = StringUtils.substringAfter(dataUrl, ",");
       if (StringUtils.isNotEmpty(prefix) && StringUtils.isNotEmpty(base64)) {
-        return Optional.of(new AttachmentData(base64, mimeType(dataUrl), null));
+        return Optional.of(AttachmentData.inline(base64, mimeType(dataUrl), null));
       }
     }
     return Optional.empty();
@@ -107,22 +134,20 @@ public final class AgentAttachmentInputBuilder {
     if (StringUtils.isBlank(attachment.guid())) {
       return Optional.empty();
     }
-    Path path = null;
     try {
-      path = bbHttpClientWrapper.getAttachment(attachment.guid());
-      if (path == null) {
-        return Optional.empty();
-      }
-      String mimeType = StringUtils.defaultIfBlank(attachment.mimeType(), probeContentType(path));
-      String filename = path.getFileName() == null ? null : path.getFileName().toString();
-      return Optional.of(
-          new AttachmentData(
-              Base64.getEncoder().encodeToString(Files.readAllBytes(path)), mimeType, filename));
+      return attachmentCache
+          .get(attachment.guid(), bbHttpClientWrapper::getAttachment)
+          .map(
+              cached ->
+                  new AttachmentData(
+                      null,
+                      cached,
+                      StringUtils.defaultIfBlank(
+                          attachment.mimeType(), probeContentType(cached.path())),
+                      null));
     } catch (Exception e) {
       log.warn("Failed to download attachment {}", attachment.guid(), e);
       return Optional.empty();
-    } finally {
-      deleteIfExists(path);
     }
   }
 
@@ -163,17 +188,6 @@ public final class AgentAttachmentInputBuilder {
     }
   }
 
-  private static void deleteIfExists(@Nullable Path path) {
-    if (path == null) {
-      return;
-    }
-    try {
-      Files.deleteIfExists(path);
-    } catch (Exception ignored) {
-      // best effort cleanup
-    }
-  }
-
   record ResolvedAttachments(List<String> imageUrls, List<ResponseInputFile> files) {
     static ResolvedAttachments empty() {
       return new ResolvedAttachments(List.of(), List.of());
@@ -207,6 +221,41 @@ public final class AgentAttachmentInputBuilder {
     }
   }
 
+  /** Attachment content that is either inline base64 or a file in the {@link AttachmentCache}. */
   private record AttachmentData(
-      String base64, @Nullable String mimeType, @Nullable String filename) {}
+      @Nullable String inlineBase64,
+      @Nullable AttachmentCache.CachedAttachment cached,
+      @Nullable String mimeType,
+      @Nullable String filename) {
+    static AttachmentData inline(
+        String base64, @Nullable String mimeType, @Nullable String filename) {
+      return new AttachmentData(base64, null, mimeType, filename);
+    }
+
+    String base64() {
+      return cached != null ? cached.base64() : inlineBase64;
+    }
+
+    String dataUrl(String mimeType) {
+      return cached != null
+          ? cached.dataUrl(mimeType)
+          : AgentAttachmentInputBuilder.dataUrl(mimeType, inlineBase64);
+    }
+  }
+
+  private final class LazyAttachmentData {
+    private final IncomingAttachment attachment;
+    private Optional<AttachmentData> loaded;
+
+    private LazyAttachmentData(IncomingAttachment attachment) {
+      this.attachment = attachment;
+    }
+
+    private Optional<AttachmentData> get() {
+      if (loaded == null) {
+        loaded = loadAttachmentData(attachment);
+      }
+      return loaded;
+    }
+  }
 }
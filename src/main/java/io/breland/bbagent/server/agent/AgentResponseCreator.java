@@ -1,9 +1,11 @@
 package io.breland.bbagent.server.agent;
 
 import com.openai.models.responses.Response;
+import com.openai.models.responses.ResponseFunctionToolCall;
 import com.openai.models.responses.ResponseInputItem;
 import io.breland.bbagent.server.agent.llm.LlmProvider;
 import io.breland.bbagent.server.agent.llm.LlmRequest;
+import io.breland.bbagent.server.agent.llm.LlmStreamListener;
 import io.breland.bbagent.server.agent.model_picker.ModelAccessService;
 import io.breland.bbagent.server.agent.model_picker.ModelPicker;
 import io.breland.bbagent.server.agent.profile.AgentProfileService;
@@ -41,25 +43,47 @@ final class AgentResponseCreator {
       List<ResponseInputItem> inputItems,
       IncomingMessage message,
       AgentWorkflowContext workflowContext) {
+    return createResponse(inputItems, message, workflowContext, null);
+  }
+
+  /**
+   * Creates a model response. A non-null {@code streamListener} streams the response, forwarding
+   * progress to the listener and recording time to first token and first tool call.
+   */
+  @Nullable
+  Response createResponse(
+      List<ResponseInputItem> inputItems,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext,
+      @Nullable LlmStreamListener streamListener) {
     List<ResponseInputItem> requestInputItems =
         modelPicker.shouldSquashDeveloperMessagesIntoSystem(message)
             ? ResponseInputMessages.squashDeveloperMessagesIntoSystem(inputItems)
             : inputItems;
     ModelAccessService.ModelAccess modelAccess = modelPicker.resolveModelAccess(message);
     List<AgentTool> tools = toolRegistry.toolsForModel(message, requestInputItems);
-    LlmRequest request =
-        new LlmRequest(modelAccess, requestInputItems, tools, message, workflowContext);
     long startedNanos = 0L;
     try {
       startedNanos = System.nanoTime();
+      LlmRequest request =
+          new LlmRequest(
+              modelAccess,
+              requestInputItems,
+              tools,
+              message,
+              workflowContext,
+              streamListener == null
+                  ? null
+                  : new MeteredStreamListener(streamListener, message, modelAccess, startedNanos));
       log.info(
-          "Creating model response chat={} messageGuid={} workflowId={} provider={} model={} inputItems={}",
+          "Creating model response chat={} messageGuid={} workflowId={} provider={} model={} inputItems={} streaming={}",
           message.chatGuid(),
           message.messageGuid(),
           workflowContext == null ? null : workflowContext.workflowId(),
           modelAccess.provider(),
           modelAccess.responsesModel(),
-          requestInputItems.size());
+          requestInputItems.size(),
+          request.streaming());
       log.trace("Final LLM request: {}", request);
       Response response = llmProvider.createResponse(request);
       recordLlmCallMetric(message, modelAccess, true, null, startedNanos);
@@ -111,6 +135,37 @@ final class AgentResponseCreator {
     }
   }
 
+  private void recordStreamLatency(
+      IncomingMessage message,
+      ModelAccessService.ModelAccess modelAccess,
+      boolean toolCall,
+      long startedNanos) {
+    if (operationalMetricsService == null || isCanaryAccount(message)) {
+      return;
+    }
+    String transport = message == null ? "unknown" : message.metricTransport();
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - startedNanos);
+    try {
+      if (toolCall) {
+        operationalMetricsService.recordLlmTimeToFirstToolCall(
+            transport,
+            "agent_response",
+            modelAccess.provider(),
+            modelAccess.responsesModel(),
+            elapsed);
+      } else {
+        operationalMetricsService.recordLlmTimeToFirstToken(
+            transport,
+            "agent_response",
+            modelAccess.provider(),
+            modelAccess.responsesModel(),
+            elapsed);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to record LLM stream latency metric", e);
+    }
+  }
+
   private boolean isCanaryAccount(IncomingMessage message) {
     if (message == null || profileService == null) {
       return false;
@@ -121,4 +176,38 @@ final class AgentResponseCreator {
   private static long elapsedMillis(long startedNanos) {
     return Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
   }
+
+  private final class MeteredStreamListener implements LlmStreamListener {
+    private final LlmStreamListener delegate;
+    private final IncomingMessage message;
+    private final ModelAccessService.ModelAccess modelAccess;
+    private final long startedNanos;
+    private boolean sawToolCall;
+
+    private MeteredStreamListener(
+        LlmStreamListener delegate,
+        IncomingMessage message,
+        ModelAccessService.ModelAccess modelAccess,
+        long startedNanos) {
+      this.delegate = delegate;
+      this.message = message;
+      this.modelAccess = modelAccess;
+      this.startedNanos = startedNanos;
+    }
+
+    @Override
+    public void onFirstToken() {
+      recordStreamLatency(message, modelAccess, false, startedNanos);
+      delegate.onFirstToken();
+    }
+
+    @Override
+    public void onFunctionCall(ResponseFunctionToolCall call) {
+      if (!sawToolCall) {
+        sawToolCall = true;
+        recordStreamLatency(message, modelAccess, true, startedNanos);
+      }
+      delegate.onFunctionCall(call);
+    }
+  }
 }
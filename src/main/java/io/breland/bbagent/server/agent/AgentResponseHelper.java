@@ -8,6 +8,7 @@ import com.openai.models.responses.ResponseInputItem;
 import com.openai.models.responses.ResponseOutputItem;
 import com.openai.models.responses.ResponseOutputMessage;
 import io.breland.bbagent.server.agent.reactions.MessageReactionSupport;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -177,6 +178,15 @@ public final class AgentResponseHelper {
     return ResponseInputItem.ofFunctionCallOutput(toolOutput);
   }
 
+  public static ResponseInputItem timedOutToolCallOutput(String callId, Duration timeout) {
+    ResponseInputItem.FunctionCallOutput toolOutput =
+        ResponseInputItem.FunctionCallOutput.builder()
+            .callId(callId)
+            .output("Tool call failed: timed out after " + timeout.toSeconds() + " seconds")
+            .build();
+    return ResponseInputItem.ofFunctionCallOutput(toolOutput);
+  }
+
   static List<ResponseFunctionToolCall> parseTextFunctionCalls(String text) {
     List<ResponseFunctionToolCall> calls = new ArrayList<>();
     String[] lines = text.split("\\R");
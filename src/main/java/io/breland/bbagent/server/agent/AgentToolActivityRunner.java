@@ -85,6 +85,11 @@ final class AgentToolActivityRunner {
     return ResponseInputItem.ofFunctionCallOutput(toolOutput);
   }
 
+  @Nullable
+  AgentTool resolveTool(String toolName, IncomingMessage message) {
+    return toolRegistry.resolveTool(toolName, message).tool();
+  }
+
   static String truncateToolOutputForModel(String output, String toolName) {
     if (output == null || output.length() <= MAX_TOOL_OUTPUT_CHARS) {
       return output;
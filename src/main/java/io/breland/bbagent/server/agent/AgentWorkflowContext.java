@@ -1,6 +1,18 @@
 package io.breland.bbagent.server.agent;
 
+import io.breland.bbagent.server.agent.account.ResolvedAccountContext;
 import java.time.Instant;
+import org.springframework.lang.Nullable;
 
 public record AgentWorkflowContext(
-    String workflowId, String chatGuid, String messageGuid, Instant startedAt) {}
+    String workflowId,
+    String chatGuid,
+    String messageGuid,
+    Instant startedAt,
+    @Nullable ResolvedAccountContext account) {
+
+  public AgentWorkflowContext(
+      String workflowId, String chatGuid, String messageGuid, Instant startedAt) {
+    this(workflowId, chatGuid, messageGuid, startedAt, null);
+  }
+}
@@ -0,0 +1,367 @@
+package io.breland.bbagent.server.agent;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk-backed, size-bounded cache of downloaded attachments. Attachment GUIDs map to content
+ * hashes and each distinct content is stored once; concurrent requests for the same GUID share a
+ * single download. Content is base64-encoded straight from disk so the raw bytes are never held in
+ * memory.
+ */
+@Component
+public class AttachmentCache {
+  static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  private static final int ENCODE_CHUNK_BYTES = 3 * 16 * 1024;
+
+  private final Map<String, String> hashesByGuid = new ConcurrentHashMap<>();
+  private final Map<String, Blob> blobsByHash = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<Optional<CachedAttachment>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final AtomicLong totalBytes = new AtomicLong();
+  private final AtomicLong accessClock = new AtomicLong();
+  private final Path directory;
+  private final long maxBytes;
+  private final @Nullable OperationalMetricsService metrics;
+
+  @Autowired
+  public AttachmentCache(
+      @Value("${bbagent.attachment-cache.dir:}") String directory,
+      @Value("${bbagent.attachment-cache.max-bytes:268435456}") long maxBytes,
+      @Nullable OperationalMetricsService metrics) {
+    this(StringUtils.isBlank(directory) ? null : Path.of(directory.trim()), maxBytes, metrics);
+  }
+
+  public AttachmentCache() {
+    this((Path) null, DEFAULT_MAX_BYTES, null);
+  }
+
+  AttachmentCache(
+      @Nullable Path directory, long maxBytes, @Nullable OperationalMetricsService metrics) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("attachment cache max bytes must be positive");
+    }
+    this.directory = openDirectory(directory);
+    this.maxBytes = maxBytes;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the cached attachment for {@code attachmentGuid}, downloading it with {@code
+   * downloader} on a miss. The downloader must return a file the cache may take ownership of (it
+   * is moved into the cache or deleted), or null when the attachment is unavailable.
+   */
+  public Optional<CachedAttachment> get(String attachmentGuid, Downloader downloader) {
+    if (StringUtils.isBlank(attachmentGuid)) {
+      return Optional.empty();
+    }
+    Optional<CachedAttachment> cached = lookup(attachmentGuid);
+    if (cached.isPresent()) {
+      recordLookup("hit");
+      return cached;
+    }
+    CompletableFuture<Optional<CachedAttachment>> download = new CompletableFuture<>();
+    CompletableFuture<Optional<CachedAttachment>> existing =
+        inFlight.putIfAbsent(attachmentGuid, download);
+    if (existing != null) {
+      recordLookup("coalesced");
+      return join(existing);
+    }
+    recordLookup("miss");
+    try {
+      download.complete(download(attachmentGuid, downloader));
+    } catch (RuntimeException e) {
+      download.completeExceptionally(e);
+    } finally {
+      inFlight.remove(attachmentGuid, download);
+    }
+    return join(download);
+  }
+
+  public long sizeBytes() {
+    return totalBytes.get();
+  }
+
+  Path directory() {
+    return directory;
+  }
+
+  @PreDestroy
+  public void clear() {
+    hashesByGuid.clear();
+    blobsByHash.values().forEach(blob -> deleteIfExists(blob.path()));
+    blobsByHash.clear();
+    totalBytes.set(0L);
+    updateSizeGauge();
+  }
+
+  private Optional<CachedAttachment> lookup(String attachmentGuid) {
+    String hash = hashesByGuid.get(attachmentGuid);
+    Blob blob = hash == null ? null : blobsByHash.get(hash);
+    if (blob == null) {
+      return Optional.empty();
+    }
+    if (!Files.exists(blob.path())) {
+      evict(hash, blob);
+      updateSizeGauge();
+      return Optional.empty();
+    }
+    blob.touch(accessClock.incrementAndGet());
+    return Optional.of(new CachedAttachment(blob.path(), blob.size(), hash));
+  }
+
+  private Optional<CachedAttachment> download(String attachmentGuid, Downloader downloader) {
+    Path downloaded = null;
+    try {
+      downloaded = downloader.download(attachmentGuid, directory);
+      if (downloaded == null || !Files.exists(downloaded)) {
+        return Optional.empty();
+      }
+      String hash = sha256(downloaded);
+      long size = Files.size(downloaded);
+      Path source = downloaded;
+      Blob blob =
+          blobsByHash.computeIfAbsent(
+              hash,
+              ignored -> {
+                Path blobPath = moveFile(source, directory.resolve(hash));
+                totalBytes.addAndGet(size);
+                return new Blob(blobPath, size, accessClock.incrementAndGet());
+              });
+      blob.touch(accessClock.incrementAndGet());
+      hashesByGuid.put(attachmentGuid, hash);
+      evictOverflow(hash);
+      return Optional.of(new CachedAttachment(blob.path(), blob.size(), hash));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to cache attachment " + attachmentGuid, e);
+    } finally {
+      deleteIfExists(downloaded);
+    }
+  }
+
+  private synchronized void evictOverflow(String keepHash) {
+    if (totalBytes.get() > maxBytes) {
+      List<Map.Entry<String, Blob>> leastRecentlyUsed =
+          blobsByHash.entrySet().stream()
+              .filter(entry -> !entry.getKey().equals(keepHash))
+              .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess()))
+              .toList();
+      for (Map.Entry<String, Blob> entry : leastRecentlyUsed) {
+        if (totalBytes.get() <= maxBytes) {
+          break;
+        }
+        evict(entry.getKey(), entry.getValue());
+      }
+    }
+    updateSizeGauge();
+  }
+
+  private void evict(String hash, Blob blob) {
+    if (!blobsByHash.remove(hash, blob)) {
+      return;
+    }
+    hashesByGuid.values().removeIf(hash::equals);
+    totalBytes.addAndGet(-blob.size());
+    deleteIfExists(blob.path());
+    if (metrics != null) {
+      metrics.recordAttachmentCacheEviction();
+    }
+  }
+
+  private void recordLookup(String result) {
+    if (metrics != null) {
+      metrics.recordAttachmentCacheLookup(result);
+    }
+  }
+
+  private void updateSizeGauge() {
+    if (metrics != null) {
+      metrics.updateAttachmentCacheBytes(totalBytes.get());
+    }
+  }
+
+  private static Optional<CachedAttachment> join(
+      CompletableFuture<Optional<CachedAttachment>> download) {
+    try {
+      return download.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  private static Path openDirectory(@Nullable Path configured) {
+    try {
+      if (configured == null) {
+        return Files.createTempDirectory("bbagent-attachment-cache-");
+      }
+      Files.createDirectories(configured);
+      try (Stream<Path> stale = Files.list(configured)) {
+        stale.filter(Files::isRegularFile).forEach(AttachmentCache::deleteIfExists);
+      }
+      return configured;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open attachment cache directory", e);
+    }
+  }
+
+  private static String sha256(Path path) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    byte[] buffer = new byte[ENCODE_CHUNK_BYTES];
+    try (InputStream input = Files.newInputStream(path)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static void deleteIfExists(@Nullable Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (Exception ignored) {
+      // best effort cleanup
+    }
+  }
+
+  private static Path moveFile(Path source, Path target) {
+    try {
+      return Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to move attachment into cache", e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Downloader {
+    @Nullable
+    Path download(String attachmentGuid, Path directory) throws IOException;
+  }
+
+  /** A cached attachment file. Encoding reads the file in chunks; the file is owned by the cache. */
+  public record CachedAttachment(Path path, long size, String contentHash) {
+    public String base64() {
+      return encode("");
+    }
+
+    public String dataUrl(String mimeType) {
+      return encode("data:" + mimeType + ";base64,");
+    }
+
+    private String encode(String prefix) {
+      byte[] prefixBytes = prefix.getBytes(StandardCharsets.US_ASCII);
+      long encodedLength = prefixBytes.length + 4 * ((size + 2) / 3);
+      if (encodedLength > Integer.MAX_VALUE - 16) {
+        throw new IllegalStateException("Attachment too large to encode: " + size + " bytes");
+      }
+      byte[] encoded = new byte[(int) encodedLength];
+      System.arraycopy(prefixBytes, 0, encoded, 0, prefixBytes.length);
+      FixedBufferOutputStream sink = new FixedBufferOutputStream(encoded, prefixBytes.length);
+      byte[] chunk = new byte[ENCODE_CHUNK_BYTES];
+      try (InputStream input = Files.newInputStream(path);
+          OutputStream base64 = Base64.getEncoder().wrap(sink)) {
+        int read;
+        while ((read = input.readNBytes(chunk, 0, chunk.length)) > 0) {
+          base64.write(chunk, 0, read);
+        }
+      } catch (NoSuchFileException e) {
+        throw new UncheckedIOException("Cached attachment was evicted while reading", e);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read cached attachment", e);
+      }
+      return new String(encoded, 0, sink.position(), StandardCharsets.US_ASCII);
+    }
+  }
+
+  private static final class FixedBufferOutputStream extends OutputStream {
+    private final byte[] buffer;
+    private int position;
+
+    private FixedBufferOutputStream(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      System.arraycopy(bytes, offset, buffer, position, length);
+      position += length;
+    }
+
+    private int position() {
+      return position;
+    }
+  }
+
+  private static final class Blob {
+    private final Path path;
+    private final long size;
+    private volatile long lastAccess;
+
+    private Blob(Path path, long size, long lastAccess) {
+      this.path = path;
+      this.size = size;
+      this.lastAccess = lastAccess;
+    }
+
+    private Path path() {
+      return path;
+    }
+
+    private long size() {
+      return size;
+    }
+
+    private long lastAccess() {
+      return lastAccess;
+    }
+
+    private void touch(long access) {
+      lastAccess = access;
+    }
+  }
+}
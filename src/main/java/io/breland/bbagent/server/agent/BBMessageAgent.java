@@ -9,6 +9,7 @@ import com.openai.models.responses.ResponseInputItem;
 import io.breland.bbagent.server.agent.cadence.CadenceIncomingMessageHandler;
 import io.breland.bbagent.server.agent.cadence.CadenceWorkflowLauncher;
 import io.breland.bbagent.server.agent.llm.LlmProvider;
+import io.breland.bbagent.server.agent.llm.LlmStreamListener;
 import io.breland.bbagent.server.agent.llm.OpenAiResponsesLlmProvider;
 import io.breland.bbagent.server.agent.memory.ConversationJournalService;
 import io.breland.bbagent.server.agent.memory.ConversationMemorySettingsService;
@@ -16,6 +17,7 @@ import io.breland.bbagent.server.agent.memory.MemoryScopeResolver;
 import io.breland.bbagent.server.agent.model_picker.ModelPicker;
 import io.breland.bbagent.server.agent.profile.AgentProfileService;
 import io.breland.bbagent.server.agent.terms.TermsAgreementValidator;
+import io.breland.bbagent.server.agent.tools.AgentTool;
 import io.breland.bbagent.server.agent.tools.AgentToolRegistry;
 import io.breland.bbagent.server.agent.tools.gcal.*;
 import io.breland.bbagent.server.agent.tools.giphy.GiphyClient;
@@ -34,7 +36,6 @@ import io.breland.bbagent.server.website.WebsiteAccountService;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -54,7 +55,7 @@ public class BBMessageAgent {
   public static final String IMESSAGE_SERVICE = "iMessage";
 
   @Getter private final ObjectMapper objectMapper;
-  @Getter private final Map<String, ConversationState> conversations = new ConcurrentHashMap<>();
+  @Getter private final Map<String, ConversationState> conversations;
   private final MessageTransportRegistry transportRegistry;
   private final AgentProfileService profileService;
   private final CadenceIncomingMessageHandler incomingMessageHandler;
@@ -86,6 +87,9 @@ public class BBMessageAgent {
           + "}")
   private String termsAcceptanceResponsesModel = TermsAgreementValidator.DEFAULT_RESPONSES_MODEL;
 
+  @Value("${bbagent.llm.streaming.enabled:false}")
+  private boolean llmStreamingEnabled;
+
   @Autowired
   public BBMessageAgent(
       @Nullable OpenAIClient openAiClient,
@@ -107,7 +111,10 @@ public class BBMessageAgent {
       @Nullable ConversationJournalService conversationJournalService,
       @Nullable ConversationMemorySettingsService conversationMemorySettingsService,
       @Nullable MemoryScopeResolver memoryScopeResolver,
-      ModelPicker modelPicker) {
+      ModelPicker modelPicker,
+      @Nullable ConversationStateCache conversationStateCache) {
+    this.conversations =
+        conversationStateCache != null ? conversationStateCache : new ConversationStateCache();
     if (openAiClient != null) {
       this.openAIClient = openAiClient;
     }
@@ -373,6 +380,21 @@ public class BBMessageAgent {
     return responseCreator.createResponse(inputItems, message, workflowContext);
   }
 
+  /**
+   * Creates a model response, streaming it when {@code bbagent.llm.streaming.enabled} is set so
+   * {@code streamListener} sees tool calls as soon as they complete. Streaming is opt-in: the tool
+   * calls still run only after the whole response, in their own activity, so the listener can
+   * report progress but cannot start tools early.
+   */
+  public Response createResponse(
+      List<ResponseInputItem> inputItems,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext,
+      LlmStreamListener streamListener) {
+    return responseCreator.createResponse(
+        inputItems, message, workflowContext, llmStreamingEnabled ? streamListener : null);
+  }
+
   private boolean isCanaryAccount(IncomingMessage message) {
     if (message == null || profileService == null) {
       return false;
@@ -387,6 +409,10 @@ public class BBMessageAgent {
     return toolActivityRunner.run(toolCall, message, workflowContext);
   }
 
+  public @Nullable AgentTool resolveTool(String toolName, IncomingMessage message) {
+    return toolActivityRunner.resolveTool(toolName, message);
+  }
+
   public void updateThreadContext(ConversationState state, IncomingMessage message) {
     threadContextRecorder.updateThreadContext(state, message);
   }
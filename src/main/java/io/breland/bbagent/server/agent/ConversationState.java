@@ -37,6 +37,9 @@ public class ConversationState {
   @Getter @Setter private Instant latestProcessedMessageTimestamp;
   @Getter @Setter private String latestWorkflowRunId;
   @Getter @Setter private String latestWorkflowMessageGuid;
+  // Workflows accepted for this chat that have not been finalized; not part of the snapshot.
+  private int workflowsInFlight;
+  private Instant lastWorkflowAcceptedAt;
 
   public synchronized List<ConversationTurn> history() {
     return new ArrayList<>(history);
@@ -91,6 +94,24 @@ public class ConversationState {
     }
   }
 
+  /**
+   * Undoes {@link #markIncomingMessageSeen} for a message that could not be handed to a workflow,
+   * so a redelivery of the same message is not dropped as already seen.
+   */
+  public synchronized void forgetIncomingMessageSeen(IncomingMessage message) {
+    if (message == null) {
+      return;
+    }
+    String guid = normalize(message.messageGuid());
+    String fingerprint = normalize(message.computeMessageFingerprint());
+    if (guid != null && recentIncomingMessageGuids.remove(guid)) {
+      recentIncomingMessageGuidOrder.remove(guid);
+    }
+    if (fingerprint != null && recentIncomingMessageFingerprints.remove(fingerprint)) {
+      recentIncomingMessageFingerprintOrder.remove(fingerprint);
+    }
+  }
+
   public synchronized void recordIncomingTurnIfAbsent(IncomingMessage message) {
     if (message == null || Boolean.TRUE.equals(message.fromMe())) {
       return;
@@ -230,6 +251,98 @@ public class ConversationState {
         termsAcceptanceKey(pending.sender(), pending.threadRootGuid()), pending);
   }
 
+  public synchronized void workflowAccepted(Instant acceptedAt) {
+    workflowsInFlight++;
+    lastWorkflowAcceptedAt = acceptedAt;
+  }
+
+  public synchronized void workflowFinished() {
+    workflowsInFlight = Math.max(0, workflowsInFlight - 1);
+  }
+
+  /**
+   * Whether a workflow accepted at or after {@code acceptedSince} may still write to this state. A
+   * workflow that was never finalized stops counting once it is older than {@code acceptedSince}.
+   */
+  public synchronized boolean hasWorkflowInFlight(Instant acceptedSince) {
+    return workflowsInFlight > 0
+        && lastWorkflowAcceptedAt != null
+        && !lastWorkflowAcceptedAt.isBefore(acceptedSince);
+  }
+
+  public synchronized Snapshot snapshot() {
+    return new Snapshot(
+        new ArrayList<>(history),
+        new ArrayList<>(recentIncomingMessageGuidOrder),
+        new ArrayList<>(recentIncomingMessageFingerprintOrder),
+        new ArrayList<>(recordedIncomingMessageGuidOrder),
+        new ArrayList<>(recordedIncomingMessageFingerprintOrder),
+        new ArrayList<>(pendingIncomingTurns),
+        lastProcessedMessageGuid,
+        lastProcessedMessageFingerprint,
+        latestProcessedMessageTimestamp,
+        latestWorkflowRunId,
+        latestWorkflowMessageGuid);
+  }
+
+  public static ConversationState fromSnapshot(Snapshot snapshot) {
+    ConversationState state = new ConversationState();
+    if (snapshot == null) {
+      return state;
+    }
+    synchronized (state) {
+      for (ConversationTurn turn : nullToEmpty(snapshot.history())) {
+        state.addTurn(turn);
+      }
+      for (String guid : nullToEmpty(snapshot.recentIncomingMessageGuids())) {
+        remember(
+            state.recentIncomingMessageGuidOrder,
+            state.recentIncomingMessageGuids,
+            normalize(guid));
+      }
+      for (String fingerprint : nullToEmpty(snapshot.recentIncomingMessageFingerprints())) {
+        remember(
+            state.recentIncomingMessageFingerprintOrder,
+            state.recentIncomingMessageFingerprints,
+            normalize(fingerprint));
+      }
+      for (String guid : nullToEmpty(snapshot.recordedIncomingMessageGuids())) {
+        remember(
+            state.recordedIncomingMessageGuidOrder,
+            state.recordedIncomingMessageGuids,
+            normalize(guid));
+      }
+      for (String fingerprint : nullToEmpty(snapshot.recordedIncomingMessageFingerprints())) {
+        remember(
+            state.recordedIncomingMessageFingerprintOrder,
+            state.recordedIncomingMessageFingerprints,
+            normalize(fingerprint));
+      }
+      for (PendingIncomingTurn pending : nullToEmpty(snapshot.pendingIncomingTurns())) {
+        if (pending == null || pending.turn() == null) {
+          continue;
+        }
+        state.pendingIncomingTurns.addLast(pending);
+        if (pending.messageGuid() != null) {
+          state.pendingIncomingMessageGuids.add(pending.messageGuid());
+        }
+        if (pending.fingerprint() != null) {
+          state.pendingIncomingMessageFingerprints.add(pending.fingerprint());
+        }
+      }
+      state.lastProcessedMessageGuid = snapshot.lastProcessedMessageGuid();
+      state.lastProcessedMessageFingerprint = snapshot.lastProcessedMessageFingerprint();
+      state.latestProcessedMessageTimestamp = snapshot.latestProcessedMessageTimestamp();
+      state.latestWorkflowRunId = snapshot.latestWorkflowRunId();
+      state.latestWorkflowMessageGuid = snapshot.latestWorkflowMessageGuid();
+    }
+    return state;
+  }
+
+  private static <T> List<T> nullToEmpty(List<T> values) {
+    return values == null ? List.of() : values;
+  }
+
   private static String normalize(String value) {
     if (value == null || value.isBlank()) {
       return null;
@@ -279,6 +392,23 @@ public class ConversationState {
     }
   }
 
+  /**
+   * Durable subset of a conversation's in-memory state. Thread contexts and pending terms
+   * acceptances are intentionally excluded; they are rebuilt from the next incoming message.
+   */
+  public record Snapshot(
+      List<ConversationTurn> history,
+      List<String> recentIncomingMessageGuids,
+      List<String> recentIncomingMessageFingerprints,
+      List<String> recordedIncomingMessageGuids,
+      List<String> recordedIncomingMessageFingerprints,
+      List<PendingIncomingTurn> pendingIncomingTurns,
+      String lastProcessedMessageGuid,
+      String lastProcessedMessageFingerprint,
+      Instant latestProcessedMessageTimestamp,
+      String latestWorkflowRunId,
+      String latestWorkflowMessageGuid) {}
+
   public record PendingTermsAcceptance(
       IncomingMessage originalMessage, String threadRootGuid, String sender, Instant createdAt) {}
 }
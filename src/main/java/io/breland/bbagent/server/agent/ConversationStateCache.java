@@ -0,0 +1,376 @@
+package io.breland.bbagent.server.agent;
+
+import io.breland.bbagent.server.agent.persistence.ConversationStateCheckpointStore;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size- and idle-bounded map of per-chat {@link ConversationState}. Evicted states are
+ * checkpointed to Postgres and taken back on the next miss, so only chats without a recent
+ * checkpoint fall back to transport history hydration. A state with a workflow still in flight is
+ * never evicted, since the workflow keeps writing to the object it already holds; the cache may
+ * run over {@code max-entries} until those workflows finish. The state just inserted is never the
+ * one evicted to make room for itself.
+ */
+@Component
+@Slf4j
+public class ConversationStateCache extends AbstractMap<String, ConversationState> {
+  static final int DEFAULT_MAX_ENTRIES = 2_000;
+  static final Duration DEFAULT_IDLE_TTL = Duration.ofHours(2);
+  static final Duration DEFAULT_CHECKPOINT_MAX_AGE = Duration.ofHours(24);
+
+  private static final String SOURCE_CHECKPOINT = "checkpoint";
+  private static final String SOURCE_TRANSPORT = "transport";
+
+  private final Map<String, CachedConversationState> entries = new ConcurrentHashMap<>();
+  // Least recently used first. Guarded by its own monitor; lookups only reorder it.
+  private final LinkedHashMap<String, CachedConversationState> accessOrder =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private final @Nullable ConversationStateCheckpointStore checkpointStore;
+  private final @Nullable OperationalMetricsService metrics;
+  private final int maxEntries;
+  private final Duration idleTtl;
+  private final Duration checkpointMaxAge;
+  private final Clock clock;
+
+  @Autowired
+  public ConversationStateCache(
+      @Nullable ConversationStateCheckpointStore checkpointStore,
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.conversation-state.max-entries:2000}") int maxEntries,
+      @Value("${bbagent.conversation-state.idle-ttl:PT2H}") Duration idleTtl,
+      @Value("${bbagent.conversation-state.checkpoint-max-age:PT24H}") Duration checkpointMaxAge) {
+    this(checkpointStore, metrics, maxEntries, idleTtl, checkpointMaxAge, Clock.systemUTC());
+  }
+
+  public ConversationStateCache() {
+    this(
+        null,
+        null,
+        DEFAULT_MAX_ENTRIES,
+        DEFAULT_IDLE_TTL,
+        DEFAULT_CHECKPOINT_MAX_AGE,
+        Clock.systemUTC());
+  }
+
+  ConversationStateCache(
+      @Nullable ConversationStateCheckpointStore checkpointStore,
+      @Nullable OperationalMetricsService metrics,
+      int maxEntries,
+      Duration idleTtl,
+      Duration checkpointMaxAge,
+      Clock clock) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("conversation state max entries must be positive");
+    }
+    this.checkpointStore = checkpointStore;
+    this.metrics = metrics;
+    this.maxEntries = maxEntries;
+    this.idleTtl = idleTtl == null ? DEFAULT_IDLE_TTL : idleTtl;
+    this.checkpointMaxAge = checkpointMaxAge == null ? DEFAULT_CHECKPOINT_MAX_AGE : checkpointMaxAge;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  @Override
+  public @Nullable ConversationState get(Object key) {
+    CachedConversationState cached = entries.get(key);
+    if (cached == null) {
+      return null;
+    }
+    touch(key, cached);
+    return cached.state();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  /**
+   * Returns the cached state, or loads it from a checkpoint and finally from {@code loader} (the
+   * transport history hydration) when neither is available.
+   */
+  @Override
+  public ConversationState computeIfAbsent(
+      String key, Function<? super String, ? extends ConversationState> loader) {
+    CachedConversationState cached = entries.get(key);
+    if (cached != null) {
+      touch(key, cached);
+      recordLookup(true);
+      return cached.state();
+    }
+    boolean[] loaded = {false};
+    CachedConversationState result =
+        entries.computeIfAbsent(
+            key,
+            chatGuid -> {
+              loaded[0] = true;
+              return new CachedConversationState(load(chatGuid, loader), clock.millis());
+            });
+    if (loaded[0]) {
+      recordLookup(false);
+      inserted(key, result);
+    } else {
+      touch(key, result);
+      recordLookup(true);
+    }
+    return result.state();
+  }
+
+  @Override
+  public @Nullable ConversationState put(String key, ConversationState value) {
+    CachedConversationState cached = new CachedConversationState(value, clock.millis());
+    CachedConversationState previous = entries.put(key, cached);
+    inserted(key, cached);
+    return previous == null ? null : previous.state();
+  }
+
+  @Override
+  public @Nullable ConversationState remove(Object key) {
+    CachedConversationState removed = entries.remove(key);
+    if (removed != null) {
+      synchronized (accessOrder) {
+        accessOrder.remove(key, removed);
+      }
+    }
+    updateSizeGauge();
+    return removed == null ? null : removed.state();
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    synchronized (accessOrder) {
+      accessOrder.clear();
+    }
+    updateSizeGauge();
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public Set<Entry<String, ConversationState>> entrySet() {
+    return entries.entrySet().stream()
+        .map(entry -> Map.entry(entry.getKey(), entry.getValue().state()))
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bbagent.conversation-state.sweep-interval:PT1M}",
+      initialDelayString = "${bbagent.conversation-state.sweep-interval:PT1M}")
+  public void evictIdleConversations() {
+    long idleBefore = clock.millis() - idleTtl.toMillis();
+    for (Map.Entry<String, CachedConversationState> entry : entries.entrySet()) {
+      if (entry.getValue().lastAccessMillis() < idleBefore) {
+        evict(entry.getKey(), entry.getValue(), "idle");
+      }
+    }
+    if (checkpointStore != null) {
+      try {
+        checkpointStore.deleteCheckpointedBefore(clock.instant().minus(checkpointMaxAge));
+      } catch (RuntimeException e) {
+        log.warn("Failed to delete expired conversation state checkpoints", e);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void checkpointAll() {
+    for (Map.Entry<String, CachedConversationState> entry : entries.entrySet()) {
+      checkpoint(entry.getKey(), entry.getValue().state());
+    }
+  }
+
+  private ConversationState load(
+      String chatGuid, Function<? super String, ? extends ConversationState> loader) {
+    Optional<ConversationState> restored = restoreCheckpoint(chatGuid);
+    if (restored.isPresent()) {
+      return restored.get();
+    }
+    Instant startedAt = clock.instant();
+    ConversationState state = loader.apply(chatGuid);
+    recordRehydrate(SOURCE_TRANSPORT, state != null, null, startedAt);
+    return state == null ? new ConversationState() : state;
+  }
+
+  private Optional<ConversationState> restoreCheckpoint(String chatGuid) {
+    if (checkpointStore == null) {
+      return Optional.empty();
+    }
+    Instant startedAt = clock.instant();
+    try {
+      Optional<ConversationState> restored =
+          checkpointStore
+              .take(chatGuid, startedAt.minus(checkpointMaxAge))
+              .map(ConversationState::fromSnapshot);
+      if (restored.isPresent()) {
+        recordRehydrate(SOURCE_CHECKPOINT, true, null, startedAt);
+        log.info("Rehydrated conversation state for chat {} from checkpoint", chatGuid);
+      }
+      return restored;
+    } catch (RuntimeException e) {
+      recordRehydrate(
+          SOURCE_CHECKPOINT, false, OperationalMetricsService.failureType(e), startedAt);
+      log.warn("Failed to rehydrate conversation state checkpoint for chat {}", chatGuid, e);
+      return Optional.empty();
+    }
+  }
+
+  private void touch(Object key, CachedConversationState cached) {
+    cached.touch(clock.millis());
+    synchronized (accessOrder) {
+      accessOrder.get(key);
+    }
+  }
+
+  private void inserted(String key, CachedConversationState cached) {
+    synchronized (accessOrder) {
+      accessOrder.put(key, cached);
+    }
+    evictOverflow(key);
+  }
+
+  private void evictOverflow(String insertedKey) {
+    int overflow = entries.size() - maxEntries;
+    Set<String> skipped = new HashSet<>();
+    skipped.add(insertedKey);
+    while (overflow > 0) {
+      Map.Entry<String, CachedConversationState> eldest = eldest(skipped);
+      if (eldest == null) {
+        break;
+      }
+      if (evict(eldest.getKey(), eldest.getValue(), "size")) {
+        overflow--;
+      } else {
+        skipped.add(eldest.getKey());
+      }
+    }
+    updateSizeGauge();
+  }
+
+  /** The least recently used entry not in {@code skipped}, dropping any left behind by a race. */
+  private @Nullable Map.Entry<String, CachedConversationState> eldest(Set<String> skipped) {
+    synchronized (accessOrder) {
+      Iterator<Map.Entry<String, CachedConversationState>> iterator =
+          accessOrder.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, CachedConversationState> entry = iterator.next();
+        if (entries.get(entry.getKey()) != entry.getValue()) {
+          iterator.remove();
+        } else if (!skipped.contains(entry.getKey())) {
+          return Map.entry(entry.getKey(), entry.getValue());
+        }
+      }
+      return null;
+    }
+  }
+
+  private boolean evict(String chatGuid, CachedConversationState cached, String reason) {
+    ConversationState state = cached.state();
+    // Workflows write under the state's monitor, so holding it keeps a write from landing between
+    // the in-flight check and the checkpoint.
+    synchronized (state) {
+      // A workflow that was never finalized stops pinning its state after the idle TTL.
+      if (state.hasWorkflowInFlight(clock.instant().minus(idleTtl))) {
+        return false;
+      }
+      if (!entries.remove(chatGuid, cached)) {
+        return false;
+      }
+      synchronized (accessOrder) {
+        accessOrder.remove(chatGuid, cached);
+      }
+      checkpoint(chatGuid, state);
+    }
+    if (metrics != null) {
+      metrics.recordConversationStateEviction(reason);
+    }
+    updateSizeGauge();
+    return true;
+  }
+
+  private void checkpoint(String chatGuid, ConversationState state) {
+    if (checkpointStore == null || state == null) {
+      return;
+    }
+    Instant startedAt = clock.instant();
+    try {
+      checkpointStore.save(chatGuid, state.snapshot(), startedAt);
+      recordCheckpoint(true, null, startedAt);
+    } catch (RuntimeException e) {
+      recordCheckpoint(false, OperationalMetricsService.failureType(e), startedAt);
+      log.warn("Failed to checkpoint conversation state for chat {}", chatGuid, e);
+    }
+  }
+
+  private void recordLookup(boolean hit) {
+    if (metrics != null) {
+      metrics.recordConversationStateLookup(hit);
+    }
+  }
+
+  private void recordRehydrate(
+      String source, boolean success, @Nullable String failureType, Instant startedAt) {
+    if (metrics != null) {
+      metrics.recordConversationStateRehydrate(
+          source, success, failureType, Duration.between(startedAt, clock.instant()));
+    }
+  }
+
+  private void recordCheckpoint(boolean success, @Nullable String failureType, Instant startedAt) {
+    if (metrics != null) {
+      metrics.recordConversationStateCheckpoint(
+          success, failureType, Duration.between(startedAt, clock.instant()));
+    }
+  }
+
+  private void updateSizeGauge() {
+    if (metrics != null) {
+      metrics.updateConversationStateCacheSize(entries.size());
+    }
+  }
+
+  private static final class CachedConversationState {
+    private final ConversationState state;
+    private volatile long lastAccessMillis;
+
+    private CachedConversationState(ConversationState state, long lastAccessMillis) {
+      this.state = state;
+      this.lastAccessMillis = lastAccessMillis;
+    }
+
+    private ConversationState state() {
+      return state;
+    }
+
+    private long lastAccessMillis() {
+      return lastAccessMillis;
+    }
+
+    private void touch(long nowMillis) {
+      lastAccessMillis = nowMillis;
+    }
+  }
+}
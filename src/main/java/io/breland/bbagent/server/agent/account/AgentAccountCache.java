@@ -0,0 +1,144 @@
+package io.breland.bbagent.server.agent.account;
+
+import io.breland.bbagent.server.agent.account.AgentAccountResolver.ResolvedAccount;
+import io.breland.bbagent.server.agent.persistence.account.AgentAccountIdentityEntity;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolved accounts by identity and by account id, shared across threads so the ingestion path,
+ * Cadence activities and tools working on the same message resolve the sender once instead of
+ * each running the identity, account and identity-list queries again.
+ *
+ * <p>Every entry carries the cache version it was loaded at. Writing an account or identity row in
+ * this process bumps the version (see {@code AgentAccountChangeListener}), which retires every
+ * entry at once; {@code bbagent.accounts.cache-ttl} bounds how long a write made by another
+ * instance goes unseen. Entities are copied in and out, so callers may modify and save what they
+ * get back.
+ */
+@Slf4j
+@Component
+public class AgentAccountCache {
+  static final int MAX_ENTRIES = 10_000;
+
+  private final Map<IdentityKey, Entry> byIdentity = new ConcurrentHashMap<>();
+  private final Map<String, Entry> byAccountId = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+  private final @Nullable OperationalMetricsService metrics;
+  private final Duration ttl;
+  private final Clock clock;
+
+  @Autowired
+  public AgentAccountCache(
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.accounts.cache-ttl:PT30S}") Duration ttl) {
+    this(metrics, ttl, Clock.systemUTC());
+  }
+
+  AgentAccountCache(@Nullable OperationalMetricsService metrics, Duration ttl, Clock clock) {
+    this.metrics = metrics;
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /** The current version; pass it to {@link #put} with the account loaded after reading it. */
+  public long version() {
+    return version.get();
+  }
+
+  public Optional<ResolvedAccount> getByIdentity(
+      String operation, String identityType, String normalizedIdentifier) {
+    return lookup(operation, byIdentity.get(new IdentityKey(identityType, normalizedIdentifier)));
+  }
+
+  public Optional<ResolvedAccount> getByAccountId(String operation, String accountId) {
+    return lookup(operation, accountId == null ? null : byAccountId.get(accountId));
+  }
+
+  /**
+   * Caches {@code resolved} under its account id and each of its identities, unless an account or
+   * identity was written since {@code loadedAtVersion} was read.
+   */
+  public void put(ResolvedAccount resolved, long loadedAtVersion) {
+    if (resolved == null
+        || resolved.account() == null
+        || resolved.account().getAccountId() == null
+        || ttl.isZero()
+        || ttl.isNegative()
+        || loadedAtVersion != version.get()) {
+      return;
+    }
+    if (byAccountId.size() >= MAX_ENTRIES || byIdentity.size() >= MAX_ENTRIES) {
+      byAccountId.clear();
+      byIdentity.clear();
+    }
+    Entry entry = new Entry(copy(resolved), loadedAtVersion, clock.instant().plus(ttl));
+    byAccountId.put(resolved.account().getAccountId(), entry);
+    for (AgentAccountIdentityEntity identity : entry.resolved().identities()) {
+      if (identity.getIdentityType() != null
+          && identity.getNormalizedIdentifier() != null) {
+        byIdentity.put(
+            new IdentityKey(identity.getIdentityType(), identity.getNormalizedIdentifier()),
+            entry);
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    version.incrementAndGet();
+    byAccountId.clear();
+    byIdentity.clear();
+  }
+
+  private Optional<ResolvedAccount> lookup(String operation, @Nullable Entry entry) {
+    if (entry == null) {
+      recordLookup(operation, "miss");
+      return Optional.empty();
+    }
+    if (entry.version() != version.get() || !clock.instant().isBefore(entry.expiresAt())) {
+      recordLookup(operation, "stale");
+      return Optional.empty();
+    }
+    recordLookup(operation, "hit");
+    return Optional.of(copy(entry.resolved()));
+  }
+
+  private static ResolvedAccount copy(ResolvedAccount resolved) {
+    return new ResolvedAccount(
+        resolved.account().copy(),
+        resolved.identities() == null
+            ? List.of()
+            : resolved.identities().stream()
+                .filter(Objects::nonNull)
+                .map(AgentAccountIdentityEntity::copy)
+                .toList());
+  }
+
+  private void recordLookup(String operation, String result) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordAccountCacheLookup(operation, result);
+    } catch (RuntimeException e) {
+      log.warn("Failed to record account cache lookup", e);
+    }
+  }
+
+  private record IdentityKey(String identityType, String normalizedIdentifier) {}
+
+  private record Entry(ResolvedAccount resolved, long version, Instant expiresAt) {}
+}
@@ -7,6 +7,7 @@ import io.breland.bbagent.server.agent.persistence.account.AgentAccountIdentityR
 import io.breland.bbagent.server.agent.persistence.account.AgentAccountRepository;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import io.breland.bbagent.server.appclip.AppClipSessionService;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import io.breland.bbagent.server.nativeapp.NativeAppSessionService;
 import java.time.Instant;
 import java.util.LinkedHashSet;
@@ -14,47 +15,77 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @Slf4j
 public class AgentAccountResolver {
+  static final String OPERATION_RESOLVE = "resolve";
+  static final String OPERATION_RESOLVE_OR_CREATE = "resolve_or_create";
+  static final String OPERATION_RESOLVE_BY_ID = "resolve_by_id";
+  // Repository round trips made by the resolution running on this thread, for the query metric.
+  private static final ThreadLocal<int[]> QUERY_COUNT = new ThreadLocal<>();
+
   private final AgentAccountRepository accountRepository;
   private final AgentAccountIdentityRepository identityRepository;
   private final JdbcTemplate jdbcTemplate;
   private final BBHttpClientWrapper bbHttpClientWrapper;
+  private final @Nullable AgentAccountCache accountCache;
+  private final @Nullable OperationalMetricsService metrics;
 
   public AgentAccountResolver(
       AgentAccountRepository accountRepository,
       AgentAccountIdentityRepository identityRepository,
       JdbcTemplate jdbcTemplate,
-      @Nullable BBHttpClientWrapper bbHttpClientWrapper) {
+      @Nullable BBHttpClientWrapper bbHttpClientWrapper,
+      @Nullable AgentAccountCache accountCache,
+      @Nullable OperationalMetricsService metrics) {
     this.accountRepository = accountRepository;
     this.identityRepository = identityRepository;
     this.jdbcTemplate = jdbcTemplate;
     this.bbHttpClientWrapper = bbHttpClientWrapper;
+    this.accountCache = accountCache;
+    this.metrics = metrics;
   }
 
+  /**
+   * Resolves the sender's account, creating it on first contact and recording the sender's
+   * identities. A sender resolved within the account cache TTL is returned from the cache without
+   * touching the database, so the identities are recorded again only once the entry expires or an
+   * account write retires it.
+   */
   @Transactional
   public Optional<ResolvedAccount> resolveOrCreate(IncomingMessage message) {
     Optional<AccountIdentityInput> identity = identityFrom(message);
     if (identity.isEmpty()) {
       return Optional.empty();
     }
-    ResolvedAccount resolved = resolveOrCreate(identity.get());
-    recordMessageIdentities(message, resolved.account().getAccountId());
-    return Optional.of(resolveByAccountId(resolved.account().getAccountId()));
+    Optional<ResolvedAccount> cached = cached(OPERATION_RESOLVE_OR_CREATE, identity.get());
+    if (cached.isPresent()) {
+      return cached;
+    }
+    return counted(
+        OPERATION_RESOLVE_OR_CREATE,
+        version -> {
+          ResolvedAccount resolved = resolveOrCreate(identity.get());
+          recordMessageIdentities(message, resolved.account().getAccountId());
+          return Optional.of(cache(resolveByAccountId(resolved.account().getAccountId()), version));
+        });
   }
 
   @Transactional(readOnly = true)
   public Optional<ResolvedAccount> resolve(IncomingMessage message) {
-    return identityFrom(message).flatMap(this::resolve);
+    return identityFrom(message).flatMap(this::resolveCached);
   }
 
   @Transactional
@@ -64,12 +95,12 @@ public class AgentAccountResolver {
 
   @Transactional(readOnly = true)
   public Optional<ResolvedAccount> resolve(String transport, String identifier) {
-    return identityFrom(transport, identifier).flatMap(this::resolve);
+    return identityFrom(transport, identifier).flatMap(this::resolveCached);
   }
 
   @Transactional(readOnly = true)
   public Optional<ResolvedAccount> resolveByIdentityType(String identityType, String identifier) {
-    return identityFromTyped(identityType, identifier).flatMap(this::resolve);
+    return identityFromTyped(identityType, identifier).flatMap(this::resolveCached);
   }
 
   @Transactional
@@ -88,7 +119,19 @@ public class AgentAccountResolver {
     if (StringUtils.isBlank(accountId)) {
       return Optional.empty();
     }
-    return accountRepository.findById(accountId).map(this::toResolvedAccount);
+    if (cacheUsable()) {
+      Optional<ResolvedAccount> cached =
+          accountCache.getByAccountId(OPERATION_RESOLVE_BY_ID, accountId);
+      if (cached.isPresent()) {
+        return cached;
+      }
+    }
+    return counted(
+        OPERATION_RESOLVE_BY_ID,
+        version ->
+            query(() -> accountRepository.findById(accountId))
+                .map(this::toResolvedAccount)
+                .map(resolved -> cache(resolved, version)));
   }
 
   @Transactional
@@ -212,17 +255,101 @@ public class AgentAccountResolver {
                 new AccountIdentityInput(normalized.type(), identifier.trim(), normalized.value()));
   }
 
+  private Optional<ResolvedAccount> resolveCached(AccountIdentityInput input) {
+    Optional<ResolvedAccount> cached = cached(OPERATION_RESOLVE, input);
+    if (cached.isPresent()) {
+      return cached;
+    }
+    return counted(
+        OPERATION_RESOLVE,
+        version -> resolve(input).map(resolved -> cache(resolved, version)));
+  }
+
   private Optional<ResolvedAccount> resolve(AccountIdentityInput input) {
     if (input == null) {
       return Optional.empty();
     }
-    return identityRepository
-        .findByIdentityTypeAndNormalizedIdentifier(
-            input.identityType(), input.normalizedIdentifier())
-        .flatMap(identity -> accountRepository.findById(identity.getAccountId()))
+    return query(
+            () ->
+                identityRepository.findByIdentityTypeAndNormalizedIdentifier(
+                    input.identityType(), input.normalizedIdentifier()))
+        .flatMap(identity -> query(() -> accountRepository.findById(identity.getAccountId())))
         .map(this::toResolvedAccount);
   }
 
+  private Optional<ResolvedAccount> cached(String operation, AccountIdentityInput input) {
+    if (input == null || !cacheUsable()) {
+      return Optional.empty();
+    }
+    return accountCache.getByIdentity(
+        operation, input.identityType(), input.normalizedIdentifier());
+  }
+
+  private ResolvedAccount cache(ResolvedAccount resolved, long loadedAtVersion) {
+    if (accountCache != null) {
+      accountCache.put(resolved, loadedAtVersion);
+    }
+    return resolved;
+  }
+
+  /**
+   * The cache is skipped when this call joined a read-write transaction started by its caller: the
+   * caller may hold account changes it has not flushed yet, which a cached entry would not reflect.
+   */
+  private boolean cacheUsable() {
+    if (accountCache == null) {
+      return false;
+    }
+    if (!TransactionSynchronizationManager.isActualTransactionActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return true;
+    }
+    try {
+      return TransactionAspectSupport.currentTransactionStatus().isNewTransaction();
+    } catch (NoTransactionException e) {
+      // A programmatic transaction this resolver did not start.
+      return false;
+    }
+  }
+
+  /**
+   * Runs an account load, reading the cache version before it so a write racing the load keeps
+   * its result out of the cache, and records how many repository queries it made.
+   */
+  private Optional<ResolvedAccount> counted(String operation, Load load) {
+    long version = accountCache == null ? 0L : accountCache.version();
+    if (QUERY_COUNT.get() != null) {
+      return load.apply(version);
+    }
+    int[] queries = new int[1];
+    QUERY_COUNT.set(queries);
+    try {
+      return load.apply(version);
+    } finally {
+      QUERY_COUNT.remove();
+      recordQueries(operation, queries[0]);
+    }
+  }
+
+  private <T> T query(Supplier<T> query) {
+    int[] queries = QUERY_COUNT.get();
+    if (queries != null) {
+      queries[0]++;
+    }
+    return query.get();
+  }
+
+  private void recordQueries(String operation, int queries) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordAccountResolutionQueries(operation, queries);
+    } catch (RuntimeException e) {
+      log.warn("Failed to record account resolution queries", e);
+    }
+  }
+
   private ResolvedAccount resolveOrCreate(AccountIdentityInput input) {
     return resolve(input).orElseGet(() -> createAccount(input));
   }
@@ -236,15 +363,15 @@ public class AgentAccountResolver {
   }
 
   private ResolvedAccount resolveByAccountId(String accountId) {
-    return accountRepository
-        .findById(accountId)
+    return query(() -> accountRepository.findById(accountId))
         .map(this::toResolvedAccount)
         .orElseThrow(() -> new IllegalStateException("missing account " + accountId));
   }
 
   private ResolvedAccount toResolvedAccount(AgentAccountEntity account) {
+    String accountId = account.getAccountId();
     return new ResolvedAccount(
-        account, identityRepository.findAllByAccountIdOrderByCreatedAtAsc(account.getAccountId()));
+        account, query(() -> identityRepository.findAllByAccountIdOrderByCreatedAtAsc(accountId)));
   }
 
   private void recordMessageIdentities(IncomingMessage message, String accountId) {
@@ -272,8 +399,10 @@ public class AgentAccountResolver {
       return;
     }
     Optional<AgentAccountIdentityEntity> existing =
-        identityRepository.findByIdentityTypeAndNormalizedIdentifier(
-            input.identityType(), input.normalizedIdentifier());
+        query(
+            () ->
+                identityRepository.findByIdentityTypeAndNormalizedIdentifier(
+                    input.identityType(), input.normalizedIdentifier()));
     if (existing.isPresent()) {
       AgentAccountIdentityEntity entity = existing.get();
       if (!accountId.equals(entity.getAccountId())) {
@@ -634,6 +763,11 @@ public class AgentAccountResolver {
     return null;
   }
 
+  @FunctionalInterface
+  private interface Load {
+    Optional<ResolvedAccount> apply(long cacheVersion);
+  }
+
   public record AccountIdentityInput(
       String identityType, String identifier, String normalizedIdentifier) {}
 
@@ -0,0 +1,17 @@
+package io.breland.bbagent.server.agent.account;
+
+import io.breland.bbagent.server.agent.persistence.account.AgentAccountEntity;
+
+/**
+ * The sender's account id as resolved once when a message is accepted. It travels with the message
+ * through its workflow so activities and tools can use the account id without resolving the sender
+ * again. Account flags such as premium or blocked status are deliberately not carried: they can
+ * change while a workflow runs, so anything that needs them should go through {@link
+ * AgentAccountResolver}.
+ */
+public record ResolvedAccountContext(String accountId) {
+
+  public static ResolvedAccountContext from(AgentAccountEntity account) {
+    return new ResolvedAccountContext(account.getAccountId());
+  }
+}
@@ -5,6 +5,7 @@ import io.breland.bbagent.server.agent.ConversationTurn;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.cadence.models.CadenceResponseBundle;
 import io.breland.bbagent.server.agent.cadence.models.CadenceToolCall;
+import io.breland.bbagent.server.agent.cadence.models.ConversationInputDelta;
 import io.breland.bbagent.server.agent.cadence.models.ImageSendResult;
 import java.util.List;
 
@@ -23,6 +24,11 @@ public interface CadenceAgentActivities {
   CadenceResponseBundle createResponseBundle(
       String inputItemsJson, IncomingMessage message, AgentWorkflowContext workflowContext);
 
+  CadenceResponseBundle createResponseBundleFromDelta(
+      ConversationInputDelta inputDelta,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext);
+
   String executeToolCallsJson(
       List<CadenceToolCall> toolCalls,
       IncomingMessage message,
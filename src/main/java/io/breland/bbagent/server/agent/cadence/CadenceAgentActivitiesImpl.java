@@ -7,11 +7,17 @@ import com.openai.core.JsonValue;
 import com.openai.models.responses.ResponseFunctionToolCall;
 import com.openai.models.responses.ResponseInputItem;
 import com.openai.models.responses.ResponseOutputItem;
+import com.uber.cadence.activity.Activity;
 import io.breland.bbagent.server.agent.*;
 import io.breland.bbagent.server.agent.cadence.models.CadenceResponseBundle;
 import io.breland.bbagent.server.agent.cadence.models.CadenceToolCall;
+import io.breland.bbagent.server.agent.cadence.models.ConversationInputDelta;
 import io.breland.bbagent.server.agent.cadence.models.GeneratedImage;
 import io.breland.bbagent.server.agent.cadence.models.ImageSendResult;
+import io.breland.bbagent.server.agent.llm.LlmStreamListener;
+import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolCallScheduler;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.transport.MessageTransport;
 import io.breland.bbagent.server.agent.transport.MessageTransportRegistry;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
@@ -34,6 +40,8 @@ public class CadenceAgentActivitiesImpl implements CadenceAgentActivities {
   private final AgentPromptBuilder promptBuilder;
   private final MessageTransportRegistry transportRegistry;
   private final BlobStore blobStore;
+  private final ToolCallScheduler toolCallScheduler;
+  private final ConversationInputStore conversationInputStore;
   private final GeneratedImageExtractor generatedImageExtractor = new GeneratedImageExtractor();
 
   @Override
@@ -113,71 +121,140 @@ public class CadenceAgentActivitiesImpl implements CadenceAgentActivities {
       return null;
     }
     try {
-      JsonNode inputNode = messageAgent.getObjectMapper().readTree(inputItemsJson);
-      List<ResponseInputItem> inputItems =
-          JsonValue.fromJsonNode(inputNode).convert(new TypeReference<>() {});
-      var response = messageAgent.createResponse(inputItems, message, workflowContext);
-      if (response == null) {
-        return null;
+      return createResponseBundle(parseInputItems(inputItemsJson), message, workflowContext);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to create response bundle", e);
+    }
+  }
+
+  @Override
+  public CadenceResponseBundle createResponseBundleFromDelta(
+      ConversationInputDelta inputDelta,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext) {
+    if (!messageAgent.canSendResponses(workflowContext)) {
+      return null;
+    }
+    try {
+      Optional<List<ResponseInputItem>> inputItems =
+          conversationInputStore.apply(
+              inputDelta.workflowId(),
+              inputDelta.runId(),
+              inputDelta.baseVersion(),
+              parseInputItems(inputDelta.itemsJson()),
+              inputDelta.snapshot());
+      if (inputItems.isEmpty()) {
+        log.info(
+            "Conversation input missing for workflow {} at version {}; requesting snapshot",
+            inputDelta.workflowId(),
+            inputDelta.baseVersion());
+        return CadenceResponseBundle.missingInput();
       }
-      Set<String> imageCallIds = new HashSet<>();
-      response.output().stream()
-          .filter(ResponseOutputItem::isImageGenerationCall)
-          .map(ResponseOutputItem::asImageGenerationCall)
-          .forEach(
-              imageGenerationCall -> {
-                String id = imageGenerationCall.id();
-                Optional<String> value = imageGenerationCall.result();
-                if (value.isEmpty()) {
-                  if (!id.isBlank()) {
-                    imageCallIds.add(id);
-                  }
-                  return;
-                }
-                String result = value.get();
-                if (!id.isBlank()) {
-                  imageCallIds.add(id);
-                  if (!result.isBlank()) {
-                    this.blobStore.storeBlob(message.chatGuid(), id, result);
-                  }
-                }
-              });
-      String responseJson = toJsonWithoutImageResults(response, imageCallIds);
-      String assistantText =
-          AgentResponseHelper.normalizeAssistantText(
-              messageAgent.getObjectMapper(), AgentResponseHelper.extractResponseText(response));
-      List<ResponseFunctionToolCall> functionCalls =
-          AgentResponseHelper.extractFunctionCalls(response);
-      List<CadenceToolCall> toolCalls =
-          functionCalls.stream()
-              .map(call -> new CadenceToolCall(call.callId(), call.name(), call.arguments()))
-              .toList();
-      String toolContextItemsJson =
-          toJson(AgentResponseHelper.extractToolContextItems(response, functionCalls));
-      return new CadenceResponseBundle(
-          responseJson, assistantText, toolContextItemsJson, toolCalls);
+      return createResponseBundle(inputItems.get(), message, workflowContext);
     } catch (Exception e) {
       throw new RuntimeException("Failed to create response bundle", e);
     }
   }
 
+  private List<ResponseInputItem> parseInputItems(String inputItemsJson) throws Exception {
+    if (inputItemsJson == null || inputItemsJson.isBlank()) {
+      return List.of();
+    }
+    JsonNode inputNode = messageAgent.getObjectMapper().readTree(inputItemsJson);
+    return JsonValue.fromJsonNode(inputNode).convert(new TypeReference<>() {});
+  }
+
+  private CadenceResponseBundle createResponseBundle(
+      List<ResponseInputItem> inputItems,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext)
+      throws Exception {
+    var response =
+        messageAgent.createResponse(
+            inputItems, message, workflowContext, typingRefresher(message, workflowContext));
+    if (response == null) {
+      return null;
+    }
+    Set<String> imageCallIds = new HashSet<>();
+    response.output().stream()
+        .filter(ResponseOutputItem::isImageGenerationCall)
+        .map(ResponseOutputItem::asImageGenerationCall)
+        .forEach(
+            imageGenerationCall -> {
+              String id = imageGenerationCall.id();
+              Optional<String> value = imageGenerationCall.result();
+              if (value.isEmpty()) {
+                if (!id.isBlank()) {
+                  imageCallIds.add(id);
+                }
+                return;
+              }
+              String result = value.get();
+              if (!id.isBlank()) {
+                imageCallIds.add(id);
+                if (!result.isBlank()) {
+                  this.blobStore.storeBlob(message.chatGuid(), id, result);
+                }
+              }
+            });
+    String responseJson = toJsonWithoutImageResults(response, imageCallIds);
+    String assistantText =
+        AgentResponseHelper.normalizeAssistantText(
+            messageAgent.getObjectMapper(), AgentResponseHelper.extractResponseText(response));
+    List<ResponseFunctionToolCall> functionCalls =
+        AgentResponseHelper.extractFunctionCalls(response);
+    List<CadenceToolCall> toolCalls =
+        functionCalls.stream()
+            .map(call -> new CadenceToolCall(call.callId(), call.name(), call.arguments()))
+            .toList();
+    String toolContextItemsJson =
+        toJson(AgentResponseHelper.extractToolContextItems(response, functionCalls));
+    return new CadenceResponseBundle(responseJson, assistantText, toolContextItemsJson, toolCalls);
+  }
+
+  /**
+   * Refreshes the typing indicator as soon as the streamed response completes its first tool call,
+   * so it stays visible while the tools run after a long reasoning phase.
+   */
+  private LlmStreamListener typingRefresher(
+      IncomingMessage message, AgentWorkflowContext workflowContext) {
+    return new LlmStreamListener() {
+      private boolean refreshed;
+
+      @Override
+      public void onFunctionCall(ResponseFunctionToolCall call) {
+        if (!refreshed) {
+          refreshed = true;
+          updateTyping(message, workflowContext, true);
+        }
+      }
+    };
+  }
+
   @Override
   public String executeToolCallsJson(
       List<CadenceToolCall> toolCalls,
       IncomingMessage message,
       AgentWorkflowContext workflowContext) {
     try {
-      List<com.openai.models.responses.ResponseInputItem> outputs = new ArrayList<>();
+      List<ToolCallScheduler.ScheduledCall<ResponseInputItem>> calls = new ArrayList<>();
       for (CadenceToolCall toolCall : toolCalls) {
-        com.openai.models.responses.ResponseFunctionToolCall call =
-            com.openai.models.responses.ResponseFunctionToolCall.builder()
+        ResponseFunctionToolCall call =
+            ResponseFunctionToolCall.builder()
                 .callId(toolCall.callId())
                 .name(toolCall.name())
                 .arguments(toolCall.arguments())
                 .build();
-        outputs.add(messageAgent.runToolActivity(call, message, workflowContext));
+        AgentTool tool = messageAgent.resolveTool(toolCall.name(), message);
+        calls.add(
+            new ToolCallScheduler.ScheduledCall<>(
+                toolCall.name(),
+                tool == null ? ToolConcurrency.SERIAL : tool.concurrency(),
+                tool == null ? null : tool.timeout(),
+                () -> messageAgent.runToolActivity(call, message, workflowContext),
+                timeout -> AgentResponseHelper.timedOutToolCallOutput(toolCall.callId(), timeout)));
       }
-      return toJson(outputs);
+      return toJson(toolCallScheduler.run(calls));
     } catch (Exception e) {
       throw new RuntimeException("Failed to execute tool calls", e);
     }
@@ -288,6 +365,9 @@ public class CadenceAgentActivitiesImpl implements CadenceAgentActivities {
   @Override
   public void finalizeWorkflow(
       IncomingMessage message, AgentWorkflowContext workflowContext, boolean responded) {
+    if (workflowContext != null) {
+      conversationInputStore.remove(workflowContext.workflowId(), currentRunId());
+    }
     ConversationState state = messageAgent.getConversations().get(message.chatGuid());
     if (state == null) {
       return;
@@ -298,6 +378,17 @@ public class CadenceAgentActivitiesImpl implements CadenceAgentActivities {
       }
       state.markIncomingMessageSeen(message);
       messageAgent.updateThreadContext(state, message);
+      state.workflowFinished();
+    }
+  }
+
+  /** Run ID of the workflow that scheduled the current activity, or null outside Cadence. */
+  private static String currentRunId() {
+    try {
+      return Activity.getWorkflowExecution().getRunId();
+    } catch (IllegalStateException e) {
+      // Running outside an activity, such as in unit tests.
+      return null;
     }
   }
 
@@ -139,24 +139,38 @@ public final class CadenceIncomingMessageHandler {
       state.recordPendingIncomingTurn(message);
       state.setLatestWorkflowMessageGuid(message.messageGuid());
       state.setLatestWorkflowRunId(null);
+      state.workflowAccepted(Instant.now());
     }
     recordAcceptedMessageMetric(message);
     return new PreparedIncomingMessage(state, message);
   }
 
   private void startCadenceWorkflow(ConversationState state, IncomingMessage message) {
-    AgentWorkflowContext workflowContext =
-        new AgentWorkflowContext(
-            resolveWorkflowId(message), message.chatGuid(), message.messageGuid(), Instant.now());
-    log.info("Responding via cadence workflow");
-    WorkflowExecution execution =
-        cadenceWorkflowLauncher.startWorkflow(
-            new CadenceMessageWorkflowRequest(workflowContext, message, null));
-    if (execution != null) {
-      synchronized (state) {
-        if (Objects.equals(state.getLatestWorkflowMessageGuid(), message.messageGuid())) {
-          state.setLatestWorkflowRunId(execution.getRunId());
-        }
+    WorkflowExecution execution;
+    try {
+      AgentWorkflowContext workflowContext =
+          new AgentWorkflowContext(
+              resolveWorkflowId(message),
+              message.chatGuid(),
+              message.messageGuid(),
+              Instant.now(),
+              profileService.resolveAccountContext(message).orElse(null));
+      log.info("Responding via cadence workflow");
+      execution =
+          cadenceWorkflowLauncher.startWorkflow(
+              new CadenceMessageWorkflowRequest(workflowContext, message, null));
+    } catch (RuntimeException e) {
+      // The caller retries failed deliveries; a retry must not be dropped as already seen.
+      state.forgetIncomingMessageSeen(message);
+      state.workflowFinished();
+      throw e;
+    }
+    synchronized (state) {
+      if (execution == null) {
+        // No workflow will finalize this message, so it no longer keeps the state in memory.
+        state.workflowFinished();
+      } else if (Objects.equals(state.getLatestWorkflowMessageGuid(), message.messageGuid())) {
+        state.setLatestWorkflowRunId(execution.getRunId());
       }
     }
   }
@@ -232,6 +246,7 @@ public final class CadenceIncomingMessageHandler {
       state.recordPendingIncomingTurn(message);
       state.setLatestWorkflowMessageGuid(message.messageGuid());
       state.setLatestWorkflowRunId(null);
+      state.workflowAccepted(Instant.now());
     }
     recordAcceptedMessageMetric(message);
     startCadenceWorkflow(state, message);
@@ -13,6 +13,7 @@ import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.cadence.models.CadenceMessageWorkflowRequest;
 import io.breland.bbagent.server.agent.cadence.models.CadenceResponseBundle;
 import io.breland.bbagent.server.agent.cadence.models.CadenceToolCall;
+import io.breland.bbagent.server.agent.cadence.models.ConversationInputDelta;
 import io.breland.bbagent.server.agent.cadence.models.ImageSendResult;
 import io.breland.bbagent.server.agent.tools.AgentToolLoopGuard;
 import io.breland.bbagent.server.agent.tools.bb.SendReactionAgentTool;
@@ -24,6 +25,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -33,8 +36,12 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
   private static final int MAX_CONSECUTIVE_BLOCKED_TOOL_LOOPS = 2;
   private static final int MAX_EMPTY_ASSISTANT_RESPONSE_RETRIES = 2;
   private static final ObjectMapper JSON = new ObjectMapper();
+  private static final String DELTA_INPUT_CHANGE_ID = "conversation-input-deltas";
+  private static final int DELTA_INPUT_VERSION = 1;
 
   private final CadenceAgentActivities activities;
+  private final BooleanSupplier deltaInputEnabled;
+  private final Supplier<String> runId;
 
   public CadenceMessageWorkflowImpl() {
     this(
@@ -43,11 +50,29 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
             new ActivityOptions.Builder()
                 .setScheduleToCloseTimeout(Duration.ofMinutes(5))
                 .setStartToCloseTimeout(Duration.ofMinutes(5))
-                .build()));
+                .build()),
+        () ->
+            Workflow.getVersion(
+                    DELTA_INPUT_CHANGE_ID, Workflow.DEFAULT_VERSION, DELTA_INPUT_VERSION)
+                >= DELTA_INPUT_VERSION,
+        () -> Workflow.getWorkflowInfo().getRunId());
   }
 
   CadenceMessageWorkflowImpl(CadenceAgentActivities activities) {
+    this(activities, () -> true);
+  }
+
+  CadenceMessageWorkflowImpl(CadenceAgentActivities activities, BooleanSupplier deltaInputEnabled) {
+    this(activities, deltaInputEnabled, () -> null);
+  }
+
+  CadenceMessageWorkflowImpl(
+      CadenceAgentActivities activities,
+      BooleanSupplier deltaInputEnabled,
+      Supplier<String> runId) {
     this.activities = Objects.requireNonNull(activities, "activities");
+    this.deltaInputEnabled = Objects.requireNonNull(deltaInputEnabled, "deltaInputEnabled");
+    this.runId = Objects.requireNonNull(runId, "runId");
   }
 
   @Override
@@ -68,12 +93,17 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
       activities.finalizeWorkflow(message, request.workflowContext(), true);
       return;
     }
-    String inputItemsJson =
-        activities.buildConversationInputJson(activities.getConversationHistory(message), message);
+    boolean deltas = deltaInputEnabled.getAsBoolean();
+    ConversationInput input =
+        new ConversationInput(
+            activities.buildConversationInputJson(
+                activities.getConversationHistory(message), message),
+            request.workflowContext(),
+            deltas ? runId.get() : null,
+            deltas);
     updateTyping(message, request.workflowContext(), true);
     try {
-      CadenceResponseBundle bundle =
-          activities.createResponseBundle(inputItemsJson, message, request.workflowContext());
+      CadenceResponseBundle bundle = input.createResponseBundle(message);
       if (bundle == null) {
         activities.finalizeWorkflow(message, request.workflowContext(), false);
         return;
@@ -110,14 +140,8 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
                       executableToolCalls, message, request.workflowContext());
           String blockedOutputsJson =
               blockedToolCalls.isEmpty() ? "[]" : activities.blockedToolCallsJson(blockedToolCalls);
-          inputItemsJson =
-              mergeJsonArrays(
-                  inputItemsJson,
-                  bundle.toolContextItemsJson(),
-                  toolOutputsJson,
-                  blockedOutputsJson);
-          bundle =
-              activities.createResponseBundle(inputItemsJson, message, request.workflowContext());
+          input.append(bundle.toolContextItemsJson(), toolOutputsJson, blockedOutputsJson);
+          bundle = input.createResponseBundle(message);
           toolLoops++;
           if (bundle == null) {
             activities.finalizeWorkflow(message, request.workflowContext(), false);
@@ -212,13 +236,8 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
             request.workflowContext(),
             emptyResponseRetries,
             MAX_EMPTY_ASSISTANT_RESPONSE_RETRIES);
-        inputItemsJson =
-            mergeJsonArrays(
-                inputItemsJson,
-                bundle.toolContextItemsJson(),
-                emptyAssistantResponseRetryInstructionJson());
-        bundle =
-            activities.createResponseBundle(inputItemsJson, message, request.workflowContext());
+        input.append(bundle.toolContextItemsJson(), emptyAssistantResponseRetryInstructionJson());
+        bundle = input.createResponseBundle(message);
         if (bundle == null) {
           activities.finalizeWorkflow(message, request.workflowContext(), false);
           return;
@@ -245,6 +264,72 @@ public class CadenceMessageWorkflowImpl implements CadenceMessageWorkflow {
     }
   }
 
+  /**
+   * The model input accumulated across tool loops.
+   *
+   * <p>With deltas enabled, each model call sends only the items appended since the previous call
+   * plus the version they apply to; the activity keeps the parsed input in {@link
+   * ConversationInputStore}. If the activity no longer holds it, the call is retried once with the
+   * full input as a snapshot. Workflows started before deltas existed keep sending the merged JSON
+   * on every call so their histories replay unchanged.
+   */
+  private final class ConversationInput {
+    private final AgentWorkflowContext workflowContext;
+    private final String runId;
+    private final boolean deltas;
+    private final List<String> chunks = new ArrayList<>();
+    private String mergedJson;
+    private int sentChunks;
+    private int version;
+
+    private ConversationInput(
+        String initialJson, AgentWorkflowContext workflowContext, String runId, boolean deltas) {
+      this.workflowContext = workflowContext;
+      this.runId = runId;
+      this.deltas = deltas;
+      this.mergedJson = initialJson;
+      chunks.add(initialJson);
+    }
+
+    private void append(String... itemsJson) {
+      if (deltas) {
+        chunks.add(mergeJsonArrays("[]", itemsJson));
+      } else {
+        mergedJson = mergeJsonArrays(mergedJson, itemsJson);
+      }
+    }
+
+    private CadenceResponseBundle createResponseBundle(IncomingMessage message) {
+      if (!deltas) {
+        return activities.createResponseBundle(mergedJson, message, workflowContext);
+      }
+      List<String> unsent = chunks.subList(sentChunks, chunks.size());
+      String deltaJson =
+          unsent.size() == 1 ? unsent.get(0) : mergeJsonArrays("[]", unsent.toArray(String[]::new));
+      CadenceResponseBundle bundle =
+          activities.createResponseBundleFromDelta(
+              new ConversationInputDelta(
+                  workflowContext.workflowId(), runId, version, deltaJson, false),
+              message,
+              workflowContext);
+      if (bundle != null && bundle.inputMissing()) {
+        bundle =
+            activities.createResponseBundleFromDelta(
+                new ConversationInputDelta(
+                    workflowContext.workflowId(),
+                    runId,
+                    version,
+                    mergeJsonArrays("[]", chunks.toArray(String[]::new)),
+                    true),
+                message,
+                workflowContext);
+      }
+      sentChunks = chunks.size();
+      version++;
+      return bundle;
+    }
+  }
+
   private static boolean hasToolCall(List<CadenceToolCall> toolCalls, String name) {
     if (toolCalls == null || toolCalls.isEmpty() || name == null) {
       return false;
@@ -0,0 +1,137 @@
+package io.breland.bbagent.server.agent.cadence;
+
+import com.openai.models.responses.ResponseInputItem;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Activity-side copy of each running workflow's accumulated model input, keyed by workflow and run
+ * ID. Workflows send only the items added since the previous model call; this store appends them to
+ * the already-parsed items so neither Cadence history nor the activity re-serializes the whole
+ * conversation on every tool loop.
+ *
+ * <p>A chat's workflow ID is reused when a newer message restarts it, so a late activity from a
+ * terminated run must not read or extend the input of the run that replaced it.
+ *
+ * <p>The store is per process and bounded. A workflow whose input is missing (another worker, a
+ * restart, or eviction) is told so and resends a full snapshot.
+ */
+@Component
+public class ConversationInputStore {
+  static final int DEFAULT_MAX_WORKFLOWS = 256;
+  static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(30);
+
+  private final Map<RunKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final int maxWorkflows;
+  private final Duration idleTtl;
+  private final Clock clock;
+
+  @Autowired
+  public ConversationInputStore(
+      @Value("${bbagent.cadence.input-store.max-workflows:256}") int maxWorkflows,
+      @Value("${bbagent.cadence.input-store.idle-ttl:PT30M}") Duration idleTtl) {
+    this(maxWorkflows, idleTtl, Clock.systemUTC());
+  }
+
+  public ConversationInputStore() {
+    this(DEFAULT_MAX_WORKFLOWS, DEFAULT_IDLE_TTL, Clock.systemUTC());
+  }
+
+  ConversationInputStore(int maxWorkflows, Duration idleTtl, Clock clock) {
+    if (maxWorkflows <= 0) {
+      throw new IllegalArgumentException("input store max workflows must be positive");
+    }
+    this.maxWorkflows = maxWorkflows;
+    this.idleTtl = idleTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Applies {@code items} on top of {@code baseVersion} and returns the full input, or empty when
+   * the base is not held here. Version 0 and snapshots always replace the stored input. Reapplying
+   * the delta that produced the current version (an activity retry) is a no-op.
+   */
+  public synchronized Optional<List<ResponseInputItem>> apply(
+      String workflowId,
+      @Nullable String runId,
+      int baseVersion,
+      List<ResponseInputItem> items,
+      boolean snapshot) {
+    Instant now = clock.instant();
+    evictIdle(now);
+    RunKey key = new RunKey(workflowId, runId);
+    Entry entry = entries.get(key);
+    if (snapshot || baseVersion == 0) {
+      entry = new Entry(new ArrayList<>(items), baseVersion + 1, now);
+      entries.put(key, entry);
+      evictOverflow();
+      return Optional.of(List.copyOf(entry.items));
+    }
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (entry.version == baseVersion) {
+      entry.items.addAll(items);
+      entry.version = baseVersion + 1;
+    } else if (entry.version != baseVersion + 1) {
+      entries.remove(key);
+      return Optional.empty();
+    }
+    entry.lastAccess = now;
+    return Optional.of(List.copyOf(entry.items));
+  }
+
+  public synchronized void remove(String workflowId, @Nullable String runId) {
+    if (workflowId != null) {
+      entries.remove(new RunKey(workflowId, runId));
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private void evictIdle(Instant now) {
+    Instant cutoff = now.minus(idleTtl);
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (!iterator.next().lastAccess.isBefore(cutoff)) {
+        break;
+      }
+      iterator.remove();
+    }
+  }
+
+  private void evictOverflow() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (entries.size() > maxWorkflows && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  private record RunKey(String workflowId, @Nullable String runId) {}
+
+  private static final class Entry {
+    private final List<ResponseInputItem> items;
+    private int version;
+    private Instant lastAccess;
+
+    private Entry(List<ResponseInputItem> items, int version, Instant lastAccess) {
+      this.items = items;
+      this.version = version;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
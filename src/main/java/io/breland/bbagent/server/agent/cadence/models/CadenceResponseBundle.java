@@ -2,8 +2,25 @@ package io.breland.bbagent.server.agent.cadence.models;
 
 import java.util.List;
 
+/**
+ * Result of one model call. {@code inputMissing} means the activity no longer held the workflow's
+ * accumulated input, and the workflow must resend it as a snapshot.
+ */
 public record CadenceResponseBundle(
     String responseJson,
     String assistantText,
     String toolContextItemsJson,
-    List<CadenceToolCall> toolCalls) {}
+    List<CadenceToolCall> toolCalls,
+    boolean inputMissing) {
+  public CadenceResponseBundle(
+      String responseJson,
+      String assistantText,
+      String toolContextItemsJson,
+      List<CadenceToolCall> toolCalls) {
+    this(responseJson, assistantText, toolContextItemsJson, toolCalls, false);
+  }
+
+  public static CadenceResponseBundle missingInput() {
+    return new CadenceResponseBundle(null, null, null, List.of(), true);
+  }
+}
@@ -0,0 +1,14 @@
+package io.breland.bbagent.server.agent.cadence.models;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Model input items added since version {@code baseVersion} of a workflow run's accumulated input.
+ * A {@code snapshot} carries the whole input instead and replaces whatever the activity side holds.
+ */
+public record ConversationInputDelta(
+    String workflowId,
+    @Nullable String runId,
+    int baseVersion,
+    String itemsJson,
+    boolean snapshot) {}
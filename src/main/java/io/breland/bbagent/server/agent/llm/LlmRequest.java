@@ -6,10 +6,29 @@ import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.model_picker.ModelAccessService;
 import io.breland.bbagent.server.agent.tools.AgentTool;
 import java.util.List;
+import org.springframework.lang.Nullable;
 
+/**
+ * A single model call. When {@code streamListener} is set the provider streams the response and
+ * reports progress to it before returning the completed response.
+ */
 public record LlmRequest(
     ModelAccessService.ModelAccess modelAccess,
     List<ResponseInputItem> inputItems,
     List<AgentTool> tools,
     IncomingMessage message,
-    AgentWorkflowContext workflowContext) {}
+    AgentWorkflowContext workflowContext,
+    @Nullable LlmStreamListener streamListener) {
+  public LlmRequest(
+      ModelAccessService.ModelAccess modelAccess,
+      List<ResponseInputItem> inputItems,
+      List<AgentTool> tools,
+      IncomingMessage message,
+      AgentWorkflowContext workflowContext) {
+    this(modelAccess, inputItems, tools, message, workflowContext, null);
+  }
+
+  public boolean streaming() {
+    return streamListener != null;
+  }
+}
@@ -0,0 +1,17 @@
+package io.breland.bbagent.server.agent.llm;
+
+import com.openai.models.responses.ResponseFunctionToolCall;
+
+/**
+ * Receives progress from a streamed model response. Callbacks run on the thread consuming the
+ * stream, so they should return quickly.
+ */
+public interface LlmStreamListener {
+  LlmStreamListener NONE = new LlmStreamListener() {};
+
+  /** Called once, when the first text, reasoning or tool-argument token arrives. */
+  default void onFirstToken() {}
+
+  /** Called as soon as a function call item and its arguments are complete. */
+  default void onFunctionCall(ResponseFunctionToolCall call) {}
+}
@@ -1,11 +1,16 @@
 package io.breland.bbagent.server.agent.llm;
 
 import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
 import com.openai.models.responses.Response;
 import com.openai.models.responses.ResponseCreateParams;
+import com.openai.models.responses.ResponseError;
+import com.openai.models.responses.ResponseOutputItem;
+import com.openai.models.responses.ResponseStreamEvent;
 import com.openai.models.responses.Tool;
 import io.breland.bbagent.server.agent.model_picker.ModelPicker;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import java.util.Iterator;
 import java.util.function.Supplier;
 
 public final class OpenAiResponsesLlmProvider implements LlmProvider {
@@ -20,12 +25,70 @@ public final class OpenAiResponsesLlmProvider implements LlmProvider {
 
   @Override
   public Response createResponse(LlmRequest request) {
+    ResponseCreateParams params = params(request);
+    if (!request.streaming()) {
+      return openAiSupplier.get().responses().create(params);
+    }
+    try (StreamResponse<ResponseStreamEvent> stream =
+        openAiSupplier.get().responses().createStreaming(params)) {
+      return consume(stream.stream().iterator(), request.streamListener());
+    }
+  }
+
+  /**
+   * Reads stream events until the response completes. Function calls are handed to the listener
+   * as each output item finishes rather than after the whole response, and the completed response
+   * carried by the terminal event is returned.
+   */
+  static Response consume(Iterator<ResponseStreamEvent> events, LlmStreamListener listener) {
+    boolean receivedToken = false;
+    while (events.hasNext()) {
+      ResponseStreamEvent event = events.next();
+      if (!receivedToken && isToken(event)) {
+        receivedToken = true;
+        listener.onFirstToken();
+      }
+      if (event.isOutputItemDone()) {
+        ResponseOutputItem item = event.asOutputItemDone().item();
+        if (item.isFunctionCall()) {
+          listener.onFunctionCall(item.asFunctionCall());
+        }
+      } else if (event.isCompleted()) {
+        return event.asCompleted().response();
+      } else if (event.isIncomplete()) {
+        return event.asIncomplete().response();
+      } else if (event.isFailed()) {
+        throw new IllegalStateException(
+            "Model response failed: "
+                + event
+                    .asFailed()
+                    .response()
+                    .error()
+                    .map(ResponseError::message)
+                    .orElse("unknown error"));
+      } else if (event.isError()) {
+        throw new IllegalStateException(
+            "Model response stream error: " + event.asError().message());
+      }
+    }
+    throw new IllegalStateException("Model response stream ended before the response completed");
+  }
+
+  private static boolean isToken(ResponseStreamEvent event) {
+    return event.isOutputTextDelta()
+        || event.isReasoningTextDelta()
+        || event.isReasoningSummaryTextDelta()
+        || event.isFunctionCallArgumentsDelta()
+        || event.isRefusalDelta();
+  }
+
+  private ResponseCreateParams params(LlmRequest request) {
     ResponseCreateParams.Builder params =
         ResponseCreateParams.builder().inputOfResponse(request.inputItems());
     modelPicker.applyResponsesModelParams(params, request.modelAccess(), request.message());
     for (AgentTool tool : request.tools()) {
       params.addTool(Tool.ofFunction(tool.asFunctionTool()));
     }
-    return openAiSupplier.get().responses().create(params.build());
+    return params.build();
   }
 }
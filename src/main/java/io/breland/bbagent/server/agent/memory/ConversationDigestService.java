@@ -3,6 +3,8 @@ package io.breland.bbagent.server.agent.memory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.breland.bbagent.server.ExecutorSupport;
+import io.breland.bbagent.server.TimeSupport;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.AuthorizedGroup;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CatchupGroup;
@@ -16,6 +18,7 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.QuestionG
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.SummaryMaterial;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -28,11 +31,20 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,9 +53,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
+@Slf4j
 public class ConversationDigestService {
   private static final Duration MAX_CATCHUP_RANGE = Duration.ofDays(31);
-  private static final int DIGEST_CLAIM_LIMIT = 20;
+  private static final Duration DEFAULT_RECONCILIATION_DEADLINE = Duration.ofHours(3);
+  private static final int BACKFILL_PAGE_SIZE = 500;
 
   private final ConversationMemoryStore store;
   private final ObjectMapper objectMapper;
@@ -54,6 +68,11 @@ public class ConversationDigestService {
   private final String workerId;
   private final @Nullable OperationalMetricsService metrics;
   private final boolean globallyEnabled;
+  private final Executor reconciliationExecutor;
+  private final int concurrency;
+  private final Duration reconciliationDeadline;
+  private final AtomicReference<CompletableFuture<Void>> activeReconciliation =
+      new AtomicReference<>();
 
   @Autowired
   public ConversationDigestService(
@@ -64,7 +83,9 @@ public class ConversationDigestService {
       ConversationQuestionAnsweringService questionAnsweringService,
       @Nullable Clock clock,
       @Nullable OperationalMetricsService metrics,
-      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled) {
+      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled,
+      @Value("${bbagent.memory.group.digest-concurrency:4}") int concurrency,
+      @Value("${bbagent.memory.group.digest-deadline:PT3H}") Duration reconciliationDeadline) {
     this(
         store,
         objectMapper,
@@ -74,7 +95,10 @@ public class ConversationDigestService {
         clock == null ? Clock.systemUTC() : clock,
         UUID.randomUUID().toString(),
         metrics,
-        globallyEnabled);
+        globallyEnabled,
+        ExecutorSupport.virtualThreadPool("memory-digest-", concurrency),
+        concurrency,
+        reconciliationDeadline);
   }
 
   ConversationDigestService(
@@ -147,6 +171,37 @@ public class ConversationDigestService {
       String workerId,
       @Nullable OperationalMetricsService metrics,
       boolean globallyEnabled) {
+    this(
+        store,
+        objectMapper,
+        bbHttpClientWrapper,
+        journalService,
+        questionAnsweringService,
+        clock,
+        workerId,
+        metrics,
+        globallyEnabled,
+        Runnable::run,
+        1,
+        DEFAULT_RECONCILIATION_DEADLINE);
+  }
+
+  ConversationDigestService(
+      ConversationMemoryStore store,
+      ObjectMapper objectMapper,
+      @Nullable BBHttpClientWrapper bbHttpClientWrapper,
+      @Nullable ConversationJournalService journalService,
+      @Nullable ConversationQuestionAnsweringService questionAnsweringService,
+      Clock clock,
+      String workerId,
+      @Nullable OperationalMetricsService metrics,
+      boolean globallyEnabled,
+      Executor reconciliationExecutor,
+      int concurrency,
+      @Nullable Duration reconciliationDeadline) {
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("digest reconciliation concurrency must be positive");
+    }
     this.store = store;
     this.objectMapper = objectMapper;
     this.bbHttpClientWrapper = bbHttpClientWrapper;
@@ -156,6 +211,12 @@ public class ConversationDigestService {
     this.workerId = workerId;
     this.metrics = metrics;
     this.globallyEnabled = globallyEnabled;
+    this.reconciliationExecutor = reconciliationExecutor;
+    this.concurrency = concurrency;
+    this.reconciliationDeadline =
+        reconciliationDeadline == null || !reconciliationDeadline.isPositive()
+            ? DEFAULT_RECONCILIATION_DEADLINE
+            : reconciliationDeadline;
   }
 
   public CatchupResult catchUp(
@@ -377,41 +438,118 @@ public class ConversationDigestService {
     return clock.instant();
   }
 
+  /**
+   * Seeds yesterday's digest work for every memory-enabled group, then reconciles due work on
+   * {@code digest-concurrency} lanes. Each lane claims one conversation at a time, so a claim's
+   * lease starts when its work does, and stops claiming once {@code digest-deadline} has passed;
+   * work left over stays queued for the next run or another replica. The lanes run on this
+   * service's executor and the method returns once they have started, so a long run does not hold
+   * the shared scheduler thread; a run that is still going when the next one is due is left to
+   * finish.
+   */
   @Scheduled(cron = "${bbagent.memory.group.reconciliation-cron:0 15 3 * * *}", zone = "UTC")
   public void reconcilePreviousDay() {
+    startReconciliation();
+  }
+
+  /** Starts a reconciliation run; the returned future completes once its lanes have finished. */
+  CompletableFuture<Void> startReconciliation() {
     if (!globallyEnabled) {
-      return;
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> active = activeReconciliation.get();
+    if (active != null && !active.isDone()) {
+      log.warn("Digest reconciliation is still running; skipping this run");
+      return active;
     }
     Instant now = clock.instant();
-    boolean success = true;
     try {
       LocalDate previousDay = LocalDate.ofInstant(now, ZoneOffset.UTC).minusDays(1);
       Instant periodStart = previousDay.atStartOfDay().toInstant(ZoneOffset.UTC);
       Instant periodEnd = previousDay.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-      for (ConversationRecord conversation : store.findMemoryEnabledConversations()) {
-        if (conversation.memoryEnabledAt().isBefore(periodEnd)) {
-          store.seedDigestWork(conversation.conversationId(), periodStart, periodEnd, now);
-        }
+      store.seedDigestWorkForEnabledGroups(periodStart, periodEnd, now);
+      ReconciliationRun run = new ReconciliationRun(now.plus(reconciliationDeadline));
+      CompletableFuture<?>[] lanes = new CompletableFuture<?>[concurrency];
+      for (int lane = 0; lane < concurrency; lane++) {
+        lanes[lane] = CompletableFuture.runAsync(() -> drain(run), reconciliationExecutor);
       }
-      for (DigestWorkClaim claim : store.claimDueDigestWork(workerId, now, DIGEST_CLAIM_LIMIT)) {
-        success = reconcile(claim, now) && success;
+      CompletableFuture<Void> completion =
+          CompletableFuture.allOf(lanes)
+              .handle(
+                  (ignored, failure) -> {
+                    finishReconciliation(run, now, failure);
+                    return null;
+                  });
+      activeReconciliation.set(completion);
+      return completion;
+    } catch (RuntimeException e) {
+      recordReconciliation(false, OperationalMetricsService.failureType(e), now);
+      throw e;
+    }
+  }
+
+  private void finishReconciliation(
+      ReconciliationRun run, Instant startedAt, @Nullable Throwable failure) {
+    try {
+      if (failure != null) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        throw cause instanceof RuntimeException runtime
+            ? runtime
+            : new IllegalStateException("digest reconciliation lane failed", cause);
+      }
+      long remaining = store.countDigestWork();
+      if (remaining > 0 && !clock.instant().isBefore(run.deadline())) {
+        log.warn(
+            "Digest reconciliation reached its deadline with {} digests remaining", remaining);
       }
       if (metrics != null) {
-        metrics.recordMemoryDigest(
-            "reconcile",
-            success,
-            success ? null : "digest_work_failed",
-            Duration.between(now, clock.instant()));
+        metrics.updateMemoryDigestRun(run.completed().get(), remaining);
       }
+      boolean success = run.failed().get() == 0;
+      recordReconciliation(success, success ? null : "digest_work_failed", startedAt);
     } catch (RuntimeException e) {
-      if (metrics != null) {
-        metrics.recordMemoryDigest(
-            "reconcile",
-            false,
-            OperationalMetricsService.failureType(e),
-            Duration.between(now, clock.instant()));
+      log.warn("Digest reconciliation failed", e);
+      recordReconciliation(false, OperationalMetricsService.failureType(e), startedAt);
+    }
+  }
+
+  private void recordReconciliation(
+      boolean success, @Nullable String failureType, Instant startedAt) {
+    if (metrics != null) {
+      metrics.recordMemoryDigest(
+          "reconcile", success, failureType, Duration.between(startedAt, clock.instant()));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ExecutorSupport.shutdown(reconciliationExecutor, Duration.ofSeconds(30));
+  }
+
+  private void drain(ReconciliationRun run) {
+    while (clock.instant().isBefore(run.deadline())) {
+      Instant claimedAt = clock.instant();
+      List<DigestWorkClaim> claims;
+      try {
+        claims = store.claimDueDigestWork(workerId, claimedAt, 1);
+      } catch (RuntimeException e) {
+        log.warn("Failed to claim digest work", e);
+        run.failed().incrementAndGet();
+        return;
+      }
+      if (claims.isEmpty()) {
+        return;
+      }
+      DigestWorkClaim claim = claims.getFirst();
+      if (!run.attempted().add(claim.conversationId() + "|" + claim.periodStart())) {
+        // Work that already failed once this run came due again; leave it for the next run.
+        return;
+      }
+      if (reconcile(claim, claimedAt)) {
+        run.completed().incrementAndGet();
+      } else {
+        run.failed().incrementAndGet();
       }
-      throw e;
     }
   }
 
@@ -630,43 +768,88 @@ public class ConversationDigestService {
       return;
     }
     ConversationRecord conversation = conversationValue.get();
-    int offset = 0;
-    int limit = 500;
-    while (true) {
-      var page =
-          bbHttpClientWrapper.getMessagesInChat(
-              conversation.externalConversationId(),
-              claim.periodStart(),
-              claim.periodEnd(),
-              offset,
-              limit,
-              "ASC");
-      for (var rawMessage : page) {
-        IncomingMessage message = IncomingMessage.create(rawMessage);
-        if (message != null) {
-          journalService.recordEligibleMessage(
-              new IncomingMessage(
-                  message.transport(),
-                  conversation.externalConversationId(),
-                  message.messageGuid(),
-                  message.threadOriginatorGuid(),
-                  message.text(),
-                  message.fromMe(),
-                  message.service(),
-                  message.sender(),
-                  true,
-                  message.timestamp(),
-                  message.attachments(),
-                  message.balloonBundleId(),
-                  message.associatedMessageGuid(),
-                  message.replyToGuid(),
-                  message.isSystemMessage()));
+    long startedNanos = System.nanoTime();
+    int pages = 0;
+    int fetched = 0;
+    boolean success = false;
+    try {
+      // Pages continue from the newest message already read rather than from an offset, so every
+      // page is a bounded range read however busy the day was. Messages in the millisecond before
+      // that boundary are read again and skipped by guid; a full page inside one millisecond is
+      // stepped over by offset.
+      Instant after = claim.periodStart();
+      int offset = 0;
+      Set<String> boundaryGuids = new HashSet<>();
+      while (true) {
+        var page =
+            bbHttpClientWrapper.getMessagesInChat(
+                conversation.externalConversationId(),
+                after,
+                claim.periodEnd(),
+                offset,
+                BACKFILL_PAGE_SIZE,
+                "ASC");
+        pages++;
+        fetched += page.size();
+        List<IncomingMessage> messages = new ArrayList<>(page.size());
+        Instant newest = null;
+        for (var rawMessage : page) {
+          if (rawMessage == null || boundaryGuids.contains(rawMessage.getGuid())) {
+            continue;
+          }
+          Instant sentAt = TimeSupport.epochSecondsOrMillis(rawMessage.getDateCreated());
+          if (sentAt != null && (newest == null || sentAt.isAfter(newest))) {
+            newest = sentAt;
+          }
+          IncomingMessage message = IncomingMessage.create(rawMessage);
+          if (message != null) {
+            messages.add(
+                new IncomingMessage(
+                    message.transport(),
+                    conversation.externalConversationId(),
+                    message.messageGuid(),
+                    message.threadOriginatorGuid(),
+                    message.text(),
+                    message.fromMe(),
+                    message.service(),
+                    message.sender(),
+                    true,
+                    message.timestamp(),
+                    message.attachments(),
+                    message.balloonBundleId(),
+                    message.associatedMessageGuid(),
+                    message.replyToGuid(),
+                    message.isSystemMessage()));
+          }
+        }
+        journalService.recordEligibleMessages(messages);
+        if (page.size() < BACKFILL_PAGE_SIZE) {
+          break;
+        }
+        Instant nextAfter = newest == null ? null : newest.minusMillis(1);
+        if (nextAfter == null || !nextAfter.isAfter(after)) {
+          offset += page.size();
+        } else {
+          after = nextAfter;
+          offset = 0;
+          boundaryGuids.clear();
+        }
+        for (var rawMessage : page) {
+          Instant sentAt =
+              rawMessage == null
+                  ? null
+                  : TimeSupport.epochSecondsOrMillis(rawMessage.getDateCreated());
+          if (sentAt != null && rawMessage.getGuid() != null && !sentAt.isBefore(after)) {
+            boundaryGuids.add(rawMessage.getGuid());
+          }
         }
       }
-      if (page.size() < limit) {
-        break;
+      success = true;
+    } finally {
+      if (metrics != null) {
+        metrics.recordMemoryJournalBackfill(
+            pages, fetched, success, Duration.ofNanos(System.nanoTime() - startedNanos));
       }
-      offset += page.size();
     }
   }
 
@@ -701,4 +884,11 @@ public class ConversationDigestService {
   }
 
   private record GroupSelection(List<AuthorizedGroup> groups, List<String> disambiguationOptions) {}
+
+  private record ReconciliationRun(
+      Instant deadline, Set<String> attempted, AtomicInteger completed, AtomicInteger failed) {
+    ReconciliationRun(Instant deadline) {
+      this(deadline, ConcurrentHashMap.newKeySet(), new AtomicInteger(), new AtomicInteger());
+    }
+  }
 }
@@ -3,82 +3,133 @@ package io.breland.bbagent.server.agent.memory;
 import io.breland.bbagent.server.agent.BBMessageAgent;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.account.AgentAccountResolver;
-import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMessage;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
 import io.breland.bbagent.server.agent.reactions.MessageReactionSupport;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Journals eligible incoming messages: registers the conversation and the sender's membership, and
+ * retains the text and schedules extraction when the group has memory enabled. Eligibility and
+ * account resolution happen in the caller's thread; the writes are batched by {@link
+ * ConversationJournalWriter}.
+ */
 @Service
 @Slf4j
 public class ConversationJournalService {
-  private final ConversationMemoryStore store;
+  private final ConversationJournalWriter writer;
   private final AgentAccountResolver accountResolver;
   private final Duration debounce;
   private final boolean globallyEnabled;
 
   @Autowired
   public ConversationJournalService(
-      ConversationMemoryStore store,
+      ConversationJournalWriter writer,
       AgentAccountResolver accountResolver,
       @Value("${bbagent.memory.group.debounce:PT60S}") Duration debounce,
       @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled) {
-    this.store = store;
+    this.writer = writer;
     this.accountResolver = accountResolver;
     this.debounce = debounce == null ? Duration.ofSeconds(60) : debounce;
     this.globallyEnabled = globallyEnabled;
   }
 
   ConversationJournalService(
-      ConversationMemoryStore store, AgentAccountResolver accountResolver, Duration debounce) {
-    this(store, accountResolver, debounce, true);
+      ConversationJournalWriter writer, AgentAccountResolver accountResolver, Duration debounce) {
+    this(writer, accountResolver, debounce, true);
   }
 
   public boolean recordEligibleMessage(IncomingMessage message) {
+    Optional<JournalEntry> entry = journalEntry(message);
+    entry.ifPresent(writer::submit);
+    return entry.isPresent();
+  }
+
+  /**
+   * Journals {@code messages} as one batch before returning, for callers that read the journal
+   * straight afterwards.
+   *
+   * @return the number of messages that were eligible to journal
+   */
+  public int recordEligibleMessages(Collection<IncomingMessage> messages) {
+    // Each distinct sender is resolved once for the batch rather than once per message.
+    Map<SenderKey, Optional<String>> accountIds = new HashMap<>();
+    List<JournalEntry> entries = new ArrayList<>();
+    for (IncomingMessage message : messages) {
+      journalEntry(
+              message,
+              eligible ->
+                  accountIds.computeIfAbsent(
+                      new SenderKey(eligible.transportOrDefault(), eligible.sender()),
+                      sender -> resolveAccountId(eligible)))
+          .ifPresent(entries::add);
+    }
+    writer.writeNow(entries);
+    return entries.size();
+  }
+
+  private Optional<JournalEntry> journalEntry(IncomingMessage message) {
+    return journalEntry(message, this::resolveAccountId);
+  }
+
+  private Optional<String> resolveAccountId(IncomingMessage message) {
+    return accountResolver
+        .resolveOrCreate(message)
+        .map(resolved -> resolved.account().getAccountId())
+        .filter(StringUtils::isNotBlank);
+  }
+
+  private Optional<JournalEntry> journalEntry(
+      IncomingMessage message, Function<IncomingMessage, Optional<String>> accountIdFor) {
     if (!isEligible(message)) {
-      return false;
+      return Optional.empty();
     }
-    String accountId =
-        accountResolver
-            .resolveOrCreate(message)
-            .map(resolved -> resolved.account().getAccountId())
-            .orElse(null);
+    String accountId = accountIdFor.apply(message).orElse(null);
     if (StringUtils.isBlank(accountId)) {
-      return false;
+      return Optional.empty();
     }
     Instant observedAt = message.timestamp() == null ? Instant.now() : message.timestamp();
-    String conversationId =
-        store.upsertConversation(
-            message.transportOrDefault(), message.chatGuid(), message.isGroup(), null, observedAt);
-    store.recordMembership(conversationId, accountId, observedAt);
-    if (!globallyEnabled
-        || !message.isGroup()
-        || store
-            .findEnabledConversationId(message.transportOrDefault(), message.chatGuid())
-            .isEmpty()
-        || StringUtils.isBlank(message.messageGuid())) {
-      return true;
+    // Whether the group has memory enabled is checked when the batch is written.
+    if (!globallyEnabled || !message.isGroup() || StringUtils.isBlank(message.messageGuid())) {
+      return Optional.of(
+          new JournalEntry(
+              message.transportOrDefault(),
+              message.chatGuid(),
+              message.isGroup(),
+              accountId,
+              observedAt,
+              null,
+              null,
+              null,
+              null));
     }
     String text = message.text().trim();
-    store.recordMessage(
-        new JournalMessage(
-            message.messageGuid(),
-            conversationId,
+    return Optional.of(
+        new JournalEntry(
+            message.transportOrDefault(),
+            message.chatGuid(),
+            true,
             accountId,
-            text,
             observedAt,
-            false,
-            false,
-            sha256(text)));
-    store.scheduleExtraction(conversationId, observedAt.plus(debounce));
-    return true;
+            message.messageGuid(),
+            text,
+            sha256(text),
+            observedAt.plus(debounce)));
   }
 
   private boolean isEligible(IncomingMessage message) {
@@ -105,4 +156,6 @@ public class ConversationJournalService {
       throw new IllegalStateException("SHA-256 is unavailable", e);
     }
   }
+
+  private record SenderKey(String transport, String sender) {}
 }
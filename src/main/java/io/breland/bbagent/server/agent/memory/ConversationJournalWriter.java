@@ -0,0 +1,144 @@
+package io.breland.bbagent.server.agent.memory;
+
+import io.breland.bbagent.server.BatchingBuffer;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes conversation journal writes off the message path. Entries go into a {@link BatchingBuffer}
+ * whose background thread hands them to {@link ConversationMemoryStore#recordJournalBatch} once
+ * {@code batch-size} entries are waiting or {@code flush-interval} has passed since the oldest one,
+ * so a burst in one chat becomes one write per conversation, membership and extraction.
+ *
+ * <p>Journal entries are not dropped: when the buffer is full the entry is written in the caller's
+ * thread, and a batch that fails is retried one entry at a time so a single bad entry cannot lose
+ * the rest. The buffer is flushed on shutdown. With async writes disabled every entry is written in
+ * the caller's thread and transaction.
+ */
+@Slf4j
+@Component
+public class ConversationJournalWriter {
+  static final String MODE_ASYNC = "async";
+  static final String MODE_INLINE = "inline";
+  static final String MODE_RETRY = "retry";
+
+  private final ConversationMemoryStore store;
+  private final @Nullable OperationalMetricsService metrics;
+  private final @Nullable BatchingBuffer<JournalEntry> buffer;
+
+  @Autowired
+  public ConversationJournalWriter(
+      ConversationMemoryStore store,
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.memory.journal.async-enabled:true}") boolean asyncEnabled,
+      @Value("${bbagent.memory.journal.capacity:10000}") int capacity,
+      @Value("${bbagent.memory.journal.batch-size:200}") int batchSize,
+      @Value("${bbagent.memory.journal.flush-interval:PT0.25S}") Duration flushInterval) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("journal writer capacity and batch size must be positive");
+    }
+    this.store = store;
+    this.metrics = metrics;
+    this.buffer =
+        asyncEnabled
+            ? new BatchingBuffer<>(
+                "conversation-journal-writer-", capacity, batchSize, flushInterval, this::flush)
+            : null;
+  }
+
+  public void submit(JournalEntry entry) {
+    if (entry == null) {
+      return;
+    }
+    if (buffer == null || !buffer.isRunning() || !buffer.offer(entry)) {
+      write(List.of(entry), MODE_INLINE);
+      return;
+    }
+    updateQueueDepth();
+  }
+
+  /**
+   * Writes {@code entries} as one batch in the caller's thread and transaction, for callers that
+   * read the journal straight afterwards.
+   *
+   * @return the number of messages whose text was retained
+   */
+  public int writeNow(List<JournalEntry> entries) {
+    if (entries == null || entries.isEmpty()) {
+      return 0;
+    }
+    return write(entries, MODE_INLINE);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (buffer != null) {
+      buffer.shutdown();
+    }
+  }
+
+  private void flush(List<JournalEntry> entries) {
+    try {
+      write(entries, MODE_ASYNC);
+    } catch (RuntimeException e) {
+      log.warn("Failed to journal a batch of {} messages; retrying each", entries.size(), e);
+      for (JournalEntry entry : entries) {
+        try {
+          write(List.of(entry), MODE_RETRY);
+        } catch (RuntimeException entryFailure) {
+          log.warn(
+              "Failed to journal message {} in conversation {}",
+              entry.messageGuid(),
+              entry.externalConversationId(),
+              entryFailure);
+        }
+      }
+    } finally {
+      updateQueueDepth();
+    }
+  }
+
+  private int write(List<JournalEntry> entries, String mode) {
+    long startedAt = System.nanoTime();
+    try {
+      int messages = store.recordJournalBatch(entries);
+      recordFlush(mode, entries.size(), messages, true, startedAt);
+      return messages;
+    } catch (RuntimeException e) {
+      recordFlush(mode, entries.size(), 0, false, startedAt);
+      throw e;
+    }
+  }
+
+  private void updateQueueDepth() {
+    if (metrics == null || buffer == null) {
+      return;
+    }
+    try {
+      metrics.updateMemoryJournalQueueDepth(buffer.size());
+    } catch (RuntimeException e) {
+      log.warn("Failed to update journal writer queue depth", e);
+    }
+  }
+
+  private void recordFlush(
+      String mode, int entries, int messages, boolean success, long startedAt) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordMemoryJournalFlush(
+          mode, entries, messages, success, Duration.ofNanos(System.nanoTime() - startedAt));
+    } catch (RuntimeException e) {
+      log.warn("Failed to record journal writer flush", e);
+    }
+  }
+}
@@ -1,7 +1,7 @@
 package io.breland.bbagent.server.agent.memory;
 
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CleanupChunk;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryBacklog;
-import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryCleanupResult;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import java.time.Clock;
 import java.time.Duration;
@@ -14,12 +14,16 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class ConversationMemoryMaintenanceService {
+  static final int DEFAULT_CHUNK_SIZE = 1_000;
+
   private final ConversationMemoryStore store;
   private final @Nullable OperationalMetricsService metrics;
   private final Clock clock;
   private final Duration rawRetention;
   private final Duration segmentRetention;
   private final boolean globallyEnabled;
+  private final int chunkSize;
+  private final Duration chunkPause;
 
   @Autowired
   public ConversationMemoryMaintenanceService(
@@ -28,34 +32,64 @@ public class ConversationMemoryMaintenanceService {
       @Nullable Clock clock,
       @Value("${bbagent.memory.group.raw-retention:P30D}") Duration rawRetention,
       @Value("${bbagent.memory.group.segment-retention:P90D}") Duration segmentRetention,
-      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled) {
+      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled,
+      @Value("${bbagent.memory.group.cleanup-chunk-size:1000}") int chunkSize,
+      @Value("${bbagent.memory.group.cleanup-chunk-pause:PT0.1S}") Duration chunkPause) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("memory cleanup chunk size must be positive");
+    }
     this.store = store;
     this.metrics = metrics;
     this.clock = clock == null ? Clock.systemUTC() : clock;
     this.rawRetention = rawRetention == null ? Duration.ofDays(30) : rawRetention;
     this.segmentRetention = segmentRetention == null ? Duration.ofDays(90) : segmentRetention;
     this.globallyEnabled = globallyEnabled;
+    this.chunkSize = chunkSize;
+    this.chunkPause = chunkPause == null || chunkPause.isNegative() ? Duration.ZERO : chunkPause;
+  }
+
+  ConversationMemoryMaintenanceService(
+      ConversationMemoryStore store,
+      @Nullable OperationalMetricsService metrics,
+      @Nullable Clock clock,
+      Duration rawRetention,
+      Duration segmentRetention,
+      boolean globallyEnabled) {
+    this(
+        store,
+        metrics,
+        clock,
+        rawRetention,
+        segmentRetention,
+        globallyEnabled,
+        DEFAULT_CHUNK_SIZE,
+        Duration.ZERO);
   }
 
+  /**
+   * Applies retention in keyset-ordered chunks of {@code cleanup-chunk-size} rows, each committed
+   * in its own transaction, with {@code cleanup-chunk-pause} between chunks so row locks and WAL
+   * stay small. Every step selects only rows that still need it, so a run that stops part way
+   * leaves the rest for the next run.
+   */
   @Scheduled(cron = "${bbagent.memory.group.cleanup-cron:0 45 3 * * *}", zone = "UTC")
   public void cleanupExpiredMemory() {
     if (!globallyEnabled) {
       return;
     }
     Instant startedAt = clock.instant();
+    Instant rawMessageBefore = startedAt.minus(rawRetention);
+    Instant segmentBefore = startedAt.minus(segmentRetention);
     try {
-      MemoryCleanupResult result =
-          store.cleanupMemory(
-              startedAt, startedAt.minus(rawRetention), startedAt.minus(segmentRetention));
-      Duration duration = Duration.between(startedAt, clock.instant());
-      if (metrics != null) {
-        metrics.recordMemoryCleanup(
-            "raw_message", result.rawMessagesCleared(), true, null, duration);
-        metrics.recordMemoryCleanup(
-            "summary_segment", result.segmentsDeleted(), true, null, duration);
-        metrics.recordMemoryCleanup(
-            "expired_artifact", result.artifactsExpired(), true, null, duration);
-      }
+      cleanupInChunks(
+          "raw_message",
+          (after, limit) ->
+              store.clearExpiredMessageText(startedAt, rawMessageBefore, after, limit));
+      cleanupInChunks(
+          "summary_segment",
+          (after, limit) -> store.deleteDigestedSegments(segmentBefore, after, limit));
+      cleanupInChunks(
+          "expired_artifact", (after, limit) -> store.expireArtifacts(startedAt, after, limit));
     } catch (RuntimeException e) {
       if (metrics != null) {
         metrics.recordMemoryCleanup(
@@ -80,4 +114,43 @@ public class ConversationMemoryMaintenanceService {
     metrics.updateMemoryBacklog(
         backlog.oldestExtractionAge(), backlog.oldestProjectionAge(), backlog.failedWorkCount());
   }
+
+  private void cleanupInChunks(String operation, CleanupStep step) {
+    Instant startedAt = clock.instant();
+    long rows = 0;
+    String after = null;
+    do {
+      long chunkStartedNanos = System.nanoTime();
+      CleanupChunk chunk = step.next(after, chunkSize);
+      if (metrics != null) {
+        metrics.recordMemoryCleanupChunk(
+            operation, chunk.rows(), Duration.ofNanos(System.nanoTime() - chunkStartedNanos));
+      }
+      rows += chunk.rows();
+      after = chunk.nextKey();
+    } while (after != null && pauseBetweenChunks());
+    if (metrics != null) {
+      metrics.recordMemoryCleanup(
+          operation, rows, true, null, Duration.between(startedAt, clock.instant()));
+    }
+  }
+
+  private boolean pauseBetweenChunks() {
+    if (chunkPause.isZero()) {
+      return true;
+    }
+    try {
+      Thread.sleep(chunkPause);
+      return true;
+    } catch (InterruptedException e) {
+      // Shutting down; the remaining rows still match and are picked up by the next run.
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @FunctionalInterface
+  private interface CleanupStep {
+    CleanupChunk next(@Nullable String after, int limit);
+  }
 }
@@ -43,6 +43,27 @@ public final class ConversationMemoryModels {
       boolean systemMessage,
       String contentHash) {}
 
+  /**
+   * One observed message waiting to be journaled. The conversation is identified by transport and
+   * external id because its row may not exist yet; {@code messageGuid}, {@code text} and {@code
+   * contentHash} are null when only the conversation and membership should be registered, and
+   * {@code extractionAvailableAt} is when extraction should run if the text is retained.
+   */
+  public record JournalEntry(
+      String transport,
+      String externalConversationId,
+      boolean group,
+      String accountId,
+      Instant observedAt,
+      String messageGuid,
+      String text,
+      String contentHash,
+      Instant extractionAvailableAt) {
+    public boolean retainsText() {
+      return messageGuid != null && extractionAvailableAt != null;
+    }
+  }
+
   public record ExtractionCandidate(
       ArtifactKind kind,
       String text,
@@ -280,6 +301,12 @@ public final class ConversationMemoryModels {
   public record MemoryCleanupResult(
       int rawMessagesCleared, int segmentsDeleted, int artifactsExpired) {}
 
+  /**
+   * One committed retention chunk. {@code nextKey} is the last key the chunk covered, to continue
+   * after, or null once the chunk came up short and nothing further matched.
+   */
+  public record CleanupChunk(int rows, String nextKey) {}
+
   public record MemoryBacklog(
       Duration oldestExtractionAge, Duration oldestProjectionAge, long failedWorkCount) {}
 }
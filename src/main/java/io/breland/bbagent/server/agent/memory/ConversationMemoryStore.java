@@ -8,6 +8,7 @@ import static io.breland.bbagent.server.agent.memory.ConversationMemoryModels.Pr
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.AuthorizedGroup;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CatchupPreference;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CatchupPreferenceClaim;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CleanupChunk;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ConversationRecord;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.DigestBatch;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.DigestWorkClaim;
@@ -16,6 +17,7 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExistingA
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionBatch;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionCandidate;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionCheckpoint;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMessage;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryBacklog;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryCleanupResult;
@@ -27,15 +29,22 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.Projectio
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.SummaryMaterial;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.WorkClaim;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.MembershipInterval;
+import io.breland.bbagent.server.agent.persistence.WorkQueueClaimer;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -48,10 +57,112 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class ConversationMemoryStore {
-  private static final Duration EXTRACTION_LEASE = Duration.ofMinutes(5);
+  static final Duration EXTRACTION_LEASE = Duration.ofMinutes(5);
+  private static final int CONVERSATION_ID_CACHE_LIMIT = 4096;
   private static final Duration PROJECTION_LEASE = Duration.ofMinutes(5);
   private static final Duration CATCHUP_LEASE = Duration.ofMinutes(5);
+  private static final Duration DIGEST_LEASE = Duration.ofMinutes(5);
+  private static final String CLAIM_SET_WITH_ATTEMPT =
+      "claimed_by = ?, claimed_until = ?, attempt_count = attempt_count + 1, updated_at = ?";
+  private static final WorkQueueClaimer.Queue EXTRACTION_QUEUE =
+      new WorkQueueClaimer.Queue(
+          "conversation_memory_work",
+          "conversation_memory_work",
+          List.of("conversation_id"),
+          """
+          select conversation_id
+            from conversation_memory_work
+           where available_at <= ? and (claimed_until is null or claimed_until < ?)
+           order by available_at, conversation_id
+           limit ?
+          """,
+          CLAIM_SET_WITH_ATTEMPT,
+          "available_at <= ? and (claimed_until is null or claimed_until < ?)",
+          """
+          select conversation_id from claimed order by available_at, conversation_id
+          """);
+  private static final WorkQueueClaimer.Queue PROJECTION_QUEUE =
+      new WorkQueueClaimer.Queue(
+          "conversation_memory_projections",
+          "conversation_memory_projections",
+          List.of("artifact_id", "account_id"),
+          """
+          select artifact_id, account_id
+            from conversation_memory_projections
+           where state in ('PENDING', 'FAILED') and available_at <= ?
+             and (claimed_until is null or claimed_until < ?)
+           order by available_at, artifact_id, account_id
+           limit ?
+          """,
+          CLAIM_SET_WITH_ATTEMPT,
+          """
+          state in ('PENDING', 'FAILED') and available_at <= ?
+             and (claimed_until is null or claimed_until < ?)
+          """,
+          """
+          select artifact_id, account_id, operation, projection_hash
+            from claimed
+           order by available_at, artifact_id, account_id
+          """);
+  private static final WorkQueueClaimer.Queue DIGEST_QUEUE =
+      new WorkQueueClaimer.Queue(
+          "conversation_digest_work",
+          "conversation_digest_work",
+          List.of("conversation_id", "period_start", "period_end"),
+          """
+          select conversation_id, period_start, period_end
+            from conversation_digest_work
+           where available_at <= ? and (claimed_until is null or claimed_until < ?)
+           order by available_at, conversation_id, period_start
+           limit ?
+          """,
+          CLAIM_SET_WITH_ATTEMPT,
+          "available_at <= ? and (claimed_until is null or claimed_until < ?)",
+          """
+          select conversation_id, period_start, period_end
+            from claimed
+           order by available_at, conversation_id, period_start
+          """);
+  private static final WorkQueueClaimer.Queue CATCHUP_QUEUE =
+      new WorkQueueClaimer.Queue(
+          "group_catchup_preferences",
+          "preference",
+          List.of("account_id", "conversation_id"),
+          """
+          select preference.account_id, preference.conversation_id
+            from group_catchup_preferences preference
+            join agent_conversations conversation
+              on conversation.conversation_id = preference.conversation_id
+           where preference.proactive_enabled = true and preference.next_delivery_at <= ?
+             and (preference.claimed_until is null or preference.claimed_until < ?)
+             and conversation.memory_enabled_at is not null
+             and exists (
+               select 1 from agent_conversation_memberships membership
+                where membership.conversation_id = preference.conversation_id
+                  and membership.account_id = preference.account_id
+                  and membership.started_at <= ?
+                  and (membership.ended_at is null or membership.ended_at > ?)
+             )
+           order by preference.next_delivery_at, preference.account_id,
+                    preference.conversation_id
+           limit ?
+          """,
+          "claimed_by = ?, claimed_until = ?, updated_at = ?",
+          """
+          proactive_enabled = true and next_delivery_at <= ?
+             and (claimed_until is null or claimed_until < ?)
+          """,
+          """
+          select claimed.account_id, claimed.conversation_id, conversation.display_name,
+                 claimed.proactive_enabled, claimed.timezone, claimed.quiet_start,
+                 claimed.quiet_end, claimed.next_delivery_at
+            from claimed
+            join agent_conversations conversation
+              on conversation.conversation_id = claimed.conversation_id
+           order by claimed.next_delivery_at, claimed.account_id, claimed.conversation_id
+          """);
   private static final int MAX_JOURNAL_PAGE_SIZE = 500;
+  private static final int CLEANUP_CHUNK = 1_000;
   private static final RowMapper<JournalMessage> JOURNAL_MESSAGE_ROW_MAPPER =
       (resultSet, rowNumber) ->
           new JournalMessage(
@@ -65,13 +176,18 @@ public class ConversationMemoryStore {
               resultSet.getString("content_hash"));
 
   private final PostgresCompatibleJdbcTemplate jdbcTemplate;
+  private final WorkQueueClaimer workQueueClaimer;
   private final double minimumConfidence;
+  // Conversation ids never change once assigned; a stale entry is detected by its touch updating
+  // no rows, so it is safe to keep across transactions that later roll back.
+  private final Map<ConversationKey, String> conversationIds = new ConcurrentHashMap<>();
 
   @Autowired
   public ConversationMemoryStore(
       JdbcTemplate jdbcTemplate,
       @Value("${bbagent.memory.group.minimum-confidence:0.85}") double minimumConfidence) {
     this.jdbcTemplate = new PostgresCompatibleJdbcTemplate(jdbcTemplate);
+    this.workQueueClaimer = new WorkQueueClaimer(jdbcTemplate);
     this.minimumConfidence = minimumConfidence;
   }
 
@@ -138,6 +254,76 @@ public class ConversationMemoryStore {
     return conversationId;
   }
 
+  /**
+   * Journals a batch of observed messages in one transaction. Each conversation, membership,
+   * message and extraction work item in the batch is written once, as one JDBC batch of updates
+   * followed by one batch of inserts for the rows that did not exist yet. Text is retained only for
+   * conversations whose memory is enabled when the batch is written, and each of those has its
+   * extraction rescheduled once, to the latest {@code extractionAvailableAt} in the batch.
+   *
+   * @return the number of messages whose text was retained
+   */
+  @Transactional
+  public int recordJournalBatch(List<JournalEntry> entries) {
+    if (entries == null || entries.isEmpty()) {
+      return 0;
+    }
+    Map<ConversationKey, ConversationTouch> touches = new LinkedHashMap<>();
+    for (JournalEntry entry : entries) {
+      Objects.requireNonNull(entry, "entry");
+      requireText(entry.transport(), "transport");
+      requireText(entry.externalConversationId(), "external conversation id");
+      requireText(entry.accountId(), "account id");
+      Objects.requireNonNull(entry.observedAt(), "observedAt");
+      touches.merge(
+          ConversationKey.of(entry),
+          new ConversationTouch(entry.group(), entry.observedAt()),
+          ConversationTouch::merge);
+    }
+    Map<ConversationKey, String> ids = touchConversations(touches);
+
+    Map<MembershipKey, Instant> memberships = new LinkedHashMap<>();
+    for (JournalEntry entry : entries) {
+      memberships.merge(
+          new MembershipKey(ids.get(ConversationKey.of(entry)), entry.accountId()),
+          entry.observedAt(),
+          ConversationMemoryStore::latest);
+    }
+    touchMemberships(memberships);
+
+    List<JournalEntry> retained = entries.stream().filter(JournalEntry::retainsText).toList();
+    if (retained.isEmpty()) {
+      return 0;
+    }
+    Set<String> enabledIds =
+        enabledConversationIds(
+            retained.stream().map(entry -> ids.get(ConversationKey.of(entry))).distinct().toList());
+    Map<String, JournalMessage> messages = new LinkedHashMap<>();
+    Map<String, Instant> extractions = new LinkedHashMap<>();
+    for (JournalEntry entry : retained) {
+      String conversationId = ids.get(ConversationKey.of(entry));
+      if (!enabledIds.contains(conversationId)) {
+        continue;
+      }
+      messages.put(
+          entry.messageGuid(),
+          new JournalMessage(
+              entry.messageGuid(),
+              conversationId,
+              entry.accountId(),
+              entry.text(),
+              entry.observedAt(),
+              false,
+              false,
+              entry.contentHash()));
+      extractions.merge(
+          conversationId, entry.extractionAvailableAt(), ConversationMemoryStore::latest);
+    }
+    upsertMessages(messages.values());
+    scheduleExtractions(extractions);
+    return messages.size();
+  }
+
   @Transactional(readOnly = true)
   public Optional<String> findConversationId(String transport, String externalConversationId) {
     return jdbcTemplate
@@ -326,7 +512,7 @@ public class ConversationMemoryStore {
           update agent_conversation_messages
              set conversation_id = ?, sender_account_id = ?, message_text = ?, content_hash = ?,
                  source_timestamp = ?, from_agent = ?, system_message = ?, removed = false,
-                 updated_at = ?
+                 updated_at = ?, ingested_at = current_timestamp
            where message_guid = ?
           """,
           message.conversationId(),
@@ -633,47 +819,214 @@ public class ConversationMemoryStore {
         availableAt);
   }
 
-  @Transactional
-  public List<WorkClaim> claimDueExtractionWork(String workerId, Instant now, int limit) {
-    if (limit <= 0) {
-      return List.of();
+  private Map<ConversationKey, String> touchConversations(
+      Map<ConversationKey, ConversationTouch> touches) {
+    Map<ConversationKey, String> ids = new HashMap<>();
+    List<ConversationKey> cachedKeys = new ArrayList<>();
+    List<Object[]> updates = new ArrayList<>();
+    touches.forEach(
+        (key, touch) -> {
+          String conversationId = conversationIds.get(key);
+          if (conversationId != null) {
+            ids.put(key, conversationId);
+            cachedKeys.add(key);
+            Instant observedAt = touch.observedAt();
+            updates.add(new Object[] {touch.group(), observedAt, observedAt, conversationId});
+          }
+        });
+    int[] updated =
+        jdbcTemplate.batchUpdate(
+            """
+            update agent_conversations
+               set is_group = ?, last_observed_at = ?, updated_at = ?
+             where conversation_id = ?
+            """,
+            updates);
+    for (int index = 0; index < updated.length; index++) {
+      if (updated[index] == 0) {
+        ConversationKey key = cachedKeys.get(index);
+        conversationIds.remove(key, ids.remove(key));
+      }
     }
-    Instant claimedUntil = now.plus(EXTRACTION_LEASE);
-    List<String> candidates =
-        jdbcTemplate.query(
+    touches.forEach(
+        (key, touch) -> {
+          if (!ids.containsKey(key)) {
+            String conversationId =
+                upsertConversation(
+                    key.transport(),
+                    key.externalConversationId(),
+                    touch.group(),
+                    null,
+                    touch.observedAt());
+            ids.put(key, conversationId);
+            if (conversationIds.size() >= CONVERSATION_ID_CACHE_LIMIT) {
+              conversationIds.clear();
+            }
+            conversationIds.put(key, conversationId);
+          }
+        });
+    return ids;
+  }
+
+  private void touchMemberships(Map<MembershipKey, Instant> memberships) {
+    List<MembershipKey> keys = new ArrayList<>(memberships.keySet());
+    int[] updated =
+        jdbcTemplate.batchUpdate(
             """
-            select conversation_id
-              from conversation_memory_work
-             where available_at <= ? and (claimed_until is null or claimed_until < ?)
-             order by available_at, conversation_id
-             limit ?
+            update agent_conversation_memberships
+               set updated_at = ?
+             where conversation_id = ? and account_id = ? and ended_at is null
             """,
+            keys.stream()
+                .map(
+                    key ->
+                        new Object[] {memberships.get(key), key.conversationId(), key.accountId()})
+                .toList());
+    List<Object[]> inserts = new ArrayList<>();
+    for (int index = 0; index < updated.length; index++) {
+      if (updated[index] == 0) {
+        MembershipKey key = keys.get(index);
+        Instant observedAt = memberships.get(key);
+        inserts.add(
+            new Object[] {
+              UUID.randomUUID().toString(),
+              key.conversationId(),
+              key.accountId(),
+              observedAt,
+              observedAt,
+              observedAt
+            });
+      }
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        insert into agent_conversation_memberships
+          (membership_id, conversation_id, account_id, started_at, created_at, updated_at)
+        values (?, ?, ?, ?, ?, ?)
+        """,
+        inserts);
+  }
+
+  private Set<String> enabledConversationIds(List<String> candidateIds) {
+    String placeholders = String.join(",", Collections.nCopies(candidateIds.size(), "?"));
+    return new HashSet<>(
+        jdbcTemplate.query(
+            "select conversation_id from agent_conversations where memory_enabled_at is not null"
+                + " and conversation_id in ("
+                + placeholders
+                + ")",
             (resultSet, rowNumber) -> resultSet.getString(1),
-            now,
-            now,
-            limit);
-    List<WorkClaim> claims = new ArrayList<>();
-    for (String conversationId : candidates) {
-      int updated =
-          jdbcTemplate.update(
-              """
-              update conversation_memory_work
-                 set claimed_by = ?, claimed_until = ?, attempt_count = attempt_count + 1,
-                     updated_at = ?
-               where conversation_id = ? and available_at <= ?
-                 and (claimed_until is null or claimed_until < ?)
-              """,
-              workerId,
-              claimedUntil,
-              now,
-              conversationId,
-              now,
-              now);
-      if (updated == 1) {
-        claims.add(new WorkClaim(conversationId, workerId, claimedUntil));
+            candidateIds.toArray()));
+  }
+
+  private void upsertMessages(Collection<JournalMessage> messages) {
+    List<JournalMessage> ordered = List.copyOf(messages);
+    int[] updated =
+        jdbcTemplate.batchUpdate(
+            """
+            update agent_conversation_messages
+               set conversation_id = ?, sender_account_id = ?, message_text = ?, content_hash = ?,
+                   source_timestamp = ?, from_agent = ?, system_message = ?, removed = false,
+                   updated_at = ?, ingested_at = current_timestamp
+             where message_guid = ?
+            """,
+            ordered.stream()
+                .map(
+                    message ->
+                        new Object[] {
+                          message.conversationId(),
+                          StringUtils.trimToNull(message.senderAccountId()),
+                          message.text(),
+                          message.contentHash(),
+                          message.sourceTimestamp(),
+                          message.fromAgent(),
+                          message.systemMessage(),
+                          message.sourceTimestamp(),
+                          message.messageGuid()
+                        })
+                .toList());
+    List<Object[]> inserts = new ArrayList<>();
+    for (int index = 0; index < updated.length; index++) {
+      if (updated[index] == 0) {
+        JournalMessage message = ordered.get(index);
+        inserts.add(
+            new Object[] {
+              message.messageGuid(),
+              message.conversationId(),
+              StringUtils.trimToNull(message.senderAccountId()),
+              message.text(),
+              message.contentHash(),
+              message.sourceTimestamp(),
+              message.fromAgent(),
+              message.systemMessage(),
+              message.sourceTimestamp(),
+              message.sourceTimestamp()
+            });
       }
     }
-    return List.copyOf(claims);
+    jdbcTemplate.batchUpdate(
+        """
+        insert into agent_conversation_messages
+          (message_guid, conversation_id, sender_account_id, message_text, content_hash,
+           source_timestamp, from_agent, system_message, removed, first_seen_at, updated_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?)
+        """,
+        inserts);
+  }
+
+  private void scheduleExtractions(Map<String, Instant> extractions) {
+    List<String> workIds = new ArrayList<>(extractions.keySet());
+    int[] updated =
+        jdbcTemplate.batchUpdate(
+            """
+            update conversation_memory_work
+               set available_at = ?, last_error_code = null, updated_at = ?
+             where conversation_id = ?
+            """,
+            workIds.stream()
+                .map(
+                    conversationId ->
+                        new Object[] {
+                          extractions.get(conversationId),
+                          extractions.get(conversationId),
+                          conversationId
+                        })
+                .toList());
+    List<Object[]> inserts = new ArrayList<>();
+    for (int index = 0; index < updated.length; index++) {
+      if (updated[index] == 0) {
+        String conversationId = workIds.get(index);
+        inserts.add(
+            new Object[] {
+              conversationId, extractions.get(conversationId), extractions.get(conversationId)
+            });
+      }
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        insert into conversation_memory_work
+          (conversation_id, available_at, attempt_count, updated_at)
+        values (?, ?, 0, ?)
+        """,
+        inserts);
+  }
+
+  private static Instant latest(Instant first, Instant second) {
+    return second.isAfter(first) ? second : first;
+  }
+
+  @Transactional
+  public List<WorkClaim> claimDueExtractionWork(String workerId, Instant now, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    Instant claimedUntil = now.plus(EXTRACTION_LEASE);
+    return workQueueClaimer.claim(
+        EXTRACTION_QUEUE,
+        new WorkQueueClaimer.ClaimArguments(
+            List.of(now, now, limit), List.of(workerId, claimedUntil, now), List.of(now, now)),
+        (resultSet, rowNumber) ->
+            new WorkClaim(resultSet.getString("conversation_id"), workerId, claimedUntil));
   }
 
   @Transactional(readOnly = true)
@@ -903,55 +1256,18 @@ public class ConversationMemoryStore {
       return List.of();
     }
     Instant claimedUntil = now.plus(PROJECTION_LEASE);
-    List<ProjectionCandidate> candidates =
-        jdbcTemplate.query(
-            """
-            select artifact_id, account_id, operation, projection_hash
-              from conversation_memory_projections
-             where state in ('PENDING', 'FAILED') and available_at <= ?
-               and (claimed_until is null or claimed_until < ?)
-             order by available_at, artifact_id, account_id
-             limit ?
-            """,
-            (resultSet, rowNumber) ->
-                new ProjectionCandidate(
-                    resultSet.getString("artifact_id"),
-                    resultSet.getString("account_id"),
-                    ProjectionOperation.valueOf(resultSet.getString("operation")),
-                    resultSet.getString("projection_hash")),
-            now,
-            now,
-            limit);
-    List<ProjectionClaim> claims = new ArrayList<>();
-    for (ProjectionCandidate candidate : candidates) {
-      int updated =
-          jdbcTemplate.update(
-              """
-              update conversation_memory_projections
-                 set claimed_by = ?, claimed_until = ?, attempt_count = attempt_count + 1,
-                     updated_at = ?
-               where artifact_id = ? and account_id = ? and state in ('PENDING', 'FAILED')
-                 and available_at <= ? and (claimed_until is null or claimed_until < ?)
-              """,
-              workerId,
-              claimedUntil,
-              now,
-              candidate.artifactId(),
-              candidate.accountId(),
-              now,
-              now);
-      if (updated == 1) {
-        claims.add(
+    return workQueueClaimer.claim(
+        PROJECTION_QUEUE,
+        new WorkQueueClaimer.ClaimArguments(
+            List.of(now, now, limit), List.of(workerId, claimedUntil, now), List.of(now, now)),
+        (resultSet, rowNumber) ->
             new ProjectionClaim(
-                candidate.artifactId(),
-                candidate.accountId(),
-                candidate.operation(),
-                candidate.projectionHash(),
+                resultSet.getString("artifact_id"),
+                resultSet.getString("account_id"),
+                ProjectionOperation.valueOf(resultSet.getString("operation")),
+                resultSet.getString("projection_hash"),
                 workerId,
                 claimedUntil));
-      }
-    }
-    return List.copyOf(claims);
   }
 
   @Transactional(readOnly = true)
@@ -1335,59 +1651,58 @@ public class ConversationMemoryStore {
         availableAt);
   }
 
+  /**
+   * Seeds one digest work item for every memory-enabled group enabled before {@code periodEnd} in a
+   * single statement. Groups that already have work for the period, including rows another replica
+   * is inserting concurrently, are left as they are.
+   *
+   * @return the number of work items added
+   */
+  @Transactional
+  public int seedDigestWorkForEnabledGroups(
+      Instant periodStart, Instant periodEnd, Instant availableAt) {
+    return jdbcTemplate.update(
+        """
+        insert into conversation_digest_work
+          (conversation_id, period_start, period_end, available_at, attempt_count, updated_at)
+        select conversation_id, cast(? as timestamp with time zone),
+               cast(? as timestamp with time zone), cast(? as timestamp with time zone), 0,
+               cast(? as timestamp with time zone)
+          from agent_conversations
+         where is_group = true and memory_enabled_at is not null and memory_enabled_at < ?
+        on conflict do nothing
+        """,
+        periodStart,
+        periodEnd,
+        availableAt,
+        availableAt,
+        periodEnd);
+  }
+
+  @Transactional(readOnly = true)
+  public long countDigestWork() {
+    Long count =
+        jdbcTemplate.queryForObject("select count(*) from conversation_digest_work", Long.class);
+    return count == null ? 0L : count;
+  }
+
   @Transactional
   public List<DigestWorkClaim> claimDueDigestWork(String workerId, Instant now, int limit) {
     if (limit <= 0) {
       return List.of();
     }
-    Instant claimedUntil = now.plus(Duration.ofMinutes(5));
-    List<DigestKey> candidates =
-        jdbcTemplate.query(
-            """
-            select conversation_id, period_start, period_end
-              from conversation_digest_work
-             where available_at <= ? and (claimed_until is null or claimed_until < ?)
-             order by available_at, conversation_id, period_start
-             limit ?
-            """,
-            (resultSet, rowNumber) ->
-                new DigestKey(
-                    resultSet.getString("conversation_id"),
-                    resultSet.getTimestamp("period_start").toInstant(),
-                    resultSet.getTimestamp("period_end").toInstant()),
-            now,
-            now,
-            limit);
-    List<DigestWorkClaim> claims = new ArrayList<>();
-    for (DigestKey candidate : candidates) {
-      int updated =
-          jdbcTemplate.update(
-              """
-              update conversation_digest_work
-                 set claimed_by = ?, claimed_until = ?, attempt_count = attempt_count + 1,
-                     updated_at = ?
-               where conversation_id = ? and period_start = ? and period_end = ?
-                 and available_at <= ? and (claimed_until is null or claimed_until < ?)
-              """,
-              workerId,
-              claimedUntil,
-              now,
-              candidate.conversationId(),
-              candidate.periodStart(),
-              candidate.periodEnd(),
-              now,
-              now);
-      if (updated == 1) {
-        claims.add(
+    Instant claimedUntil = now.plus(DIGEST_LEASE);
+    return workQueueClaimer.claim(
+        DIGEST_QUEUE,
+        new WorkQueueClaimer.ClaimArguments(
+            List.of(now, now, limit), List.of(workerId, claimedUntil, now), List.of(now, now)),
+        (resultSet, rowNumber) ->
             new DigestWorkClaim(
-                candidate.conversationId(),
-                candidate.periodStart(),
-                candidate.periodEnd(),
+                resultSet.getString("conversation_id"),
+                resultSet.getTimestamp("period_start").toInstant(),
+                resultSet.getTimestamp("period_end").toInstant(),
                 workerId,
                 claimedUntil));
-      }
-    }
-    return List.copyOf(claims);
   }
 
   @Transactional
@@ -1502,88 +1817,155 @@ public class ConversationMemoryStore {
         failedAt);
   }
 
+  /**
+   * Runs every retention step to completion inside one transaction. The scheduled cleanup commits
+   * each chunk separately through the chunk methods below instead.
+   */
   @Transactional
   public MemoryCleanupResult cleanupMemory(
       Instant now, Instant rawMessageBefore, Instant segmentBefore) {
     Objects.requireNonNull(now, "now");
     Objects.requireNonNull(rawMessageBefore, "rawMessageBefore");
     Objects.requireNonNull(segmentBefore, "segmentBefore");
-    int rawMessagesCleared =
+    int rawMessagesCleared = 0;
+    String after = null;
+    do {
+      CleanupChunk chunk = clearExpiredMessageText(now, rawMessageBefore, after, CLEANUP_CHUNK);
+      rawMessagesCleared += chunk.rows();
+      after = chunk.nextKey();
+    } while (after != null);
+    int segmentsDeleted = 0;
+    do {
+      CleanupChunk chunk = deleteDigestedSegments(segmentBefore, after, CLEANUP_CHUNK);
+      segmentsDeleted += chunk.rows();
+      after = chunk.nextKey();
+    } while (after != null);
+    int artifactsExpired = 0;
+    do {
+      CleanupChunk chunk = expireArtifacts(now, after, CLEANUP_CHUNK);
+      artifactsExpired += chunk.rows();
+      after = chunk.nextKey();
+    } while (after != null);
+    return new MemoryCleanupResult(rawMessagesCleared, segmentsDeleted, artifactsExpired);
+  }
+
+  /** Clears the text of up to {@code limit} journaled messages sent before {@code before}. */
+  @Transactional
+  public CleanupChunk clearExpiredMessageText(
+      Instant now, Instant before, @Nullable String afterGuid, int limit) {
+    List<String> guids =
+        jdbcTemplate.query(
+            """
+            select message_guid from agent_conversation_messages
+             where message_text is not null and source_timestamp < ? and message_guid > ?
+             order by message_guid
+             limit ?
+            """,
+            (resultSet, rowNumber) -> resultSet.getString(1),
+            before,
+            StringUtils.defaultString(afterGuid),
+            limit);
+    if (guids.isEmpty()) {
+      return new CleanupChunk(0, null);
+    }
+    int cleared =
         jdbcTemplate.update(
             """
             update agent_conversation_messages
-               set message_text = null, updated_at = ?
-             where message_text is not null and source_timestamp < ?
+               set message_text = null, updated_at = ?, ingested_at = current_timestamp
+             where message_guid = any(?) and message_text is not null
             """,
             now,
-            rawMessageBefore);
+            guids.toArray(String[]::new));
+    return cleanupChunk(cleared, guids, limit);
+  }
+
+  /**
+   * Deletes up to {@code limit} segments that ended before {@code before} and are covered by a
+   * daily digest, with their audiences.
+   */
+  @Transactional
+  public CleanupChunk deleteDigestedSegments(
+      Instant before, @Nullable String afterSegmentId, int limit) {
+    List<String> segmentIds =
+        jdbcTemplate.query(
+            """
+            select segment.segment_id
+              from conversation_summary_segments segment
+             where segment.window_end < ? and segment.segment_id > ? and exists (
+               select 1 from conversation_daily_digests digest
+                where digest.conversation_id = segment.conversation_id
+                  and digest.period_start <= segment.window_start
+                  and digest.period_end >= segment.window_end
+             )
+             order by segment.segment_id
+             limit ?
+            """,
+            (resultSet, rowNumber) -> resultSet.getString(1),
+            before,
+            StringUtils.defaultString(afterSegmentId),
+            limit);
+    if (segmentIds.isEmpty()) {
+      return new CleanupChunk(0, null);
+    }
+    String[] ids = segmentIds.toArray(String[]::new);
     jdbcTemplate.update(
         """
         delete from conversation_summary_audiences
-         where summary_type = 'SEGMENT' and summary_id in (
-           select segment.segment_id
-             from conversation_summary_segments segment
-            where segment.window_end < ? and exists (
-              select 1 from conversation_daily_digests digest
-               where digest.conversation_id = segment.conversation_id
-                 and digest.period_start <= segment.window_start
-                 and digest.period_end >= segment.window_end
-            )
-         )
+         where summary_type = 'SEGMENT' and summary_id = any(?)
         """,
-        segmentBefore);
-    int segmentsDeleted =
+        (Object) ids);
+    int deleted =
         jdbcTemplate.update(
-            """
-            delete from conversation_summary_segments
-             where segment_id in (
-               select segment.segment_id
-                 from conversation_summary_segments segment
-                where segment.window_end < ? and exists (
-                  select 1 from conversation_daily_digests digest
-                   where digest.conversation_id = segment.conversation_id
-                     and digest.period_start <= segment.window_start
-                     and digest.period_end >= segment.window_end
-                )
-             )
-            """,
-            segmentBefore);
-    List<String> expiredArtifactIds =
+            "delete from conversation_summary_segments where segment_id = any(?)", (Object) ids);
+    return cleanupChunk(deleted, segmentIds, limit);
+  }
+
+  /**
+   * Marks up to {@code limit} expired artifacts deleted and queues their projections for removal.
+   */
+  @Transactional
+  public CleanupChunk expireArtifacts(Instant now, @Nullable String afterArtifactId, int limit) {
+    List<String> artifactIds =
         jdbcTemplate.query(
             """
             select artifact_id from conversation_memory_artifacts
              where expires_at is not null and expires_at <= ?
-               and status not in ('DELETED', 'SUPERSEDED')
+               and status not in ('DELETED', 'SUPERSEDED') and artifact_id > ?
+             order by artifact_id
+             limit ?
             """,
             (resultSet, rowNumber) -> resultSet.getString(1),
-            now);
-    int artifactsExpired = 0;
-    if (!expiredArtifactIds.isEmpty()) {
-      String placeholders =
-          String.join(",", java.util.Collections.nCopies(expiredArtifactIds.size(), "?"));
-      List<Object> artifactUpdateArguments = new ArrayList<>();
-      artifactUpdateArguments.add(now);
-      artifactUpdateArguments.addAll(expiredArtifactIds);
-      artifactsExpired =
-          jdbcTemplate.update(
-              "update conversation_memory_artifacts set status = 'DELETED', updated_at = ? "
-                  + "where artifact_id in ("
-                  + placeholders
-                  + ")",
-              artifactUpdateArguments.toArray());
-      List<Object> projectionArguments = new ArrayList<>();
-      projectionArguments.add(now);
-      projectionArguments.add(now);
-      projectionArguments.addAll(expiredArtifactIds);
-      jdbcTemplate.update(
-          "update conversation_memory_projections set operation = 'DELETE', state = 'PENDING', "
-              + "available_at = ?, claimed_by = null, claimed_until = null, "
-              + "last_error_code = null, updated_at = ? where artifact_id in ("
-              + placeholders
-              + ")",
-          projectionArguments.toArray());
+            now,
+            StringUtils.defaultString(afterArtifactId),
+            limit);
+    if (artifactIds.isEmpty()) {
+      return new CleanupChunk(0, null);
     }
-    return new MemoryCleanupResult(rawMessagesCleared, segmentsDeleted, artifactsExpired);
+    String[] ids = artifactIds.toArray(String[]::new);
+    int expired =
+        jdbcTemplate.update(
+            """
+            update conversation_memory_artifacts set status = 'DELETED', updated_at = ?
+             where artifact_id = any(?)
+            """,
+            now,
+            ids);
+    jdbcTemplate.update(
+        """
+        update conversation_memory_projections
+           set operation = 'DELETE', state = 'PENDING', available_at = ?, claimed_by = null,
+               claimed_until = null, last_error_code = null, updated_at = ?
+         where artifact_id = any(?)
+        """,
+        now,
+        now,
+        ids);
+    return cleanupChunk(expired, artifactIds, limit);
+  }
+
+  private static CleanupChunk cleanupChunk(int rows, List<String> keys, int limit) {
+    return new CleanupChunk(rows, keys.size() < limit ? null : keys.getLast());
   }
 
   @Transactional(readOnly = true)
@@ -1698,71 +2080,28 @@ public class ConversationMemoryStore {
   @Transactional
   public List<CatchupPreferenceClaim> claimDueCatchupPreferences(
       String workerId, Instant now, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
     Instant claimedUntil = now.plus(CATCHUP_LEASE);
-    List<CatchupPreferenceKey> candidates =
-        jdbcTemplate.query(
-            """
-            select preference.account_id, preference.conversation_id
-              from group_catchup_preferences preference
-              join agent_conversations conversation
-                on conversation.conversation_id = preference.conversation_id
-             where preference.proactive_enabled = true and preference.next_delivery_at <= ?
-               and (preference.claimed_until is null or preference.claimed_until < ?)
-               and conversation.memory_enabled_at is not null
-               and exists (
-                 select 1 from agent_conversation_memberships membership
-                  where membership.conversation_id = preference.conversation_id
-                    and membership.account_id = preference.account_id
-                    and membership.started_at <= ?
-                    and (membership.ended_at is null or membership.ended_at > ?)
-               )
-             order by preference.next_delivery_at, preference.account_id,
-                      preference.conversation_id
-             limit ?
-            """,
-            (resultSet, rowNumber) ->
-                new CatchupPreferenceKey(
-                    resultSet.getString("account_id"), resultSet.getString("conversation_id")),
-            now,
-            now,
-            now,
-            now,
-            limit);
-    List<CatchupPreferenceClaim> claims = new ArrayList<>();
-    for (CatchupPreferenceKey key : candidates) {
-      int updated =
-          jdbcTemplate.update(
-              """
-              update group_catchup_preferences
-                 set claimed_by = ?, claimed_until = ?, updated_at = ?
-               where account_id = ? and conversation_id = ? and proactive_enabled = true
-                 and next_delivery_at <= ?
-                 and (claimed_until is null or claimed_until < ?)
-              """,
+    return workQueueClaimer.claim(
+        CATCHUP_QUEUE,
+        new WorkQueueClaimer.ClaimArguments(
+            List.of(now, now, now, now, limit),
+            List.of(workerId, claimedUntil, now),
+            List.of(now, now)),
+        (resultSet, rowNumber) -> {
+          CatchupPreference preference = catchupPreference(resultSet);
+          return new CatchupPreferenceClaim(
+              preference.accountId(),
+              preference.conversationId(),
+              preference.groupDisplayName(),
+              preference.timezone(),
+              preference.quietStart(),
+              preference.quietEnd(),
               workerId,
-              claimedUntil,
-              now,
-              key.accountId(),
-              key.conversationId(),
-              now,
-              now);
-      if (updated == 1) {
-        findCatchupPreference(key.accountId(), key.conversationId())
-            .ifPresent(
-                preference ->
-                    claims.add(
-                        new CatchupPreferenceClaim(
-                            preference.accountId(),
-                            preference.conversationId(),
-                            preference.groupDisplayName(),
-                            preference.timezone(),
-                            preference.quietStart(),
-                            preference.quietEnd(),
-                            workerId,
-                            claimedUntil)));
-      }
-    }
-    return List.copyOf(claims);
+              claimedUntil);
+        });
   }
 
   @Transactional
@@ -2281,6 +2620,13 @@ public class ConversationMemoryStore {
           rowMapper);
     }
 
+    private int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+      if (batchArgs.isEmpty()) {
+        return new int[0];
+      }
+      return delegate.batchUpdate(sql, batchArgs.stream().map(this::postgresArguments).toList());
+    }
+
     private <T> @Nullable T queryForObject(String sql, Class<T> requiredType, Object... args) {
       return delegate.queryForObject(sql, requiredType, postgresArguments(args));
     }
@@ -2307,14 +2653,21 @@ public class ConversationMemoryStore {
     }
   }
 
-  private record ProjectionCandidate(
-      String artifactId, String accountId, ProjectionOperation operation, String projectionHash) {}
-
   private record ActiveMembership(String membershipId, String accountId) {}
 
-  private record DigestKey(String conversationId, Instant periodStart, Instant periodEnd) {}
+  private record ConversationKey(String transport, String externalConversationId) {
+    private static ConversationKey of(JournalEntry entry) {
+      return new ConversationKey(entry.transport(), entry.externalConversationId());
+    }
+  }
+
+  private record ConversationTouch(boolean group, Instant observedAt) {
+    private ConversationTouch merge(ConversationTouch next) {
+      return new ConversationTouch(next.group(), latest(observedAt, next.observedAt()));
+    }
+  }
 
-  private record CatchupPreferenceKey(String accountId, String conversationId) {}
+  private record MembershipKey(String conversationId, String accountId) {}
 
   private record ScopeKey(String type, String id) {}
 }
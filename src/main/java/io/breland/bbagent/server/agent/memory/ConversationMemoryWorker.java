@@ -1,5 +1,6 @@
 package io.breland.bbagent.server.agent.memory;
 
+import io.breland.bbagent.server.ExecutorSupport;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ConversationRecord;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionBatch;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionCheckpoint;
@@ -7,6 +8,7 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMe
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ModelExtraction;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.WorkClaim;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -17,8 +19,16 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,9 +36,19 @@ import org.springframework.lang.Nullable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Claims due conversation memory extraction work and processes it on a bounded pool of virtual
+ * threads. Claims for the same conversation run strictly one after another. The worker only claims
+ * as much as the pool can start well inside {@link ConversationMemoryStore#EXTRACTION_LEASE}, and
+ * drops claims whose lease is too close to expiring so another poll can pick them up.
+ */
+@Slf4j
 @Service
 public class ConversationMemoryWorker {
+  static final int DEFAULT_CONCURRENCY = 4;
   private static final int CLAIM_LIMIT = 10;
+  private static final Duration MINIMUM_REMAINING_LEASE =
+      ConversationMemoryStore.EXTRACTION_LEASE.dividedBy(2);
   private static final int MAX_BATCH_MESSAGES = 200;
   private static final int MAX_BATCH_CHARACTERS = 40_000;
   private static final int MAX_OVERLAP_MESSAGES = 50;
@@ -41,6 +61,11 @@ public class ConversationMemoryWorker {
   private final Clock clock;
   private final String workerId;
   private final boolean globallyEnabled;
+  private final Executor executor;
+  private final int maxOutstandingClaims;
+  private final Map<String, CompletableFuture<Void>> conversationLanes = new ConcurrentHashMap<>();
+  private final AtomicInteger queuedClaims = new AtomicInteger();
+  private final AtomicInteger inFlightClaims = new AtomicInteger();
 
   @Autowired
   public ConversationMemoryWorker(
@@ -48,7 +73,8 @@ public class ConversationMemoryWorker {
       ConversationMembershipService membershipService,
       ConversationMemoryModelClient modelClient,
       @Nullable OperationalMetricsService metrics,
-      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled) {
+      @Value("${bbagent.memory.group.enabled:false}") boolean globallyEnabled,
+      @Value("${bbagent.memory.group.worker-concurrency:4}") int concurrency) {
     this(
         store,
         membershipService,
@@ -56,7 +82,9 @@ public class ConversationMemoryWorker {
         metrics,
         Clock.systemUTC(),
         UUID.randomUUID().toString(),
-        globallyEnabled);
+        globallyEnabled,
+        ExecutorSupport.virtualThreadPool("memory-worker-", concurrency),
+        concurrency);
   }
 
   ConversationMemoryWorker(
@@ -77,6 +105,31 @@ public class ConversationMemoryWorker {
       Clock clock,
       String workerId,
       boolean globallyEnabled) {
+    this(
+        store,
+        membershipService,
+        modelClient,
+        metrics,
+        clock,
+        workerId,
+        globallyEnabled,
+        Runnable::run,
+        DEFAULT_CONCURRENCY);
+  }
+
+  ConversationMemoryWorker(
+      ConversationMemoryStore store,
+      ConversationMembershipService membershipService,
+      ConversationMemoryModelClient modelClient,
+      @Nullable OperationalMetricsService metrics,
+      Clock clock,
+      String workerId,
+      boolean globallyEnabled,
+      Executor executor,
+      int concurrency) {
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("memory worker concurrency must be positive");
+    }
     this.store = store;
     this.membershipService = membershipService;
     this.modelClient = modelClient;
@@ -84,6 +137,9 @@ public class ConversationMemoryWorker {
     this.clock = clock == null ? Clock.systemUTC() : clock;
     this.workerId = workerId;
     this.globallyEnabled = globallyEnabled;
+    this.executor = executor;
+    // Roughly one claim running and one waiting per worker thread keeps claims inside their lease.
+    this.maxOutstandingClaims = Math.max(CLAIM_LIMIT, concurrency * 2);
   }
 
   @Scheduled(
@@ -93,12 +149,82 @@ public class ConversationMemoryWorker {
     if (!globallyEnabled) {
       return;
     }
+    int capacity = maxOutstandingClaims - queuedClaims.get() - inFlightClaims.get();
+    if (capacity <= 0) {
+      updatePoolGauges();
+      return;
+    }
     Instant now = clock.instant();
-    for (WorkClaim claim : store.claimDueExtractionWork(workerId, now, CLAIM_LIMIT)) {
+    for (WorkClaim claim :
+        store.claimDueExtractionWork(workerId, now, Math.min(CLAIM_LIMIT, capacity))) {
+      dispatch(claim, now);
+    }
+    updatePoolGauges();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ExecutorSupport.shutdown(executor, Duration.ofSeconds(30));
+  }
+
+  /** Waits until every dispatched claim has finished. */
+  void awaitIdle(Duration timeout) throws InterruptedException, TimeoutException {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (!conversationLanes.isEmpty()) {
+      if (System.nanoTime() >= deadline) {
+        throw new TimeoutException("memory worker did not become idle");
+      }
+      Thread.sleep(5);
+    }
+  }
+
+  /**
+   * Queues the claim behind any earlier claim for the same conversation. That only happens when a
+   * lease expired mid-extraction and this worker claimed the conversation again.
+   */
+  private void dispatch(WorkClaim claim, Instant claimedAt) {
+    queuedClaims.incrementAndGet();
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    CompletableFuture<Void> previous = conversationLanes.put(claim.conversationId(), done);
+    CompletableFuture<Void> ready =
+        previous == null ? CompletableFuture.completedFuture(null) : previous;
+    ready.whenComplete(
+        (ignored, error) -> {
+          try {
+            executor.execute(() -> runClaim(claim, claimedAt, done));
+          } catch (RejectedExecutionException e) {
+            log.warn("Memory worker rejected claim for {}", claim.conversationId());
+            queuedClaims.decrementAndGet();
+            finish(claim, done);
+          }
+        });
+  }
+
+  private void runClaim(WorkClaim claim, Instant claimedAt, CompletableFuture<Void> done) {
+    queuedClaims.decrementAndGet();
+    inFlightClaims.incrementAndGet();
+    updatePoolGauges();
+    String outcome = "processed";
+    try {
+      if (!clock.instant().isBefore(claim.claimedUntil().minus(MINIMUM_REMAINING_LEASE))) {
+        // Too little lease left to finish safely; let it expire and be claimed again.
+        outcome = "lease_expiring";
+        return;
+      }
       process(claim);
+    } finally {
+      inFlightClaims.decrementAndGet();
+      recordClaim(outcome, Duration.between(claimedAt, clock.instant()));
+      finish(claim, done);
+      updatePoolGauges();
     }
   }
 
+  private void finish(WorkClaim claim, CompletableFuture<Void> done) {
+    conversationLanes.remove(claim.conversationId(), done);
+    done.complete(null);
+  }
+
   private void process(WorkClaim claim) {
     Instant startedAt = clock.instant();
     try {
@@ -166,6 +292,18 @@ public class ConversationMemoryWorker {
     }
   }
 
+  private void recordClaim(String outcome, Duration latency) {
+    if (metrics != null) {
+      metrics.recordMemoryWorkerClaim(outcome, latency);
+    }
+  }
+
+  private void updatePoolGauges() {
+    if (metrics != null) {
+      metrics.updateMemoryWorkerPool(queuedClaims.get(), inFlightClaims.get());
+    }
+  }
+
   private void recordWorkLag(String conversationId, Instant now) {
     if (metrics == null) {
       return;
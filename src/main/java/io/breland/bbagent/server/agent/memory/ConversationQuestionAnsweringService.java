@@ -1,8 +1,10 @@
 package io.breland.bbagent.server.agent.memory;
 
+import io.breland.bbagent.server.ExecutorSupport;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.AuthorizedGroup;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ConversationRecord;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.AnswerStatus;
+import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.Confidence;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.GroupQuestionAnswer;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.HistoryWindow;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.HistoryWindowCursor;
@@ -17,12 +19,14 @@ import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModel
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.WindowAction;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.WindowFinding;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
 import java.time.Clock;
 import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
@@ -32,6 +36,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -70,6 +80,8 @@ public class ConversationQuestionAnsweringService {
   private final int maxAggregateCharacters;
   private final Duration requestTimeout;
   private final Clock clock;
+  private final boolean pipelined;
+  private final Executor executor;
 
   @Autowired
   public ConversationQuestionAnsweringService(
@@ -82,7 +94,8 @@ public class ConversationQuestionAnsweringService {
       @Value("${bbagent.memory.group.qa.max-batch-characters}") int maxBatchCharacters,
       @Value("${bbagent.memory.group.qa.max-model-batches}") int maxModelBatches,
       @Value("${bbagent.memory.group.qa.max-aggregate-characters}") int maxAggregateCharacters,
-      @Value("${bbagent.memory.group.qa.request-timeout}") Duration requestTimeout) {
+      @Value("${bbagent.memory.group.qa.request-timeout}") Duration requestTimeout,
+      @Value("${bbagent.memory.group.qa.pipelined:true}") boolean pipelined) {
     this(
         store,
         retriever,
@@ -94,7 +107,11 @@ public class ConversationQuestionAnsweringService {
         maxModelBatches,
         maxAggregateCharacters,
         requestTimeout,
-        Clock.systemUTC());
+        Clock.systemUTC(),
+        pipelined,
+        pipelined
+            ? ExecutorSupport.virtualThreadPerTask("memory-question-")
+            : Runnable::run);
   }
 
   ConversationQuestionAnsweringService(
@@ -109,6 +126,36 @@ public class ConversationQuestionAnsweringService {
       int maxAggregateCharacters,
       Duration requestTimeout,
       Clock clock) {
+    this(
+        store,
+        retriever,
+        model,
+        metrics,
+        windowMessageCount,
+        maxHistoryPages,
+        maxBatchCharacters,
+        maxModelBatches,
+        maxAggregateCharacters,
+        requestTimeout,
+        clock,
+        false,
+        Runnable::run);
+  }
+
+  ConversationQuestionAnsweringService(
+      ConversationMemoryStore store,
+      ConversationQuestionHistoryRetriever retriever,
+      ConversationQuestionAnsweringModelClient model,
+      OperationalMetricsService metrics,
+      int windowMessageCount,
+      int maxHistoryPages,
+      int maxBatchCharacters,
+      int maxModelBatches,
+      int maxAggregateCharacters,
+      Duration requestTimeout,
+      Clock clock,
+      boolean pipelined,
+      Executor executor) {
     this.store = Objects.requireNonNull(store, "store");
     this.retriever = Objects.requireNonNull(retriever, "retriever");
     this.model = Objects.requireNonNull(model, "model");
@@ -143,6 +190,13 @@ public class ConversationQuestionAnsweringService {
     this.maxAggregateCharacters = maxAggregateCharacters;
     this.requestTimeout = requestTimeout;
     this.clock = Objects.requireNonNull(clock, "clock");
+    this.pipelined = pipelined;
+    this.executor = Objects.requireNonNull(executor, "executor");
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ExecutorSupport.shutdown(executor, requestTimeout);
   }
 
   public GroupQuestionAnswer answer(
@@ -177,6 +231,8 @@ public class ConversationQuestionAnsweringService {
           run.windowCount,
           run.modelCalls);
       result = unavailable(effectiveFrom, to, run, SOURCE_UNAVAILABLE);
+    } finally {
+      run.discardPrefetch();
     }
     recordMetrics(result, run, startedAt);
     return result;
@@ -219,7 +275,10 @@ public class ConversationQuestionAnsweringService {
         return clarification(from, to, run, NARROW_TIME_QUESTION, null, false);
       }
 
-      HistoryWindow window = retriever.retrieveWindow(request, cursor, windowMessageCount);
+      HistoryWindow window = run.takePrefetched(cursor);
+      if (window == null) {
+        window = retriever.retrieveWindow(request, cursor, windowMessageCount);
+      }
       run.observe(window);
       if (run.pageCount > maxHistoryPages) {
         return clarification(from, to, run, NARROW_TIME_QUESTION, null, false);
@@ -245,16 +304,23 @@ public class ConversationQuestionAnsweringService {
         return clarification(from, to, run, NARROW_TIME_QUESTION, null, false);
       }
 
+      if (pipelined && window.nextCursor() != null && run.pageCount < maxHistoryPages) {
+        // Fetch the older window while this one is with the model; it is dropped unused if this
+        // window settles the answer.
+        run.prefetch(request, window.nextCursor());
+      }
       List<ModelWindowDecision> decisions = new ArrayList<>(chunks.size());
-      for (List<QuestionMessage> chunk : chunks) {
-        RoutedWindowDecision routed =
-            decide(question, referenceTime, timezone, chunk, deadline, run);
-        if (routed == null) {
-          return unavailable(from, to, run, deadlineReached(deadline) ? TIME_LIMIT : MODEL_LIMIT);
+      List<RoutedWindowDecision> routedDecisions =
+          pipelined && chunks.size() > 1
+              ? decideConcurrently(question, referenceTime, timezone, chunks, deadline, run)
+              : decideInOrder(question, referenceTime, timezone, chunks, deadline, run);
+      if (routedDecisions == null) {
+        return unavailable(from, to, run, deadlineReached(deadline) ? TIME_LIMIT : MODEL_LIMIT);
+      }
+      for (RoutedWindowDecision routed : routedDecisions) {
+        if (routed != null) {
+          decisions.add(routed.decision());
         }
-        validateDecision(routed.decision(), chunk);
-        run.observe(routed);
-        decisions.add(routed.decision());
       }
 
       if (chunks.size() == 1 && run.findings.isEmpty()) {
@@ -324,6 +390,121 @@ public class ConversationQuestionAnsweringService {
     }
   }
 
+  private @Nullable List<RoutedWindowDecision> decideInOrder(
+      String question,
+      Instant referenceTime,
+      @Nullable String timezone,
+      List<List<QuestionMessage>> chunks,
+      Instant deadline,
+      RunState run) {
+    List<RoutedWindowDecision> routed = new ArrayList<>(chunks.size());
+    for (List<QuestionMessage> chunk : chunks) {
+      RoutedWindowDecision decision =
+          decide(question, referenceTime, timezone, chunk, deadline, run);
+      if (decision == null) {
+        return null;
+      }
+      validateDecision(decision.decision(), chunk);
+      run.observe(decision);
+      routed.add(decision);
+    }
+    run.recordParallelism(1);
+    return routed;
+  }
+
+  /**
+   * Decides every chunk of a window at once, within the same model-call budget as deciding them in
+   * order. Chunks are ordered oldest to newest, so once a chunk answers with high confidence and
+   * every newer chunk has finished, the older chunks still running cannot change the outcome and
+   * are abandoned; their slots are left {@code null}.
+   */
+  private @Nullable List<RoutedWindowDecision> decideConcurrently(
+      String question,
+      Instant referenceTime,
+      @Nullable String timezone,
+      List<List<QuestionMessage>> chunks,
+      Instant deadline,
+      RunState run) {
+    for (List<QuestionMessage> chunk : chunks) {
+      if (!run.reserveModelCall(
+          model.windowInputCharacters(question, referenceTime, timezone, chunk))) {
+        return null;
+      }
+    }
+    List<CompletableFuture<RoutedWindowDecision>> pending = new ArrayList<>(chunks.size());
+    for (List<QuestionMessage> chunk : chunks) {
+      pending.add(
+          CompletableFuture.supplyAsync(
+              () -> model.decide(question, referenceTime, timezone, chunk, deadline), executor));
+    }
+    run.recordParallelism(pending.size());
+    List<RoutedWindowDecision> routed = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+    try {
+      while (!settled(pending, routed)) {
+        long remainingNanos = Duration.between(clock.instant(), deadline).toNanos();
+        if (remainingNanos <= 0) {
+          return null;
+        }
+        CompletableFuture<?>[] running =
+            pending.stream().filter(future -> !future.isDone()).toArray(CompletableFuture[]::new);
+        if (running.length > 0) {
+          CompletableFuture.anyOf(running).get(remainingNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException | CompletionException e) {
+      throw failureOf(e);
+    } finally {
+      pending.forEach(future -> future.cancel(true));
+    }
+    run.stoppedEarly |= routed.contains(null);
+    for (int index = 0; index < chunks.size(); index++) {
+      if (routed.get(index) != null) {
+        validateDecision(routed.get(index).decision(), chunks.get(index));
+        run.observe(routed.get(index));
+      }
+    }
+    return deadlineReached(deadline) ? null : routed;
+  }
+
+  /**
+   * Copies finished decisions into {@code routed} and reports whether the window is decided: every
+   * chunk has finished, or a high-confidence answer has no unfinished chunk newer than it.
+   */
+  private static boolean settled(
+      List<CompletableFuture<RoutedWindowDecision>> pending, List<RoutedWindowDecision> routed) {
+    for (int index = 0; index < pending.size(); index++) {
+      if (pending.get(index).isDone()) {
+        routed.set(index, pending.get(index).join());
+      }
+    }
+    for (int index = routed.size() - 1; index >= 0; index--) {
+      RoutedWindowDecision decision = routed.get(index);
+      if (decision == null) {
+        return false;
+      }
+      if (confidentAnswer(decision)) {
+        return true;
+      }
+    }
+    return true;
+  }
+
+  private static RuntimeException failureOf(Exception wrapped) {
+    return wrapped.getCause() instanceof RuntimeException failure
+        ? failure
+        : new IllegalStateException("question history task failed", wrapped.getCause());
+  }
+
+  private static boolean confidentAnswer(RoutedWindowDecision routed) {
+    return routed.decision().action() == WindowAction.ANSWERED
+        && routed.decision().confidence() == Confidence.HIGH;
+  }
+
   private @Nullable RoutedWindowDecision decide(
       String question,
       Instant referenceTime,
@@ -555,6 +736,7 @@ public class ConversationQuestionAnsweringService {
 
   private void recordMetrics(GroupQuestionAnswer result, RunState run, Instant startedAt) {
     boolean success = result.status() != AnswerStatus.UNAVAILABLE;
+    Duration duration = Duration.between(startedAt, clock.instant());
     metrics.recordMemoryQuestionAnswer(
         result.status().wireValue(),
         result.model(),
@@ -565,7 +747,15 @@ public class ConversationQuestionAnsweringService {
         run.reductionCount,
         success,
         success ? null : result.status().wireValue(),
-        Duration.between(startedAt, clock.instant()));
+        duration);
+    metrics.recordMemoryQuestionPipeline(
+        result.status().wireValue(),
+        pipelined,
+        run.peakParallelism,
+        run.prefetchesUsed,
+        run.prefetchesDiscarded,
+        run.stoppedEarly,
+        duration);
   }
 
   private static HistoryWindowCursor advanceCursor(
@@ -624,6 +814,49 @@ public class ConversationQuestionAnsweringService {
     private @Nullable String model;
     private boolean fallbackUsed;
     private @Nullable String partialReason;
+    private @Nullable HistoryWindowCursor prefetchedCursor;
+    private @Nullable CompletableFuture<HistoryWindow> prefetched;
+    private int prefetchesUsed;
+    private int prefetchesDiscarded;
+    private int peakParallelism;
+    private boolean stoppedEarly;
+
+    private void prefetch(RetrievalRequest request, HistoryWindowCursor cursor) {
+      discardPrefetch();
+      prefetchedCursor = cursor;
+      prefetched =
+          CompletableFuture.supplyAsync(
+              () -> retriever.retrieveWindow(request, cursor, windowMessageCount), executor);
+    }
+
+    private @Nullable HistoryWindow takePrefetched(@Nullable HistoryWindowCursor cursor) {
+      if (prefetched == null || !Objects.equals(prefetchedCursor, cursor)) {
+        discardPrefetch();
+        return null;
+      }
+      CompletableFuture<HistoryWindow> window = prefetched;
+      prefetched = null;
+      prefetchedCursor = null;
+      prefetchesUsed++;
+      try {
+        return window.join();
+      } catch (CompletionException e) {
+        throw failureOf(e);
+      }
+    }
+
+    private void discardPrefetch() {
+      if (prefetched != null) {
+        prefetched.cancel(true);
+        prefetched = null;
+        prefetchedCursor = null;
+        prefetchesDiscarded++;
+      }
+    }
+
+    private void recordParallelism(int parallelism) {
+      peakParallelism = Math.max(peakParallelism, parallelism);
+    }
 
     private void observe(HistoryWindow window) {
       windowCount = Math.addExact(windowCount, 1);
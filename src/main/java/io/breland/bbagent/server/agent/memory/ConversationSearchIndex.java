@@ -0,0 +1,614 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lucene index over the retained message journal ({@code agent_conversation_messages}), so
+ * conversation history searches are answered locally instead of by a substring scan on
+ * BlueBubbles. It only ever holds what the journal retains, which is text from memory-enabled
+ * group chats since memory was turned on and within the raw retention window.
+ *
+ * <p>The index follows the journal by {@code ingested_at}, re-reading {@code sync-overlap} behind
+ * its watermark to pick up transactions that committed late; rows whose text was purged are
+ * dropped. Hits are re-read from the journal before they are returned, so a document that has not
+ * caught up with a purge or a memory opt-out is never shown. Documents are sorted by conversation
+ * so each chat's messages sit together and a per-chat filter skips the rest of the index.
+ *
+ * <p>The index is opt-in through {@code bbagent.memory.search.enabled} and then needs {@code
+ * bbagent.memory.search.directory} on local disk; without it history searches go to BlueBubbles.
+ */
+@Component
+@ConditionalOnProperty(name = "bbagent.memory.search.enabled", havingValue = "true")
+@Slf4j
+public class ConversationSearchIndex {
+  static final int DEFAULT_LIMIT = 20;
+  static final int MAX_LIMIT = 100;
+  private static final int MAX_QUERY_TERMS = 32;
+  private static final int COMMIT_EVERY_ROWS = 100_000;
+  private static final int SIGNATURE_CACHE_LIMIT = 20_000;
+  private static final float EXACT_BOOST = 2.0f;
+  private static final float PHRASE_BOOST = 3.0f;
+  private static final int PHRASE_SLOP = 2;
+  private static final String COMMIT_WATERMARK = "ingested_at";
+  private static final String FIELD_GUID = "guid";
+  private static final String FIELD_CONVERSATION = "conversation_id";
+  private static final String FIELD_TIMESTAMP = "timestamp";
+  private static final String FIELD_TEXT = "text";
+  private static final String FIELD_TEXT_EXACT = "text_exact";
+  private static final Pattern QUOTED_PHRASE = Pattern.compile("\"([^\"]+)\"");
+  private static final Sort NEWEST_FIRST =
+      new Sort(new SortField(FIELD_TIMESTAMP, SortField.Type.LONG, true));
+
+  private static final RowMapper<JournalRow> JOURNAL_ROW_MAPPER =
+      (resultSet, rowNumber) ->
+          new JournalRow(
+              resultSet.getString("message_guid"),
+              resultSet.getString("conversation_id"),
+              resultSet.getString("message_text"),
+              resultSet.getString("content_hash"),
+              resultSet.getTimestamp("source_timestamp").toInstant(),
+              resultSet.getBoolean("system_message"),
+              resultSet.getBoolean("removed"),
+              resultSet.getTimestamp("ingested_at").toInstant());
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int syncBatchSize;
+  private final Duration syncOverlap;
+  private final Analyzer analyzer;
+  private final Directory directory;
+  private final IndexWriter writer;
+  private final SearcherManager searcherManager;
+  private final ReentrantLock syncLock = new ReentrantLock();
+  // Journal rows re-read inside the overlap are skipped when nothing about them changed.
+  private final Map<String, String> indexedSignatures =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+          return size() > SIGNATURE_CACHE_LIMIT;
+        }
+      };
+  private @Nullable Instant watermark;
+  private volatile boolean ready;
+
+  @Autowired
+  public ConversationSearchIndex(
+      JdbcTemplate jdbcTemplate,
+      @Value("${bbagent.memory.search.directory:}") String directory,
+      @Value("${bbagent.memory.search.sync-batch-size:2000}") int syncBatchSize,
+      @Value("${bbagent.memory.search.sync-overlap:PT1M}") Duration syncOverlap) {
+    this(jdbcTemplate, openDirectory(directory), syncBatchSize, syncOverlap);
+  }
+
+  ConversationSearchIndex(
+      JdbcTemplate jdbcTemplate, Directory directory, int syncBatchSize, Duration syncOverlap) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+    this.syncBatchSize = Math.max(1, syncBatchSize);
+    this.syncOverlap = syncOverlap == null ? Duration.ofMinutes(1) : syncOverlap;
+    this.analyzer =
+        new PerFieldAnalyzerWrapper(
+            new EnglishAnalyzer(), Map.of(FIELD_TEXT_EXACT, new StandardAnalyzer()));
+    this.directory = Objects.requireNonNull(directory, "directory");
+    try {
+      IndexWriterConfig config =
+          new IndexWriterConfig(analyzer)
+              .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+              .setIndexSort(new Sort(new SortField(FIELD_CONVERSATION, SortField.Type.STRING)));
+      this.writer = new IndexWriter(this.directory, config);
+      this.searcherManager = new SearcherManager(writer, null);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open conversation search index", e);
+    }
+    this.watermark = committedWatermark(writer);
+  }
+
+  // The index is rebuilt from the journal whenever it is empty, so keeping it in memory would
+  // re-read the whole retained journal on every start and hold it in every replica's heap.
+  private static Directory openDirectory(String directory) {
+    if (StringUtils.isBlank(directory)) {
+      throw new IllegalStateException(
+          "bbagent.memory.search.directory must be set when bbagent.memory.search.enabled is true");
+    }
+    try {
+      return FSDirectory.open(Path.of(directory.trim()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open conversation search index directory", e);
+    }
+  }
+
+  /**
+   * Searches one chat's retained history. Empty when the index has not caught up with the journal
+   * yet or the chat's messages are not journaled, in which case the caller has to search elsewhere.
+   * A blank query lists the newest messages in range.
+   */
+  public Optional<SearchResult> search(
+      String transport,
+      String externalConversationId,
+      @Nullable String query,
+      @Nullable Instant after,
+      @Nullable Instant before,
+      @Nullable Integer limit,
+      @Nullable Integer offset) {
+    if (!ready || StringUtils.isAnyBlank(transport, externalConversationId)) {
+      return Optional.empty();
+    }
+    Optional<CoveredConversation> covered =
+        findCoveredConversation(transport, externalConversationId);
+    if (covered.isEmpty()) {
+      return Optional.empty();
+    }
+    CoveredConversation conversation = covered.get();
+    int pageSize = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    int skip = offset == null || offset < 0 ? 0 : offset;
+    long from =
+        after == null || after.isBefore(conversation.enabledAt())
+            ? conversation.enabledAt().toEpochMilli()
+            : after.toEpochMilli();
+    long to = before == null ? Long.MAX_VALUE : before.toEpochMilli() - 1;
+    if (from > to) {
+      return Optional.of(new SearchResult(List.of(), conversation.enabledAt()));
+    }
+    Query textQuery = textQuery(query);
+    BooleanQuery.Builder builder =
+        new BooleanQuery.Builder()
+            .add(
+                textQuery == null ? new MatchAllDocsQuery() : textQuery,
+                textQuery == null ? BooleanClause.Occur.FILTER : BooleanClause.Occur.MUST)
+            .add(
+                new TermQuery(new Term(FIELD_CONVERSATION, conversation.conversationId())),
+                BooleanClause.Occur.FILTER)
+            .add(LongPoint.newRangeQuery(FIELD_TIMESTAMP, from, to), BooleanClause.Occur.FILTER);
+    List<String> guids = searchGuids(builder.build(), textQuery == null, skip + pageSize, skip);
+    return Optional.of(
+        new SearchResult(
+            hydrate(conversation.conversationId(), guids), conversation.enabledAt()));
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bbagent.memory.search.sync-interval:PT5S}",
+      initialDelayString = "${bbagent.memory.search.sync-initial-delay:PT10S}")
+  public void sync() {
+    if (!syncLock.tryLock()) {
+      return;
+    }
+    try {
+      syncPending();
+    } catch (RuntimeException e) {
+      log.warn("Failed to sync conversation search index", e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  /**
+   * Drops documents of chats that turned memory off, and documents from before a chat last turned
+   * it on. The journal deletes those rows outright, so the incremental sync never sees them go.
+   */
+  @Scheduled(
+      fixedDelayString = "${bbagent.memory.search.prune-interval:PT10M}",
+      initialDelayString = "${bbagent.memory.search.prune-interval:PT10M}")
+  public void pruneDisabledConversations() {
+    if (!syncLock.tryLock()) {
+      return;
+    }
+    try {
+      List<CoveredConversation> enabled =
+          jdbcTemplate.query(
+              """
+              select conversation_id, memory_enabled_at
+                from agent_conversations
+               where memory_enabled_at is not null
+              """,
+              (resultSet, rowNumber) ->
+                  new CoveredConversation(
+                      resultSet.getString(1), resultSet.getTimestamp(2).toInstant()));
+      writer.deleteDocuments(
+          new BooleanQuery.Builder()
+              .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+              .add(
+                  new TermInSetQuery(
+                      FIELD_CONVERSATION,
+                      enabled.stream()
+                          .map(conversation -> new BytesRef(conversation.conversationId()))
+                          .toList()),
+                  BooleanClause.Occur.MUST_NOT)
+              .build());
+      for (CoveredConversation conversation : enabled) {
+        writer.deleteDocuments(
+            new BooleanQuery.Builder()
+                .add(
+                    new TermQuery(new Term(FIELD_CONVERSATION, conversation.conversationId())),
+                    BooleanClause.Occur.FILTER)
+                .add(
+                    LongPoint.newRangeQuery(
+                        FIELD_TIMESTAMP,
+                        Long.MIN_VALUE,
+                        conversation.enabledAt().toEpochMilli() - 1),
+                    BooleanClause.Occur.FILTER)
+                .build());
+      }
+      commit();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to prune conversation search index", e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    try {
+      searcherManager.close();
+      writer.close();
+      directory.close();
+      analyzer.close();
+    } catch (IOException e) {
+      log.warn("Failed to close conversation search index", e);
+    }
+  }
+
+  boolean isReady() {
+    return ready;
+  }
+
+  /** Applies every journal change since the watermark and returns how many rows were read. */
+  int syncPending() {
+    syncLock.lock();
+    try {
+      Instant cursorTime = watermark == null ? null : watermark.minus(syncOverlap);
+      String cursorGuid = "";
+      int read = 0;
+      int sinceCommit = 0;
+      while (true) {
+        List<JournalRow> rows = journalPage(cursorTime, cursorGuid);
+        for (JournalRow row : rows) {
+          apply(row);
+        }
+        read += rows.size();
+        sinceCommit += rows.size();
+        if (!rows.isEmpty()) {
+          JournalRow last = rows.getLast();
+          cursorTime = last.ingestedAt();
+          cursorGuid = last.messageGuid();
+          if (watermark == null || last.ingestedAt().isAfter(watermark)) {
+            watermark = last.ingestedAt();
+          }
+        }
+        if (sinceCommit >= COMMIT_EVERY_ROWS || (rows.size() < syncBatchSize && sinceCommit > 0)) {
+          commit();
+          sinceCommit = 0;
+        }
+        if (rows.size() < syncBatchSize) {
+          break;
+        }
+      }
+      ready = true;
+      return read;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to update conversation search index", e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  private List<JournalRow> journalPage(@Nullable Instant cursorTime, String cursorGuid) {
+    if (cursorTime == null) {
+      return jdbcTemplate.query(
+          """
+          select message_guid, conversation_id, message_text, content_hash, source_timestamp,
+                 system_message, removed, ingested_at
+            from agent_conversation_messages
+           order by ingested_at, message_guid
+           limit ?
+          """,
+          JOURNAL_ROW_MAPPER,
+          syncBatchSize);
+    }
+    return jdbcTemplate.query(
+        """
+        select message_guid, conversation_id, message_text, content_hash, source_timestamp,
+               system_message, removed, ingested_at
+          from agent_conversation_messages
+         where ingested_at > ? or (ingested_at = ? and message_guid > ?)
+         order by ingested_at, message_guid
+         limit ?
+        """,
+        JOURNAL_ROW_MAPPER,
+        offset(cursorTime),
+        offset(cursorTime),
+        cursorGuid,
+        syncBatchSize);
+  }
+
+  private void apply(JournalRow row) throws IOException {
+    String signature = row.signature();
+    if (signature.equals(indexedSignatures.get(row.messageGuid()))) {
+      return;
+    }
+    Term guid = new Term(FIELD_GUID, row.messageGuid());
+    if (!row.searchable()) {
+      writer.deleteDocuments(guid);
+    } else {
+      long timestamp = row.sourceTimestamp().toEpochMilli();
+      Document document = new Document();
+      document.add(new StringField(FIELD_GUID, row.messageGuid(), Field.Store.YES));
+      document.add(new StringField(FIELD_CONVERSATION, row.conversationId(), Field.Store.NO));
+      document.add(
+          new SortedDocValuesField(FIELD_CONVERSATION, new BytesRef(row.conversationId())));
+      document.add(new LongPoint(FIELD_TIMESTAMP, timestamp));
+      document.add(new NumericDocValuesField(FIELD_TIMESTAMP, timestamp));
+      document.add(new TextField(FIELD_TEXT, row.text(), Field.Store.NO));
+      document.add(new TextField(FIELD_TEXT_EXACT, row.text(), Field.Store.NO));
+      writer.updateDocument(guid, document);
+    }
+    indexedSignatures.put(row.messageGuid(), signature);
+  }
+
+  private void commit() throws IOException {
+    if (watermark != null) {
+      writer.setLiveCommitData(Map.of(COMMIT_WATERMARK, watermark.toString()).entrySet());
+    }
+    writer.commit();
+    searcherManager.maybeRefreshBlocking();
+  }
+
+  private List<String> searchGuids(Query query, boolean newestFirst, int topN, int skip) {
+    try {
+      IndexSearcher searcher = searcherManager.acquire();
+      try {
+        ScoreDoc[] hits =
+            newestFirst
+                ? searcher.search(query, topN, NEWEST_FIRST).scoreDocs
+                : searcher.search(query, topN).scoreDocs;
+        StoredFields storedFields = searcher.storedFields();
+        List<String> guids = new ArrayList<>(Math.max(0, hits.length - skip));
+        for (int index = skip; index < hits.length; index++) {
+          guids.add(storedFields.document(hits[index].doc).get(FIELD_GUID));
+        }
+        return guids;
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to search conversation index", e);
+    }
+  }
+
+  private List<SearchHit> hydrate(String conversationId, List<String> guids) {
+    if (guids.isEmpty()) {
+      return List.of();
+    }
+    List<Object> args = new ArrayList<>(guids.size() + 1);
+    args.add(conversationId);
+    args.addAll(guids);
+    Map<String, SearchHit> byGuid = new HashMap<>();
+    jdbcTemplate.query(
+        """
+        select message.message_guid, message.message_text, message.source_timestamp,
+               message.from_agent,
+               (select min(identity.identifier)
+                  from agent_account_identities identity
+                 where identity.account_id = message.sender_account_id) as sender
+          from agent_conversation_messages message
+         where message.conversation_id = ? and message.removed = false
+           and message.message_text is not null and message.message_guid in (%s)
+        """
+            .formatted(String.join(",", Collections.nCopies(guids.size(), "?"))),
+        resultSet -> {
+          SearchHit hit =
+              new SearchHit(
+                  resultSet.getString("message_guid"),
+                  resultSet.getString("message_text"),
+                  resultSet.getTimestamp("source_timestamp").toInstant(),
+                  resultSet.getBoolean("from_agent"),
+                  resultSet.getString("sender"));
+          byGuid.put(hit.messageGuid(), hit);
+        },
+        args.toArray());
+    return guids.stream().map(byGuid::get).filter(Objects::nonNull).toList();
+  }
+
+  private Optional<CoveredConversation> findCoveredConversation(
+      String transport, String externalConversationId) {
+    return jdbcTemplate
+        .query(
+            """
+            select conversation_id, memory_enabled_at
+              from agent_conversations
+             where transport = ? and external_conversation_id = ? and is_group = true
+               and memory_enabled_at is not null
+            """,
+            (resultSet, rowNumber) ->
+                new CoveredConversation(
+                    resultSet.getString(1), resultSet.getTimestamp(2).toInstant()),
+            transport,
+            externalConversationId)
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Each query word matches its English stem, itself (boosted), or a close misspelling. Most words
+   * have to match, quoted phrases have to match exactly, and messages that keep the words close
+   * together rank higher.
+   */
+  private @Nullable Query textQuery(@Nullable String query) {
+    if (StringUtils.isBlank(query)) {
+      return null;
+    }
+    List<String> words =
+        analyze(FIELD_TEXT_EXACT, query).stream()
+            .filter(word -> !EnglishAnalyzer.ENGLISH_STOP_WORDS_SET.contains(word))
+            .limit(MAX_QUERY_TERMS)
+            .toList();
+    if (words.isEmpty()) {
+      words = analyze(FIELD_TEXT_EXACT, query).stream().limit(MAX_QUERY_TERMS).toList();
+    }
+    if (words.isEmpty()) {
+      return null;
+    }
+    BooleanQuery.Builder wordsQuery = new BooleanQuery.Builder();
+    for (String word : words) {
+      BooleanQuery.Builder wordQuery =
+          new BooleanQuery.Builder()
+              .add(
+                  new BoostQuery(new TermQuery(new Term(FIELD_TEXT_EXACT, word)), EXACT_BOOST),
+                  BooleanClause.Occur.SHOULD);
+      for (String stem : analyze(FIELD_TEXT, word)) {
+        wordQuery.add(new TermQuery(new Term(FIELD_TEXT, stem)), BooleanClause.Occur.SHOULD);
+      }
+      int maxEdits = word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+      if (maxEdits > 0) {
+        wordQuery.add(
+            new FuzzyQuery(new Term(FIELD_TEXT_EXACT, word), maxEdits, 1),
+            BooleanClause.Occur.SHOULD);
+      }
+      wordsQuery.add(wordQuery.build(), BooleanClause.Occur.SHOULD);
+    }
+    wordsQuery.setMinimumNumberShouldMatch(words.size() <= 2 ? words.size() : words.size() - 1);
+    BooleanQuery.Builder builder =
+        new BooleanQuery.Builder().add(wordsQuery.build(), BooleanClause.Occur.MUST);
+    if (words.size() > 1) {
+      builder.add(
+          new BoostQuery(
+              new PhraseQuery(PHRASE_SLOP, FIELD_TEXT_EXACT, words.toArray(String[]::new)),
+              PHRASE_BOOST),
+          BooleanClause.Occur.SHOULD);
+    }
+    Matcher quoted = QUOTED_PHRASE.matcher(query);
+    while (quoted.find()) {
+      List<String> phrase = analyze(FIELD_TEXT_EXACT, quoted.group(1));
+      if (phrase.size() == 1) {
+        builder.add(
+            new TermQuery(new Term(FIELD_TEXT_EXACT, phrase.getFirst())),
+            BooleanClause.Occur.MUST);
+      } else if (phrase.size() > 1) {
+        builder.add(
+            new PhraseQuery(FIELD_TEXT_EXACT, phrase.toArray(String[]::new)),
+            BooleanClause.Occur.MUST);
+      }
+    }
+    return builder.build();
+  }
+
+  private List<String> analyze(String field, String text) {
+    List<String> terms = new ArrayList<>();
+    try (TokenStream tokens = analyzer.tokenStream(field, text)) {
+      CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+      tokens.reset();
+      while (tokens.incrementToken()) {
+        terms.add(term.toString());
+      }
+      tokens.end();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to analyze conversation search query", e);
+    }
+    return terms;
+  }
+
+  private static @Nullable Instant committedWatermark(IndexWriter writer) {
+    Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+    if (commitData == null) {
+      return null;
+    }
+    for (Map.Entry<String, String> entry : commitData) {
+      if (COMMIT_WATERMARK.equals(entry.getKey())) {
+        return Instant.parse(entry.getValue());
+      }
+    }
+    return null;
+  }
+
+  public record SearchHit(
+      String messageGuid,
+      String text,
+      Instant sentAt,
+      boolean fromAgent,
+      @Nullable String sender) {}
+
+  /** Hits in rank order, and the earliest message time the chat's journal can contain. */
+  public record SearchResult(List<SearchHit> hits, Instant coveredFrom) {}
+
+  private record CoveredConversation(String conversationId, Instant enabledAt) {}
+
+  private record JournalRow(
+      String messageGuid,
+      String conversationId,
+      @Nullable String text,
+      String contentHash,
+      Instant sourceTimestamp,
+      boolean systemMessage,
+      boolean removed,
+      Instant ingestedAt) {
+    boolean searchable() {
+      return !removed && !systemMessage && StringUtils.isNotBlank(text);
+    }
+
+    String signature() {
+      return searchable()
+          ? conversationId + "|" + sourceTimestamp.toEpochMilli() + "|" + contentHash
+          : "-";
+    }
+  }
+}
@@ -20,6 +20,7 @@ public class MemoryScopeResolver {
   private final @Nullable AuthorizedMemoryRetrievalService authorizedMemoryRetrievalService;
   private final @Nullable ConversationDigestService conversationDigestService;
   private final @Nullable ProactiveCatchupService proactiveCatchupService;
+  private final @Nullable ConversationSearchIndex conversationSearchIndex;
 
   @Autowired
   public MemoryScopeResolver(
@@ -27,23 +28,25 @@ public class MemoryScopeResolver {
       @Value("${bbagent.memory.legacy-scope-read-enabled:true}") boolean legacyScopeReadEnabled,
       @Nullable AuthorizedMemoryRetrievalService authorizedMemoryRetrievalService,
       @Nullable ConversationDigestService conversationDigestService,
-      @Nullable ProactiveCatchupService proactiveCatchupService) {
+      @Nullable ProactiveCatchupService proactiveCatchupService,
+      @Nullable ConversationSearchIndex conversationSearchIndex) {
     this.store = store;
     this.legacyScopeReadEnabled = legacyScopeReadEnabled;
     this.authorizedMemoryRetrievalService = authorizedMemoryRetrievalService;
     this.conversationDigestService = conversationDigestService;
     this.proactiveCatchupService = proactiveCatchupService;
+    this.conversationSearchIndex = conversationSearchIndex;
   }
 
   public MemoryScopeResolver(ConversationMemoryStore store, boolean legacyScopeReadEnabled) {
-    this(store, legacyScopeReadEnabled, null, null, null);
+    this(store, legacyScopeReadEnabled, null, null, null, null);
   }
 
   public MemoryScopeResolver(
       ConversationMemoryStore store,
       boolean legacyScopeReadEnabled,
       @Nullable AuthorizedMemoryRetrievalService authorizedMemoryRetrievalService) {
-    this(store, legacyScopeReadEnabled, authorizedMemoryRetrievalService, null, null);
+    this(store, legacyScopeReadEnabled, authorizedMemoryRetrievalService, null, null, null);
   }
 
   public Optional<String> primaryScope(ToolContext context) {
@@ -98,6 +101,10 @@ public class MemoryScopeResolver {
     return Optional.ofNullable(proactiveCatchupService);
   }
 
+  public Optional<ConversationSearchIndex> conversationSearchIndex() {
+    return Optional.ofNullable(conversationSearchIndex);
+  }
+
   public void updateOwnership(String canonicalScope, String memoryId, String text) {
     store.updateCanonicalMemory(canonicalScope, memoryId, hash(text), Instant.now());
   }
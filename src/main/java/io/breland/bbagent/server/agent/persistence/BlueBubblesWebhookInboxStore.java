@@ -0,0 +1,155 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Durable inbox for BlueBubbles webhooks. The webhook controller only persists the raw event here;
+ * a dispatcher claims and processes it afterwards.
+ *
+ * <p>Only the oldest entry of each chat can be claimed, so events for one chat are processed in
+ * arrival order across every instance while different chats drain concurrently. An entry is deleted
+ * once processed; a crashed or stalled worker's lease simply expires and the entry is claimed
+ * again.
+ */
+@Repository
+public class BlueBubblesWebhookInboxStore {
+  public static final Duration LEASE = Duration.ofMinutes(5);
+  private static final WorkQueueClaimer.Queue INBOX_QUEUE =
+      new WorkQueueClaimer.Queue(
+          "bluebubbles_webhook_inbox",
+          "inbox",
+          List.of("inbox_id"),
+          """
+          select inbox.inbox_id
+            from bluebubbles_webhook_inbox inbox
+           where inbox.available_at <= ?
+             and (inbox.claimed_until is null or inbox.claimed_until < ?)
+             and not exists (
+               select 1 from bluebubbles_webhook_inbox earlier
+                where earlier.chat_key = inbox.chat_key
+                  and (earlier.received_at < inbox.received_at
+                       or (earlier.received_at = inbox.received_at
+                           and earlier.inbox_id < inbox.inbox_id))
+             )
+           order by inbox.received_at, inbox.inbox_id
+           limit ?
+          """,
+          "claimed_by = ?, claimed_until = ?, attempt_count = attempt_count + 1, updated_at = ?",
+          "available_at <= ? and (claimed_until is null or claimed_until < ?)",
+          """
+          select inbox_id, event_type, payload, received_at, attempt_count
+            from claimed
+           order by received_at, inbox_id
+          """);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final WorkQueueClaimer workQueueClaimer;
+
+  public BlueBubblesWebhookInboxStore(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+    this.workQueueClaimer = new WorkQueueClaimer(jdbcTemplate);
+  }
+
+  /**
+   * Persists one webhook event. Events without a chat guid have no ordering constraint and get a
+   * chat key of their own.
+   */
+  @Transactional
+  public String enqueue(
+      @Nullable String chatGuid,
+      String eventType,
+      @Nullable String messageGuid,
+      String payload,
+      Instant receivedAt) {
+    String inboxId = UUID.randomUUID().toString();
+    String chatKey = StringUtils.isBlank(chatGuid) ? "inbox:" + inboxId : chatGuid;
+    jdbcTemplate.update(
+        """
+        insert into bluebubbles_webhook_inbox
+          (inbox_id, chat_key, event_type, message_guid, payload, received_at, available_at,
+           attempt_count, updated_at)
+        values (?, ?, ?, ?, ?, ?, ?, 0, ?)
+        """,
+        inboxId,
+        StringUtils.truncate(chatKey, 512),
+        eventType,
+        StringUtils.truncate(messageGuid, 255),
+        payload,
+        offset(receivedAt),
+        offset(receivedAt),
+        offset(receivedAt));
+    return inboxId;
+  }
+
+  @Transactional
+  public List<InboxClaim> claimDue(String workerId, Instant now, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    Instant claimedUntil = now.plus(LEASE);
+    return workQueueClaimer.claim(
+        INBOX_QUEUE,
+        new WorkQueueClaimer.ClaimArguments(
+            List.of(now, now, limit), List.of(workerId, claimedUntil, now), List.of(now, now)),
+        (resultSet, rowNumber) ->
+            new InboxClaim(
+                resultSet.getString("inbox_id"),
+                resultSet.getString("event_type"),
+                resultSet.getString("payload"),
+                resultSet.getTimestamp("received_at").toInstant(),
+                resultSet.getInt("attempt_count"),
+                workerId));
+  }
+
+  /** Removes a processed entry, or an entry that will not be retried. */
+  @Transactional
+  public void complete(InboxClaim claim) {
+    jdbcTemplate.update(
+        "delete from bluebubbles_webhook_inbox where inbox_id = ? and claimed_by = ?",
+        claim.inboxId(),
+        claim.workerId());
+  }
+
+  /** Releases a failed entry so it is claimed again at {@code retryAt}. */
+  @Transactional
+  public void retryLater(InboxClaim claim, Instant retryAt, String errorCode, Instant failedAt) {
+    jdbcTemplate.update(
+        """
+        update bluebubbles_webhook_inbox
+           set available_at = ?, claimed_by = null, claimed_until = null, last_error_code = ?,
+               updated_at = ?
+         where inbox_id = ? and claimed_by = ?
+        """,
+        offset(retryAt),
+        StringUtils.truncate(errorCode, 64),
+        offset(failedAt),
+        claim.inboxId(),
+        claim.workerId());
+  }
+
+  @Transactional(readOnly = true)
+  public long countPending() {
+    Long count =
+        jdbcTemplate.queryForObject("select count(*) from bluebubbles_webhook_inbox", Long.class);
+    return count == null ? 0L : count;
+  }
+
+  public record InboxClaim(
+      String inboxId,
+      String eventType,
+      String payload,
+      Instant receivedAt,
+      int attemptCount,
+      String workerId) {}
+}
@@ -0,0 +1,119 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.breland.bbagent.server.agent.ConversationState;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stores evicted {@link ConversationState} snapshots so a conversation can be rehydrated without
+ * re-reading transport history. A checkpoint only lives while its conversation is out of memory;
+ * it is deleted as soon as it is taken back.
+ */
+@Repository
+@Slf4j
+public class ConversationStateCheckpointStore {
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+
+  public ConversationStateCheckpointStore(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+    this.objectMapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @Transactional
+  public void save(String chatGuid, ConversationState.Snapshot snapshot, Instant checkpointedAt) {
+    if (chatGuid == null || chatGuid.isBlank() || snapshot == null) {
+      return;
+    }
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(snapshot);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize conversation state checkpoint", e);
+    }
+    // Insert first so concurrent saves for one chat never race into a duplicate key; the test
+    // database's PostgreSQL mode has no "do update", so an existing row is overwritten after.
+    int inserted =
+        jdbcTemplate.update(
+            """
+            insert into agent_conversation_state_checkpoints
+              (chat_guid, state_payload, latest_processed_at, checkpointed_at)
+            values (?, ?, ?, ?)
+            on conflict do nothing
+            """,
+            chatGuid,
+            payload,
+            offset(snapshot.latestProcessedMessageTimestamp()),
+            offset(checkpointedAt));
+    if (inserted > 0) {
+      return;
+    }
+    jdbcTemplate.update(
+        """
+        update agent_conversation_state_checkpoints
+           set state_payload = ?,
+               latest_processed_at = ?,
+               checkpointed_at = ?
+         where chat_guid = ?
+        """,
+        payload,
+        offset(snapshot.latestProcessedMessageTimestamp()),
+        offset(checkpointedAt),
+        chatGuid);
+  }
+
+  /**
+   * Removes and returns the checkpoint for a chat when it was written at or after {@code
+   * notBefore}. Older checkpoints are discarded so the caller falls back to transport history.
+   */
+  @Transactional
+  public Optional<ConversationState.Snapshot> take(String chatGuid, Instant notBefore) {
+    if (chatGuid == null || chatGuid.isBlank()) {
+      return Optional.empty();
+    }
+    List<String> payloads =
+        jdbcTemplate.query(
+            """
+            select state_payload
+              from agent_conversation_state_checkpoints
+             where chat_guid = ? and checkpointed_at >= ?
+            """,
+            (resultSet, rowNumber) -> resultSet.getString(1),
+            chatGuid,
+            offset(notBefore));
+    jdbcTemplate.update(
+        "delete from agent_conversation_state_checkpoints where chat_guid = ?", chatGuid);
+    if (payloads.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.ofNullable(
+          objectMapper.readValue(payloads.getFirst(), ConversationState.Snapshot.class));
+    } catch (JsonProcessingException e) {
+      log.warn("Discarding unreadable conversation state checkpoint for chat {}", chatGuid, e);
+      return Optional.empty();
+    }
+  }
+
+  @Transactional
+  public int deleteCheckpointedBefore(Instant cutoff) {
+    return jdbcTemplate.update(
+        "delete from agent_conversation_state_checkpoints where checkpointed_at < ?",
+        offset(cutoff));
+  }
+}
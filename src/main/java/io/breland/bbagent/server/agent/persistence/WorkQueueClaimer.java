@@ -0,0 +1,193 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+
+/**
+ * Claims due rows from a lease-based work queue table in one round trip.
+ *
+ * <p>On PostgreSQL a claim is a single statement: the candidate select is locked with {@code FOR
+ * UPDATE SKIP LOCKED}, so concurrent workers split the due rows instead of racing for the same
+ * ones, and the claimed rows are updated and returned together. Other databases (H2 in tests) fall
+ * back to selecting candidates and applying one guarded batch update.
+ *
+ * <p>Callers must run inside a transaction.
+ */
+public final class WorkQueueClaimer {
+  private static final String POSTGRES_PRODUCT_NAME = "PostgreSQL";
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile @Nullable Boolean skipLockedSupported;
+
+  public WorkQueueClaimer(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+  }
+
+  /**
+   * Claims up to the candidate query's limit and maps each claimed row with {@code rowMapper}. The
+   * mapper reads from {@link Queue#resultSql()}, which selects from the claimed rows as {@code
+   * claimed}.
+   */
+  public <T> List<T> claim(Queue queue, ClaimArguments arguments, RowMapper<T> rowMapper) {
+    if (supportsSkipLocked()) {
+      return jdbcTemplate.query(
+          skipLockedSql(queue),
+          rowMapper,
+          parameters(arguments.candidateArgs(), arguments.setArgs()));
+    }
+    return claimWithGuardedBatchUpdate(queue, arguments, rowMapper);
+  }
+
+  boolean supportsSkipLocked() {
+    Boolean supported = skipLockedSupported;
+    if (supported == null) {
+      String productName =
+          jdbcTemplate.execute(
+              (ConnectionCallback<String>)
+                  connection -> connection.getMetaData().getDatabaseProductName());
+      supported = POSTGRES_PRODUCT_NAME.equalsIgnoreCase(productName);
+      skipLockedSupported = supported;
+    }
+    return supported;
+  }
+
+  static String skipLockedSql(Queue queue) {
+    String keyJoin =
+        queue.keyColumns().stream()
+            .map(column -> queue.table() + "." + column + " = candidates." + column)
+            .collect(Collectors.joining(" and "));
+    return """
+        with candidates as (
+        %s
+         for update of %s skip locked
+        ), claimed as (
+          update %s
+             set %s
+            from candidates
+           where %s
+          returning %s.*
+        )
+        %s
+        """
+        .formatted(
+            queue.candidateSql().strip(),
+            queue.candidateAlias(),
+            queue.table(),
+            queue.claimSet(),
+            keyJoin,
+            queue.table(),
+            queue.resultSql().strip());
+  }
+
+  private <T> List<T> claimWithGuardedBatchUpdate(
+      Queue queue, ClaimArguments arguments, RowMapper<T> rowMapper) {
+    List<String> keyColumns = queue.keyColumns();
+    List<Object[]> candidates =
+        jdbcTemplate.query(
+            queue.candidateSql(),
+            (resultSet, rowNumber) -> {
+              Object[] key = new Object[keyColumns.size()];
+              for (int index = 0; index < key.length; index++) {
+                key[index] = resultSet.getObject(keyColumns.get(index));
+              }
+              return key;
+            },
+            parameters(arguments.candidateArgs()));
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+    String keyPredicate =
+        keyColumns.stream().map(column -> column + " = ?").collect(Collectors.joining(" and "));
+    List<Object[]> batchArgs =
+        candidates.stream()
+            .map(key -> parameters(arguments.setArgs(), List.of(key), arguments.guardArgs()))
+            .toList();
+    int[] updated =
+        jdbcTemplate.batchUpdate(
+            "update "
+                + queue.table()
+                + " set "
+                + queue.claimSet()
+                + " where "
+                + keyPredicate
+                + " and "
+                + queue.guard(),
+            batchArgs);
+    List<Object> claimedKeyArgs = new ArrayList<>();
+    List<String> claimedKeyPredicates = new ArrayList<>();
+    for (int index = 0; index < updated.length; index++) {
+      if (updated[index] == 1 || updated[index] == Statement.SUCCESS_NO_INFO) {
+        claimedKeyArgs.addAll(List.of(candidates.get(index)));
+        claimedKeyPredicates.add("(" + keyPredicate + ")");
+      }
+    }
+    if (claimedKeyPredicates.isEmpty()) {
+      return List.of();
+    }
+    String sql =
+        "with claimed as (select * from "
+            + queue.table()
+            + " where "
+            + String.join(" or ", claimedKeyPredicates)
+            + ")\n"
+            + queue.resultSql().strip();
+    return jdbcTemplate.query(sql, rowMapper, parameters(claimedKeyArgs));
+  }
+
+  @SafeVarargs
+  private static Object[] parameters(List<?>... groups) {
+    return Stream.of(groups)
+        .flatMap(List::stream)
+        .map(value -> value instanceof Instant instant ? offset(instant) : value)
+        .toArray();
+  }
+
+  /**
+   * A lease-based queue table.
+   *
+   * @param table queue table name
+   * @param candidateAlias alias of {@code table} inside {@code candidateSql}; only its rows are
+   *     locked
+   * @param keyColumns primary key columns, selected by {@code candidateSql} under the same names
+   * @param candidateSql ordered, limited select of due keys, without a locking clause
+   * @param claimSet assignments applied to claimed rows
+   * @param guard due condition re-checked by the fallback update
+   * @param resultSql select over the {@code claimed} relation that feeds the row mapper
+   */
+  public record Queue(
+      String table,
+      String candidateAlias,
+      List<String> keyColumns,
+      String candidateSql,
+      String claimSet,
+      String guard,
+      String resultSql) {
+    public Queue {
+      if (keyColumns == null || keyColumns.isEmpty()) {
+        throw new IllegalArgumentException("work queue key columns are required");
+      }
+      keyColumns = List.copyOf(keyColumns);
+    }
+  }
+
+  /** Positional arguments for a {@link Queue}'s candidate select, claim set and guard. */
+  public record ClaimArguments(
+      List<Object> candidateArgs, List<Object> setArgs, List<Object> guardArgs) {
+    public ClaimArguments {
+      candidateArgs = List.copyOf(candidateArgs);
+      setArgs = List.copyOf(setArgs);
+      guardArgs = List.copyOf(guardArgs);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package io.breland.bbagent.server.agent.persistence.account;
+
+import io.breland.bbagent.server.agent.account.AgentAccountCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops cached account resolutions whenever an account or identity row is written. The cache is
+ * invalidated when the write is flushed and again after the transaction commits, so a resolution
+ * loaded from the pre-commit state by another thread is not kept.
+ */
+public class AgentAccountChangeListener {
+  private final ObjectProvider<AgentAccountCache> accountCache;
+
+  public AgentAccountChangeListener(ObjectProvider<AgentAccountCache> accountCache) {
+    this.accountCache = accountCache;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void accountChanged(Object entity) {
+    AgentAccountCache cache = accountCache.getIfAvailable();
+    if (cache == null) {
+      return;
+    }
+    cache.invalidateAll();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              cache.invalidateAll();
+            }
+          });
+    }
+  }
+}
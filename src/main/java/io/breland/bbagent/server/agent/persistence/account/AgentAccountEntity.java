@@ -2,6 +2,7 @@ package io.breland.bbagent.server.agent.persistence.account;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.Instant;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@EntityListeners(AgentAccountChangeListener.class)
 @Table(name = "agent_accounts")
 @Getter
 @Setter
@@ -82,4 +84,30 @@ public class AgentAccountEntity {
     this.createdAt = createdAt;
     this.updatedAt = updatedAt;
   }
+
+  /** A detached copy, for handing out cached accounts that callers may modify. */
+  public AgentAccountEntity copy() {
+    AgentAccountEntity copy = new AgentAccountEntity();
+    copy.accountId = accountId;
+    copy.websiteSubject = websiteSubject;
+    copy.websiteEmail = websiteEmail;
+    copy.websiteDisplayName = websiteDisplayName;
+    copy.globalContactName = globalContactName;
+    copy.premium = premium;
+    copy.premiumEntitlementSource = premiumEntitlementSource;
+    copy.premiumSubscriptionExpiresAt = premiumSubscriptionExpiresAt;
+    copy.premiumEntitlementSyncedAt = premiumEntitlementSyncedAt;
+    copy.selectedModel = selectedModel;
+    copy.termsAcceptedAt = termsAcceptedAt;
+    copy.processingBlocked = processingBlocked;
+    copy.processingBlockedReason = processingBlockedReason;
+    copy.processingBlockedAt = processingBlockedAt;
+    copy.processingBlockedBy = processingBlockedBy;
+    copy.canaryAccount = canaryAccount;
+    copy.canaryLabel = canaryLabel;
+    copy.canaryLastSeenAt = canaryLastSeenAt;
+    copy.createdAt = createdAt;
+    copy.updatedAt = updatedAt;
+    return copy;
+  }
 }
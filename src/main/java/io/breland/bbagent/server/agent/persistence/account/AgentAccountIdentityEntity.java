@@ -2,6 +2,7 @@ package io.breland.bbagent.server.agent.persistence.account;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.Instant;
@@ -11,6 +12,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@EntityListeners(AgentAccountChangeListener.class)
 @Table(name = "agent_account_identities")
 @Getter
 @Setter
@@ -39,4 +41,16 @@ public class AgentAccountIdentityEntity {
 
   @Column(name = "updated_at", nullable = false)
   private Instant updatedAt;
+
+  /** A detached copy, for handing out cached identities that callers may modify. */
+  public AgentAccountIdentityEntity copy() {
+    return new AgentAccountIdentityEntity(
+        identityId,
+        accountId,
+        identityType,
+        identifier,
+        normalizedIdentifier,
+        createdAt,
+        updatedAt);
+  }
 }
@@ -0,0 +1,117 @@
+package io.breland.bbagent.server.agent.persistence.ratelimit;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Account-scoped usage rows joined with each account's premium flag, so a usage report is one
+ * query per page instead of an account and usage lookup per row. Pages are ordered by share of the
+ * limit used, highest first, and continue from the last row of the previous page.
+ */
+@Repository
+public class AccountRateLimitUsageStore {
+  private static final String PAGE_SQL =
+      """
+      select scope_key, amount, premium, usage_limit, window_start, window_end, updated_at,
+             percentage
+        from (
+          select scope_key, amount, premium, usage_limit, window_start, window_end, updated_at,
+                 case when usage_limit <= 0 then 1.0
+                      else least(1.0, cast(amount as double precision) / usage_limit)
+                 end as percentage
+            from (
+              select rate_usage.scope_key, rate_usage.amount, rate_usage.window_start,
+                     rate_usage.window_end, rate_usage.updated_at,
+                     coalesce(account.is_premium, false) as premium,
+                     case when coalesce(account.is_premium, false) then ? else ? end
+                       as usage_limit
+                from app_rate_limit_usage rate_usage
+                left join agent_accounts account on account.account_id = rate_usage.scope_key
+               where rate_usage.limit_key = ?
+                 and rate_usage.scope_type = ?
+                 and rate_usage.window_start = ?
+            ) account_usage
+        ) ranked_usage
+      %s
+       order by percentage desc, scope_key asc
+       limit ?
+      """;
+
+  private static final RowMapper<AccountUsageRow> ROW_MAPPER =
+      (resultSet, rowNumber) ->
+          new AccountUsageRow(
+              resultSet.getString("scope_key"),
+              resultSet.getBoolean("premium"),
+              resultSet.getLong("amount"),
+              resultSet.getLong("usage_limit"),
+              resultSet.getDouble("percentage"),
+              resultSet.getTimestamp("window_start").toInstant(),
+              resultSet.getTimestamp("window_end").toInstant(),
+              resultSet.getTimestamp("updated_at").toInstant());
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccountRateLimitUsageStore(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+  }
+
+  /**
+   * One page of usage for the window. {@code afterPercentage} and {@code afterScopeKey} are the
+   * last row of the previous page, or both null for the first page.
+   */
+  @Transactional(readOnly = true)
+  public List<AccountUsageRow> findPage(
+      String limitKey,
+      String scopeType,
+      Instant windowStart,
+      long standardLimit,
+      long premiumLimit,
+      @Nullable Double afterPercentage,
+      @Nullable String afterScopeKey,
+      int limit) {
+    if ((afterPercentage == null) != (afterScopeKey == null)) {
+      throw new IllegalArgumentException("usage page cursor is incomplete");
+    }
+    if (afterPercentage == null) {
+      return jdbcTemplate.query(
+          PAGE_SQL.formatted(""),
+          ROW_MAPPER,
+          premiumLimit,
+          standardLimit,
+          limitKey,
+          scopeType,
+          offset(windowStart),
+          limit);
+    }
+    return jdbcTemplate.query(
+        PAGE_SQL.formatted(" where percentage < ? or (percentage = ? and scope_key > ?)"),
+        ROW_MAPPER,
+        premiumLimit,
+        standardLimit,
+        limitKey,
+        scopeType,
+        offset(windowStart),
+        afterPercentage,
+        afterPercentage,
+        afterScopeKey,
+        limit);
+  }
+
+  public record AccountUsageRow(
+      String scopeKey,
+      boolean premium,
+      long used,
+      long limit,
+      double percentage,
+      Instant windowStart,
+      Instant windowEnd,
+      Instant updatedAt) {}
+}
@@ -2,6 +2,7 @@ package io.breland.bbagent.server.agent.profile;
 
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.account.AgentAccountResolver;
+import io.breland.bbagent.server.agent.account.ResolvedAccountContext;
 import io.breland.bbagent.server.agent.canary.AgentCanaryService;
 import io.breland.bbagent.server.agent.persistence.account.AgentAccountEntity;
 import io.breland.bbagent.server.agent.persistence.account.AgentAccountIdentityEntity;
@@ -105,6 +106,25 @@ public final class AgentProfileService implements AgentProfile {
     return canaryService == null ? resolved : canaryService.touchIfCanary(message, resolved);
   }
 
+  /**
+   * The sender's account for carrying with the message; empty when it cannot be resolved. Unlike
+   * {@link #resolveOrCreateAccount} this does not touch canary accounts, since that write would
+   * invalidate the account cache on every message from a canary sender.
+   */
+  public Optional<ResolvedAccountContext> resolveAccountContext(IncomingMessage message) {
+    if (accountResolver == null || message == null) {
+      return Optional.empty();
+    }
+    try {
+      return accountResolver
+          .resolveOrCreate(message)
+          .map(resolved -> ResolvedAccountContext.from(resolved.account()));
+    } catch (RuntimeException e) {
+      log.warn("Failed to resolve account context for {}", message, e);
+      return Optional.empty();
+    }
+  }
+
   public Optional<AgentAccountResolver.ResolvedAccount> resolveAccount(IncomingMessage message) {
     if (accountResolver == null || message == null) {
       return Optional.empty();
@@ -1,13 +1,44 @@
 package io.breland.bbagent.server.agent.tools;
 
 import com.openai.models.responses.FunctionTool;
+import java.time.Duration;
+import org.springframework.lang.Nullable;
 
+/**
+ * A tool exposed to the model. Tools are {@link ToolConcurrency#SERIAL} unless declared otherwise;
+ * a null {@code timeout} uses the scheduler default.
+ */
 public record AgentTool(
     String name,
     String description,
     FunctionTool.Parameters parameters,
     boolean strict,
-    ToolHandler handler) {
+    ToolHandler handler,
+    ToolConcurrency concurrency,
+    @Nullable Duration timeout) {
+
+  public AgentTool {
+    concurrency = concurrency == null ? ToolConcurrency.SERIAL : concurrency;
+  }
+
+  public AgentTool(
+      String name,
+      String description,
+      FunctionTool.Parameters parameters,
+      boolean strict,
+      ToolHandler handler) {
+    this(name, description, parameters, strict, handler, ToolConcurrency.SERIAL, null);
+  }
+
+  public AgentTool(
+      String name,
+      String description,
+      FunctionTool.Parameters parameters,
+      boolean strict,
+      ToolHandler handler,
+      ToolConcurrency concurrency) {
+    this(name, description, parameters, strict, handler, concurrency, null);
+  }
 
   public FunctionTool asFunctionTool() {
     return FunctionTool.builder()
@@ -50,7 +50,10 @@ import io.breland.bbagent.server.agent.tools.model.SetPreferredModelAgentTool;
 import io.breland.bbagent.server.agent.tools.scheduled.ScheduledEventDeleteTool;
 import io.breland.bbagent.server.agent.tools.scheduled.ScheduledEventListTool;
 import io.breland.bbagent.server.agent.tools.scheduled.ScheduledEventTool;
+import io.breland.bbagent.server.agent.tools.search.ToolRequirement;
 import io.breland.bbagent.server.agent.tools.search.ToolSearchAgentTool;
+import io.breland.bbagent.server.agent.tools.search.ToolSearchIndex;
+import io.breland.bbagent.server.agent.tools.search.ToolVisibility;
 import io.breland.bbagent.server.agent.tools.website.GetWebsiteAccountLinkStatusAgentTool;
 import io.breland.bbagent.server.agent.tools.website.LinkConversationSettingsAgentTool;
 import io.breland.bbagent.server.agent.tools.website.LinkWebsiteAccountAgentTool;
@@ -62,6 +65,7 @@ import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import io.breland.bbagent.server.ratelimit.MessageResponseRateLimitService;
 import io.breland.bbagent.server.website.WebsiteAccountService;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -141,6 +145,7 @@ public final class AgentToolRegistry {
       "9f80c2a0-de6f-4c56-8027-29b1673bb0d5";
 
   private final Map<String, AgentTool> tools = new ConcurrentHashMap<>();
+  private final ToolSearchIndex toolSearchIndex = new ToolSearchIndex();
   private final MessageTransportRegistry transportRegistry;
   private final Function<IncomingMessage, Optional<String>> accountIdResolver;
   private final ObjectMapper objectMapper;
@@ -203,16 +208,16 @@ public final class AgentToolRegistry {
   }
 
   private List<AgentTool> availableActionTools(IncomingMessage message) {
-    String accountId = resolveAccountId(message);
+    ToolVisibility visibility = toolVisibility(message);
     return tools.values().stream()
         .filter(tool -> !ToolSearchAgentTool.TOOL_NAME.equals(tool.name()))
-        .filter(tool -> shouldIncludeTool(tool, message, accountId))
+        .filter(tool -> visibility.allows(toolRequirements(tool.name())))
         .toList();
   }
 
   public ResolvedTool resolveTool(String toolName, IncomingMessage message) {
     AgentTool tool = tools.get(toolName);
-    if (tool != null && shouldIncludeTool(tool, message, resolveAccountId(message))) {
+    if (tool != null && toolVisibility(message).allows(toolRequirements(tool.name()))) {
       return new ResolvedTool(tool);
     }
     return new ResolvedTool(null);
@@ -260,26 +265,42 @@ public final class AgentToolRegistry {
     return "other";
   }
 
-  private boolean shouldIncludeTool(
-      AgentTool tool, IncomingMessage message, @Nullable String accountId) {
-    MessageTransport transport = transportRegistry.resolve(message);
-    if (SendReactionAgentTool.TOOL_NAME.equals(tool.name())) {
-      return transport.supportsReactions();
+  static Set<ToolRequirement> toolRequirements(String toolName) {
+    if (SendReactionAgentTool.TOOL_NAME.equals(toolName)) {
+      return EnumSet.of(ToolRequirement.REACTIONS);
+    }
+    Set<ToolRequirement> requirements = EnumSet.noneOf(ToolRequirement.class);
+    if (BLUEBUBBLES_ONLY_TOOLS.contains(toolName)) {
+      requirements.add(ToolRequirement.BLUEBUBBLES_TRANSPORT);
+    }
+    if (GROUP_ONLY_TOOLS.contains(toolName)) {
+      requirements.add(ToolRequirement.GROUP_CHAT);
+    }
+    if (DIRECT_ONLY_TOOLS.contains(toolName)) {
+      requirements.add(ToolRequirement.DIRECT_CHAT);
+    }
+    if (KUBERNETES_TOOL_NAMES.contains(toolName)) {
+      requirements.add(ToolRequirement.KUBERNETES_ACCESS);
     }
-    if (BLUEBUBBLES_ONLY_TOOLS.contains(tool.name())
-        && !IncomingMessage.TRANSPORT_BLUEBUBBLES.equals(transport.id())) {
-      return false;
+    return requirements;
+  }
+
+  private ToolVisibility toolVisibility(IncomingMessage message) {
+    MessageTransport transport = transportRegistry.resolve(message);
+    Set<ToolRequirement> satisfied = EnumSet.noneOf(ToolRequirement.class);
+    if (transport.supportsReactions()) {
+      satisfied.add(ToolRequirement.REACTIONS);
     }
-    if (GROUP_ONLY_TOOLS.contains(tool.name())) {
-      return message != null && message.isGroup();
+    if (IncomingMessage.TRANSPORT_BLUEBUBBLES.equals(transport.id())) {
+      satisfied.add(ToolRequirement.BLUEBUBBLES_TRANSPORT);
     }
-    if (DIRECT_ONLY_TOOLS.contains(tool.name())) {
-      return message != null && !message.isGroup();
+    if (message != null) {
+      satisfied.add(message.isGroup() ? ToolRequirement.GROUP_CHAT : ToolRequirement.DIRECT_CHAT);
     }
-    if (KUBERNETES_TOOL_NAMES.contains(tool.name())) {
-      return isKubernetesToolAllowed(message, accountId);
+    if (isKubernetesToolAllowed(message, resolveAccountId(message))) {
+      satisfied.add(ToolRequirement.KUBERNETES_ACCESS);
     }
-    return true;
+    return new ToolVisibility(satisfied);
   }
 
   private boolean isKubernetesToolAllowed(IncomingMessage message, @Nullable String accountId) {
@@ -293,20 +314,12 @@ public final class AgentToolRegistry {
     return accountId == null ? null : accountId.orElse(null);
   }
 
-  private List<ToolSearchAgentTool.ToolIndexEntry> toolIndexEntries(
-      IncomingMessage message, @Nullable String categoryFilter) {
-    String normalizedCategoryFilter = StringUtils.trimToNull(categoryFilter);
-    return availableActionTools(message).stream()
-        .filter(
-            tool ->
-                normalizedCategoryFilter == null
-                    || toolCategory(tool.name()).equalsIgnoreCase(normalizedCategoryFilter))
-        .map(
-            tool ->
-                new ToolSearchAgentTool.ToolIndexEntry(
-                    tool.name(),
-                    ToolSearchAgentTool.summaryFor(tool, toolCategory(tool.name()), objectMapper)))
-        .toList();
+  private List<String> searchTools(
+      @Nullable IncomingMessage message,
+      String query,
+      int maxResults,
+      @Nullable String categoryFilter) {
+    return toolSearchIndex.search(query, maxResults, toolVisibility(message), categoryFilter);
   }
 
   private List<String> toolSearchReferences(List<ResponseInputItem> inputItems) {
@@ -400,7 +413,8 @@ public final class AgentToolRegistry {
     registerTool(new SendReactionAgentTool().getTool());
     registerTool(new SendPollAgentTool(bbHttpClientWrapper).getTool());
     registerTool(new ReadPollAgentTool(bbHttpClientWrapper).getTool());
-    registerTool(new SearchConvoHistoryAgentTool(bbHttpClientWrapper).getTool());
+    registerTool(
+        new SearchConvoHistoryAgentTool(bbHttpClientWrapper, memoryScopeResolver).getTool());
     registerTool(new CurrentConversationInfoAgentTool(bbHttpClientWrapper).getTool());
     registerTool(new RenameConversationAgentTool(bbHttpClientWrapper).getTool());
     registerTool(new SetGroupIconAgentTool(bbHttpClientWrapper, openAiSupplier).getTool());
@@ -453,7 +467,7 @@ public final class AgentToolRegistry {
     registerTool(new ScheduledEventTool(cadenceWorkflowLauncher).getTool());
     registerTool(new ScheduledEventListTool(cadenceWorkflowLauncher).getTool());
     registerTool(new ScheduledEventDeleteTool(cadenceWorkflowLauncher).getTool());
-    registerTool(new ToolSearchAgentTool(objectMapper, this::toolIndexEntries).getTool());
+    registerTool(new ToolSearchAgentTool(objectMapper, this::searchTools).getTool());
   }
 
   private void registerTool(AgentTool tool) {
@@ -461,6 +475,14 @@ public final class AgentToolRegistry {
       return;
     }
     tools.put(tool.name(), tool);
+    if (!ToolSearchAgentTool.TOOL_NAME.equals(tool.name())) {
+      String category = toolCategory(tool.name());
+      toolSearchIndex.upsert(
+          tool.name(),
+          category,
+          toolRequirements(tool.name()),
+          ToolSearchAgentTool.summaryFor(tool, category, objectMapper));
+    }
   }
 
   public record ResolvedTool(@Nullable AgentTool tool) {}
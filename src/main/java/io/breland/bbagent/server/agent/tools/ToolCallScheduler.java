@@ -0,0 +1,180 @@
+package io.breland.bbagent.server.agent.tools;
+
+import io.breland.bbagent.server.ExecutorSupport;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the tool calls from one model turn on a bounded pool of virtual threads.
+ *
+ * <p>Adjacent {@link ToolConcurrency#PARALLEL} calls run together. A {@link ToolConcurrency#SERIAL}
+ * call waits for everything before it and blocks everything after it, so side effects happen in
+ * the order the model asked for them. Results always come back in call order. A parallel call that
+ * exceeds its timeout is cancelled and replaced by its timeout result; serial calls are the ones
+ * with side effects, so they always run to completion rather than being reported as timed out
+ * while the side effect may still land.
+ */
+@Slf4j
+@Component
+public class ToolCallScheduler {
+  static final int DEFAULT_MAX_CONCURRENCY = 8;
+  static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(90);
+
+  private final ExecutorService executor;
+  private final Duration defaultTimeout;
+  private final @Nullable OperationalMetricsService metrics;
+
+  @Autowired
+  public ToolCallScheduler(
+      @Value("${bbagent.tools.max-concurrency:8}") int maxConcurrency,
+      @Value("${bbagent.tools.call-timeout:PT90S}") Duration defaultTimeout,
+      @Nullable OperationalMetricsService metrics) {
+    if (maxConcurrency <= 0) {
+      throw new IllegalArgumentException("tool max concurrency must be positive");
+    }
+    if (defaultTimeout == null || defaultTimeout.isZero() || defaultTimeout.isNegative()) {
+      throw new IllegalArgumentException("tool call timeout must be positive");
+    }
+    this.executor = ExecutorSupport.virtualThreadPool("agent-tool-", maxConcurrency);
+    this.defaultTimeout = defaultTimeout;
+    this.metrics = metrics;
+  }
+
+  public ToolCallScheduler() {
+    this(DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT, null);
+  }
+
+  /** Runs {@code calls} and returns their results in the same order. */
+  public <T> List<T> run(List<ScheduledCall<T>> calls) {
+    if (calls == null || calls.isEmpty()) {
+      return List.of();
+    }
+    long startedNanos = System.nanoTime();
+    AtomicLong toolNanos = new AtomicLong();
+    List<T> results = new ArrayList<>(calls.size());
+    int index = 0;
+    while (index < calls.size()) {
+      int end = index + 1;
+      if (calls.get(index).concurrency() == ToolConcurrency.PARALLEL) {
+        while (end < calls.size() && calls.get(end).concurrency() == ToolConcurrency.PARALLEL) {
+          end++;
+        }
+      }
+      results.addAll(runGroup(calls.subList(index, end), toolNanos));
+      index = end;
+    }
+    recordBatch(calls.size(), Duration.ofNanos(System.nanoTime() - startedNanos), toolNanos);
+    return results;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> List<T> runGroup(List<ScheduledCall<T>> group, AtomicLong toolNanos) {
+    List<Future<Timed<T>>> futures = new ArrayList<>(group.size());
+    List<Long> deadlines = new ArrayList<>(group.size());
+    for (ScheduledCall<T> call : group) {
+      deadlines.add(System.nanoTime() + timeout(call).toNanos());
+      futures.add(
+          executor.submit(
+              () -> {
+                long callStartedNanos = System.nanoTime();
+                T value = call.task().get();
+                return new Timed<>(value, System.nanoTime() - callStartedNanos);
+              }));
+    }
+    List<T> results = new ArrayList<>(group.size());
+    for (int index = 0; index < group.size(); index++) {
+      results.add(await(group.get(index), futures.get(index), deadlines.get(index), toolNanos));
+    }
+    return results;
+  }
+
+  private <T> T await(
+      ScheduledCall<T> call, Future<Timed<T>> future, long deadline, AtomicLong toolNanos) {
+    try {
+      Timed<T> timed =
+          call.concurrency() == ToolConcurrency.SERIAL
+              ? future.get()
+              : future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      toolNanos.addAndGet(timed.nanos());
+      return timed.value();
+    } catch (TimeoutException | CancellationException e) {
+      future.cancel(true);
+      Duration timeout = timeout(call);
+      toolNanos.addAndGet(timeout.toNanos());
+      log.warn("Tool call timed out tool={} timeoutMs={}", call.toolName(), timeout.toMillis());
+      recordTimeout(call.toolName());
+      return call.onTimeout().apply(timeout);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Tool call failed: " + call.toolName(), e.getCause());
+    } catch (InterruptedException e) {
+      if (call.concurrency() == ToolConcurrency.PARALLEL) {
+        future.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for " + call.toolName(), e);
+    }
+  }
+
+  private Duration timeout(ScheduledCall<?> call) {
+    return call.timeout() == null ? defaultTimeout : call.timeout();
+  }
+
+  private void recordBatch(int calls, Duration wallTime, AtomicLong toolNanos) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordToolBatch(calls, wallTime, Duration.ofNanos(toolNanos.get()));
+    } catch (RuntimeException e) {
+      log.warn("Failed to record tool batch metric", e);
+    }
+  }
+
+  private void recordTimeout(String toolName) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordToolTimeout(toolName);
+    } catch (RuntimeException e) {
+      log.warn("Failed to record tool timeout metric for {}", toolName, e);
+    }
+  }
+
+  /**
+   * One tool call. {@code task} produces the call's result; {@code onTimeout} produces the result
+   * used instead when a parallel call runs longer than {@code timeout} (or the scheduler default).
+   */
+  public record ScheduledCall<T>(
+      String toolName,
+      ToolConcurrency concurrency,
+      @Nullable Duration timeout,
+      Supplier<T> task,
+      Function<Duration, T> onTimeout) {}
+
+  private record Timed<T>(T value, long nanos) {}
+}
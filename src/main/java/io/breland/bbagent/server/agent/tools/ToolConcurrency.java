@@ -0,0 +1,9 @@
+package io.breland.bbagent.server.agent.tools;
+
+/** How a tool call may be scheduled relative to the other calls in the same model turn. */
+public enum ToolConcurrency {
+  /** Read-only; may run alongside adjacent parallel calls in the same turn. */
+  PARALLEL,
+  /** Has side effects; runs alone, after every earlier call and before every later one. */
+  SERIAL
+}
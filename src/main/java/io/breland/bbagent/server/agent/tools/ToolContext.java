@@ -50,6 +50,10 @@ public class ToolContext {
     if (profile == null) {
       return message == null ? null : message.sender();
     }
+    Optional<String> resolvedAtIngestion = resolvedAccountId();
+    if (resolvedAtIngestion.isPresent()) {
+      return resolvedAtIngestion.get();
+    }
     java.util.Optional<String> accountId = profile.resolveOrCreateAccountId(message);
     return accountId.orElse(message == null ? null : message.sender());
   }
@@ -58,6 +62,10 @@ public class ToolContext {
     if (profile == null || message == null) {
       return Optional.empty();
     }
+    Optional<String> resolvedAtIngestion = resolvedAccountId();
+    if (resolvedAtIngestion.isPresent()) {
+      return resolvedAtIngestion;
+    }
     Optional<String> accountId = profile.resolveCanonicalAccountId(message);
     if (accountId == null) {
       return Optional.empty();
@@ -108,4 +116,20 @@ public class ToolContext {
   public AgentWorkflowContext workflowContext() {
     return workflowContext;
   }
+
+  /**
+   * The account resolved when the workflow's message was accepted, when this is still that message;
+   * a workflow that picks up later messages from the chat may be handling a different sender.
+   */
+  private Optional<String> resolvedAccountId() {
+    if (workflowContext == null
+        || workflowContext.account() == null
+        || message == null
+        || message.messageGuid() == null
+        || !message.messageGuid().equals(workflowContext.messageGuid())) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(workflowContext.account().accountId())
+        .filter(value -> !value.isBlank());
+  }
 }
@@ -5,6 +5,7 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 import com.fasterxml.jackson.databind.JsonNode;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
@@ -61,7 +62,8 @@ public class CurrentConversationInfoAgentTool implements ToolProvider {
 
           return ToolJson.stringify(
               bbHttpClientWrapper.getObjectMapper(), result, response.toString());
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private static void putText(Map<String, ? super String> result, String key, JsonNode value) {
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.breland.bbagent.generated.bluebubblesclient.model.ApiV1ChatChatGuidMessageGet200ResponseDataInner;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import io.breland.bbagent.server.agent.transport.bb.BlueBubblesPollSupport;
@@ -65,7 +66,8 @@ public class ReadPollAgentTool implements ToolProvider {
           }
           return "could not read poll; BlueBubbles returned an error for the poll state request. Tried message_guid values: "
               + String.join(", ", attemptedGuids);
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private List<String> pollGuidCandidates(IncomingMessage message, String requestedMessageGuid) {
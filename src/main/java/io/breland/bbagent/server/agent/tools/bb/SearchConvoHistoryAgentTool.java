@@ -4,37 +4,64 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 
 import io.breland.bbagent.generated.bluebubblesclient.model.Message;
 import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex;
+import io.breland.bbagent.server.agent.memory.MemoryScopeResolver;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import io.breland.bbagent.server.agent.transport.bb.BlueBubblesHandleAddress;
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
 
+@Slf4j
 public class SearchConvoHistoryAgentTool implements ToolProvider {
   public static final String TOOL_NAME = "search_convo_history";
+  // BlueBubbles searches without a start date only reach this far back.
+  private static final Duration BLUEBUBBLES_WINDOW = Duration.ofDays(30);
+  // Leaves the BlueBubbles fallback its full search deadline after an index miss.
+  private static final Duration TOOL_TIMEOUT =
+      BBHttpClientWrapper.SEARCH_HISTORY_TIMEOUT.plusSeconds(30);
   private final BBHttpClientWrapper bbHttpClientWrapper;
+  private final @Nullable MemoryScopeResolver scopeResolver;
 
   @Schema(description = "Search recent message history for the current conversation.")
   public record SearchConversationHistoryRequest(
-      @Schema(description = "Substring query for message text.") String query,
+      @Schema(
+              description =
+                  "Words to look for in message text. Put a phrase in double quotes to require it"
+                      + " exactly. Omit to list the newest messages.")
+          String query,
       @Schema(description = "Maximum number of messages to return.") Integer limit,
-      @Schema(description = "Offset for pagination.") Integer offset) {}
+      @Schema(description = "Offset for pagination.") Integer offset,
+      @Schema(description = "Only messages sent at or after this ISO-8601 instant.") String after,
+      @Schema(description = "Only messages sent before this ISO-8601 instant.") String before) {}
 
   public SearchConvoHistoryAgentTool(BBHttpClientWrapper bbHttpClientWrapper) {
+    this(bbHttpClientWrapper, null);
+  }
+
+  public SearchConvoHistoryAgentTool(
+      BBHttpClientWrapper bbHttpClientWrapper, @Nullable MemoryScopeResolver scopeResolver) {
     this.bbHttpClientWrapper = bbHttpClientWrapper;
+    this.scopeResolver = scopeResolver;
   }
 
   public AgentTool getTool() {
     return new AgentTool(
         TOOL_NAME,
-        "Search recent message history for the current conversation. The tool only supports case"
-            + " insensitive substring searches when searching for text - so you may need to use it"
-            + " multiple times with variations of the target text. It is limited to 1 month of"
-            + " history.",
+        description(),
         jsonSchema(SearchConversationHistoryRequest.class),
         false,
         (context, args) -> {
@@ -44,29 +71,121 @@ public class SearchConvoHistoryAgentTool implements ToolProvider {
           }
           SearchConversationHistoryRequest request =
               context.getMapper().convertValue(args, SearchConversationHistoryRequest.class);
-          String query = request.query();
-          Integer limit = request.limit();
-          Integer offset = request.offset();
-          List<Message> bbMessages =
-              bbHttpClientWrapper.searchConversationHistory(chatGuid, query, limit, offset);
-          if (bbMessages == null) {
+          Instant after;
+          Instant before;
+          try {
+            after = parseInstant(request.after());
+            before = parseInstant(request.before());
+          } catch (DateTimeException e) {
+            return "invalid date range";
+          }
+          List<Map<String, Object>> messages =
+              searchIndex(context.message(), request, after, before)
+                  .orElseGet(() -> searchBlueBubbles(chatGuid, request, after, before));
+          if (messages == null) {
             return "not found";
           }
-          List<Map<String, Object>> messages = new java.util.ArrayList<>();
           Map<String, Object> result = new LinkedHashMap<>();
-          bbMessages.forEach(
-              msg -> {
-                Map<String, Object> entry = new LinkedHashMap<>();
-                entry.put("guid", msg.getGuid());
-                entry.put("text", msg.getText());
-                entry.put("dateCreated", msg.getDateCreated());
-                entry.put("sender", BlueBubblesHandleAddress.from(msg.getHandle()));
-                messages.add(entry);
-              });
-
           result.put("messages", messages);
           return ToolJson.stringify(
               bbHttpClientWrapper.getObjectMapper(), result, "failed to serialize messages");
-        });
+        },
+        ToolConcurrency.PARALLEL,
+        TOOL_TIMEOUT);
+  }
+
+  /**
+   * Searches the local index when it covers this chat. Empty when it does not, or when it found
+   * nothing and the requested range reaches back before the chat's messages were journaled.
+   */
+  private Optional<List<Map<String, Object>>> searchIndex(
+      IncomingMessage message,
+      SearchConversationHistoryRequest request,
+      @Nullable Instant after,
+      @Nullable Instant before) {
+    ConversationSearchIndex index =
+        scopeResolver == null ? null : scopeResolver.conversationSearchIndex().orElse(null);
+    if (index == null || !message.isGroup()) {
+      return Optional.empty();
+    }
+    Optional<ConversationSearchIndex.SearchResult> searched;
+    try {
+      searched =
+          index.search(
+              message.transportOrDefault(),
+              IncomingMessage.chatGuidOrNull(message),
+              request.query(),
+              after,
+              before,
+              request.limit(),
+              request.offset());
+    } catch (RuntimeException e) {
+      log.warn("Local conversation search failed; searching BlueBubbles instead", e);
+      return Optional.empty();
+    }
+    if (searched.isEmpty()) {
+      return Optional.empty();
+    }
+    ConversationSearchIndex.SearchResult result = searched.get();
+    Instant reachableFrom =
+        after != null ? after : (before != null ? before : Instant.now()).minus(BLUEBUBBLES_WINDOW);
+    if (result.hits().isEmpty() && result.coveredFrom().isAfter(reachableFrom)) {
+      return Optional.empty();
+    }
+    List<Map<String, Object>> messages = new ArrayList<>();
+    for (ConversationSearchIndex.SearchHit hit : result.hits()) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("guid", hit.messageGuid());
+      entry.put("text", hit.text());
+      entry.put("dateCreated", hit.sentAt().toEpochMilli());
+      entry.put("sender", hit.sender());
+      messages.add(entry);
+    }
+    return Optional.of(messages);
+  }
+
+  private String description() {
+    boolean indexed = scopeResolver != null && scopeResolver.conversationSearchIndex().isPresent();
+    String matching =
+        indexed
+            ? " In group chats with memory enabled, matches words, their other forms and close"
+                + " misspellings, with the best matches first; quote a phrase to require it"
+                + " exactly. Elsewhere, finds messages containing the query text, newest first."
+            : " Finds messages containing the query text, newest first.";
+    return "Search message history for the current conversation."
+        + matching
+        + " Use after/before to limit the dates searched. Without after, messages more than a"
+        + " month older than before (or now) may be unavailable.";
+  }
+
+  private static @Nullable Instant parseInstant(@Nullable String value) {
+    String trimmed = StringUtils.trimToNull(value);
+    return trimmed == null ? null : Instant.parse(trimmed);
+  }
+
+  private @Nullable List<Map<String, Object>> searchBlueBubbles(
+      String chatGuid,
+      SearchConversationHistoryRequest request,
+      @Nullable Instant after,
+      @Nullable Instant before) {
+    // BlueBubbles matches the text as written, so quotes would only stop anything matching.
+    String query =
+        StringUtils.normalizeSpace(StringUtils.replaceChars(request.query(), "\"\u201C\u201D", ""));
+    List<Message> bbMessages =
+        bbHttpClientWrapper.searchConversationHistory(
+            chatGuid, query, request.limit(), request.offset(), after, before);
+    if (bbMessages == null) {
+      return null;
+    }
+    List<Map<String, Object>> messages = new ArrayList<>();
+    for (Message msg : bbMessages) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("guid", msg.getGuid());
+      entry.put("text", msg.getText());
+      entry.put("dateCreated", msg.getDateCreated());
+      entry.put("sender", BlueBubblesHandleAddress.from(msg.getHandle()));
+      messages.add(entry);
+    }
+    return messages;
   }
 }
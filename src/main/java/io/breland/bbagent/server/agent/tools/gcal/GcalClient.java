@@ -12,7 +12,7 @@ import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.DataStoreFactory;
@@ -21,6 +21,7 @@ import com.google.api.services.calendar.CalendarScopes;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import io.breland.bbagent.server.agent.persistence.GcalCredentialEntity;
 import io.breland.bbagent.server.agent.persistence.GcalCredentialRepository;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -28,6 +29,8 @@ import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -36,8 +39,11 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -48,6 +54,9 @@ public class GcalClient {
   private static final Duration OAUTH_STATE_TTL = Duration.ofMinutes(10);
   private static final String STORE_ID = StoredCredential.DEFAULT_DATA_STORE_ID;
   private static final String ACCOUNT_PENDING_PREFIX = "pending::";
+  private static final Duration CALENDAR_CACHE_TTL = Duration.ofMinutes(10);
+  private static final Duration ACCESS_TOKEN_EXPIRY_SKEW = Duration.ofMinutes(1);
+  private static final int CALENDAR_CACHE_LIMIT = 256;
 
   private final ObjectMapper objectMapper;
   private final String clientSecretPath;
@@ -56,7 +65,16 @@ public class GcalClient {
   private final String applicationName;
   private final Algorithm stateAlgorithm;
   private final GcalCredentialRepository credentialRepository;
+  private final @Nullable OperationalMetricsService metrics;
+  private final Clock clock;
+  private final TransportFactory transportFactory;
+  // Calendar clients by account key. Each holds the credential loaded from the data store, which
+  // refreshes its own access token and writes the refreshed token back through the flow.
+  private final Map<String, CachedCalendar> calendars = new ConcurrentHashMap<>();
+  private final Object flowLock = new Object();
+  private volatile GoogleAuthorizationCodeFlow flow;
 
+  @Autowired
   public GcalClient(
       @Value("${gcal.oauth.client_secret_path:}") String clientSecretPath,
       @Value("${gcal.oauth.client_secret:}") String clientSecret,
@@ -64,7 +82,32 @@ public class GcalClient {
       @Value("${gcal.oauth.state_secret:}") String stateSecret,
       @Value("${gcal.application_name:BlueChat}") String applicationName,
       GcalCredentialRepository credentialRepository,
-      ObjectMapper objectMapper) {
+      ObjectMapper objectMapper,
+      @Nullable OperationalMetricsService metrics) {
+    this(
+        clientSecretPath,
+        clientSecret,
+        redirectUri,
+        stateSecret,
+        applicationName,
+        credentialRepository,
+        objectMapper,
+        metrics,
+        Clock.systemUTC(),
+        GoogleNetHttpTransport::newTrustedTransport);
+  }
+
+  GcalClient(
+      String clientSecretPath,
+      String clientSecret,
+      String redirectUri,
+      String stateSecret,
+      String applicationName,
+      GcalCredentialRepository credentialRepository,
+      ObjectMapper objectMapper,
+      @Nullable OperationalMetricsService metrics,
+      Clock clock,
+      TransportFactory transportFactory) {
     this.clientSecretPath = clientSecretPath;
     this.clientSecret = clientSecret;
     this.redirectUri = redirectUri;
@@ -73,6 +116,9 @@ public class GcalClient {
     this.applicationName = applicationName;
     this.credentialRepository = credentialRepository;
     this.objectMapper = objectMapper;
+    this.metrics = metrics;
+    this.clock = clock;
+    this.transportFactory = transportFactory;
   }
 
   public boolean isConfigured() {
@@ -100,8 +146,8 @@ public class GcalClient {
     if (state == null) {
       return null;
     }
-    GoogleAuthorizationCodeFlow flow = buildFlow();
-    return flow.newAuthorizationUrl()
+    return flow()
+        .newAuthorizationUrl()
         .setRedirectUri(redirectUri)
         .setState(state)
         .set("prompt", "consent")
@@ -114,7 +160,7 @@ public class GcalClient {
       return Optional.empty();
     }
     try {
-      GoogleAuthorizationCodeFlow flow = buildFlow();
+      GoogleAuthorizationCodeFlow flow = flow();
       TokenResponse tokenResponse =
           flow.newTokenRequest(code).setRedirectUri(redirectUri).execute();
       flow.createAndStoreCredential(tokenResponse, pendingKey);
@@ -191,19 +237,46 @@ public class GcalClient {
     if (accountKey == null || accountKey.isBlank()) {
       return false;
     }
+    invalidateCalendarService(accountKey);
     return credentialRepository.deleteByStoreIdAndAccountKey(STORE_ID, accountKey) > 0;
   }
 
+  /**
+   * Returns the calendar client for {@code accountKey}, reusing the one built for an earlier call.
+   * A cached client is rebuilt from the stored credential once it is older than the cache TTL, so
+   * credentials revoked or relinked by another instance are picked up, or once its access token has
+   * expired with no refresh token to renew it.
+   */
   public Calendar getCalendarService(String accountKey) throws IOException {
+    Instant now = clock.instant();
+    CachedCalendar cached = accountKey == null ? null : calendars.get(accountKey);
+    if (cached != null && cached.usableAt(now)) {
+      recordCalendarCacheLookup("hit");
+      return cached.calendar();
+    }
+    recordCalendarCacheLookup(cached == null ? "miss" : "stale");
     Credential credential = getCredential(accountKey);
+    Calendar calendar;
     try {
-      NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-      return new Calendar.Builder(httpTransport, JSON_FACTORY, credential)
-          .setApplicationName(applicationName)
-          .build();
+      calendar =
+          new Calendar.Builder(flow().getTransport(), JSON_FACTORY, credential)
+              .setApplicationName(applicationName)
+              .build();
     } catch (Exception e) {
       throw new IOException("Failed to create calendar client", e);
     }
+    if (calendars.size() >= CALENDAR_CACHE_LIMIT) {
+      calendars.clear();
+    }
+    calendars.put(
+        accountKey, new CachedCalendar(calendar, credential, now.plus(CALENDAR_CACHE_TTL)));
+    return calendar;
+  }
+
+  private void invalidateCalendarService(String accountKey) {
+    if (accountKey != null) {
+      calendars.remove(accountKey);
+    }
   }
 
   public com.google.api.client.util.DateTime parseDateTime(String value, ZoneId fallbackZone) {
@@ -271,44 +344,61 @@ public class GcalClient {
     if (!isConfigured()) {
       throw new IOException("Google Calendar client not configured");
     }
-    GoogleAuthorizationCodeFlow flow = buildFlow();
-    Credential credential = flow.loadCredential(accountKey);
+    Credential credential = flow().loadCredential(accountKey);
     if (credential == null) {
       throw new IOException("No credentials found for account: " + accountKey);
     }
     return credential;
   }
 
+  /**
+   * The authorization flow, built once: the client secrets are parsed, and the HTTP transport and
+   * credential data store created, on first use. The flow and transport are thread-safe and shared
+   * by every calendar client.
+   */
+  private GoogleAuthorizationCodeFlow flow() {
+    GoogleAuthorizationCodeFlow current = flow;
+    if (current != null) {
+      return current;
+    }
+    synchronized (flowLock) {
+      if (flow == null) {
+        flow = buildFlow();
+      }
+      return flow;
+    }
+  }
+
   private GoogleAuthorizationCodeFlow buildFlow() {
+    GoogleClientSecrets clientSecrets = loadClientSecrets();
+    try {
+      DataStoreFactory dataStoreFactory =
+          new PostgresCredentialDataStoreFactory(credentialRepository);
+      return new GoogleAuthorizationCodeFlow.Builder(
+              transportFactory.create(), JSON_FACTORY, clientSecrets, SCOPES)
+          .setDataStoreFactory(dataStoreFactory)
+          .setAccessType("offline")
+          .build();
+    } catch (Exception e) {
+      log.error("Failed to build Google authorization flow", e);
+      throw new IllegalStateException("Failed to build Google authorization flow", e);
+    }
+  }
+
+  private GoogleClientSecrets loadClientSecrets() {
     if (clientSecretPath != null
         && !clientSecretPath.isBlank()
         && Files.exists(Paths.get(clientSecretPath))) {
       try (FileInputStream input = new FileInputStream(clientSecretPath)) {
-        GoogleClientSecrets clientSecrets =
-            GoogleClientSecrets.load(
-                JSON_FACTORY, new InputStreamReader(input, StandardCharsets.UTF_8));
-        DataStoreFactory dataStoreFactory =
-            new PostgresCredentialDataStoreFactory(credentialRepository);
-        return new GoogleAuthorizationCodeFlow.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, clientSecrets, SCOPES)
-            .setDataStoreFactory(dataStoreFactory)
-            .setAccessType("offline")
-            .build();
+        return GoogleClientSecrets.load(
+            JSON_FACTORY, new InputStreamReader(input, StandardCharsets.UTF_8));
       } catch (Exception e) {
         log.error("Failed to load Google client secrets via path", e);
         throw new IllegalStateException("Failed to load Google client secrets", e);
       }
     } else if (clientSecret != null && !clientSecret.isBlank()) {
       try {
-        GoogleClientSecrets clientSecrets =
-            GoogleClientSecrets.load(JSON_FACTORY, new StringReader(clientSecret));
-        DataStoreFactory dataStoreFactory =
-            new PostgresCredentialDataStoreFactory(credentialRepository);
-        return new GoogleAuthorizationCodeFlow.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, clientSecrets, SCOPES)
-            .setDataStoreFactory(dataStoreFactory)
-            .setAccessType("offline")
-            .build();
+        return GoogleClientSecrets.load(JSON_FACTORY, new StringReader(clientSecret));
       } catch (Exception e) {
         log.error("Failed to load Google client secrets via direct", e);
         throw new IllegalStateException("Failed to load Google client secrets", e);
@@ -318,6 +408,17 @@ public class GcalClient {
     throw new IllegalStateException("Failed to load Google client secrets");
   }
 
+  private void recordCalendarCacheLookup(String result) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordGcalClientCacheLookup(result);
+    } catch (RuntimeException e) {
+      log.warn("Failed to record calendar client cache lookup", e);
+    }
+  }
+
   private String createOauthState(
       String accountId, String pendingKey, String chatGuid, String messageGuid) {
     if (stateAlgorithm == null) {
@@ -347,6 +448,25 @@ public class GcalClient {
 
   public record GcalLinkedAccount(String accountKey, String accountId, String googleAccountId) {}
 
+  @FunctionalInterface
+  interface TransportFactory {
+    HttpTransport create() throws GeneralSecurityException, IOException;
+  }
+
+  private record CachedCalendar(Calendar calendar, Credential credential, Instant expiresAt) {
+    boolean usableAt(Instant now) {
+      if (!now.isBefore(expiresAt)) {
+        return false;
+      }
+      if (credential.getRefreshToken() != null) {
+        return true;
+      }
+      Long accessTokenExpiresAt = credential.getExpirationTimeMilliseconds();
+      return accessTokenExpiresAt == null
+          || now.plus(ACCESS_TOKEN_EXPIRY_SKEW).toEpochMilli() < accessTokenExpiresAt;
+    }
+  }
+
   private Optional<String> linkedDefaultAccountKey(String accountId) {
     if (accountId != null
         && credentialRepository.existsByStoreIdAndAccountKey(STORE_ID, accountId)) {
@@ -396,6 +516,9 @@ public class GcalClient {
               });
     } catch (Exception e) {
       log.warn("Failed to migrate credential key {} -> {}", fromKey, toKey, e);
+    } finally {
+      invalidateCalendarService(fromKey);
+      invalidateCalendarService(toKey);
     }
   }
 }
@@ -5,6 +5,7 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.api.services.calendar.model.Event;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -44,6 +45,7 @@ public class GetEventAgentTool extends GcalToolSupport implements ToolProvider {
                 Event event = client.events().get(calendarId, eventId).execute();
                 return toJson(event);
               });
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
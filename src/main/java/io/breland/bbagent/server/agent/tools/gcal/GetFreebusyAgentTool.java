@@ -8,6 +8,7 @@ import com.google.api.services.calendar.model.FreeBusyRequest;
 import com.google.api.services.calendar.model.FreeBusyRequestItem;
 import com.google.api.services.calendar.model.FreeBusyResponse;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.ZoneId;
@@ -83,6 +84,7 @@ public class GetFreebusyAgentTool extends GcalToolSupport implements ToolProvide
                 FreeBusyResponse response = client.freebusy().query(gRequest).execute();
                 return toJson(response);
               });
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.api.services.calendar.model.CalendarList;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.util.ArrayList;
@@ -53,6 +54,7 @@ public class ListCalendarsAgentTool extends GcalToolSupport implements ToolProvi
                 }
                 return toJson(calendars);
               });
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
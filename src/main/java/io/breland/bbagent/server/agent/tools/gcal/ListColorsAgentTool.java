@@ -5,6 +5,7 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.api.services.calendar.model.Colors;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -36,6 +37,7 @@ public class ListColorsAgentTool extends GcalToolSupport implements ToolProvider
                 Colors colors = client.colors().get().execute();
                 return toJson(colors);
               });
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
@@ -7,6 +7,7 @@ import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Events;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.ZoneId;
@@ -73,6 +74,7 @@ public class ListEventsAgentTool extends GcalToolSupport implements ToolProvider
                 Events events = request.execute();
                 return toJson(eventSummaries(events));
               });
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
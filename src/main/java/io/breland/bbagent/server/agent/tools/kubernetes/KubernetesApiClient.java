@@ -1,6 +1,9 @@
 package io.breland.bbagent.server.agent.tools.kubernetes;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -9,35 +12,96 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.security.KeyStore;
 import java.security.cert.CertificateFactory;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
 
+/**
+ * Read-only client for the in-cluster Kubernetes API. One {@link HttpClient} (HTTP/2, pooled
+ * connections) is kept per cluster CA and rebuilt only when the CA file changes; the service
+ * account token is re-read only when the projected token file changes, since the kubelet rotates
+ * it by swapping the file rather than editing it.
+ */
 final class KubernetesApiClient {
   static final String JSON_ACCEPT_HEADER = "application/json";
   static final String POD_LOGS_ACCEPT_HEADER = "text/plain, application/json, */*";
+  static final int MAX_POD_LOG_CHARS = 256 * 1024;
 
   private static final String DEFAULT_API_SERVER = "https://kubernetes.default.svc";
   private static final Path SERVICE_ACCOUNT_TOKEN_PATH =
       Path.of("/var/run/secrets/kubernetes.io/serviceaccount/token");
   private static final Path SERVICE_ACCOUNT_CA_PATH =
       Path.of("/var/run/secrets/kubernetes.io/serviceaccount/ca.crt");
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+  private static final KubernetesApiClient SHARED = new KubernetesApiClient();
+
+  private final Path tokenPath;
+  private final Path caPath;
+  private volatile CachedFile<HttpClient> cachedClient;
+  private volatile CachedFile<String> cachedToken;
+
+  KubernetesApiClient() {
+    this(SERVICE_ACCOUNT_TOKEN_PATH, SERVICE_ACCOUNT_CA_PATH);
+  }
+
+  KubernetesApiClient(Path tokenPath, Path caPath) {
+    this.tokenPath = tokenPath;
+    this.caPath = caPath;
+  }
+
+  /** The client the Kubernetes tools share, so they share its connections. */
+  static KubernetesApiClient shared() {
+    return SHARED;
+  }
 
   HttpResponse<String> get(URI uri, String accept) throws Exception {
-    HttpClient client = HttpClient.newBuilder().sslContext(loadClusterSslContext()).build();
-    HttpRequest request =
-        HttpRequest.newBuilder(uri)
-            .timeout(Duration.ofSeconds(20))
-            .header("Authorization", "Bearer " + readServiceAccountToken())
-            .header("Accept", accept)
-            .GET()
-            .build();
-    return client.send(request, HttpResponse.BodyHandlers.ofString());
+    return httpClient().send(request(uri, accept), HttpResponse.BodyHandlers.ofString());
+  }
+
+  /**
+   * Streams a pod log response line by line, keeping only the newest lines that fit in {@code
+   * maxChars}, so a large log is never buffered whole.
+   */
+  PodLogs getPodLogs(URI uri, int maxChars) throws Exception {
+    HttpResponse<InputStream> response =
+        httpClient()
+            .send(request(uri, POD_LOGS_ACCEPT_HEADER), HttpResponse.BodyHandlers.ofInputStream());
+    try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+      return readPodLogs(response.statusCode(), reader, maxChars);
+    }
+  }
+
+  static PodLogs readPodLogs(int status, Reader reader, int maxChars) throws IOException {
+    LogTail tail = new LogTail(maxChars);
+    StringBuilder line = new StringBuilder();
+    char[] buffer = new char[8192];
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      for (int index = 0; index < read; index++) {
+        char next = buffer[index];
+        if (next == '\n') {
+          tail.add(line.append(next).toString());
+          line.setLength(0);
+        } else if (line.length() < maxChars) {
+          line.append(next);
+        } else {
+          tail.lineTruncated = true;
+        }
+      }
+    }
+    if (!line.isEmpty()) {
+      tail.add(line.toString());
+    }
+    return new PodLogs(status, String.join("", tail.lines), tail.omittedLines, tail.lineTruncated);
   }
 
   URI uri(String path, QueryParam... queryParams) {
@@ -123,14 +187,52 @@ final class KubernetesApiClient {
     return URLEncoder.encode(value, StandardCharsets.UTF_8);
   }
 
-  private String readServiceAccountToken() throws IOException {
-    return Files.readString(SERVICE_ACCOUNT_TOKEN_PATH, StandardCharsets.UTF_8).trim();
+  private HttpRequest request(URI uri, String accept) throws IOException {
+    return HttpRequest.newBuilder(uri)
+        .timeout(REQUEST_TIMEOUT)
+        .header("Authorization", "Bearer " + serviceAccountToken())
+        .header("Accept", accept)
+        .GET()
+        .build();
+  }
+
+  private HttpClient httpClient() throws Exception {
+    FileTime caModifiedAt = Files.getLastModifiedTime(caPath);
+    CachedFile<HttpClient> current = cachedClient;
+    if (current != null && current.modifiedAt().equals(caModifiedAt)) {
+      return current.value();
+    }
+    synchronized (this) {
+      current = cachedClient;
+      if (current == null || !current.modifiedAt().equals(caModifiedAt)) {
+        HttpClient client =
+            HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .sslContext(loadClusterSslContext())
+                .build();
+        current = new CachedFile<>(caModifiedAt, client);
+        cachedClient = current;
+      }
+      return current.value();
+    }
+  }
+
+  String serviceAccountToken() throws IOException {
+    FileTime modifiedAt = Files.getLastModifiedTime(tokenPath);
+    CachedFile<String> current = cachedToken;
+    if (current == null || !current.modifiedAt().equals(modifiedAt)) {
+      current =
+          new CachedFile<>(modifiedAt, Files.readString(tokenPath, StandardCharsets.UTF_8).trim());
+      cachedToken = current;
+    }
+    return current.value();
   }
 
   private SSLContext loadClusterSslContext() throws Exception {
     CertificateFactory certFactory = CertificateFactory.getInstance("X.509");
     java.security.cert.Certificate cert;
-    try (var input = Files.newInputStream(SERVICE_ACCOUNT_CA_PATH)) {
+    try (var input = Files.newInputStream(caPath)) {
       cert = certFactory.generateCertificate(input);
     }
 
@@ -148,4 +250,37 @@ final class KubernetesApiClient {
   }
 
   record QueryParam(String name, String value) {}
+
+  /**
+   * A pod log response. {@code omittedLines} older lines were dropped to stay within the size cap,
+   * and {@code lineTruncated} is set when a single line was longer than the cap.
+   */
+  record PodLogs(int status, String body, int omittedLines, boolean lineTruncated) {
+    boolean truncated() {
+      return omittedLines > 0 || lineTruncated;
+    }
+  }
+
+  private record CachedFile<T>(FileTime modifiedAt, T value) {}
+
+  private static final class LogTail {
+    private final Deque<String> lines = new ArrayDeque<>();
+    private final int maxChars;
+    private long keptChars;
+    private int omittedLines;
+    private boolean lineTruncated;
+
+    private LogTail(int maxChars) {
+      this.maxChars = maxChars;
+    }
+
+    private void add(String line) {
+      lines.addLast(line);
+      keptChars += line.length();
+      while (keptChars > maxChars && lines.size() > 1) {
+        keptChars -= lines.removeFirst().length();
+        omittedLines++;
+      }
+    }
+  }
 }
@@ -4,10 +4,10 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.net.URI;
-import java.net.http.HttpResponse;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -30,7 +30,7 @@ public class KubernetesPodLogsAgentTool implements ToolProvider {
       @Schema(description = "Only return the last N lines of logs (1-5000).") Integer tailLines) {}
 
   public KubernetesPodLogsAgentTool(ObjectMapper objectMapper) {
-    this(objectMapper, new KubernetesApiClient());
+    this(objectMapper, KubernetesApiClient.shared());
   }
 
   KubernetesPodLogsAgentTool(ObjectMapper objectMapper, KubernetesApiClient kubernetesApi) {
@@ -63,18 +63,29 @@ public class KubernetesPodLogsAgentTool implements ToolProvider {
                     kubernetesApi.queryParam("follow", request.follow()),
                     kubernetesApi.queryParam("previous", request.previous()),
                     kubernetesApi.queryParam(
-                        "tailLines", kubernetesApi.clamp(request.tailLines(), 1, 5000)));
-            HttpResponse<String> response =
-                kubernetesApi.get(uri, KubernetesApiClient.POD_LOGS_ACCEPT_HEADER);
+                        "tailLines", kubernetesApi.clamp(request.tailLines(), 1, 5000)),
+                    // A followed stream only ends when the server stops it.
+                    kubernetesApi.queryParam(
+                        "limitBytes",
+                        Boolean.TRUE.equals(request.follow())
+                            ? KubernetesApiClient.MAX_POD_LOG_CHARS
+                            : null));
+            KubernetesApiClient.PodLogs logs =
+                kubernetesApi.getPodLogs(uri, KubernetesApiClient.MAX_POD_LOG_CHARS);
 
             Map<String, Object> payload = new LinkedHashMap<>();
-            payload.put("status", response.statusCode());
+            payload.put("status", logs.status());
             payload.put("request_uri", uri.toString());
-            payload.put("response", response.body());
+            payload.put("response", logs.body());
+            if (logs.truncated()) {
+              payload.put("truncated", true);
+              payload.put("omitted_lines", logs.omittedLines());
+            }
             return objectMapper.writeValueAsString(payload);
           } catch (Exception e) {
             return "kubernetes pod logs failed: " + e.getMessage();
           }
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 }
@@ -4,6 +4,7 @@ import static io.breland.bbagent.server.agent.tools.JsonSchemaUtilities.jsonSche
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.net.URI;
@@ -34,7 +35,7 @@ public class KubernetesReadOnlyAgentTool implements ToolProvider {
       @Schema(description = "Limit result size (1-500).") Integer limit) {}
 
   public KubernetesReadOnlyAgentTool(ObjectMapper objectMapper) {
-    this(objectMapper, new KubernetesApiClient());
+    this(objectMapper, KubernetesApiClient.shared());
   }
 
   KubernetesReadOnlyAgentTool(ObjectMapper objectMapper, KubernetesApiClient kubernetesApi) {
@@ -79,7 +80,8 @@ public class KubernetesReadOnlyAgentTool implements ToolProvider {
           } catch (Exception e) {
             return "kubernetes query failed: " + e.getMessage();
           }
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private Object parseBody(String body) {
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.breland.bbagent.server.ratelimit.MessageResponseRateLimitService;
@@ -45,7 +46,8 @@ public class GetUsageLimitsAgentTool implements ToolProvider {
           } catch (Exception e) {
             return "error: " + e.getMessage();
           }
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   @JsonInclude(JsonInclude.Include.NON_NULL)
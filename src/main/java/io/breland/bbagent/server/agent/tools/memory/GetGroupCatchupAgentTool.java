@@ -10,6 +10,7 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.GroupQues
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.AnswerStatus;
 import io.breland.bbagent.server.agent.memory.MemoryScopeResolver;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -23,6 +24,9 @@ import org.apache.commons.lang3.StringUtils;
 
 public class GetGroupCatchupAgentTool implements ToolProvider {
   public static final String TOOL_NAME = "get_group_catchup";
+  // Group questions may use the whole 90-second answering deadline after the group and history
+  // lookups.
+  private static final Duration TOOL_TIMEOUT = Duration.ofMinutes(3);
   private final MemoryScopeResolver scopeResolver;
 
   public GetGroupCatchupAgentTool(MemoryScopeResolver scopeResolver) {
@@ -118,7 +122,9 @@ public class GetGroupCatchupAgentTool implements ToolProvider {
                 ? "invalid question range"
                 : "invalid catch-up range";
           }
-        });
+        },
+        ToolConcurrency.PARALLEL,
+        TOOL_TIMEOUT);
   }
 
   private CatchupRange resolveCatchupRange(GetGroupCatchupRequest request, Instant now) {
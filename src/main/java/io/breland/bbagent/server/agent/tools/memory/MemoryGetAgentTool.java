@@ -7,6 +7,7 @@ import io.breland.bbagent.server.agent.memory.AuthorizedMemoryRetrievalService;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.AuthorizedMemory;
 import io.breland.bbagent.server.agent.memory.MemoryScopeResolver;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -103,7 +104,8 @@ public class MemoryGetAgentTool implements ToolProvider {
           }
           result.put("memories", formatted);
           return ToolJson.stringify(this.mem0Client.getObjectMapper(), result, result.toString());
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private String formatAuthorizedMemories(List<AuthorizedMemory> memories) {
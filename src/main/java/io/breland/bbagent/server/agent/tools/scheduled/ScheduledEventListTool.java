@@ -3,6 +3,7 @@ package io.breland.bbagent.server.agent.tools.scheduled;
 import io.breland.bbagent.server.agent.cadence.CadenceWorkflowLauncher;
 import io.breland.bbagent.server.agent.tools.AgentTool;
 import io.breland.bbagent.server.agent.tools.JsonSchemaUtilities;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import java.util.LinkedHashMap;
@@ -38,7 +39,8 @@ public class ScheduledEventListTool implements ToolProvider {
               context.getMapper(),
               sanitizeSummaries(chatGuid, summaries),
               "failed to serialize scheduled events");
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private static List<Map<String, Object>> sanitizeSummaries(
@@ -0,0 +1,10 @@
+package io.breland.bbagent.server.agent.tools.search;
+
+/** Conditions a conversation must meet before a tool is offered to the model. */
+public enum ToolRequirement {
+  GROUP_CHAT,
+  DIRECT_CHAT,
+  BLUEBUBBLES_TRANSPORT,
+  REACTIONS,
+  KUBERNETES_ACCESS
+}
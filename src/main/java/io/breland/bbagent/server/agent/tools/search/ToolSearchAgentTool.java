@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolContext;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
@@ -13,12 +14,8 @@ import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.function.BiFunction;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.ai.tool.toolsearch.ToolReference;
-import org.springframework.ai.tool.toolsearch.ToolSearchRequest;
-import org.springframework.ai.tool.toolsearch.index.lucene.LuceneToolIndex;
+import org.springframework.lang.Nullable;
 
 public final class ToolSearchAgentTool implements ToolProvider {
   public static final String TOOL_NAME = "toolSearchTool";
@@ -30,13 +27,11 @@ public final class ToolSearchAgentTool implements ToolProvider {
           + " limits, other";
 
   private final ObjectMapper objectMapper;
-  private final BiFunction<IncomingMessage, String, List<ToolIndexEntry>> toolEntriesProvider;
+  private final ToolSearcher toolSearcher;
 
-  public ToolSearchAgentTool(
-      ObjectMapper objectMapper,
-      BiFunction<IncomingMessage, String, List<ToolIndexEntry>> toolEntriesProvider) {
+  public ToolSearchAgentTool(ObjectMapper objectMapper, ToolSearcher toolSearcher) {
     this.objectMapper = objectMapper;
-    this.toolEntriesProvider = toolEntriesProvider;
+    this.toolSearcher = toolSearcher;
   }
 
   @Override
@@ -83,7 +78,8 @@ public final class ToolSearchAgentTool implements ToolProvider {
                 "additionalProperties",
                 false)),
         false,
-        this::search);
+        this::search,
+        ToolConcurrency.PARALLEL);
   }
 
   private String search(ToolContext context, JsonNode args) {
@@ -94,21 +90,12 @@ public final class ToolSearchAgentTool implements ToolProvider {
     int maxResults = intArg(args, "maxResults", DEFAULT_MAX_RESULTS);
     maxResults = Math.max(MIN_MAX_RESULTS, Math.min(MAX_MAX_RESULTS, maxResults));
     String categoryFilter = StringUtils.trimToNull(textArg(args, "categoryFilter"));
-    List<ToolIndexEntry> toolEntries =
-        toolEntriesProvider.apply(context == null ? null : context.message(), categoryFilter);
-    String sessionId = "agent-tool-search-" + UUID.randomUUID();
-    try (LuceneToolIndex searcher = new LuceneToolIndex(0.2f)) {
-      for (ToolIndexEntry entry : toolEntries) {
-        searcher.indexTool(
-            sessionId,
-            ToolReference.builder().toolName(entry.toolName()).summary(entry.summary()).build());
-      }
+    try {
       List<String> toolNames =
-          searcher
-              .search(new ToolSearchRequest(sessionId, query, maxResults, categoryFilter))
-              .toolReferences()
+          toolSearcher
+              .search(
+                  context == null ? null : context.message(), query, maxResults, categoryFilter)
               .stream()
-              .map(ToolReference::toolName)
               .distinct()
               .toList();
       return objectMapper.writeValueAsString(toolNames);
@@ -161,5 +148,12 @@ public final class ToolSearchAgentTool implements ToolProvider {
         tool.name() + " " + category + " " + StringUtils.defaultString(tool.description()));
   }
 
-  public record ToolIndexEntry(String toolName, String summary) {}
+  @FunctionalInterface
+  public interface ToolSearcher {
+    List<String> search(
+        @Nullable IncomingMessage message,
+        String query,
+        int maxResults,
+        @Nullable String categoryFilter);
+  }
 }
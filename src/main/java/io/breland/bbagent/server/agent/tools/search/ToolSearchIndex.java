@@ -0,0 +1,155 @@
+package io.breland.bbagent.server.agent.tools.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.lang.Nullable;
+
+/**
+ * In-memory Lucene index of tool summaries that lives as long as its {@code AgentToolRegistry}.
+ * Tools are indexed once when registered; per-request visibility and category restrictions are
+ * applied as query filters so a search never re-indexes anything.
+ */
+public final class ToolSearchIndex implements Closeable {
+  static final float MIN_SCORE = 0.2f;
+  private static final int MAX_QUERY_TERMS = 64;
+  private static final String FIELD_TOOL_NAME = "tool_name";
+  private static final String FIELD_CATEGORY = "category";
+  private static final String FIELD_REQUIREMENT = "requirement";
+  private static final String FIELD_SUMMARY = "summary";
+
+  private final Analyzer analyzer = new StandardAnalyzer();
+  private final ByteBuffersDirectory directory = new ByteBuffersDirectory();
+  private final IndexWriter writer;
+  private final SearcherManager searcherManager;
+
+  public ToolSearchIndex() {
+    try {
+      this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+      this.searcherManager = new SearcherManager(writer, null);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open tool search index", e);
+    }
+  }
+
+  /** Adds the tool, replacing any document previously indexed under the same name. */
+  public void upsert(
+      String toolName, String category, Set<ToolRequirement> requirements, String summary) {
+    Document document = new Document();
+    document.add(new StringField(FIELD_TOOL_NAME, toolName, Field.Store.YES));
+    document.add(new StringField(FIELD_CATEGORY, normalizeCategory(category), Field.Store.NO));
+    for (ToolRequirement requirement : requirements) {
+      document.add(new StringField(FIELD_REQUIREMENT, requirement.name(), Field.Store.NO));
+    }
+    document.add(new TextField(FIELD_SUMMARY, summary, Field.Store.NO));
+    document.add(new TextField(FIELD_SUMMARY, toolName.replace('_', ' '), Field.Store.NO));
+    try {
+      writer.updateDocument(new Term(FIELD_TOOL_NAME, toolName), document);
+      searcherManager.maybeRefreshBlocking();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to index tool " + toolName, e);
+    }
+  }
+
+  /**
+   * Returns up to {@code maxResults} tool names matching {@code query}, restricted to tools whose
+   * requirements are satisfied by {@code visibility} and, when given, to {@code categoryFilter}.
+   */
+  public List<String> search(
+      String query, int maxResults, ToolVisibility visibility, @Nullable String categoryFilter) {
+    BooleanQuery textQuery = textQuery(query);
+    if (textQuery == null || maxResults <= 0) {
+      return List.of();
+    }
+    BooleanQuery.Builder builder =
+        new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+    for (ToolRequirement requirement : ToolRequirement.values()) {
+      if (!visibility.satisfies(requirement)) {
+        builder.add(
+            new TermQuery(new Term(FIELD_REQUIREMENT, requirement.name())),
+            BooleanClause.Occur.MUST_NOT);
+      }
+    }
+    String category = StringUtils.trimToNull(categoryFilter);
+    if (category != null) {
+      builder.add(
+          new TermQuery(new Term(FIELD_CATEGORY, normalizeCategory(category))),
+          BooleanClause.Occur.FILTER);
+    }
+    try {
+      IndexSearcher searcher = searcherManager.acquire();
+      try {
+        ScoreDoc[] hits = searcher.search(builder.build(), maxResults).scoreDocs;
+        StoredFields storedFields = searcher.storedFields();
+        List<String> toolNames = new ArrayList<>(hits.length);
+        for (ScoreDoc hit : hits) {
+          if (hit.score >= MIN_SCORE) {
+            toolNames.add(storedFields.document(hit.doc).get(FIELD_TOOL_NAME));
+          }
+        }
+        return toolNames;
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to search tool index", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    searcherManager.close();
+    writer.close();
+    directory.close();
+    analyzer.close();
+  }
+
+  private @Nullable BooleanQuery textQuery(String query) {
+    if (StringUtils.isBlank(query)) {
+      return null;
+    }
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    int terms = 0;
+    try (TokenStream tokens = analyzer.tokenStream(FIELD_SUMMARY, query)) {
+      CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+      tokens.reset();
+      while (terms < MAX_QUERY_TERMS && tokens.incrementToken()) {
+        builder.add(
+            new TermQuery(new Term(FIELD_SUMMARY, term.toString())), BooleanClause.Occur.SHOULD);
+        terms++;
+      }
+      tokens.end();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to analyze tool search query", e);
+    }
+    return terms == 0 ? null : builder.build();
+  }
+
+  private static String normalizeCategory(String category) {
+    return StringUtils.defaultString(category).trim().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,22 @@
+package io.breland.bbagent.server.agent.tools.search;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/** The {@link ToolRequirement}s satisfied by the conversation handling the current request. */
+public record ToolVisibility(Set<ToolRequirement> satisfied) {
+  public ToolVisibility {
+    satisfied =
+        satisfied == null || satisfied.isEmpty()
+            ? EnumSet.noneOf(ToolRequirement.class)
+            : EnumSet.copyOf(satisfied);
+  }
+
+  public boolean satisfies(ToolRequirement requirement) {
+    return satisfied.contains(requirement);
+  }
+
+  public boolean allows(Set<ToolRequirement> requirements) {
+    return requirements == null || satisfied.containsAll(requirements);
+  }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import io.breland.bbagent.generated.model.WebsiteModelAccessSummary;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.tools.AgentTool;
+import io.breland.bbagent.server.agent.tools.ToolConcurrency;
 import io.breland.bbagent.server.agent.tools.ToolJson;
 import io.breland.bbagent.server.agent.tools.ToolProvider;
 import io.breland.bbagent.server.website.WebsiteAccountService;
@@ -63,7 +64,8 @@ public class GetWebsiteAccountLinkStatusAgentTool implements ToolProvider {
           } catch (Exception e) {
             return "error: " + e.getMessage();
           }
-        });
+        },
+        ToolConcurrency.PARALLEL);
   }
 
   private WebsiteAccountService.SenderLinkStatus getLinkStatus(
@@ -18,6 +18,7 @@ import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -50,6 +51,9 @@ import reactor.util.retry.Retry;
 @Component
 public class BBHttpClientWrapper {
 
+  /** Longest a conversation history search waits for BlueBubbles. */
+  public static final Duration SEARCH_HISTORY_TIMEOUT = Duration.ofSeconds(120);
+
   private static final Duration DEFAULT_API_TIMEOUT = Duration.ofSeconds(30);
   private static final Duration DIRECT_SEND_CONFIRMATION_DELAY = Duration.ofSeconds(5);
   private static final Duration DIRECT_SEND_PING_TIMEOUT = Duration.ofSeconds(5);
@@ -61,6 +65,11 @@ public class BBHttpClientWrapper {
   private static final int STOP_TYPING_MAX_ATTEMPTS = 3;
   private static final int BLUEBUBBLES_MAX_IN_MEMORY_BYTES = 2 * 1024 * 1024;
   private static final String ANY_DIRECT_CHAT_PREFIX = "any;-;";
+  private static final Duration CONTACT_MISS_REFRESH_INTERVAL = Duration.ofMinutes(1);
+  private static final Duration CHAT_METADATA_TTL = Duration.ofMinutes(5);
+  private static final int CHAT_METADATA_MAX_ENTRIES = 2048;
+  private static final String CHAT_METADATA_VIEW = "chat";
+  private static final String CHAT_METADATA_JSON_VIEW = "json";
 
   private final V1ContactApi contactApi;
   private final ApiClient apiClient;
@@ -76,6 +85,10 @@ public class BBHttpClientWrapper {
   private final @Nullable OperationalMetricsService operationalMetricsService;
   private final AtomicLong typingGenerationSequence = new AtomicLong();
   private final ConcurrentMap<String, Long> typingGenerations = new ConcurrentHashMap<>();
+  private final BlueBubblesContactDirectory contactDirectory;
+  private final BlueBubblesChatMetadataCache chatMetadataCache;
+  private final BlueBubblesSendConfirmations sendConfirmations =
+      new BlueBubblesSendConfirmations(Clock.systemUTC(), DIRECT_SEND_MATCH_WINDOW_SKEW);
 
   @Getter private final ObjectMapper objectMapper;
 
@@ -98,6 +111,8 @@ public class BBHttpClientWrapper {
     this.icloudApi = new V1ICloudApi(apiClient);
     this.objectMapper = objectMapper;
     this.operationalMetricsService = operationalMetricsService;
+    this.contactDirectory = newContactDirectory();
+    this.chatMetadataCache = newChatMetadataCache();
   }
 
   public BBHttpClientWrapper(String password, V1MessageApi messageApi, V1ContactApi contactApi) {
@@ -149,6 +164,8 @@ public class BBHttpClientWrapper {
     this.icloudApi = icloudApi;
     this.objectMapper = objectMapper;
     this.operationalMetricsService = operationalMetricsService;
+    this.contactDirectory = newContactDirectory();
+    this.chatMetadataCache = newChatMetadataCache();
   }
 
   BBHttpClientWrapper(
@@ -189,6 +206,24 @@ public class BBHttpClientWrapper {
     this.icloudApi = new V1ICloudApi(apiClient);
     this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
     this.operationalMetricsService = null;
+    this.contactDirectory = newContactDirectory();
+    this.chatMetadataCache = newChatMetadataCache();
+  }
+
+  private BlueBubblesContactDirectory newContactDirectory() {
+    return new BlueBubblesContactDirectory(
+        this::loadContactIdentities,
+        Clock.systemUTC(),
+        CONTACT_MISS_REFRESH_INTERVAL,
+        operationalMetricsService);
+  }
+
+  private BlueBubblesChatMetadataCache newChatMetadataCache() {
+    return new BlueBubblesChatMetadataCache(
+        Clock.systemUTC(),
+        CHAT_METADATA_TTL,
+        CHAT_METADATA_MAX_ENTRIES,
+        operationalMetricsService);
   }
 
   private static ApiClient blueBubblesApiClient() {
@@ -290,6 +325,12 @@ public class BBHttpClientWrapper {
     UNAVAILABLE
   }
 
+  private enum DirectSendEcho {
+    ECHOED,
+    NOT_ECHOED,
+    INTERRUPTED
+  }
+
   protected Duration directSendConfirmationDelay() {
     return DIRECT_SEND_CONFIRMATION_DELAY;
   }
@@ -474,32 +515,19 @@ public class BBHttpClientWrapper {
     if (StringUtils.isBlank(address)) {
       return List.of();
     }
-    return measuredOperation(
-        "get_contacts",
-        () -> {
-          ApiV1ContactGet200Response response =
-              contactApi.apiV1ContactGet(password).block(apiTimeout);
-          response = requirePresent(response, "get contacts");
-          requireSuccessfulResponse(response.getStatus(), response.getMessage(), "get contacts");
-          if (response.getData() == null || response.getData().isEmpty()) {
-            return List.of();
-          }
-          LinkedHashSet<String> matches = new LinkedHashSet<>();
-          for (Contact contact : response.getData()) {
-            List<String> contactAddresses = contactAddresses(contact);
-            boolean containsAddress =
-                contactAddresses.stream()
-                    .anyMatch(candidate -> AgentAccountIdentifiers.equivalent(candidate, address));
-            if (containsAddress) {
-              matches.addAll(contactAddresses);
-            }
-          }
-          return List.copyOf(matches);
-        });
+    return contactDirectory.addressesFor(address, apiTimeout);
   }
 
   public List<BlueBubblesContactIdentity> getContactIdentitiesForQuestion(Duration remaining) {
-    Duration timeout = questionHistoryTimeout(remaining);
+    return contactDirectory.contacts(questionHistoryTimeout(remaining));
+  }
+
+  /** Reloads the contact directory; called periodically by {@link BlueBubblesContactRefresher}. */
+  public boolean refreshContactDirectory() {
+    return contactDirectory.refresh(apiTimeout);
+  }
+
+  private List<BlueBubblesContactIdentity> loadContactIdentities(Duration timeout) {
     return measuredOperation(
         "get_contacts",
         () -> {
@@ -558,9 +586,22 @@ public class BBHttpClientWrapper {
   }
 
   public Path getAttachment(String attachmentGuid) {
+    return getAttachment(attachmentGuid, null);
+  }
+
+  /**
+   * Downloads the attachment into a new temp file inside {@code directory} (or the default temp
+   * directory when null). The caller owns the returned file; it is deleted here if the download
+   * fails.
+   */
+  public Path getAttachment(String attachmentGuid, @Nullable Path directory) {
     long startedNanos = System.nanoTime();
+    Path tempPath = null;
     try {
-      Path tempPath = Files.createTempFile("bb-attachment-", ".bin");
+      tempPath =
+          directory == null
+              ? Files.createTempFile("bb-attachment-", ".bin")
+              : Files.createTempFile(directory, "bb-attachment-", ".bin");
       AsynchronousFileChannel channel =
           AsynchronousFileChannel.open(
               tempPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
@@ -585,6 +626,13 @@ public class BBHttpClientWrapper {
     } catch (Exception e) {
       recordOperationMetric(
           "download_attachment", false, OperationalMetricsService.failureType(e), startedNanos);
+      if (tempPath != null) {
+        try {
+          Files.deleteIfExists(tempPath);
+        } catch (IOException ignored) {
+          // best effort cleanup
+        }
+      }
       throw new RuntimeException("Failed to download attachment with guid " + attachmentGuid, e);
     }
   }
@@ -714,17 +762,39 @@ public class BBHttpClientWrapper {
 
   public List<Message> searchConversationHistory(
       String chatGuid, String query, Integer limit, Integer offset) {
+    return searchConversationHistory(chatGuid, query, limit, offset, null, null);
+  }
+
+  /**
+   * Finds messages whose text contains {@code query}, newest first, sent at or after {@code after}
+   * and before {@code before}. Without {@code after}, the search covers the 30 days before {@code
+   * before}, or before now.
+   */
+  public List<Message> searchConversationHistory(
+      String chatGuid,
+      String query,
+      Integer limit,
+      Integer offset,
+      @Nullable Instant after,
+      @Nullable Instant before) {
     if (StringUtils.isBlank(chatGuid)) {
       return null;
     }
+    Instant searchedFrom = after;
+    if (searchedFrom == null) {
+      searchedFrom = (before != null ? before : Instant.now()).minus(30, ChronoUnit.DAYS);
+    }
     ApiV1MessageQueryPostRequest.Builder request =
         ApiV1MessageQueryPostRequest.builder()
             .chatGuid(chatGuid)
             .sort(ApiV1MessageQueryPostRequest.SortEnum.DESC)
-            .after(Instant.now().minus(30, ChronoUnit.DAYS).getEpochSecond())
+            .after(searchedFrom.getEpochSecond())
             .offset(offset != null && offset >= 0 ? offset : 0)
             .limit(limit != null && limit > 0 ? limit : 20)
             .with(Set.of(ApiV1MessageQueryPostRequest.WithEnum.HANDLE));
+    if (before != null) {
+      request.before(before.getEpochSecond());
+    }
     List<WhereClause> where = new ArrayList<>();
     if (StringUtils.isNotBlank(query)) {
       where.add(
@@ -734,7 +804,7 @@ public class BBHttpClientWrapper {
               .build());
     }
     request.where(where);
-    return executeMessageQuery(request.build(), Duration.of(120, ChronoUnit.SECONDS));
+    return executeMessageQuery(request.build(), SEARCH_HISTORY_TIMEOUT);
   }
 
   private List<Message> executeMessageQuery(
@@ -810,10 +880,30 @@ public class BBHttpClientWrapper {
         .build();
   }
 
+  /**
+   * Chat metadata with participants. Served from a short-lived cache shared by every caller; treat
+   * the result as read-only.
+   */
   public Chat getConversationInfo(String chatGuid) {
     if (StringUtils.isBlank(chatGuid)) {
       return null;
     }
+    return chatMetadataCache.get(
+        chatGuid, CHAT_METADATA_VIEW, () -> fetchConversationInfo(chatGuid));
+  }
+
+  /** Raw chat metadata with participants, from the same cache as {@link #getConversationInfo}. */
+  public JsonNode getConversationInfoJson(String chatGuid) {
+    if (StringUtils.isBlank(chatGuid)) {
+      return null;
+    }
+    JsonNode cached =
+        chatMetadataCache.get(
+            chatGuid, CHAT_METADATA_JSON_VIEW, () -> fetchConversationInfoJson(chatGuid));
+    return cached == null ? null : cached.deepCopy();
+  }
+
+  private Chat fetchConversationInfo(String chatGuid) {
     return measuredOperation(
         "get_conversation_info",
         () -> {
@@ -825,10 +915,7 @@ public class BBHttpClientWrapper {
         });
   }
 
-  public JsonNode getConversationInfoJson(String chatGuid) {
-    if (StringUtils.isBlank(chatGuid)) {
-      return null;
-    }
+  private JsonNode fetchConversationInfoJson(String chatGuid) {
     return measuredOperation(
         "get_conversation_info_json",
         () -> {
@@ -846,6 +933,14 @@ public class BBHttpClientWrapper {
         });
   }
 
+  /**
+   * Drops cached metadata for {@code chatGuid} after it was renamed, given a new icon or had its
+   * participants change.
+   */
+  public void invalidateConversationInfo(String chatGuid, String reason) {
+    chatMetadataCache.invalidate(chatGuid, reason);
+  }
+
   public boolean renameConversation(String chatGuid, String displayName) {
     if (StringUtils.isBlank(chatGuid)) {
       return false;
@@ -861,6 +956,7 @@ public class BBHttpClientWrapper {
                   .block(apiTimeout);
           result = requirePresent(result, "rename conversation");
           requireSuccessfulResponse(result.getStatus(), result.getMessage(), "rename conversation");
+          chatMetadataCache.invalidate(chatGuid, "rename");
           return true;
         });
   }
@@ -898,6 +994,7 @@ public class BBHttpClientWrapper {
               .bodyToMono(JsonNode.class)
               .block(apiTimeout);
       log.debug("Set conversation icon response: {}", response);
+      chatMetadataCache.invalidate(chatGuid, "icon");
       recordOperationMetric("set_conversation_icon", true, null, startedNanos);
       return true;
     } catch (Exception e) {
@@ -931,7 +1028,12 @@ public class BBHttpClientWrapper {
     long overallStartedNanos = System.nanoTime();
     boolean success = false;
     String failureType = "not_confirmed";
-    try {
+    try (BlueBubblesSendConfirmations.PendingSend pending =
+        sendConfirmations.register(
+            request.getTempGuid(),
+            List.of(confirmationChatGuid, request.getChatGuid()),
+            request.getMessage(),
+            firstAttemptStartedAt)) {
       for (int attempt = 1; attempt <= DIRECT_SEND_MAX_ATTEMPTS; attempt++) {
         if (!warmUpDirectSendPath(request, attempt)) {
           failureType = "warmup_failed";
@@ -947,10 +1049,17 @@ public class BBHttpClientWrapper {
             DIRECT_SEND_MAX_ATTEMPTS,
             apiTimeout,
             request);
+        long submittedNanos = System.nanoTime();
         submitDirectTextMessage(request, attempt, overallStartedNanos);
         DirectSendConfirmation confirmation =
             confirmDirectTextSend(
-                request, confirmationChatGuid, firstAttemptStartedAt, attempt, overallStartedNanos);
+                request,
+                confirmationChatGuid,
+                pending,
+                firstAttemptStartedAt,
+                attempt,
+                submittedNanos,
+                overallStartedNanos);
         if (confirmation == DirectSendConfirmation.CONFIRMED) {
           success = true;
           return true;
@@ -1072,11 +1181,17 @@ public class BBHttpClientWrapper {
     }
   }
 
+  /**
+   * Waits for the webhook echo of the send and, if it does not arrive within the confirmation
+   * delay, falls back to looking for the message in chat history.
+   */
   private DirectSendConfirmation confirmDirectTextSend(
       ApiV1MessageTextPostRequest request,
       String confirmationChatGuid,
+      BlueBubblesSendConfirmations.PendingSend pending,
       Instant firstAttemptStartedAt,
       int attempt,
+      long submittedNanos,
       long overallStartedNanos) {
     long startedNanos = System.nanoTime();
     boolean success = false;
@@ -1087,10 +1202,22 @@ public class BBHttpClientWrapper {
       for (int confirmationAttempt = 1;
           confirmationAttempt <= DIRECT_SEND_CONFIRMATION_ATTEMPTS;
           confirmationAttempt++) {
-        if (!waitBeforeDirectSendConfirmation(request, attempt)) {
+        DirectSendEcho echo = awaitDirectSendEcho(request, pending, attempt);
+        if (echo == DirectSendEcho.INTERRUPTED) {
           failureType = "interrupted";
           return DirectSendConfirmation.UNAVAILABLE;
         }
+        if (echo == DirectSendEcho.ECHOED) {
+          success = true;
+          log.info(
+              "Confirmed BlueBubbles direct text send from webhook echo chatGuid={} tempGuid={} attempt={} elapsedMs={}",
+              request.getChatGuid(),
+              request.getTempGuid(),
+              attempt,
+              elapsedMillis(overallStartedNanos));
+          recordDirectSendConfirmation("webhook", submittedNanos);
+          return DirectSendConfirmation.CONFIRMED;
+        }
         try {
           List<ApiV1ChatChatGuidMessageGet200ResponseDataInner> messages =
               getMessagesInChat(historyChatGuid);
@@ -1101,6 +1228,7 @@ public class BBHttpClientWrapper {
                           message -> isMatchingSentText(message, request, firstAttemptStartedAt));
           if (confirmed) {
             success = true;
+            recordDirectSendConfirmation("history", submittedNanos);
             log.info(
                 "Confirmed BlueBubbles direct text send in chat history chatGuid={} historyChatGuid={} tempGuid={} attempt={} confirmationAttempt={} elapsedMs={}",
                 request.getChatGuid(),
@@ -1111,6 +1239,12 @@ public class BBHttpClientWrapper {
                 elapsedMillis(overallStartedNanos));
             return DirectSendConfirmation.CONFIRMED;
           }
+          if (pending.echoedAt().isPresent()) {
+            // The echo arrived while history was being read; do not resend.
+            success = true;
+            recordDirectSendConfirmation("webhook", submittedNanos);
+            return DirectSendConfirmation.CONFIRMED;
+          }
           failureType = "not_found";
           log.warn(
               "BlueBubbles direct text send not found in chat history chatGuid={} historyChatGuid={} tempGuid={} attempt={} confirmationAttempt={} elapsedMs={}",
@@ -1145,15 +1279,14 @@ public class BBHttpClientWrapper {
     }
   }
 
-  private boolean waitBeforeDirectSendConfirmation(
-      ApiV1MessageTextPostRequest request, int attempt) {
-    Duration delay = directSendConfirmationDelay();
-    if (delay == null || delay.isZero() || delay.isNegative()) {
-      return true;
-    }
+  private DirectSendEcho awaitDirectSendEcho(
+      ApiV1MessageTextPostRequest request,
+      BlueBubblesSendConfirmations.PendingSend pending,
+      int attempt) {
     try {
-      Thread.sleep(delay.toMillis());
-      return true;
+      return pending.await(directSendConfirmationDelay())
+          ? DirectSendEcho.ECHOED
+          : DirectSendEcho.NOT_ECHOED;
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       log.warn(
@@ -1161,7 +1294,27 @@ public class BBHttpClientWrapper {
           request.getChatGuid(),
           request.getTempGuid(),
           attempt);
-      return false;
+      return DirectSendEcho.INTERRUPTED;
+    }
+  }
+
+  /**
+   * Confirms a pending direct text send from the {@code fromMe} message webhook that echoes it.
+   *
+   * @return whether a pending send was confirmed
+   */
+  public boolean observeSentMessageEcho(
+      @Nullable String tempGuid,
+      @Nullable String chatGuid,
+      @Nullable String text,
+      @Nullable Instant createdAt) {
+    return sendConfirmations.observeEcho(tempGuid, chatGuid, text, createdAt);
+  }
+
+  private void recordDirectSendConfirmation(String source, long submittedNanos) {
+    if (operationalMetricsService != null) {
+      operationalMetricsService.recordDirectSendConfirmation(
+          source, Duration.ofNanos(System.nanoTime() - submittedNanos));
     }
   }
 
@@ -0,0 +1,149 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * Short-lived cache of BlueBubbles chat metadata (participants, display name, group flag), keyed
+ * by chat guid and the response view that was requested. Concurrent lookups of the same chat share
+ * a single BlueBubbles call.
+ *
+ * <p>Entries expire after {@code ttl}, and {@link #invalidate} drops a chat as soon as something is
+ * known to have changed it: a rename, icon or participant webhook, or one of our own rename or
+ * icon calls. A load that is still running when its chat is invalidated is not cached.
+ */
+public final class BlueBubblesChatMetadataCache {
+  private final Map<Key, Cached> values = new ConcurrentHashMap<>();
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Clock clock;
+  private final Duration ttl;
+  private final int maxEntries;
+  private final @Nullable OperationalMetricsService metrics;
+
+  public BlueBubblesChatMetadataCache(
+      Clock clock, Duration ttl, int maxEntries, @Nullable OperationalMetricsService metrics) {
+    if (ttl.isNegative() || maxEntries <= 0) {
+      throw new IllegalArgumentException(
+          "chat metadata cache needs a non-negative ttl and a positive size");
+    }
+    this.clock = clock;
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the cached {@code view} of {@code chatGuid}, calling {@code loader} on a miss. A null
+   * result is returned but not cached; a failed load is rethrown to every caller sharing it.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String chatGuid, String view, Supplier<T> loader) {
+    Key key = new Key(chatGuid, view);
+    Cached cached = values.get(key);
+    if (cached != null && clock.instant().isBefore(cached.expiresAt())) {
+      recordLookup(view, "hit");
+      return (T) cached.value();
+    }
+    CompletableFuture<Object> load = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, load);
+    if (existing != null) {
+      recordLookup(view, "coalesced");
+      return (T) join(existing);
+    }
+    recordLookup(view, "miss");
+    try {
+      T value = loader.get();
+      store(key, load, value);
+      load.complete(value);
+    } catch (RuntimeException e) {
+      inFlight.remove(key, load);
+      load.completeExceptionally(e);
+    }
+    return (T) join(load);
+  }
+
+  /** Drops every cached view of {@code chatGuid}. */
+  public synchronized void invalidate(String chatGuid, String reason) {
+    if (StringUtils.isBlank(chatGuid)) {
+      return;
+    }
+    values.keySet().removeIf(key -> key.chatGuid().equals(chatGuid));
+    inFlight.keySet().removeIf(key -> key.chatGuid().equals(chatGuid));
+    if (metrics != null) {
+      metrics.recordChatMetadataCacheInvalidation(reason);
+    }
+    updateSizeGauge();
+  }
+
+  int size() {
+    return values.size();
+  }
+
+  private synchronized void store(Key key, CompletableFuture<Object> load, @Nullable Object value) {
+    // Invalidation removes the in-flight load, so a load that raced a change is not cached.
+    if (!inFlight.remove(key, load) || value == null) {
+      return;
+    }
+    Instant now = clock.instant();
+    values.put(key, new Cached(value, now.plus(ttl)));
+    if (values.size() > maxEntries) {
+      evictOverflow(now);
+    }
+    updateSizeGauge();
+  }
+
+  private void evictOverflow(Instant now) {
+    values.values().removeIf(cached -> !now.isBefore(cached.expiresAt()));
+    if (values.size() <= maxEntries) {
+      return;
+    }
+    List<Map.Entry<Key, Cached>> oldestFirst =
+        values.entrySet().stream()
+            .sorted(Comparator.comparing(entry -> entry.getValue().expiresAt()))
+            .toList();
+    for (Map.Entry<Key, Cached> entry : oldestFirst) {
+      if (values.size() <= maxEntries) {
+        break;
+      }
+      values.remove(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void recordLookup(String view, String result) {
+    if (metrics != null) {
+      metrics.recordChatMetadataCacheLookup(view, result);
+    }
+  }
+
+  private void updateSizeGauge() {
+    if (metrics != null) {
+      metrics.updateChatMetadataCacheSize(values.size());
+    }
+  }
+
+  private static Object join(CompletableFuture<Object> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  private record Key(String chatGuid, String view) {}
+
+  private record Cached(Object value, Instant expiresAt) {}
+}
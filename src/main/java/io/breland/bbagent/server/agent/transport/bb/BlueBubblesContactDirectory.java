@@ -0,0 +1,226 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.account.AgentAccountIdentifiers;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+/**
+ * In-memory copy of the BlueBubbles contact book, indexed by normalized phone number and email so
+ * a sender resolves with one map lookup instead of a download and scan of every contact.
+ *
+ * <p>The first lookup loads the book; afterwards it is refreshed in the background. A refresh that
+ * returns the same contacts (by content hash) keeps the existing snapshot, so callers keep sharing
+ * the same {@link BlueBubblesContactIdentity} instances. A lookup that misses reloads the book at
+ * most once per {@code missRefreshInterval} so a newly added contact is picked up without waiting
+ * for the next refresh. A failed refresh keeps serving the previous snapshot.
+ */
+@Slf4j
+public final class BlueBubblesContactDirectory {
+  private final Function<Duration, List<BlueBubblesContactIdentity>> loader;
+  private final Clock clock;
+  private final Duration missRefreshInterval;
+  private final @Nullable OperationalMetricsService metrics;
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private volatile @Nullable Snapshot snapshot;
+
+  public BlueBubblesContactDirectory(
+      Function<Duration, List<BlueBubblesContactIdentity>> loader,
+      Clock clock,
+      Duration missRefreshInterval,
+      @Nullable OperationalMetricsService metrics) {
+    this.loader = loader;
+    this.clock = clock;
+    this.missRefreshInterval = missRefreshInterval;
+    this.metrics = metrics;
+  }
+
+  /** Every address of every contact that lists {@code address}, in contact book order. */
+  public List<String> addressesFor(String address, Duration timeout) {
+    Optional<String> key = key(address);
+    if (key.isEmpty()) {
+      return List.of();
+    }
+    long startedNanos = System.nanoTime();
+    Snapshot current = current(timeout);
+    List<BlueBubblesContactIdentity> matches = current.byAddress().get(key.get());
+    if (matches == null && refreshAfterMiss(current, timeout)) {
+      matches = snapshot.byAddress().get(key.get());
+    }
+    recordLookup(matches != null, startedNanos);
+    if (matches == null) {
+      return List.of();
+    }
+    LinkedHashSet<String> addresses = new LinkedHashSet<>();
+    matches.forEach(contact -> addresses.addAll(contact.addresses()));
+    return List.copyOf(addresses);
+  }
+
+  /** Every contact with at least one address. */
+  public List<BlueBubblesContactIdentity> contacts(Duration timeout) {
+    return current(timeout).contacts();
+  }
+
+  /**
+   * Reloads the contact book.
+   *
+   * @return whether the contacts changed
+   */
+  public boolean refresh(Duration timeout) {
+    refreshLock.lock();
+    try {
+      return load(timeout);
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  private Snapshot current(Duration timeout) {
+    Snapshot current = snapshot;
+    if (current != null) {
+      return current;
+    }
+    refreshLock.lock();
+    try {
+      if (snapshot == null) {
+        load(timeout);
+      }
+      return snapshot;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private boolean refreshAfterMiss(Snapshot missed, Duration timeout) {
+    if (clock.instant().isBefore(missed.loadedAt().plus(missRefreshInterval))) {
+      return false;
+    }
+    if (!refreshLock.tryLock()) {
+      return false;
+    }
+    try {
+      if (snapshot != missed) {
+        return true;
+      }
+      return load(timeout);
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh BlueBubbles contacts after a lookup miss", e);
+      return false;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /** Caller holds {@link #refreshLock}. */
+  private boolean load(Duration timeout) {
+    long startedNanos = System.nanoTime();
+    boolean success = false;
+    boolean changed = false;
+    int contactCount = 0;
+    try {
+      List<BlueBubblesContactIdentity> contacts =
+          loader.apply(timeout).stream().filter(contact -> !contact.addresses().isEmpty()).toList();
+      contactCount = contacts.size();
+      Snapshot previous = snapshot;
+      String contentHash = contentHash(contacts);
+      Instant loadedAt = clock.instant();
+      if (previous != null && previous.contentHash().equals(contentHash)) {
+        snapshot = previous.reloadedAt(loadedAt);
+      } else {
+        snapshot = Snapshot.of(contacts, contentHash, loadedAt);
+        changed = true;
+      }
+      success = true;
+      return changed;
+    } finally {
+      recordRefresh(success, changed, contactCount, startedNanos);
+    }
+  }
+
+  static Optional<String> key(String address) {
+    return AgentAccountIdentifiers.normalizeMessageIdentity(
+            IncomingMessage.TRANSPORT_BLUEBUBBLES, address)
+        .map(identifier -> identifier.type() + ":" + identifier.value());
+  }
+
+  static String contentHash(List<BlueBubblesContactIdentity> contacts) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (BlueBubblesContactIdentity contact : contacts) {
+        digest.update(contact.displayName().getBytes(StandardCharsets.UTF_8));
+        for (String address : contact.addresses()) {
+          digest.update((byte) 0);
+          digest.update(address.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) '\n');
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  private void recordLookup(boolean hit, long startedNanos) {
+    if (metrics != null) {
+      metrics.recordContactDirectoryLookup(hit, Duration.ofNanos(System.nanoTime() - startedNanos));
+    }
+  }
+
+  private void recordRefresh(boolean success, boolean changed, int contacts, long startedNanos) {
+    if (metrics != null) {
+      metrics.recordContactDirectoryRefresh(
+          success, changed, contacts, Duration.ofNanos(System.nanoTime() - startedNanos));
+    }
+  }
+
+  private record Snapshot(
+      List<BlueBubblesContactIdentity> contacts,
+      Map<String, List<BlueBubblesContactIdentity>> byAddress,
+      String contentHash,
+      Instant loadedAt) {
+
+    static Snapshot of(
+        List<BlueBubblesContactIdentity> contacts, String contentHash, Instant loadedAt) {
+      Map<String, List<BlueBubblesContactIdentity>> byAddress = new HashMap<>();
+      for (BlueBubblesContactIdentity contact : contacts) {
+        for (String address : contact.addresses()) {
+          key(address)
+              .ifPresent(
+                  key -> {
+                    List<BlueBubblesContactIdentity> matches =
+                        byAddress.computeIfAbsent(key, ignored -> new ArrayList<>(1));
+                    if (!matches.contains(contact)) {
+                      matches.add(contact);
+                    }
+                  });
+        }
+      }
+      byAddress.replaceAll((key, matches) -> List.copyOf(matches));
+      return new Snapshot(List.copyOf(contacts), Map.copyOf(byAddress), contentHash, loadedAt);
+    }
+
+    Snapshot reloadedAt(Instant reloadedAt) {
+      return new Snapshot(contacts, byAddress, contentHash, reloadedAt);
+    }
+  }
+}
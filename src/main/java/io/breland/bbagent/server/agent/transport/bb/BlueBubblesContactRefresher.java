@@ -0,0 +1,37 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Keeps the BlueBubbles contact directory current between lookups. */
+@Slf4j
+@Component
+public class BlueBubblesContactRefresher {
+  private final BBHttpClientWrapper bbHttpClientWrapper;
+  private final boolean enabled;
+
+  public BlueBubblesContactRefresher(
+      BBHttpClientWrapper bbHttpClientWrapper,
+      @Value("${bluebubbles.contacts.refresh-enabled:true}") boolean enabled) {
+    this.bbHttpClientWrapper = bbHttpClientWrapper;
+    this.enabled = enabled;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bluebubbles.contacts.refresh-interval:PT5M}",
+      initialDelayString = "${bluebubbles.contacts.refresh-initial-delay:PT30S}")
+  public void refresh() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      if (bbHttpClientWrapper.refreshContactDirectory()) {
+        log.debug("BlueBubbles contact directory changed");
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to refresh BlueBubbles contact directory", e);
+    }
+  }
+}
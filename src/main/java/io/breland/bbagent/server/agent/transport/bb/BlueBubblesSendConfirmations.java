@@ -0,0 +1,180 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * Direct text sends waiting for BlueBubbles to echo them back through the {@code fromMe} message
+ * webhook. A send registers before it is submitted; the webhook completes it by temp guid, or by
+ * chat and text when the echo carries no temp guid, so the sender learns of delivery as soon as
+ * the echo arrives instead of sleeping and then reading chat history.
+ *
+ * <p>Chats are matched without their service prefix, because a send addressed to {@code
+ * any;-;handle} echoes back as {@code iMessage;-;handle} or {@code SMS;-;handle}.
+ */
+public final class BlueBubblesSendConfirmations {
+  private final Map<String, PendingSend> byTempGuid = new ConcurrentHashMap<>();
+  private final Map<ContentKey, Set<PendingSend>> byContent = new ConcurrentHashMap<>();
+  private final Clock clock;
+  private final Duration matchWindowSkew;
+
+  public BlueBubblesSendConfirmations(Clock clock, Duration matchWindowSkew) {
+    this.clock = clock;
+    this.matchWindowSkew = matchWindowSkew;
+  }
+
+  /**
+   * Registers a send. Echoes created more than the match window skew before {@code startedAt} are
+   * not matched by content. Close the returned handle once the send is settled.
+   */
+  public PendingSend register(
+      @Nullable String tempGuid, Collection<String> chatGuids, String text, Instant startedAt) {
+    Set<ContentKey> contentKeys = new LinkedHashSet<>();
+    for (String chatGuid : chatGuids) {
+      if (StringUtils.isNotBlank(chatGuid)) {
+        contentKeys.add(new ContentKey(chatKey(chatGuid), textHash(text)));
+      }
+    }
+    PendingSend pending =
+        new PendingSend(
+            StringUtils.trimToNull(tempGuid),
+            Set.copyOf(contentKeys),
+            startedAt.minus(matchWindowSkew),
+            clock.instant());
+    if (pending.tempGuid != null) {
+      byTempGuid.put(pending.tempGuid, pending);
+    }
+    for (ContentKey key : pending.contentKeys) {
+      byContent.computeIfAbsent(key, ignored -> ConcurrentHashMap.newKeySet()).add(pending);
+    }
+    return pending;
+  }
+
+  /**
+   * Completes the pending send this {@code fromMe} message echoes, if any.
+   *
+   * @return whether a pending send was confirmed
+   */
+  public boolean observeEcho(
+      @Nullable String tempGuid,
+      @Nullable String chatGuid,
+      @Nullable String text,
+      @Nullable Instant createdAt) {
+    if (StringUtils.isNotBlank(tempGuid)) {
+      PendingSend pending = byTempGuid.get(tempGuid.trim());
+      if (pending != null) {
+        return pending.confirm(clock.instant());
+      }
+    }
+    if (StringUtils.isBlank(chatGuid) || text == null) {
+      return false;
+    }
+    Set<PendingSend> candidates = byContent.get(new ContentKey(chatKey(chatGuid), textHash(text)));
+    if (candidates == null) {
+      return false;
+    }
+    Instant now = clock.instant();
+    return candidates.stream()
+        .filter(pending -> !pending.echo.isDone())
+        .filter(pending -> createdAt == null || !createdAt.isBefore(pending.notBefore))
+        .min(Comparator.comparing((PendingSend pending) -> pending.registeredAt))
+        .map(pending -> pending.confirm(now))
+        .orElse(false);
+  }
+
+  static String chatKey(String chatGuid) {
+    String trimmed = chatGuid.trim();
+    int separator = trimmed.indexOf(';');
+    return separator < 0 ? trimmed : trimmed.substring(separator + 1);
+  }
+
+  static String textHash(String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  /** One registered send. */
+  public final class PendingSend implements AutoCloseable {
+    private final @Nullable String tempGuid;
+    private final Set<ContentKey> contentKeys;
+    private final Instant notBefore;
+    private final Instant registeredAt;
+    private final CompletableFuture<Instant> echo = new CompletableFuture<>();
+
+    private PendingSend(
+        @Nullable String tempGuid,
+        Set<ContentKey> contentKeys,
+        Instant notBefore,
+        Instant registeredAt) {
+      this.tempGuid = tempGuid;
+      this.contentKeys = contentKeys;
+      this.notBefore = notBefore;
+      this.registeredAt = registeredAt;
+    }
+
+    /**
+     * Waits up to {@code timeout} for the echo; returns immediately if it already arrived.
+     *
+     * @return whether the send was echoed
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+      if (echo.isDone() || timeout == null || timeout.isZero() || timeout.isNegative()) {
+        return echo.isDone();
+      }
+      try {
+        echo.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return true;
+      } catch (TimeoutException | ExecutionException e) {
+        return false;
+      }
+    }
+
+    /** When the echo was observed, if it has been. */
+    public Optional<Instant> echoedAt() {
+      return Optional.ofNullable(echo.getNow(null));
+    }
+
+    @Override
+    public void close() {
+      if (tempGuid != null) {
+        byTempGuid.remove(tempGuid, this);
+      }
+      for (ContentKey key : contentKeys) {
+        byContent.computeIfPresent(
+            key,
+            (ignored, pending) -> {
+              pending.remove(this);
+              return pending.isEmpty() ? null : pending;
+            });
+      }
+    }
+
+    private boolean confirm(Instant observedAt) {
+      return echo.complete(observedAt);
+    }
+  }
+
+  private record ContentKey(String chatKey, String textHash) {}
+}
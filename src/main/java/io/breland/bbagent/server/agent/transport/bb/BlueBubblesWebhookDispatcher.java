@@ -0,0 +1,276 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequest;
+import io.breland.bbagent.server.ExecutorSupport;
+import io.breland.bbagent.server.agent.persistence.BlueBubblesWebhookInboxStore;
+import io.breland.bbagent.server.agent.persistence.BlueBubblesWebhookInboxStore.InboxClaim;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.openapitools.jackson.nullable.JsonNullableModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves BlueBubbles webhook processing off the request thread. {@link #accept} persists the event
+ * to {@link BlueBubblesWebhookInboxStore} and returns; the dispatcher then claims inbox entries and
+ * runs {@link BlueBubblesWebhookProcessor} on a bounded pool of virtual threads. The inbox only
+ * hands out the oldest entry of each chat, so a chat's events run in arrival order while other
+ * chats proceed concurrently.
+ *
+ * <p>Failed entries are retried with backoff up to {@code max-attempts}. If the inbox cannot be
+ * written, or the inbox is disabled, the event is processed inline as before.
+ */
+@Slf4j
+@Service
+public class BlueBubblesWebhookDispatcher {
+  private static final Duration INITIAL_RETRY_DELAY = Duration.ofSeconds(5);
+  private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+
+  private final @Nullable BlueBubblesWebhookInboxStore store;
+  private final BlueBubblesWebhookProcessor processor;
+  private final @Nullable OperationalMetricsService metrics;
+  private final Clock clock;
+  private final String workerId;
+  private final boolean enabled;
+  private final Executor executor;
+  private final int maxOutstanding;
+  private final int maxAttempts;
+  private final ObjectMapper objectMapper;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+  @Autowired
+  public BlueBubblesWebhookDispatcher(
+      BlueBubblesWebhookInboxStore store,
+      BlueBubblesWebhookProcessor processor,
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.bluebubbles.webhook-inbox.enabled:true}") boolean enabled,
+      @Value("${bbagent.bluebubbles.webhook-inbox.concurrency:8}") int concurrency,
+      @Value("${bbagent.bluebubbles.webhook-inbox.max-attempts:5}") int maxAttempts) {
+    this(
+        store,
+        processor,
+        metrics,
+        Clock.systemUTC(),
+        UUID.randomUUID().toString(),
+        enabled,
+        enabled
+            ? ExecutorSupport.virtualThreadPool("bluebubbles-webhook-", concurrency)
+            : Runnable::run,
+        concurrency,
+        maxAttempts);
+  }
+
+  BlueBubblesWebhookDispatcher(
+      @Nullable BlueBubblesWebhookInboxStore store,
+      BlueBubblesWebhookProcessor processor,
+      @Nullable OperationalMetricsService metrics,
+      Clock clock,
+      String workerId,
+      boolean enabled,
+      Executor executor,
+      int concurrency,
+      int maxAttempts) {
+    if (concurrency <= 0 || maxAttempts <= 0) {
+      throw new IllegalArgumentException(
+          "webhook inbox concurrency and max attempts must be positive");
+    }
+    this.store = store;
+    this.processor = processor;
+    this.metrics = metrics;
+    this.clock = clock;
+    this.workerId = workerId;
+    this.enabled = enabled && store != null;
+    this.executor = executor;
+    this.maxOutstanding = concurrency * 2;
+    this.maxAttempts = maxAttempts;
+    this.objectMapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new JsonNullableModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  /** Processes webhooks on the calling thread; for callers without an inbox. */
+  public static BlueBubblesWebhookDispatcher inline(BlueBubblesWebhookProcessor processor) {
+    return new BlueBubblesWebhookDispatcher(
+        null, processor, null, Clock.systemUTC(), "inline", false, Runnable::run, 1, 1);
+  }
+
+  /** Persists a message webhook for asynchronous processing. */
+  public void accept(BlueBubblesMessageReceivedRequest request) {
+    processor.observeSentMessageEcho(request.getData());
+    if (!enabled) {
+      processor.process(request.getData());
+      return;
+    }
+    Instant receivedAt = clock.instant();
+    try {
+      store.enqueue(
+          BlueBubblesWebhookProcessor.chatGuid(request.getData()),
+          String.valueOf(request.getType()),
+          request.getData() == null ? null : request.getData().getGuid(),
+          objectMapper.writeValueAsString(request),
+          receivedAt);
+      recordEnqueue(true, receivedAt);
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.warn("Failed to persist BlueBubbles webhook; processing inline", e);
+      recordEnqueue(false, receivedAt);
+      processor.process(request.getData());
+      return;
+    }
+    requestDrain();
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bbagent.bluebubbles.webhook-inbox.poll-interval:PT5S}",
+      initialDelayString = "${bbagent.bluebubbles.webhook-inbox.initial-delay:PT5S}")
+  public void drainInbox() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      int capacity = maxOutstanding - outstanding.get();
+      if (capacity > 0) {
+        Instant now = clock.instant();
+        for (InboxClaim claim : store.claimDue(workerId, now, capacity)) {
+          dispatch(claim, now);
+        }
+      }
+      updateGauges(store.countPending());
+    } catch (RuntimeException e) {
+      log.warn("Failed to drain BlueBubbles webhook inbox", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ExecutorSupport.shutdown(executor, Duration.ofSeconds(30));
+  }
+
+  /**
+   * Runs a drain pass soon instead of waiting for the next poll. Requests that arrive while one is
+   * pending collapse into it.
+   */
+  private void requestDrain() {
+    if (!drainRequested.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(
+          () -> {
+            drainRequested.set(false);
+            drainInbox();
+          });
+    } catch (RejectedExecutionException e) {
+      drainRequested.set(false);
+    }
+  }
+
+  private void dispatch(InboxClaim claim, Instant claimedAt) {
+    outstanding.incrementAndGet();
+    try {
+      executor.execute(() -> run(claim, claimedAt));
+    } catch (RejectedExecutionException e) {
+      // The lease expires and the entry is claimed again.
+      log.warn("Webhook dispatcher rejected inbox entry {}", claim.inboxId());
+      outstanding.decrementAndGet();
+    }
+  }
+
+  private void run(InboxClaim claim, Instant claimedAt) {
+    inFlight.incrementAndGet();
+    recordDispatch(claim, claimedAt);
+    Instant startedAt = clock.instant();
+    String outcome = "processed";
+    try {
+      BlueBubblesMessageReceivedRequest request =
+          objectMapper.readValue(claim.payload(), BlueBubblesMessageReceivedRequest.class);
+      processor.process(request.getData());
+      store.complete(claim);
+    } catch (JsonProcessingException e) {
+      log.warn("Discarding unreadable BlueBubbles webhook {}", claim.inboxId(), e);
+      outcome = "unreadable";
+      store.complete(claim);
+    } catch (RuntimeException e) {
+      outcome = fail(claim, e);
+    } finally {
+      inFlight.decrementAndGet();
+      outstanding.decrementAndGet();
+      recordProcessed(outcome, Duration.between(startedAt, clock.instant()));
+    }
+    // The chat's next entry, if any, became claimable.
+    requestDrain();
+  }
+
+  private String fail(InboxClaim claim, RuntimeException error) {
+    String failureType = OperationalMetricsService.failureType(error);
+    try {
+      if (claim.attemptCount() >= maxAttempts) {
+        log.error(
+            "Giving up on BlueBubbles webhook {} after {} attempts",
+            claim.inboxId(),
+            claim.attemptCount(),
+            error);
+        store.complete(claim);
+        return "abandoned";
+      }
+      log.warn("BlueBubbles webhook {} failed; retrying", claim.inboxId(), error);
+      Instant failedAt = clock.instant();
+      store.retryLater(
+          claim, failedAt.plus(retryDelay(claim.attemptCount())), failureType, failedAt);
+      return "retry";
+    } catch (RuntimeException e) {
+      log.warn("Failed to release BlueBubbles webhook {}", claim.inboxId(), e);
+      return "retry";
+    }
+  }
+
+  static Duration retryDelay(int attemptCount) {
+    int doublings = Math.min(Math.max(0, attemptCount - 1), 16);
+    Duration delay = INITIAL_RETRY_DELAY.multipliedBy(1L << doublings);
+    return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+  }
+
+  private void recordEnqueue(boolean success, Instant receivedAt) {
+    if (metrics != null) {
+      metrics.recordWebhookInboxEnqueue(success, Duration.between(receivedAt, clock.instant()));
+    }
+  }
+
+  private void recordDispatch(InboxClaim claim, Instant claimedAt) {
+    if (metrics != null) {
+      metrics.recordWebhookInboxDispatch(
+          claim.attemptCount() > 1, Duration.between(claim.receivedAt(), claimedAt));
+    }
+  }
+
+  private void recordProcessed(String outcome, Duration duration) {
+    if (metrics != null) {
+      metrics.recordWebhookInboxProcessed(outcome, duration);
+    }
+  }
+
+  private void updateGauges(long depth) {
+    if (metrics != null) {
+      metrics.updateWebhookInbox(depth, inFlight.get());
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestData;
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestDataAttachmentsInner;
+import io.breland.bbagent.server.TimeSupport;
+import io.breland.bbagent.server.agent.BBMessageAgent;
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.cadence.models.IncomingAttachment;
+import io.breland.bbagent.server.controllers.BluebubblesWebhookController;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a BlueBubbles message webhook into an {@link IncomingMessage} and hands it to the agent.
+ * Resolving whether the chat is a group needs a BlueBubbles round trip, so this runs off the
+ * webhook request thread when the inbox is enabled.
+ */
+@Slf4j
+@Component
+public class BlueBubblesWebhookProcessor {
+  // iMessage item types for group events: participant joined or left, renamed, icon changed.
+  private static final int ITEM_TYPE_PARTICIPANT_CHANGE = 1;
+  private static final int ITEM_TYPE_GROUP_RENAME = 2;
+  private static final int ITEM_TYPE_GROUP_ICON_CHANGE = 3;
+
+  private final BBMessageAgent messageAgent;
+  private final BBHttpClientWrapper bbHttpClientWrapper;
+
+  public BlueBubblesWebhookProcessor(
+      BBMessageAgent messageAgent, BBHttpClientWrapper bbHttpClientWrapper) {
+    this.messageAgent = messageAgent;
+    this.bbHttpClientWrapper = bbHttpClientWrapper;
+  }
+
+  public void process(BlueBubblesMessageReceivedRequestData data) {
+    IncomingMessage message = parseWebhookMessage(data);
+    if (message != null) {
+      messageAgent.handleIncomingMessage(message);
+    }
+  }
+
+  /**
+   * Confirms a pending direct send from its {@code fromMe} echo. Called on the webhook request
+   * thread, ahead of the inbox, so a sender waiting on the echo is not queued behind the chat's
+   * other events.
+   */
+  public void observeSentMessageEcho(BlueBubblesMessageReceivedRequestData data) {
+    if (data == null || !Boolean.TRUE.equals(data.getIsFromMe())) {
+      return;
+    }
+    try {
+      bbHttpClientWrapper.observeSentMessageEcho(
+          data.getTempGuid(),
+          chatGuid(data),
+          data.getText(),
+          TimeSupport.epochSecondsOrMillis(data.getDateCreated()));
+    } catch (RuntimeException e) {
+      log.debug("Failed to match BlueBubbles send echo {}", data.getGuid(), e);
+    }
+  }
+
+  private IncomingMessage parseWebhookMessage(BlueBubblesMessageReceivedRequestData data) {
+    if (data == null) {
+      return null;
+    }
+    String messageGuid = data.getGuid();
+    String threadOriginatorGuid = data.getThreadOriginatorGuid();
+    String text = data.getText();
+    Boolean fromMe = data.getIsFromMe();
+    String service = data.getHandle() == null ? null : data.getHandle().getService();
+    String sender = data.getHandle() == null ? null : data.getHandle().getAddress();
+    Instant timestamp = TimeSupport.epochSecondsOrMillisOrNow(data.getDateCreated());
+    List<IncomingAttachment> attachments = parseAttachments(data.getAttachments());
+    String chatGuid = chatGuid(data);
+    invalidateChangedChatMetadata(data, chatGuid);
+    boolean isGroup = resolveIsGroup(data, chatGuid);
+    // BlueBubbles does not currently provide a reliable system-message signal here.
+    boolean isSystem = false;
+
+    return new IncomingMessage(
+        IncomingMessage.TRANSPORT_BLUEBUBBLES,
+        chatGuid,
+        messageGuid,
+        threadOriginatorGuid,
+        text,
+        fromMe,
+        service,
+        sender,
+        isGroup,
+        timestamp,
+        attachments,
+        data.getBalloonBundleId(),
+        data.getAssociatedMessageGuid(),
+        data.getReplyToGuid(),
+        isSystem);
+  }
+
+  public static String chatGuid(BlueBubblesMessageReceivedRequestData data) {
+    if (data == null || data.getChats() == null || data.getChats().isEmpty()) {
+      return null;
+    }
+    return data.getChats().getFirst().getGuid();
+  }
+
+  private void invalidateChangedChatMetadata(
+      BlueBubblesMessageReceivedRequestData data, String chatGuid) {
+    String reason = groupChangeReason(data.getItemType());
+    if (reason != null && chatGuid != null) {
+      bbHttpClientWrapper.invalidateConversationInfo(chatGuid, reason);
+    }
+  }
+
+  static String groupChangeReason(Integer itemType) {
+    if (itemType == null) {
+      return null;
+    }
+    return switch (itemType) {
+      case ITEM_TYPE_PARTICIPANT_CHANGE -> "participants";
+      case ITEM_TYPE_GROUP_RENAME -> "rename";
+      case ITEM_TYPE_GROUP_ICON_CHANGE -> "icon";
+      default -> null;
+    };
+  }
+
+  private boolean resolveIsGroup(BlueBubblesMessageReceivedRequestData data, String chatGuid) {
+    Optional<Boolean> participantResult = resolveIsGroupFromConversationInfo(chatGuid);
+    return participantResult.orElseGet(() -> BluebubblesWebhookController.resolveIsGroup(data));
+  }
+
+  private Optional<Boolean> resolveIsGroupFromConversationInfo(String chatGuid) {
+    if (chatGuid == null || chatGuid.isBlank()) {
+      return Optional.empty();
+    }
+    try {
+      return BluebubblesWebhookController.resolveIsGroup(
+          bbHttpClientWrapper.getConversationInfo(chatGuid));
+    } catch (Exception e) {
+      log.warn("Failed to resolve BlueBubbles chat participants for {}", chatGuid, e);
+      return Optional.empty();
+    }
+  }
+
+  private List<IncomingAttachment> parseAttachments(
+      List<BlueBubblesMessageReceivedRequestDataAttachmentsInner> attachmentsNode) {
+    if (attachmentsNode == null) {
+      return List.of();
+    }
+    List<IncomingAttachment> attachments = new ArrayList<>();
+    for (BlueBubblesMessageReceivedRequestDataAttachmentsInner attachmentNode : attachmentsNode) {
+      String guid = attachmentNode.getGuid();
+      String mimeType = attachmentNode.getMimeType();
+      String filename = attachmentNode.getTransferName();
+      attachments.add(new IncomingAttachment(guid, mimeType, filename, null, null, null));
+    }
+    return attachments;
+  }
+}
@@ -67,8 +67,9 @@ public class AdminController {
       produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<AdminRateLimitUsageResponse> adminGetRateLimitUsage(
       @RequestParam(value = "limit_key", required = false) String limitKey,
-      @RequestParam(value = "limit", required = false, defaultValue = "50") int limit) {
-    return ResponseEntity.ok(messageResponseRateLimitService.adminUsage(limitKey, limit));
+      @RequestParam(value = "limit", required = false, defaultValue = "50") int limit,
+      @RequestParam(value = "cursor", required = false) String cursor) {
+    return ResponseEntity.ok(messageResponseRateLimitService.adminUsage(limitKey, limit, cursor));
   }
 
   @GetMapping(path = "/api/v1/admin/list.feedback", produces = MediaType.APPLICATION_JSON_VALUE)
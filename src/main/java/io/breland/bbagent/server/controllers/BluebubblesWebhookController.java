@@ -7,21 +7,18 @@ import io.breland.bbagent.generated.bluebubblesclient.model.Chat;
 import io.breland.bbagent.generated.bluebubblesclient.model.ChatParticipant;
 import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequest;
 import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestData;
-import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestDataAttachmentsInner;
 import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestDataChatsInner;
-import io.breland.bbagent.server.TimeSupport;
 import io.breland.bbagent.server.agent.BBMessageAgent;
-import io.breland.bbagent.server.agent.IncomingMessage;
-import io.breland.bbagent.server.agent.cadence.models.IncomingAttachment;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
+import io.breland.bbagent.server.agent.transport.bb.BlueBubblesWebhookDispatcher;
+import io.breland.bbagent.server.agent.transport.bb.BlueBubblesWebhookProcessor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,16 +30,23 @@ import org.springframework.web.context.request.NativeWebRequest;
 @Slf4j
 public class BluebubblesWebhookController extends BluebubblesApiController {
 
-  private final BBMessageAgent messageAgent;
-  private final BBHttpClientWrapper bbHttpClientWrapper;
+  private final BlueBubblesWebhookDispatcher webhookDispatcher;
 
+  @Autowired
   public BluebubblesWebhookController(
+      NativeWebRequest request, BlueBubblesWebhookDispatcher webhookDispatcher) {
+    super(request);
+    this.webhookDispatcher = webhookDispatcher;
+  }
+
+  BluebubblesWebhookController(
       NativeWebRequest request,
       BBMessageAgent messageAgent,
       BBHttpClientWrapper bbHttpClientWrapper) {
-    super(request);
-    this.messageAgent = messageAgent;
-    this.bbHttpClientWrapper = bbHttpClientWrapper;
+    this(
+        request,
+        BlueBubblesWebhookDispatcher.inline(
+            new BlueBubblesWebhookProcessor(messageAgent, bbHttpClientWrapper)));
   }
 
   @Override
@@ -52,55 +56,13 @@ public class BluebubblesWebhookController extends BluebubblesApiController {
     if (requestBody == null || requestBody.getType() == null) {
       return ResponseEntity.badRequest().build();
     }
-    if (!isMessageEvent(requestBody)) {
+    if (!isMessageEvent(requestBody) || requestBody.getData() == null) {
       return ResponseEntity.ok(Map.of("status", "ok"));
     }
-    IncomingMessage message = parseWebhookMessage(requestBody.getData());
-    if (message != null) {
-      messageAgent.handleIncomingMessage(message);
-    }
+    webhookDispatcher.accept(requestBody);
     return ResponseEntity.ok(Map.of("status", "ok"));
   }
 
-  private IncomingMessage parseWebhookMessage(
-      @NotNull @Valid BlueBubblesMessageReceivedRequestData data) {
-    if (data == null) {
-      return null;
-    }
-    String messageGuid = data.getGuid();
-    String threadOriginatorGuid = data.getThreadOriginatorGuid();
-    String text = data.getText();
-    Boolean fromMe = data.getIsFromMe();
-    String service = data.getHandle() == null ? null : data.getHandle().getService();
-    String sender = data.getHandle() == null ? null : data.getHandle().getAddress();
-    Instant timestamp = TimeSupport.epochSecondsOrMillisOrNow(data.getDateCreated());
-    List<IncomingAttachment> attachments = parseAttachments(data.getAttachments());
-    String chatGuid =
-        data.getChats() == null || data.getChats().isEmpty()
-            ? null
-            : data.getChats().getFirst().getGuid();
-    boolean isGroup = resolveIsGroup(data, chatGuid);
-    // BlueBubbles does not currently provide a reliable system-message signal here.
-    boolean isSystem = false;
-
-    return new IncomingMessage(
-        IncomingMessage.TRANSPORT_BLUEBUBBLES,
-        chatGuid,
-        messageGuid,
-        threadOriginatorGuid,
-        text,
-        fromMe,
-        service,
-        sender,
-        isGroup,
-        timestamp,
-        attachments,
-        data.getBalloonBundleId(),
-        data.getAssociatedMessageGuid(),
-        data.getReplyToGuid(),
-        isSystem);
-  }
-
   private boolean isMessageEvent(BlueBubblesMessageReceivedRequest request) {
     if (BlueBubblesMessageReceivedRequest.TypeEnum.NEW_MESSAGE.equals(request.getType())) {
       return true;
@@ -111,23 +73,6 @@ public class BluebubblesWebhookController extends BluebubblesApiController {
     return false;
   }
 
-  private boolean resolveIsGroup(BlueBubblesMessageReceivedRequestData data, String chatGuid) {
-    Optional<Boolean> participantResult = resolveIsGroupFromConversationInfo(chatGuid);
-    return participantResult.orElseGet(() -> resolveIsGroup(data));
-  }
-
-  private Optional<Boolean> resolveIsGroupFromConversationInfo(String chatGuid) {
-    if (chatGuid == null || chatGuid.isBlank()) {
-      return Optional.empty();
-    }
-    try {
-      return resolveIsGroup(bbHttpClientWrapper.getConversationInfo(chatGuid));
-    } catch (Exception e) {
-      log.warn("Failed to resolve BlueBubbles chat participants for {}", chatGuid, e);
-      return Optional.empty();
-    }
-  }
-
   public static Optional<Boolean> resolveIsGroup(Chat chat) {
     if (chat == null) {
       return Optional.empty();
@@ -182,20 +127,4 @@ public class BluebubblesWebhookController extends BluebubblesApiController {
   private static boolean hasGroupMetadata(List<?> chats, String groupTitle) {
     return (chats != null && chats.size() > 1) || (groupTitle != null && !groupTitle.isBlank());
   }
-
-  private List<IncomingAttachment> parseAttachments(
-      @NotNull @Valid
-          List<@Valid BlueBubblesMessageReceivedRequestDataAttachmentsInner> attachmentsNode) {
-    if (attachmentsNode == null) {
-      return List.of();
-    }
-    List<IncomingAttachment> attachments = new ArrayList<>();
-    for (BlueBubblesMessageReceivedRequestDataAttachmentsInner attachmentNode : attachmentsNode) {
-      String guid = attachmentNode.getGuid();
-      String mimeType = attachmentNode.getMimeType();
-      String filename = attachmentNode.getTransferName();
-      attachments.add(new IncomingAttachment(guid, mimeType, filename, null, null, null));
-    }
-    return attachments;
-  }
 }
@@ -0,0 +1,428 @@
+package io.breland.bbagent.server.metrics;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Hourly and daily rollups of {@code agent_message_metrics} and {@code agent_tool_metrics}, keyed
+ * by sender hash, model and tool.
+ *
+ * <p>{@link #rollUp} closes whole hours in order and advances a single watermark; a day is rolled
+ * from its hours as soon as its last hour closes. Raw rows that commit after their hour closed are
+ * found by {@code ingested_at}, and their hours and days are rolled again. Reads combine daily rows
+ * for whole days, hourly rows for partial days, and raw rows only for the partial hour at the start
+ * of the range and the tail after the watermark.
+ */
+@Repository
+public class AgentMetricRollupStore {
+  static final String ROLLUP_NAME = "agent_metrics";
+
+  private static final String MESSAGE_HOURLY = "agent_message_metrics_hourly";
+  private static final String MESSAGE_DAILY = "agent_message_metrics_daily";
+  private static final String TOOL_HOURLY = "agent_tool_metrics_hourly";
+  private static final String TOOL_DAILY = "agent_tool_metrics_daily";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AgentMetricRollupStore(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+  }
+
+  @Transactional(readOnly = true)
+  public Optional<Instant> rolledUntil() {
+    return Optional.ofNullable(
+        toInstant(
+            jdbcTemplate.queryForObject(
+                "select rolled_until from agent_metric_rollup_state where rollup_name = ?",
+                Timestamp.class,
+                ROLLUP_NAME)));
+  }
+
+  /**
+   * Rolls up every closed hour before {@code through}, oldest first, stopping after {@code
+   * maxHours}. The first run starts at the hour of the oldest recorded metric. Hours that were
+   * already rolled but received rows ingested since the previous run and before {@code through} are
+   * rolled again, along with their days. Re-rolling an hour replaces its rows, so a retried run is
+   * harmless. Returns the number of hours rolled, including re-rolled ones.
+   */
+  @Transactional
+  public int rollUp(Instant through, int maxHours) {
+    Instant target = through.truncatedTo(ChronoUnit.HOURS);
+    RollupState state =
+        jdbcTemplate.queryForObject(
+            """
+            select rolled_until, ingested_until
+              from agent_metric_rollup_state
+             where rollup_name = ?
+               for update
+            """,
+            (resultSet, rowNumber) ->
+                new RollupState(
+                    toInstant(resultSet.getTimestamp("rolled_until")),
+                    toInstant(resultSet.getTimestamp("ingested_until"))),
+            ROLLUP_NAME);
+    Instant rolledUntil = state.rolledUntil();
+    Instant cursor = rolledUntil == null ? firstMetricHour().orElse(target) : rolledUntil;
+    int hours = 0;
+    while (cursor.isBefore(target) && hours < maxHours) {
+      Instant hourEnd = cursor.plus(1, ChronoUnit.HOURS);
+      rollUpHour(cursor);
+      if (hourEnd.equals(hourEnd.truncatedTo(ChronoUnit.DAYS))) {
+        rollUpDay(hourEnd.minus(1, ChronoUnit.DAYS));
+      }
+      cursor = hourEnd;
+      hours++;
+    }
+    Instant ingestedUntil = state.ingestedUntil();
+    if (rolledUntil != null && ingestedUntil != null && ingestedUntil.isBefore(through)) {
+      Set<Instant> lateDays = new TreeSet<>();
+      for (Instant hourStart : lateArrivalHours(ingestedUntil, through, rolledUntil)) {
+        rollUpHour(hourStart);
+        Instant dayStart = hourStart.truncatedTo(ChronoUnit.DAYS);
+        if (!dayStart.plus(1, ChronoUnit.DAYS).isAfter(cursor)) {
+          lateDays.add(dayStart);
+        }
+        hours++;
+      }
+      lateDays.forEach(this::rollUpDay);
+    }
+    jdbcTemplate.update(
+        """
+        update agent_metric_rollup_state
+           set rolled_until = ?, ingested_until = ?, updated_at = ?
+         where rollup_name = ?
+        """,
+        offset(cursor),
+        offset(ingestedUntil == null || ingestedUntil.isBefore(through) ? through : ingestedUntil),
+        offset(Instant.now()),
+        ROLLUP_NAME);
+    return hours;
+  }
+
+  /**
+   * Returns accepted-message rows for {@code [from, to)}, each falling inside one {@code
+   * bucketUnit} bucket ({@link ChronoUnit#HOURS} or {@link ChronoUnit#DAYS}) and stamped with that
+   * bucket's start. Rows for the same sender and model may repeat within a bucket.
+   */
+  @Transactional(readOnly = true)
+  public List<MessageMetricRollup> findMessageRollups(
+      Instant from, Instant to, ChronoUnit bucketUnit) {
+    List<MessageMetricRollup> rows = new ArrayList<>();
+    for (Segment segment : plan(from, to, rolledUntil().orElse(null), bucketUnit)) {
+      if (segment.source() == Source.RAW) {
+        Instant cursor = segment.from();
+        while (cursor.isBefore(segment.to())) {
+          Instant bucketStart = cursor.truncatedTo(bucketUnit);
+          Instant bucketEnd = min(bucketStart.plus(1, bucketUnit), segment.to());
+          rows.addAll(rawMessageRows(bucketStart, cursor, bucketEnd));
+          cursor = bucketEnd;
+        }
+        continue;
+      }
+      String table = segment.source() == Source.DAILY ? MESSAGE_DAILY : MESSAGE_HOURLY;
+      rows.addAll(
+          jdbcTemplate.query(
+              """
+              select bucket_start, user_key_hash, model_key, model_label, responses_model,
+                     is_premium, message_count, last_seen_at
+                from %s
+               where bucket_start >= ? and bucket_start < ?
+              """
+                  .formatted(table),
+              (resultSet, rowNumber) ->
+                  messageRollup(
+                      resultSet,
+                      resultSet.getTimestamp("bucket_start").toInstant().truncatedTo(bucketUnit)),
+              offset(segment.from()),
+              offset(segment.to())));
+    }
+    return rows;
+  }
+
+  /** Returns tool-call rows for {@code [from, to)}. Rows for the same key may repeat. */
+  @Transactional(readOnly = true)
+  public List<ToolMetricRollup> findToolRollups(Instant from, Instant to) {
+    List<ToolMetricRollup> rows = new ArrayList<>();
+    for (Segment segment : plan(from, to, rolledUntil().orElse(null), ChronoUnit.DAYS)) {
+      String sql =
+          segment.source() == Source.RAW
+              ? """
+                select user_key_hash, tool_name, tool_category, is_premium,
+                       count(*) as call_count,
+                       sum(case when success = true then 1 else 0 end) as successful_calls,
+                       sum(case when success = false then 1 else 0 end) as failed_calls,
+                       sum(duration_ms) as total_duration_ms,
+                       max(occurred_at) as last_used_at
+                  from agent_tool_metrics
+                 where occurred_at >= ? and occurred_at < ?
+                 group by user_key_hash, tool_name, tool_category, is_premium
+                """
+              : """
+                select user_key_hash, tool_name, tool_category, is_premium,
+                       sum(call_count) as call_count,
+                       sum(successful_calls) as successful_calls,
+                       sum(failed_calls) as failed_calls,
+                       sum(total_duration_ms) as total_duration_ms,
+                       max(last_used_at) as last_used_at
+                  from %s
+                 where bucket_start >= ? and bucket_start < ?
+                 group by user_key_hash, tool_name, tool_category, is_premium
+                """
+                  .formatted(segment.source() == Source.DAILY ? TOOL_DAILY : TOOL_HOURLY);
+      rows.addAll(
+          jdbcTemplate.query(
+              sql,
+              (resultSet, rowNumber) ->
+                  new ToolMetricRollup(
+                      resultSet.getString("user_key_hash"),
+                      resultSet.getString("tool_name"),
+                      resultSet.getString("tool_category"),
+                      resultSet.getBoolean("is_premium"),
+                      resultSet.getLong("call_count"),
+                      resultSet.getLong("successful_calls"),
+                      resultSet.getLong("failed_calls"),
+                      resultSet.getLong("total_duration_ms"),
+                      resultSet.getTimestamp("last_used_at").toInstant()),
+              offset(segment.from()),
+              offset(segment.to())));
+    }
+    return rows;
+  }
+
+  /**
+   * Splits {@code [from, to)} into raw, hourly and daily reads. Hourly and daily rows are only
+   * used for whole hours before the watermark; daily rows only when buckets are days.
+   */
+  static List<Segment> plan(
+      Instant from, Instant to, @Nullable Instant rolledUntil, ChronoUnit bucketUnit) {
+    if (!from.isBefore(to)) {
+      return List.of();
+    }
+    Instant rolledStart = ceil(from, ChronoUnit.HOURS);
+    Instant rolledEnd =
+        rolledUntil == null
+            ? rolledStart
+            : min(to.truncatedTo(ChronoUnit.HOURS), rolledUntil.truncatedTo(ChronoUnit.HOURS));
+    if (!rolledEnd.isAfter(rolledStart)) {
+      return List.of(new Segment(Source.RAW, from, to));
+    }
+    List<Segment> segments = new ArrayList<>();
+    addSegment(segments, Source.RAW, from, rolledStart);
+    Instant dailyStart = ceil(rolledStart, ChronoUnit.DAYS);
+    Instant dailyEnd = rolledEnd.truncatedTo(ChronoUnit.DAYS);
+    if (bucketUnit == ChronoUnit.DAYS && dailyEnd.isAfter(dailyStart)) {
+      addSegment(segments, Source.HOURLY, rolledStart, dailyStart);
+      addSegment(segments, Source.DAILY, dailyStart, dailyEnd);
+      addSegment(segments, Source.HOURLY, dailyEnd, rolledEnd);
+    } else {
+      addSegment(segments, Source.HOURLY, rolledStart, rolledEnd);
+    }
+    addSegment(segments, Source.RAW, rolledEnd, to);
+    return segments;
+  }
+
+  private List<MessageMetricRollup> rawMessageRows(Instant bucketStart, Instant from, Instant to) {
+    return jdbcTemplate.query(
+        """
+        select user_key_hash, model_key, model_label, responses_model, is_premium,
+               count(*) as message_count,
+               max(occurred_at) as last_seen_at
+          from agent_message_metrics
+         where occurred_at >= ? and occurred_at < ?
+         group by user_key_hash, model_key, model_label, responses_model, is_premium
+        """,
+        (resultSet, rowNumber) -> messageRollup(resultSet, bucketStart),
+        offset(from),
+        offset(to));
+  }
+
+  /** Hours before {@code rolledUntil} holding raw rows ingested in {@code [from, to)}. */
+  private Set<Instant> lateArrivalHours(Instant from, Instant to, Instant rolledUntil) {
+    Set<Instant> hours = new TreeSet<>();
+    for (Timestamp occurredAt :
+        jdbcTemplate.queryForList(
+            """
+            select occurred_at
+              from agent_message_metrics
+             where ingested_at >= ? and ingested_at < ? and occurred_at < ?
+            union all
+            select occurred_at
+              from agent_tool_metrics
+             where ingested_at >= ? and ingested_at < ? and occurred_at < ?
+            """,
+            Timestamp.class,
+            offset(from),
+            offset(to),
+            offset(rolledUntil),
+            offset(from),
+            offset(to),
+            offset(rolledUntil))) {
+      hours.add(occurredAt.toInstant().truncatedTo(ChronoUnit.HOURS));
+    }
+    return hours;
+  }
+
+  private void rollUpHour(Instant hourStart) {
+    Instant hourEnd = hourStart.plus(1, ChronoUnit.HOURS);
+    rollUpMessageHour(hourStart, hourEnd);
+    rollUpToolHour(hourStart, hourEnd);
+  }
+
+  private void rollUpDay(Instant dayStart) {
+    Instant dayEnd = dayStart.plus(1, ChronoUnit.DAYS);
+    rollUpMessageDay(dayStart, dayEnd);
+    rollUpToolDay(dayStart, dayEnd);
+  }
+
+  private void rollUpMessageHour(Instant hourStart, Instant hourEnd) {
+    jdbcTemplate.update(
+        "delete from " + MESSAGE_HOURLY + " where bucket_start = ?", offset(hourStart));
+    jdbcTemplate.update(
+        """
+        insert into agent_message_metrics_hourly
+          (bucket_start, user_key_hash, model_key, model_label, responses_model, is_premium,
+           message_count, last_seen_at)
+        select cast(? as timestamp with time zone), user_key_hash, model_key, model_label,
+               responses_model, is_premium, count(*), max(occurred_at)
+          from agent_message_metrics
+         where occurred_at >= ? and occurred_at < ?
+         group by user_key_hash, model_key, model_label, responses_model, is_premium
+        """,
+        offset(hourStart),
+        offset(hourStart),
+        offset(hourEnd));
+  }
+
+  private void rollUpToolHour(Instant hourStart, Instant hourEnd) {
+    jdbcTemplate.update(
+        "delete from " + TOOL_HOURLY + " where bucket_start = ?", offset(hourStart));
+    jdbcTemplate.update(
+        """
+        insert into agent_tool_metrics_hourly
+          (bucket_start, user_key_hash, tool_name, tool_category, is_premium, call_count,
+           successful_calls, failed_calls, total_duration_ms, last_used_at)
+        select cast(? as timestamp with time zone), user_key_hash, tool_name, tool_category,
+               is_premium, count(*),
+               sum(case when success = true then 1 else 0 end),
+               sum(case when success = false then 1 else 0 end),
+               sum(duration_ms), max(occurred_at)
+          from agent_tool_metrics
+         where occurred_at >= ? and occurred_at < ?
+         group by user_key_hash, tool_name, tool_category, is_premium
+        """,
+        offset(hourStart),
+        offset(hourStart),
+        offset(hourEnd));
+  }
+
+  private void rollUpMessageDay(Instant dayStart, Instant dayEnd) {
+    jdbcTemplate.update(
+        "delete from " + MESSAGE_DAILY + " where bucket_start = ?", offset(dayStart));
+    jdbcTemplate.update(
+        """
+        insert into agent_message_metrics_daily
+          (bucket_start, user_key_hash, model_key, model_label, responses_model, is_premium,
+           message_count, last_seen_at)
+        select cast(? as timestamp with time zone), user_key_hash, model_key, model_label,
+               responses_model, is_premium, sum(message_count), max(last_seen_at)
+          from agent_message_metrics_hourly
+         where bucket_start >= ? and bucket_start < ?
+         group by user_key_hash, model_key, model_label, responses_model, is_premium
+        """,
+        offset(dayStart),
+        offset(dayStart),
+        offset(dayEnd));
+  }
+
+  private void rollUpToolDay(Instant dayStart, Instant dayEnd) {
+    jdbcTemplate.update("delete from " + TOOL_DAILY + " where bucket_start = ?", offset(dayStart));
+    jdbcTemplate.update(
+        """
+        insert into agent_tool_metrics_daily
+          (bucket_start, user_key_hash, tool_name, tool_category, is_premium, call_count,
+           successful_calls, failed_calls, total_duration_ms, last_used_at)
+        select cast(? as timestamp with time zone), user_key_hash, tool_name, tool_category,
+               is_premium, sum(call_count), sum(successful_calls), sum(failed_calls),
+               sum(total_duration_ms), max(last_used_at)
+          from agent_tool_metrics_hourly
+         where bucket_start >= ? and bucket_start < ?
+         group by user_key_hash, tool_name, tool_category, is_premium
+        """,
+        offset(dayStart),
+        offset(dayStart),
+        offset(dayEnd));
+  }
+
+  private Optional<Instant> firstMetricHour() {
+    Instant firstMessage =
+        toInstant(
+            jdbcTemplate.queryForObject(
+                "select min(occurred_at) from agent_message_metrics", Timestamp.class));
+    Instant firstTool =
+        toInstant(
+            jdbcTemplate.queryForObject(
+                "select min(occurred_at) from agent_tool_metrics", Timestamp.class));
+    Instant first =
+        firstMessage == null
+            ? firstTool
+            : firstTool == null ? firstMessage : min(firstMessage, firstTool);
+    return Optional.ofNullable(first).map(instant -> instant.truncatedTo(ChronoUnit.HOURS));
+  }
+
+  private static MessageMetricRollup messageRollup(ResultSet resultSet, Instant bucketStart)
+      throws SQLException {
+    return new MessageMetricRollup(
+        bucketStart,
+        resultSet.getString("user_key_hash"),
+        resultSet.getString("model_key"),
+        resultSet.getString("model_label"),
+        resultSet.getString("responses_model"),
+        resultSet.getBoolean("is_premium"),
+        resultSet.getLong("message_count"),
+        resultSet.getTimestamp("last_seen_at").toInstant());
+  }
+
+  private static void addSegment(List<Segment> segments, Source source, Instant from, Instant to) {
+    if (from.isBefore(to)) {
+      segments.add(new Segment(source, from, to));
+    }
+  }
+
+  private static Instant ceil(Instant instant, ChronoUnit unit) {
+    Instant truncated = instant.truncatedTo(unit);
+    return truncated.equals(instant) ? instant : truncated.plus(1, unit);
+  }
+
+  private static Instant min(Instant left, Instant right) {
+    return left.isBefore(right) ? left : right;
+  }
+
+  private static @Nullable Instant toInstant(@Nullable Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+
+  enum Source {
+    RAW,
+    HOURLY,
+    DAILY
+  }
+
+  record Segment(Source source, Instant from, Instant to) {}
+
+  private record RollupState(@Nullable Instant rolledUntil, @Nullable Instant ingestedUntil) {}
+}
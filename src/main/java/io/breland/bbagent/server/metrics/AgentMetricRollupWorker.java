@@ -0,0 +1,68 @@
+package io.breland.bbagent.server.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps {@link AgentMetricRollupStore} current. Each run closes the hours that ended at least
+ * {@code late-arrival-grace} ago, so most metrics still being committed land in the raw tail. Rows
+ * that commit later than that are picked up once they are {@code late-arrival-grace} old, and the
+ * hours they fall in are rolled again. A backlog (first deploy, long outage) is caught up a bounded
+ * number of hours per run.
+ */
+@Slf4j
+@Service
+public class AgentMetricRollupWorker {
+  private final AgentMetricRollupStore store;
+  private final Clock clock;
+  private final boolean enabled;
+  private final Duration lateArrivalGrace;
+  private final int maxHoursPerRun;
+
+  @Autowired
+  public AgentMetricRollupWorker(
+      AgentMetricRollupStore store,
+      @Value("${bbagent.metrics.rollup.enabled:true}") boolean enabled,
+      @Value("${bbagent.metrics.rollup.late-arrival-grace:PT5M}") Duration lateArrivalGrace,
+      @Value("${bbagent.metrics.rollup.max-hours-per-run:168}") int maxHoursPerRun) {
+    this(store, Clock.systemUTC(), enabled, lateArrivalGrace, maxHoursPerRun);
+  }
+
+  AgentMetricRollupWorker(
+      AgentMetricRollupStore store,
+      Clock clock,
+      boolean enabled,
+      Duration lateArrivalGrace,
+      int maxHoursPerRun) {
+    if (maxHoursPerRun <= 0) {
+      throw new IllegalArgumentException("metric rollup max hours per run must be positive");
+    }
+    this.store = store;
+    this.clock = clock;
+    this.enabled = enabled;
+    this.lateArrivalGrace = lateArrivalGrace;
+    this.maxHoursPerRun = maxHoursPerRun;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bbagent.metrics.rollup.poll-interval:PT1M}",
+      initialDelayString = "${bbagent.metrics.rollup.initial-delay:PT30S}")
+  public void rollUp() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      int hours = store.rollUp(clock.instant().minus(lateArrivalGrace), maxHoursPerRun);
+      if (hours > 0) {
+        log.debug("Rolled up {} hours of agent metrics", hours);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to roll up agent metrics", e);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.breland.bbagent.server.metrics;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+
+import java.util.List;
+import java.util.Objects;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Inserts agent message and tool metrics with one JDBC batch per table. */
+@Repository
+public class AgentMetricsBatchWriter {
+  private final JdbcTemplate jdbcTemplate;
+
+  public AgentMetricsBatchWriter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+  }
+
+  /** Inserts both kinds in one transaction, so a failed batch leaves neither table half-written. */
+  @Transactional
+  public void insert(List<AgentMessageMetric> messageMetrics, List<AgentToolMetric> toolMetrics) {
+    insertMessageMetrics(messageMetrics);
+    insertToolMetrics(toolMetrics);
+  }
+
+  public void insertMessageMetrics(List<AgentMessageMetric> metrics) {
+    if (metrics == null || metrics.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        insert into agent_message_metrics
+          (id, occurred_at, transport, message_guid, chat_guid_hash, user_key_hash, model_key,
+           model_label, responses_model, is_premium, workflow_mode, created_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """,
+        metrics.stream()
+            .map(
+                metric ->
+                    new Object[] {
+                      metric.id(),
+                      offset(metric.occurredAt()),
+                      metric.transport(),
+                      metric.messageGuid(),
+                      metric.chatGuidHash(),
+                      metric.userKeyHash(),
+                      metric.modelKey(),
+                      metric.modelLabel(),
+                      metric.responsesModel(),
+                      metric.premium(),
+                      metric.workflowMode(),
+                      offset(metric.createdAt())
+                    })
+            .toList());
+  }
+
+  public void insertToolMetrics(List<AgentToolMetric> metrics) {
+    if (metrics == null || metrics.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        insert into agent_tool_metrics
+          (id, occurred_at, transport, message_guid, chat_guid_hash, user_key_hash, tool_name,
+           tool_category, success, failure_type, duration_ms, model_key, model_label,
+           responses_model, is_premium, workflow_mode, created_at)
+        values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """,
+        metrics.stream()
+            .map(
+                metric ->
+                    new Object[] {
+                      metric.id(),
+                      offset(metric.occurredAt()),
+                      metric.transport(),
+                      metric.messageGuid(),
+                      metric.chatGuidHash(),
+                      metric.userKeyHash(),
+                      metric.toolName(),
+                      metric.toolCategory(),
+                      metric.success(),
+                      metric.failureType(),
+                      metric.durationMillis(),
+                      metric.modelKey(),
+                      metric.modelLabel(),
+                      metric.responsesModel(),
+                      metric.premium(),
+                      metric.workflowMode(),
+                      offset(metric.createdAt())
+                    })
+            .toList());
+  }
+}
@@ -0,0 +1,161 @@
+package io.breland.bbagent.server.metrics;
+
+import io.breland.bbagent.server.BatchingBuffer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes agent message and tool metrics off the request path. Events go into a {@link
+ * BatchingBuffer} whose background thread writes them with {@link AgentMetricsBatchWriter} once
+ * {@code batch-size} events are waiting or {@code flush-interval} has passed since the oldest one.
+ *
+ * <p>When the buffer is full, {@link OverflowPolicy#DROP} drops the event immediately and {@link
+ * OverflowPolicy#BLOCK} waits up to {@code block-timeout} for space before dropping it, so a slow
+ * database can delay message handling but never wedge it. Dropped and failed events are counted.
+ * The buffer is flushed on shutdown. With async writes disabled every event is inserted in the
+ * caller's thread and transaction.
+ */
+@Slf4j
+@Component
+public class AgentMetricsWriteQueue {
+  static final String DROP_REASON_OVERFLOW = "overflow";
+  static final String DROP_REASON_WRITE_FAILED = "write_failed";
+
+  /** What to do with an event that arrives while the buffer is full. */
+  public enum OverflowPolicy {
+    DROP,
+    BLOCK
+  }
+
+  private final AgentMetricsBatchWriter writer;
+  private final @Nullable OperationalMetricsService metrics;
+  private final @Nullable BatchingBuffer<Object> buffer;
+  private final OverflowPolicy overflowPolicy;
+  private final Duration blockTimeout;
+
+  @Autowired
+  public AgentMetricsWriteQueue(
+      AgentMetricsBatchWriter writer,
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.metrics.writer.async-enabled:true}") boolean asyncEnabled,
+      @Value("${bbagent.metrics.writer.capacity:10000}") int capacity,
+      @Value("${bbagent.metrics.writer.batch-size:500}") int batchSize,
+      @Value("${bbagent.metrics.writer.flush-interval:PT1S}") Duration flushInterval,
+      @Value("${bbagent.metrics.writer.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+      @Value("${bbagent.metrics.writer.block-timeout:PT1S}") Duration blockTimeout) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("metrics writer capacity and batch size must be positive");
+    }
+    this.writer = writer;
+    this.metrics = metrics;
+    this.overflowPolicy = overflowPolicy;
+    this.blockTimeout = blockTimeout;
+    this.buffer =
+        asyncEnabled
+            ? new BatchingBuffer<>(
+                "agent-metrics-writer-", capacity, batchSize, flushInterval, this::flush)
+            : null;
+  }
+
+  public void submit(AgentMessageMetric metric) {
+    submitEvent(metric);
+  }
+
+  public void submit(AgentToolMetric metric) {
+    submitEvent(metric);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (buffer != null) {
+      buffer.shutdown();
+    }
+  }
+
+  private void submitEvent(Object event) {
+    if (event == null) {
+      return;
+    }
+    if (buffer == null || !buffer.isRunning()) {
+      write(List.of(event));
+      return;
+    }
+    boolean buffered =
+        overflowPolicy == OverflowPolicy.DROP
+            ? buffer.offer(event)
+            : buffer.offer(event, blockTimeout);
+    if (!buffered) {
+      log.warn("Dropping agent metric event; write buffer is full");
+      recordDropped(DROP_REASON_OVERFLOW, 1);
+    }
+    updateQueueDepth();
+  }
+
+  private void flush(List<Object> batch) {
+    long startedAt = System.nanoTime();
+    try {
+      write(batch);
+      recordFlush(batch.size(), true, startedAt);
+    } catch (RuntimeException e) {
+      log.warn("Failed to write {} agent metric events", batch.size(), e);
+      recordFlush(batch.size(), false, startedAt);
+      recordDropped(DROP_REASON_WRITE_FAILED, batch.size());
+    } finally {
+      updateQueueDepth();
+    }
+  }
+
+  private void write(List<Object> events) {
+    List<AgentMessageMetric> messageMetrics = new ArrayList<>();
+    List<AgentToolMetric> toolMetrics = new ArrayList<>();
+    for (Object event : events) {
+      if (event instanceof AgentMessageMetric messageMetric) {
+        messageMetrics.add(messageMetric);
+      } else if (event instanceof AgentToolMetric toolMetric) {
+        toolMetrics.add(toolMetric);
+      }
+    }
+    writer.insert(messageMetrics, toolMetrics);
+  }
+
+  private void updateQueueDepth() {
+    if (metrics == null || buffer == null) {
+      return;
+    }
+    try {
+      metrics.updateMetricsWriterQueueDepth(buffer.size());
+    } catch (RuntimeException e) {
+      log.warn("Failed to update metrics writer queue depth", e);
+    }
+  }
+
+  private void recordFlush(int events, boolean success, long startedAt) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordMetricsWriterFlush(
+          events, success, Duration.ofNanos(System.nanoTime() - startedAt));
+    } catch (RuntimeException e) {
+      log.warn("Failed to record metrics writer flush", e);
+    }
+  }
+
+  private void recordDropped(String reason, int events) {
+    if (metrics == null) {
+      return;
+    }
+    try {
+      metrics.recordMetricsWriterDropped(reason, events);
+    } catch (RuntimeException e) {
+      log.warn("Failed to record dropped metric events", e);
+    }
+  }
+}
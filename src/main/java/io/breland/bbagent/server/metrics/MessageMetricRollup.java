@@ -0,0 +1,14 @@
+package io.breland.bbagent.server.metrics;
+
+import java.time.Instant;
+
+/** Accepted messages for one sender and model within one stats bucket. */
+public record MessageMetricRollup(
+    Instant bucketStart,
+    String userKeyHash,
+    String modelKey,
+    String modelLabel,
+    String responsesModel,
+    boolean premium,
+    long messageCount,
+    Instant lastSeenAt) {}
@@ -1,3 +0,0 @@
-package io.breland.bbagent.server.metrics;
-
-public record MessageMetricTotals(long messageCount, long activeUsers) {}
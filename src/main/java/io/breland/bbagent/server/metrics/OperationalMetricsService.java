@@ -3,6 +3,7 @@ package io.breland.bbagent.server.metrics;
 import com.openai.models.ResponsesModel;
 import com.openai.models.responses.ResponseCreateParams;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
@@ -34,11 +35,30 @@ public class OperationalMetricsService {
   private final AtomicLong memoryOldestExtractionAgeSeconds = new AtomicLong(0L);
   private final AtomicLong memoryOldestProjectionAgeSeconds = new AtomicLong(0L);
   private final AtomicLong memoryFailedWorkCount = new AtomicLong(0L);
+  private final AtomicLong memoryWorkerQueueDepth = new AtomicLong(0L);
+  private final AtomicLong memoryWorkerInFlight = new AtomicLong(0L);
+  private final AtomicLong memoryDigestRunCompleted = new AtomicLong(0L);
+  private final AtomicLong memoryDigestRunRemaining = new AtomicLong(0L);
+  private final AtomicLong conversationStateCacheSize = new AtomicLong(0L);
+  private final AtomicLong attachmentCacheBytes = new AtomicLong(0L);
+  private final AtomicLong metricsWriterQueueDepth = new AtomicLong(0L);
+  private final AtomicLong webhookInboxDepth = new AtomicLong(0L);
+  private final AtomicLong webhookInboxInFlight = new AtomicLong(0L);
+  private final AtomicLong contactDirectorySize = new AtomicLong(0L);
+  private final AtomicLong chatMetadataCacheSize = new AtomicLong(0L);
+  private final AtomicLong memoryJournalQueueDepth = new AtomicLong(0L);
 
   public OperationalMetricsService(@Nullable MeterRegistry meterRegistry) {
     this.meterRegistry = meterRegistry;
     registerBlueBubblesHealthGauges();
     registerMemoryBacklogGauges();
+    registerConversationStateCacheGauges();
+    registerAttachmentCacheGauges();
+    registerMetricsWriterGauges();
+    registerWebhookInboxGauges();
+    registerContactDirectoryGauges();
+    registerChatMetadataCacheGauges();
+    registerMemoryJournalGauges();
   }
 
   public void recordAcceptedMessage(
@@ -81,6 +101,27 @@ public class OperationalMetricsService {
     incrementCounter("bbagent.agent.tool.invocation.count", "Agent tool invocation count", tags);
   }
 
+  public void recordToolBatch(int calls, Duration wallTime, Duration toolTime) {
+    Tags tags = Tags.of("batch_size", toolBatchSize(calls));
+    recordTimer(
+        "bbagent.agent.tool.batch.wall.duration",
+        "Wall time to run all tool calls from one model turn",
+        wallTime,
+        tags);
+    recordTimer(
+        "bbagent.agent.tool.batch.sum.duration",
+        "Summed tool time for all tool calls from one model turn",
+        toolTime,
+        tags);
+  }
+
+  public void recordToolTimeout(String toolName) {
+    incrementCounter(
+        "bbagent.agent.tool.timeout.count",
+        "Agent tool calls cancelled after their timeout",
+        Tags.of("tool_name", tagValue(toolName, "unknown")));
+  }
+
   public void recordLlmCall(
       String transport,
       String operation,
@@ -127,6 +168,45 @@ public class OperationalMetricsService {
     incrementCounter("bbagent.agent.llm.call.count", "Agent LLM call count", tags);
   }
 
+  public void recordLlmTimeToFirstToken(
+      String transport,
+      String operation,
+      @Nullable String provider,
+      @Nullable String model,
+      Duration duration) {
+    recordTimer(
+        "bbagent.agent.llm.time_to_first_token",
+        "Time from agent LLM request to the first streamed token",
+        duration,
+        llmStreamTags(transport, operation, provider, model));
+  }
+
+  public void recordLlmTimeToFirstToolCall(
+      String transport,
+      String operation,
+      @Nullable String provider,
+      @Nullable String model,
+      Duration duration) {
+    recordTimer(
+        "bbagent.agent.llm.time_to_first_tool_call",
+        "Time from agent LLM request to the first complete streamed tool call",
+        duration,
+        llmStreamTags(transport, operation, provider, model));
+  }
+
+  private Tags llmStreamTags(
+      String transport, String operation, @Nullable String provider, @Nullable String model) {
+    return Tags.of(
+        "transport",
+        tagValue(transport, "unknown"),
+        "operation",
+        tagValue(operation, "unknown"),
+        "provider",
+        tagValue(provider, "unknown"),
+        "model",
+        modelTagValue(model));
+  }
+
   public void recordBlueBubblesOperation(
       String operation, boolean success, @Nullable String failureType, Duration duration) {
     Tags tags =
@@ -198,6 +278,68 @@ public class OperationalMetricsService {
     return "exception";
   }
 
+  public void recordConversationStateLookup(boolean hit) {
+    incrementCounter(
+        "bbagent.conversation.state.cache.lookup.count",
+        "Conversation state cache lookups",
+        Tags.of("result", hit ? "hit" : "miss"));
+  }
+
+  public void recordConversationStateEviction(String reason) {
+    incrementCounter(
+        "bbagent.conversation.state.cache.eviction.count",
+        "Conversation state cache evictions",
+        Tags.of("reason", tagValue(reason, "unknown")));
+  }
+
+  public void recordConversationStateCheckpoint(
+      boolean success, @Nullable String failureType, Duration duration) {
+    Tags tags =
+        Tags.of("outcome", outcome(success), "failure_type", failureTag(success, failureType));
+    recordTimer(
+        "bbagent.conversation.state.checkpoint.duration",
+        "Conversation state checkpoint write duration",
+        duration,
+        tags);
+  }
+
+  public void recordConversationStateRehydrate(
+      String source, boolean success, @Nullable String failureType, Duration duration) {
+    Tags tags =
+        Tags.of(
+            "source",
+            tagValue(source, "unknown"),
+            "outcome",
+            outcome(success),
+            "failure_type",
+            failureTag(success, failureType));
+    recordTimer(
+        "bbagent.conversation.state.rehydrate.duration",
+        "Conversation state rehydrate duration",
+        duration,
+        tags);
+  }
+
+  public void updateConversationStateCacheSize(long size) {
+    conversationStateCacheSize.set(Math.max(0L, size));
+  }
+
+  public void recordAttachmentCacheLookup(String result) {
+    incrementCounter(
+        "bbagent.attachment.cache.lookup.count",
+        "Attachment cache lookups",
+        Tags.of("result", tagValue(result, "unknown")));
+  }
+
+  public void recordAttachmentCacheEviction() {
+    incrementCounter(
+        "bbagent.attachment.cache.eviction.count", "Attachment cache evictions", Tags.empty());
+  }
+
+  public void updateAttachmentCacheBytes(long bytes) {
+    attachmentCacheBytes.set(Math.max(0L, bytes));
+  }
+
   public void recordMemoryExtraction(
       boolean success, @Nullable String failureType, Duration duration) {
     Tags tags =
@@ -230,6 +372,222 @@ public class OperationalMetricsService {
     recordTimer("bbagent.memory.work.lag", "Conversation memory work lag", lag, Tags.empty());
   }
 
+  public void recordMemoryWorkerClaim(String outcome, Duration latency) {
+    recordTimer(
+        "bbagent.memory.worker.claim.duration",
+        "Conversation memory claim latency from claim to completion",
+        latency,
+        Tags.of("outcome", tagValue(outcome, "unknown")));
+  }
+
+  public void updateMemoryWorkerPool(long queueDepth, long inFlight) {
+    memoryWorkerQueueDepth.set(Math.max(0L, queueDepth));
+    memoryWorkerInFlight.set(Math.max(0L, inFlight));
+  }
+
+  /** Progress of the latest nightly digest reconciliation run on this replica. */
+  public void updateMemoryDigestRun(long completed, long remaining) {
+    memoryDigestRunCompleted.set(Math.max(0L, completed));
+    memoryDigestRunRemaining.set(Math.max(0L, remaining));
+  }
+
+  public void updateMetricsWriterQueueDepth(long queueDepth) {
+    metricsWriterQueueDepth.set(Math.max(0L, queueDepth));
+  }
+
+  public void recordMetricsWriterFlush(int events, boolean success, Duration duration) {
+    recordTimer(
+        "bbagent.metrics.writer.flush.duration",
+        "Batched agent metric insert latency",
+        duration,
+        Tags.of("outcome", outcome(success)));
+    incrementCounter(
+        "bbagent.metrics.writer.written.count",
+        "Agent metric events handed to a batched insert",
+        Tags.of("outcome", outcome(success)),
+        Math.max(0, events));
+  }
+
+  public void recordMetricsWriterDropped(String reason, int events) {
+    incrementCounter(
+        "bbagent.metrics.writer.dropped.count",
+        "Agent metric events dropped before reaching the database",
+        Tags.of("reason", tagValue(reason, "unknown")),
+        Math.max(0, events));
+  }
+
+  public void updateWebhookInbox(long depth, long inFlight) {
+    webhookInboxDepth.set(Math.max(0L, depth));
+    webhookInboxInFlight.set(Math.max(0L, inFlight));
+  }
+
+  public void recordWebhookInboxEnqueue(boolean success, Duration duration) {
+    recordTimer(
+        "bbagent.bluebubbles.webhook.inbox.enqueue.duration",
+        "Time to persist a BlueBubbles webhook into the inbox",
+        duration,
+        Tags.of("outcome", outcome(success)));
+  }
+
+  public void recordWebhookInboxDispatch(boolean redelivery, Duration enqueueToDispatch) {
+    recordTimer(
+        "bbagent.bluebubbles.webhook.inbox.dispatch.latency",
+        "Time from webhook receipt to inbox dispatch",
+        enqueueToDispatch,
+        Tags.of("redelivery", Boolean.toString(redelivery)));
+    if (redelivery) {
+      incrementCounter(
+          "bbagent.bluebubbles.webhook.inbox.redelivery.count",
+          "BlueBubbles webhooks dispatched more than once",
+          Tags.empty());
+    }
+  }
+
+  public void recordWebhookInboxProcessed(String outcome, Duration duration) {
+    recordTimer(
+        "bbagent.bluebubbles.webhook.inbox.process.duration",
+        "BlueBubbles webhook processing time after dispatch",
+        duration,
+        Tags.of("outcome", tagValue(outcome, "unknown")));
+  }
+
+  public void recordContactDirectoryLookup(boolean hit, Duration duration) {
+    recordTimer(
+        "bbagent.bluebubbles.contacts.lookup.duration",
+        "BlueBubbles contact directory address lookup latency",
+        duration,
+        Tags.of("result", hit ? "hit" : "miss"));
+  }
+
+  public void recordContactDirectoryRefresh(
+      boolean success, boolean changed, int contacts, Duration duration) {
+    recordTimer(
+        "bbagent.bluebubbles.contacts.refresh.duration",
+        "BlueBubbles contact directory reload time",
+        duration,
+        Tags.of("outcome", outcome(success), "changed", Boolean.toString(changed)));
+    if (success) {
+      contactDirectorySize.set(Math.max(0, contacts));
+    }
+  }
+
+  public void recordDirectSendConfirmation(String source, Duration latency) {
+    recordTimer(
+        "bbagent.bluebubbles.direct_send.confirmation.duration",
+        "Time from submitting a BlueBubbles direct text send to confirming it",
+        latency,
+        Tags.of("source", tagValue(source, "unknown")));
+  }
+
+  public void recordChatMetadataCacheLookup(String view, String result) {
+    incrementCounter(
+        "bbagent.bluebubbles.chat_metadata.cache.lookup.count",
+        "BlueBubbles chat metadata cache lookups",
+        Tags.of("view", tagValue(view, "unknown"), "result", tagValue(result, "unknown")));
+  }
+
+  public void recordChatMetadataCacheInvalidation(String reason) {
+    incrementCounter(
+        "bbagent.bluebubbles.chat_metadata.cache.invalidation.count",
+        "BlueBubbles chat metadata cache invalidations",
+        Tags.of("reason", tagValue(reason, "unknown")));
+  }
+
+  public void recordAccountCacheLookup(String operation, String result) {
+    incrementCounter(
+        "bbagent.account.cache.lookup.count",
+        "Resolved account cache lookups",
+        Tags.of(
+            "operation", tagValue(operation, "unknown"), "result", tagValue(result, "unknown")));
+  }
+
+  public void recordAccountResolutionQueries(String operation, int queries) {
+    if (meterRegistry == null) {
+      return;
+    }
+    DistributionSummary.builder("bbagent.account.resolution.queries")
+        .description("Database queries made to resolve an account that missed the cache")
+        .tags(Tags.of("operation", tagValue(operation, "unknown")))
+        .register(meterRegistry)
+        .record(Math.max(0, queries));
+  }
+
+  public void recordRateLimitConsume(String path, boolean allowed) {
+    incrementCounter(
+        "bbagent.rate.limit.consume.count",
+        "Rate limit units consumed from a local lease or through the locked usage row",
+        Tags.of("path", tagValue(path, "unknown"), "allowed", String.valueOf(allowed)));
+  }
+
+  public void recordGcalClientCacheLookup(String result) {
+    incrementCounter(
+        "bbagent.gcal.client.cache.lookup.count",
+        "Google Calendar client cache lookups",
+        Tags.of("result", tagValue(result, "unknown")));
+  }
+
+  public void updateChatMetadataCacheSize(long size) {
+    chatMetadataCacheSize.set(Math.max(0L, size));
+  }
+
+  public void updateMemoryJournalQueueDepth(long queueDepth) {
+    memoryJournalQueueDepth.set(Math.max(0L, queueDepth));
+  }
+
+  public void recordMemoryJournalFlush(
+      String mode, int entries, int messages, boolean success, Duration duration) {
+    Tags tags = Tags.of("mode", tagValue(mode, "unknown"), "outcome", outcome(success));
+    recordTimer(
+        "bbagent.memory.journal.flush.duration",
+        "Batched conversation journal write latency",
+        duration,
+        tags);
+    incrementCounter(
+        "bbagent.memory.journal.entries.count",
+        "Observed messages handed to a batched conversation journal write",
+        tags,
+        Math.max(0, entries));
+    if (success) {
+      incrementCounter(
+          "bbagent.memory.journal.messages.count",
+          "Message texts retained by the conversation journal",
+          Tags.of("mode", tagValue(mode, "unknown")),
+          Math.max(0, messages));
+    }
+  }
+
+  public void recordMemoryJournalBackfill(
+      int pages, int messages, boolean success, Duration duration) {
+    Tags tags = Tags.of("outcome", outcome(success));
+    recordTimer(
+        "bbagent.memory.journal.backfill.duration",
+        "Journal backfill duration for one reconciled conversation day",
+        duration,
+        tags);
+    incrementCounter(
+        "bbagent.memory.journal.backfill.messages.count",
+        "Messages read from BlueBubbles by journal backfills",
+        tags,
+        Math.max(0, messages));
+    if (meterRegistry == null) {
+      return;
+    }
+    DistributionSummary.builder("bbagent.memory.journal.backfill.pages")
+        .description("BlueBubbles history pages fetched per journal backfill")
+        .tags(tags)
+        .register(meterRegistry)
+        .record(Math.max(0, pages));
+    double seconds = normalizedDuration(duration).toNanos() / 1_000_000_000.0;
+    if (seconds > 0) {
+      DistributionSummary.builder("bbagent.memory.journal.backfill.rate")
+          .description("Messages per second read by a journal backfill")
+          .baseUnit("messages/s")
+          .tags(tags)
+          .register(meterRegistry)
+          .record(Math.max(0, messages) / seconds);
+    }
+  }
+
   public void recordMemoryProjection(
       String operation, boolean success, @Nullable String failureType, Duration duration) {
     recordMemoryOperation(
@@ -305,6 +663,54 @@ public class OperationalMetricsService {
         Math.max(0L, reductionCount));
   }
 
+  /**
+   * How a group question was answered: whether chunks were decided in parallel ({@code mode}), the
+   * most chunk decisions in flight at once, and how many prefetched history windows were used or
+   * thrown away.
+   */
+  public void recordMemoryQuestionPipeline(
+      String action,
+      boolean pipelined,
+      int peakParallelism,
+      int prefetchesUsed,
+      int prefetchesDiscarded,
+      boolean stoppedEarly,
+      Duration duration) {
+    Tags tags =
+        Tags.of(
+            "action", tagValue(action, "unknown"), "mode", pipelined ? "pipelined" : "sequential");
+    incrementCounter(
+        "bbagent.memory.question.answer.prefetch.used.count",
+        "Prefetched group question history windows that were used",
+        tags,
+        Math.max(0, prefetchesUsed));
+    incrementCounter(
+        "bbagent.memory.question.answer.prefetch.discarded.count",
+        "Prefetched group question history windows that were not needed",
+        tags,
+        Math.max(0, prefetchesDiscarded));
+    if (stoppedEarly) {
+      incrementCounter(
+          "bbagent.memory.question.answer.early.stop.count",
+          "Group question windows settled by a confident answer before every chunk finished",
+          tags);
+    }
+    if (meterRegistry == null) {
+      return;
+    }
+    DistributionSummary.builder("bbagent.memory.question.answer.parallelism")
+        .description("Most group question chunk decisions in flight at once")
+        .tags(tags)
+        .register(meterRegistry)
+        .record(Math.max(0, peakParallelism));
+    Timer.builder("bbagent.memory.question.answer.latency")
+        .description("Group question answer latency")
+        .tags(tags)
+        .publishPercentiles(0.5, 0.9, 0.99)
+        .register(meterRegistry)
+        .record(normalizedDuration(duration));
+  }
+
   public void recordMemoryProactiveDelivery(
       String deliveryMode, boolean success, @Nullable String failureType, Duration duration) {
     Tags tags =
@@ -348,6 +754,33 @@ public class OperationalMetricsService {
         "Conversation memory cleanup item count",
         Tags.of("operation", tagValue(operation, "unknown")),
         Math.max(0L, itemCount));
+    double seconds = normalizedDuration(duration).toNanos() / 1_000_000_000.0;
+    if (meterRegistry != null && success && seconds > 0) {
+      DistributionSummary.builder("bbagent.memory.cleanup.rate")
+          .description("Rows per second handled by one conversation memory cleanup step")
+          .baseUnit("rows/s")
+          .tags(Tags.of("operation", tagValue(operation, "unknown")))
+          .register(meterRegistry)
+          .record(Math.max(0L, itemCount) / seconds);
+    }
+  }
+
+  /** One committed cleanup chunk; its duration is how long the chunk's row locks were held. */
+  public void recordMemoryCleanupChunk(String operation, int rows, Duration duration) {
+    Tags tags = Tags.of("operation", tagValue(operation, "unknown"));
+    recordTimer(
+        "bbagent.memory.cleanup.chunk.duration",
+        "Conversation memory cleanup chunk transaction duration",
+        duration,
+        tags);
+    if (meterRegistry == null) {
+      return;
+    }
+    DistributionSummary.builder("bbagent.memory.cleanup.chunk.rows")
+        .description("Rows changed by one conversation memory cleanup chunk")
+        .tags(tags)
+        .register(meterRegistry)
+        .record(Math.max(0, rows));
   }
 
   public void updateMemoryBacklog(
@@ -432,6 +865,89 @@ public class OperationalMetricsService {
     Gauge.builder("bbagent.memory.backlog.failed.work", memoryFailedWorkCount, AtomicLong::get)
         .description("Conversation memory work items with a recorded failure")
         .register(meterRegistry);
+    Gauge.builder("bbagent.memory.worker.queue.depth", memoryWorkerQueueDepth, AtomicLong::get)
+        .description("Claimed conversation memory work waiting for a worker thread")
+        .register(meterRegistry);
+    Gauge.builder("bbagent.memory.worker.in_flight", memoryWorkerInFlight, AtomicLong::get)
+        .description("Conversation memory claims currently being processed")
+        .register(meterRegistry);
+    Gauge.builder(
+            "bbagent.memory.digest.run.completed", memoryDigestRunCompleted, AtomicLong::get)
+        .description("Daily digests completed by the latest reconciliation run")
+        .register(meterRegistry);
+    Gauge.builder(
+            "bbagent.memory.digest.run.remaining", memoryDigestRunRemaining, AtomicLong::get)
+        .description("Daily digest work left after the latest reconciliation run")
+        .register(meterRegistry);
+  }
+
+  private void registerConversationStateCacheGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder(
+            "bbagent.conversation.state.cache.size", conversationStateCacheSize, AtomicLong::get)
+        .description("Conversation states currently held in memory")
+        .register(meterRegistry);
+  }
+
+  private void registerAttachmentCacheGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("bbagent.attachment.cache.bytes", attachmentCacheBytes, AtomicLong::get)
+        .description("Bytes of attachment content held in the on-disk attachment cache")
+        .register(meterRegistry);
+  }
+
+  private void registerMetricsWriterGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("bbagent.metrics.writer.queue.depth", metricsWriterQueueDepth, AtomicLong::get)
+        .description("Agent metric events buffered for the next batched insert")
+        .register(meterRegistry);
+  }
+
+  private void registerWebhookInboxGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("bbagent.bluebubbles.webhook.inbox.depth", webhookInboxDepth, AtomicLong::get)
+        .description("BlueBubbles webhooks persisted and not yet processed")
+        .register(meterRegistry);
+    Gauge.builder(
+            "bbagent.bluebubbles.webhook.inbox.in_flight", webhookInboxInFlight, AtomicLong::get)
+        .description("BlueBubbles webhooks currently being processed")
+        .register(meterRegistry);
+  }
+
+  private void registerContactDirectoryGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("bbagent.bluebubbles.contacts.size", contactDirectorySize, AtomicLong::get)
+        .description("Contacts held in the BlueBubbles contact directory")
+        .register(meterRegistry);
+  }
+
+  private void registerChatMetadataCacheGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder(
+            "bbagent.bluebubbles.chat_metadata.cache.size", chatMetadataCacheSize, AtomicLong::get)
+        .description("Entries in the BlueBubbles chat metadata cache")
+        .register(meterRegistry);
+  }
+
+  private void registerMemoryJournalGauges() {
+    if (meterRegistry == null) {
+      return;
+    }
+    Gauge.builder("bbagent.memory.journal.queue.depth", memoryJournalQueueDepth, AtomicLong::get)
+        .description("Observed messages buffered for the next conversation journal write")
+        .register(meterRegistry);
   }
 
   private void recordTimer(String name, String description, Duration duration, Tags tags) {
@@ -490,6 +1006,13 @@ public class OperationalMetricsService {
     return "unknown";
   }
 
+  private static String toolBatchSize(int calls) {
+    if (calls <= 1) {
+      return "1";
+    }
+    return calls <= 3 ? "2_3" : "4_plus";
+  }
+
   private static String outcome(boolean success) {
     return success ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
   }
@@ -2,12 +2,14 @@ package io.breland.bbagent.server.metrics;
 
 import java.time.Instant;
 
-public record ToolMetricSummary(
+/** Tool calls for one sender, tool and account type. */
+public record ToolMetricRollup(
+    String userKeyHash,
     String toolName,
     String toolCategory,
+    boolean premium,
     long callCount,
     long successfulCalls,
     long failedCalls,
-    long activeUsers,
-    double averageDurationMs,
+    long totalDurationMillis,
     Instant lastUsedAt) {}
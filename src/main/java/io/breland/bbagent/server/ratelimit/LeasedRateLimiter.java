@@ -0,0 +1,271 @@
+package io.breland.bbagent.server.ratelimit;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory front for {@link RateLimitService}. Instead of locking the usage row for every unit, a
+ * replica leases {@code bbagent.rate-limit.lease-size} units in one locked update and hands them
+ * out from a per-scope counter. Leased units count as used in the row, so every replica stays
+ * under the limit together; units still unspent go back to the row once a lease has been idle for
+ * {@code bbagent.rate-limit.lease-idle-ttl}, and at shutdown. Once the row is within two leases of
+ * the limit, where a lease could strand units on one replica, each unit goes through the locked
+ * path as before.
+ */
+@Component
+@Slf4j
+public class LeasedRateLimiter {
+  static final long DEFAULT_LEASE_SIZE = 10L;
+  static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(1);
+
+  private static final String PATH_LEASE = "lease";
+  private static final String PATH_STRICT = "strict";
+
+  private final Map<LeaseKey, Lease> leases = new ConcurrentHashMap<>();
+  private final RateLimitService rateLimitService;
+  private final @Nullable OperationalMetricsService metrics;
+  private final long leaseSize;
+  private final Duration idleTtl;
+  private final Clock clock;
+
+  @Autowired
+  public LeasedRateLimiter(
+      RateLimitService rateLimitService,
+      @Nullable OperationalMetricsService metrics,
+      @Value("${bbagent.rate-limit.lease-size:10}") long leaseSize,
+      @Value("${bbagent.rate-limit.lease-idle-ttl:PT1M}") Duration idleTtl) {
+    this(rateLimitService, metrics, leaseSize, idleTtl, Clock.systemUTC());
+  }
+
+  LeasedRateLimiter(
+      RateLimitService rateLimitService,
+      @Nullable OperationalMetricsService metrics,
+      long leaseSize,
+      Duration idleTtl,
+      Clock clock) {
+    this.rateLimitService = rateLimitService;
+    this.metrics = metrics;
+    this.leaseSize = Math.max(1L, leaseSize);
+    this.idleTtl = idleTtl == null ? DEFAULT_IDLE_TTL : idleTtl;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  /** Consumes one unit, from this replica's lease when it has one. */
+  public RateLimitDecision tryConsume(RateLimitPolicy policy) {
+    if (leaseSize <= 1) {
+      return record(PATH_STRICT, rateLimitService.tryConsume(policy, 1L));
+    }
+    while (true) {
+      Lease lease = leases.computeIfAbsent(LeaseKey.of(policy), key -> new Lease(policy));
+      lease.lastUsedMillis = clock.millis();
+      if (lease.tryTake()) {
+        return record(PATH_LEASE, new RateLimitDecision(lease.status(), true, 1L));
+      }
+      lease.refill.lock();
+      try {
+        if (lease.retired) {
+          continue;
+        }
+        if (lease.tryTake()) {
+          return record(PATH_LEASE, new RateLimitDecision(lease.status(), true, 1L));
+        }
+        return refillAndConsume(lease);
+      } finally {
+        lease.refill.unlock();
+      }
+    }
+  }
+
+  /**
+   * The current usage. Within {@code lease-idle-ttl} of this replica's last lease the local view is
+   * returned without a query; it does not see units spent on other replicas since then.
+   */
+  public RateLimitStatus check(RateLimitPolicy policy) {
+    Lease lease = leases.get(LeaseKey.of(policy));
+    if (lease != null && !lease.retired && lease.fresh(clock.millis() - idleTtl.toMillis())) {
+      return lease.status();
+    }
+    RateLimitStatus status = rateLimitService.check(policy);
+    long unspent = lease == null ? 0L : lease.remaining.get();
+    return unspent <= 0 ? status : withUsed(status, Math.max(0L, status.used() - unspent));
+  }
+
+  /** Units this replica has leased but not yet handed out, by scope key. */
+  public Map<String, Long> unspentByScopeKey(
+      String limitKey, String scopeType, Instant windowStart) {
+    Map<String, Long> unspent = new HashMap<>();
+    for (Map.Entry<LeaseKey, Lease> entry : leases.entrySet()) {
+      LeaseKey key = entry.getKey();
+      long remaining = entry.getValue().remaining.get();
+      if (remaining > 0
+          && key.limitKey().equals(limitKey)
+          && key.scopeType().equals(scopeType)
+          && key.windowStart().equals(windowStart)) {
+        unspent.merge(key.scopeKey(), remaining, Long::sum);
+      }
+    }
+    return unspent;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${bbagent.rate-limit.lease-idle-ttl:PT1M}",
+      initialDelayString = "${bbagent.rate-limit.lease-idle-ttl:PT1M}")
+  public void releaseIdleLeases() {
+    long idleBefore = clock.millis() - idleTtl.toMillis();
+    release(lease -> lease.lastUsedMillis < idleBefore);
+  }
+
+  @PreDestroy
+  public void releaseAllLeases() {
+    release(lease -> true);
+  }
+
+  int leaseCount() {
+    return leases.size();
+  }
+
+  private RateLimitDecision refillAndConsume(Lease lease) {
+    long now = clock.millis();
+    if (!lease.strict) {
+      RateLimitDecision leased = rateLimitService.tryConsume(lease.policy, leaseSize);
+      if (leased.allowed()) {
+        lease.reserved(leased.status(), now);
+        lease.remaining.set(leaseSize - 1);
+        return record(PATH_LEASE, new RateLimitDecision(lease.status(), true, 1L));
+      }
+    }
+    RateLimitDecision decision = rateLimitService.tryConsume(lease.policy, 1L);
+    lease.reserved(decision.status(), now);
+    return record(PATH_STRICT, decision);
+  }
+
+  private void release(Predicate<Lease> shouldRelease) {
+    Map<RateLimitPolicy, Long> unspent = new LinkedHashMap<>();
+    for (Map.Entry<LeaseKey, Lease> entry : leases.entrySet()) {
+      Lease lease = entry.getValue();
+      if (!shouldRelease.test(lease)) {
+        continue;
+      }
+      lease.refill.lock();
+      try {
+        lease.retired = true;
+        leases.remove(entry.getKey(), lease);
+        long amount = lease.remaining.getAndSet(0L);
+        if (amount > 0) {
+          unspent.merge(lease.policy, amount, Long::sum);
+        }
+      } finally {
+        lease.refill.unlock();
+      }
+    }
+    if (unspent.isEmpty()) {
+      return;
+    }
+    try {
+      rateLimitService.release(unspent);
+    } catch (RuntimeException e) {
+      // The units stay counted as used, which only ever errs on the side of the limit.
+      log.warn("Failed to return {} unspent rate limit leases", unspent.size(), e);
+    }
+  }
+
+  private RateLimitDecision record(String path, RateLimitDecision decision) {
+    if (metrics != null) {
+      try {
+        metrics.recordRateLimitConsume(path, decision.allowed());
+      } catch (RuntimeException e) {
+        log.warn("Failed to record rate limit consume", e);
+      }
+    }
+    return decision;
+  }
+
+  private static RateLimitStatus withUsed(RateLimitStatus status, long used) {
+    return new RateLimitStatus(
+        status.limitKey(),
+        status.limitLabel(),
+        status.scopeType(),
+        status.scopeKey(),
+        used,
+        status.limit(),
+        status.windowStart(),
+        status.windowEnd());
+  }
+
+  private record LeaseKey(
+      String limitKey, String scopeType, String scopeKey, long limit, Instant windowStart) {
+    static LeaseKey of(RateLimitPolicy policy) {
+      return new LeaseKey(
+          policy.limitKey(),
+          policy.scopeType(),
+          policy.scopeKey(),
+          policy.limit(),
+          policy.windowStart());
+    }
+  }
+
+  private final class Lease {
+    private final RateLimitPolicy policy;
+    private final AtomicLong remaining = new AtomicLong();
+    private final ReentrantLock refill = new ReentrantLock();
+    // Row amount after this replica's last locked update, including units leased elsewhere.
+    private volatile long rowAmount;
+    private volatile long reservedAtMillis = -1L;
+    private volatile long lastUsedMillis;
+    private volatile boolean strict;
+    private volatile boolean retired;
+
+    private Lease(RateLimitPolicy policy) {
+      this.policy = policy;
+    }
+
+    boolean tryTake() {
+      long current;
+      do {
+        current = remaining.get();
+        if (current <= 0) {
+          return false;
+        }
+      } while (!remaining.compareAndSet(current, current - 1));
+      return true;
+    }
+
+    void reserved(RateLimitStatus status, long nowMillis) {
+      rowAmount = status.used();
+      reservedAtMillis = nowMillis;
+      strict = status.remaining() < 2 * leaseSize;
+    }
+
+    boolean fresh(long notBeforeMillis) {
+      return reservedAtMillis >= 0 && reservedAtMillis >= notBeforeMillis;
+    }
+
+    RateLimitStatus status() {
+      return new RateLimitStatus(
+          policy.limitKey(),
+          policy.limitLabel(),
+          policy.scopeType(),
+          policy.scopeKey(),
+          Math.max(0L, rowAmount - remaining.get()),
+          policy.limit(),
+          policy.windowStart(),
+          policy.windowEnd());
+    }
+  }
+}
@@ -7,17 +7,23 @@ import io.breland.bbagent.generated.model.AdminRateLimitUsageResponse;
 import io.breland.bbagent.generated.model.WebsiteUsageLimitSummary;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.model_picker.ModelAccessService;
-import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageEntity;
+import io.breland.bbagent.server.agent.persistence.ratelimit.AccountRateLimitUsageStore;
+import io.breland.bbagent.server.agent.persistence.ratelimit.AccountRateLimitUsageStore.AccountUsageRow;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.YearMonth;
 import java.time.ZoneOffset;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class MessageResponseRateLimitService {
@@ -28,15 +34,18 @@ public class MessageResponseRateLimitService {
   public static final String DEFAULT_PREMIUM_MONTHLY_LIMIT_DISPLAY = "5,000";
 
   private static final int ACCOUNT_BUCKET_PREFIX_LENGTH = 12;
+  private static final int MAX_ADMIN_USAGE_ROWS = 500;
 
-  private final RateLimitService rateLimitService;
+  private final LeasedRateLimiter leasedRateLimiter;
+  private final AccountRateLimitUsageStore usageStore;
   private final ModelAccessService modelAccessService;
   private final long standardMonthlyLimit;
   private final long premiumMonthlyLimit;
   private final Clock clock;
 
   public MessageResponseRateLimitService(
-      RateLimitService rateLimitService,
+      LeasedRateLimiter leasedRateLimiter,
+      AccountRateLimitUsageStore usageStore,
       ModelAccessService modelAccessService,
       @Value("${bbagent.rate-limit.message-responses.standard-monthly-limit:200}")
           long standardMonthlyLimit,
@@ -46,7 +55,8 @@ public class MessageResponseRateLimitService {
                   + "}")
           long premiumMonthlyLimit,
       @Nullable Clock clock) {
-    this.rateLimitService = rateLimitService;
+    this.leasedRateLimiter = leasedRateLimiter;
+    this.usageStore = usageStore;
     this.modelAccessService = modelAccessService;
     this.standardMonthlyLimit = standardMonthlyLimit;
     this.premiumMonthlyLimit = premiumMonthlyLimit;
@@ -93,25 +103,50 @@ public class MessageResponseRateLimitService {
     if (StringUtils.isBlank(access.accountId())) {
       return new RateLimitDecision(untrackedStatus(access), true, 1L);
     }
-    return rateLimitService.tryConsume(policyFor(access), 1L);
+    return leasedRateLimiter.tryConsume(policyFor(access));
   }
 
   public AdminRateLimitUsageResponse adminUsage(@Nullable String limitKey, int maxRows) {
+    return adminUsage(limitKey, maxRows, null);
+  }
+
+  /**
+   * One page of current-window usage, most exhausted accounts first. Pass the previous response's
+   * {@code next_cursor} to continue; it is null once the last page has been returned.
+   */
+  public AdminRateLimitUsageResponse adminUsage(
+      @Nullable String limitKey, int maxRows, @Nullable String cursor) {
     Instant now = clock.instant();
     String requestedLimitKey = StringUtils.defaultIfBlank(limitKey, LIMIT_KEY);
+    AdminRateLimitUsageResponse response =
+        new AdminRateLimitUsageResponse().generatedAt(offset(now)).limitKey(requestedLimitKey);
+    if (!LIMIT_KEY.equals(requestedLimitKey)) {
+      return response.usages(List.of());
+    }
+    UsageCursor after = UsageCursor.decode(cursor);
+    int size = Math.clamp(maxRows, 1, MAX_ADMIN_USAGE_ROWS);
     RateLimitWindow window = currentWindow();
-    List<AdminRateLimitUsage> usages =
-        LIMIT_KEY.equals(requestedLimitKey)
-            ? rateLimitService
-                .findUsageForWindow(LIMIT_KEY, SCOPE_TYPE_ACCOUNT, window.start(), maxRows)
-                .stream()
-                .map(this::toAdminUsage)
-                .toList()
-            : List.of();
-    return new AdminRateLimitUsageResponse()
-        .generatedAt(offset(now))
-        .limitKey(requestedLimitKey)
-        .usages(usages);
+    List<AccountUsageRow> rows =
+        usageStore.findPage(
+            LIMIT_KEY,
+            SCOPE_TYPE_ACCOUNT,
+            window.start(),
+            standardMonthlyLimit,
+            premiumMonthlyLimit,
+            after == null ? null : after.percentage(),
+            after == null ? null : after.scopeKey(),
+            size);
+    // Rows also count units leased out but not yet spent; this replica's are netted out.
+    Map<String, Long> unspent =
+        leasedRateLimiter.unspentByScopeKey(LIMIT_KEY, SCOPE_TYPE_ACCOUNT, window.start());
+    AccountUsageRow last = rows.size() < size ? null : rows.getLast();
+    return response
+        .usages(
+            rows.stream()
+                .map(row -> toAdminUsage(row, unspent.getOrDefault(row.scopeKey(), 0L)))
+                .toList())
+        .nextCursor(
+            last == null ? null : new UsageCursor(last.percentage(), last.scopeKey()).encode());
   }
 
   private MessageResponseLimitStatus statusFor(ModelAccessService.ModelAccess access) {
@@ -119,7 +154,7 @@ public class MessageResponseRateLimitService {
       return new MessageResponseLimitStatus(false, null, access.premium(), null);
     }
     return new MessageResponseLimitStatus(
-        true, access.accountId(), access.premium(), rateLimitService.check(policyFor(access)));
+        true, access.accountId(), access.premium(), leasedRateLimiter.check(policyFor(access)));
   }
 
   private RateLimitPolicy policyFor(ModelAccessService.ModelAccess access) {
@@ -141,28 +176,33 @@ public class MessageResponseRateLimitService {
         LIMIT_KEY, LIMIT_LABEL, SCOPE_TYPE_ACCOUNT, null, 0L, limit, window.start(), window.end());
   }
 
-  private AdminRateLimitUsage toAdminUsage(AppRateLimitUsageEntity usage) {
-    MessageResponseLimitStatus status = statusForAccountId(usage.getScopeKey());
-    RateLimitStatus limitStatus = status.rateLimit();
-    long limit = limitStatus == null ? 0L : limitStatus.limit();
-    long remaining = limitStatus == null ? 0L : limitStatus.remaining();
-    double percentage = limitStatus == null ? 0.0 : limitStatus.percentage();
+  private AdminRateLimitUsage toAdminUsage(AccountUsageRow row, long unspent) {
+    RateLimitStatus status =
+        new RateLimitStatus(
+            LIMIT_KEY,
+            LIMIT_LABEL,
+            SCOPE_TYPE_ACCOUNT,
+            row.scopeKey(),
+            Math.max(0L, row.used() - unspent),
+            row.limit(),
+            row.windowStart(),
+            row.windowEnd());
     return new AdminRateLimitUsage()
-        .limitKey(usage.getLimitKey())
+        .limitKey(LIMIT_KEY)
         .limitLabel(LIMIT_LABEL)
-        .scopeType(usage.getScopeType())
-        .scopeKey(usage.getScopeKey())
-        .accountId(usage.getScopeKey())
-        .accountBucket(accountBucket(usage.getScopeKey()))
-        .isPremium(status.premium())
-        .used(usage.getAmount())
-        .limit(limit)
-        .remaining(remaining)
-        .percentage(percentage)
-        .exhausted(limitStatus != null && limitStatus.exhausted())
-        .windowStart(offset(usage.getWindowStart()))
-        .windowEnd(offset(usage.getWindowEnd()))
-        .updatedAt(offset(usage.getUpdatedAt()));
+        .scopeType(SCOPE_TYPE_ACCOUNT)
+        .scopeKey(row.scopeKey())
+        .accountId(row.scopeKey())
+        .accountBucket(accountBucket(row.scopeKey()))
+        .isPremium(row.premium())
+        .used(status.used())
+        .limit(status.limit())
+        .remaining(status.remaining())
+        .percentage(status.percentage())
+        .exhausted(status.exhausted())
+        .windowStart(offset(row.windowStart()))
+        .windowEnd(offset(row.windowEnd()))
+        .updatedAt(offset(row.updatedAt()));
   }
 
   private RateLimitWindow currentWindow() {
@@ -185,4 +225,31 @@ public class MessageResponseRateLimitService {
       boolean tracked, String accountId, boolean premium, RateLimitStatus rateLimit) {}
 
   private record RateLimitWindow(Instant start, Instant end) {}
+
+  /** Last row of a usage page, as an opaque token: {@code <percentage>:<scope key>}, base64url. */
+  private record UsageCursor(double percentage, String scopeKey) {
+    static @Nullable UsageCursor decode(@Nullable String cursor) {
+      if (StringUtils.isBlank(cursor)) {
+        return null;
+      }
+      try {
+        String decoded =
+            new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(':');
+        if (separator <= 0 || separator == decoded.length() - 1) {
+          throw new IllegalArgumentException("missing separator");
+        }
+        return new UsageCursor(
+            Double.parseDouble(decoded.substring(0, separator)), decoded.substring(separator + 1));
+      } catch (IllegalArgumentException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid usage cursor", e);
+      }
+    }
+
+    String encode() {
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString((percentage + ":" + scopeKey).getBytes(StandardCharsets.UTF_8));
+    }
+  }
 }
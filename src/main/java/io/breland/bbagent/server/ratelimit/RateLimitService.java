@@ -3,15 +3,21 @@ package io.breland.bbagent.server.ratelimit;
 import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageEntity;
 import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageRepository;
 import java.time.Instant;
-import java.util.List;
+import java.util.Comparator;
+import java.util.Map;
 import java.util.UUID;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RateLimitService {
+  private static final Comparator<Map.Entry<RateLimitPolicy, Long>> RELEASE_ORDER =
+      Comparator.comparing((Map.Entry<RateLimitPolicy, Long> entry) -> entry.getKey().limitKey())
+          .thenComparing(entry -> entry.getKey().scopeType())
+          .thenComparing(entry -> entry.getKey().scopeKey())
+          .thenComparing(entry -> entry.getKey().windowStart());
+
   private final AppRateLimitUsageRepository repository;
 
   public RateLimitService(AppRateLimitUsageRepository repository) {
@@ -51,11 +57,33 @@ public class RateLimitService {
     return new RateLimitDecision(status(policy, usage.getAmount()), true, amount);
   }
 
-  @Transactional(readOnly = true)
-  public List<AppRateLimitUsageEntity> findUsageForWindow(
-      String limitKey, String scopeType, Instant windowStart, int maxRows) {
-    int size = Math.clamp(maxRows, 1, 500);
-    return repository.findUsageForWindow(limitKey, scopeType, windowStart, PageRequest.of(0, size));
+  /**
+   * Gives back units consumed ahead of use (see {@link LeasedRateLimiter}). Rows are locked in a
+   * fixed order so replicas releasing at the same time cannot deadlock.
+   */
+  @Transactional
+  public void release(Map<RateLimitPolicy, Long> unspent) {
+    Instant now = Instant.now();
+    unspent.entrySet().stream()
+        .filter(entry -> entry.getValue() != null && entry.getValue() > 0)
+        .sorted(RELEASE_ORDER)
+        .forEach(
+            entry -> {
+              RateLimitPolicy policy = entry.getKey();
+              validatePolicy(policy);
+              repository
+                  .findForUpdate(
+                      policy.limitKey(),
+                      policy.scopeType(),
+                      policy.scopeKey(),
+                      policy.windowStart())
+                  .ifPresent(
+                      usage -> {
+                        usage.setAmount(Math.max(0L, usage.getAmount() - entry.getValue()));
+                        usage.setUpdatedAt(now);
+                        repository.save(usage);
+                      });
+            });
   }
 
   private AppRateLimitUsageEntity createUsage(RateLimitPolicy policy) {
@@ -0,0 +1,9 @@
+CREATE TABLE agent_conversation_state_checkpoints (
+  chat_guid VARCHAR(512) PRIMARY KEY,
+  state_payload TEXT NOT NULL,
+  latest_processed_at TIMESTAMP WITH TIME ZONE,
+  checkpointed_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_agent_conversation_state_checkpoints_checkpointed
+  ON agent_conversation_state_checkpoints (checkpointed_at);
@@ -0,0 +1,68 @@
+CREATE TABLE agent_message_metrics_hourly (
+  bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+  user_key_hash VARCHAR(128) NOT NULL,
+  model_key VARCHAR(128) NOT NULL,
+  model_label VARCHAR(255) NOT NULL,
+  responses_model VARCHAR(255) NOT NULL,
+  is_premium BOOLEAN NOT NULL,
+  message_count BIGINT NOT NULL,
+  last_seen_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_agent_message_metrics_hourly_bucket
+    ON agent_message_metrics_hourly (bucket_start);
+
+CREATE TABLE agent_message_metrics_daily (
+  bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+  user_key_hash VARCHAR(128) NOT NULL,
+  model_key VARCHAR(128) NOT NULL,
+  model_label VARCHAR(255) NOT NULL,
+  responses_model VARCHAR(255) NOT NULL,
+  is_premium BOOLEAN NOT NULL,
+  message_count BIGINT NOT NULL,
+  last_seen_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_agent_message_metrics_daily_bucket
+    ON agent_message_metrics_daily (bucket_start);
+
+CREATE TABLE agent_tool_metrics_hourly (
+  bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+  user_key_hash VARCHAR(128) NOT NULL,
+  tool_name VARCHAR(128) NOT NULL,
+  tool_category VARCHAR(64) NOT NULL,
+  is_premium BOOLEAN NOT NULL,
+  call_count BIGINT NOT NULL,
+  successful_calls BIGINT NOT NULL,
+  failed_calls BIGINT NOT NULL,
+  total_duration_ms BIGINT NOT NULL,
+  last_used_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_agent_tool_metrics_hourly_bucket
+    ON agent_tool_metrics_hourly (bucket_start);
+
+CREATE TABLE agent_tool_metrics_daily (
+  bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+  user_key_hash VARCHAR(128) NOT NULL,
+  tool_name VARCHAR(128) NOT NULL,
+  tool_category VARCHAR(64) NOT NULL,
+  is_premium BOOLEAN NOT NULL,
+  call_count BIGINT NOT NULL,
+  successful_calls BIGINT NOT NULL,
+  failed_calls BIGINT NOT NULL,
+  total_duration_ms BIGINT NOT NULL,
+  last_used_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_agent_tool_metrics_daily_bucket
+    ON agent_tool_metrics_daily (bucket_start);
+
+CREATE TABLE agent_metric_rollup_state (
+  rollup_name VARCHAR(64) PRIMARY KEY,
+  rolled_until TIMESTAMP WITH TIME ZONE,
+  updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO agent_metric_rollup_state (rollup_name, rolled_until, updated_at)
+VALUES ('agent_metrics', NULL, CURRENT_TIMESTAMP);
@@ -0,0 +1,20 @@
+CREATE TABLE bluebubbles_webhook_inbox (
+  inbox_id VARCHAR(36) PRIMARY KEY,
+  chat_key VARCHAR(512) NOT NULL,
+  event_type VARCHAR(64) NOT NULL,
+  message_guid VARCHAR(255),
+  payload TEXT NOT NULL,
+  received_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  available_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  claimed_by VARCHAR(64),
+  claimed_until TIMESTAMP WITH TIME ZONE,
+  attempt_count INTEGER NOT NULL DEFAULT 0,
+  last_error_code VARCHAR(64),
+  updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_bluebubbles_webhook_inbox_chat_received
+  ON bluebubbles_webhook_inbox (chat_key, received_at, inbox_id);
+
+CREATE INDEX idx_bluebubbles_webhook_inbox_available
+  ON bluebubbles_webhook_inbox (available_at);
@@ -0,0 +1,5 @@
+ALTER TABLE agent_conversation_messages
+  ADD COLUMN ingested_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_agent_conversation_messages_ingested
+  ON agent_conversation_messages (ingested_at, message_guid);
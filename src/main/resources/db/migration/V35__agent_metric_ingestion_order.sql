@@ -0,0 +1,16 @@
+-- Existing rows keep a null ingested_at so the rollup does not treat them as late arrivals.
+ALTER TABLE agent_message_metrics ADD COLUMN ingested_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE agent_message_metrics ALTER COLUMN ingested_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_agent_message_metrics_ingested
+  ON agent_message_metrics (ingested_at);
+
+ALTER TABLE agent_tool_metrics ADD COLUMN ingested_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE agent_tool_metrics ALTER COLUMN ingested_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_agent_tool_metrics_ingested
+  ON agent_tool_metrics (ingested_at);
+
+ALTER TABLE agent_metric_rollup_state ADD COLUMN ingested_until TIMESTAMP WITH TIME ZONE;
+
+UPDATE agent_metric_rollup_state SET ingested_until = CURRENT_TIMESTAMP;
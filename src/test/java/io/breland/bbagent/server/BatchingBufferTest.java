@@ -0,0 +1,75 @@
+package io.breland.bbagent.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BatchingBufferTest {
+
+  @Test
+  void flushesFullBatchesWithoutWaitingForTheInterval() throws InterruptedException {
+    List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    BatchingBuffer<Integer> buffer =
+        new BatchingBuffer<>("test-buffer-", 10, 2, Duration.ofMinutes(1), batches::add);
+    try {
+      assertTrue(buffer.offer(1));
+      assertTrue(buffer.offer(2));
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (batches.isEmpty() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(List.of(List.of(1, 2)), batches);
+    } finally {
+      buffer.shutdown();
+    }
+  }
+
+  @Test
+  void shutdownFlushesWhatIsStillBuffered() {
+    List<Integer> flushed = new CopyOnWriteArrayList<>();
+    BatchingBuffer<Integer> buffer =
+        new BatchingBuffer<>("test-buffer-", 10, 5, Duration.ofMinutes(1), flushed::addAll);
+    buffer.offer(1);
+    buffer.offer(2);
+    buffer.offer(3);
+
+    buffer.shutdown();
+
+    assertFalse(buffer.isRunning());
+    assertEquals(List.of(1, 2, 3), flushed);
+  }
+
+  @Test
+  void keepsFlushingAfterAFailedBatch() throws InterruptedException {
+    List<Integer> flushed = new CopyOnWriteArrayList<>();
+    BatchingBuffer<Integer> buffer =
+        new BatchingBuffer<>(
+            "test-buffer-",
+            10,
+            1,
+            Duration.ofMinutes(1),
+            batch -> {
+              if (batch.contains(1)) {
+                throw new IllegalStateException("database unavailable");
+              }
+              flushed.addAll(batch);
+            });
+    try {
+      buffer.offer(1);
+      buffer.offer(2);
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (flushed.isEmpty() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(List.of(2), flushed);
+    } finally {
+      buffer.shutdown();
+    }
+  }
+}
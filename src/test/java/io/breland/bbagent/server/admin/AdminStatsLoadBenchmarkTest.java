@@ -0,0 +1,166 @@
+package io.breland.bbagent.server.admin;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.generated.model.AdminStatsResponse;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import io.breland.bbagent.server.metrics.AgentMetricRollupStore;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds 1M and 10M metric rows over 90 days and measures a 90-day dashboard read with nothing
+ * rolled up (every bucket grouped from raw rows) and after the rollup job has caught up. Reports
+ * latency, bytes allocated per read and heap in use afterwards. Runs against the test datasource;
+ * the 10M case needs a large heap on H2, so point {@code spring.datasource.url} at a local
+ * PostgreSQL for realistic numbers. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class AdminStatsLoadBenchmarkTest {
+  private static final Instant END = Instant.parse("2026-10-01T00:00:00Z");
+  private static final Duration RANGE = Duration.ofDays(90);
+  private static final int SENDERS = 5_000;
+  private static final int INSERT_BATCH_SIZE = 10_000;
+  private static final String[] MODELS = {"standard", "premium", "claude", "gemini"};
+
+  @Autowired private AdminStatsService adminStatsService;
+  @Autowired private AgentMetricRollupStore rollupStore;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void deleteBenchmarkMetrics() {
+    for (String table :
+        List.of(
+            "agent_message_metrics",
+            "agent_tool_metrics",
+            "agent_message_metrics_hourly",
+            "agent_message_metrics_daily",
+            "agent_tool_metrics_hourly",
+            "agent_tool_metrics_daily")) {
+      jdbcTemplate.update("delete from " + table);
+    }
+    jdbcTemplate.update("update agent_metric_rollup_state set rolled_until = null");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1_000_000, 10_000_000})
+  void dashboardLatencyAndHeap(int metricRows) {
+    seed(metricRows);
+    Instant from = END.minus(RANGE);
+    Instant to = END.plus(Duration.ofMinutes(30));
+
+    Benchmarks.Result raw =
+        Benchmarks.measure(
+            "raw-only rows=" + metricRows, 1, 5, () -> adminStatsService.getStatistics(from, to));
+    printHeap("raw-only rows=" + metricRows);
+
+    long rollupStartedAt = System.nanoTime();
+    rollupStore.rollUp(END, Integer.MAX_VALUE);
+    System.out.printf(
+        Locale.ROOT,
+        "[benchmark] %-48s took=%10.1fms%n",
+        "initial rollup rows=" + metricRows,
+        (System.nanoTime() - rollupStartedAt) / 1_000_000.0);
+
+    Benchmarks.Result rolledUp =
+        Benchmarks.measure(
+            "rolled-up rows=" + metricRows, 3, 20, () -> adminStatsService.getStatistics(from, to));
+    printHeap("rolled-up rows=" + metricRows);
+
+    AdminStatsResponse stats = adminStatsService.getStatistics(from, to);
+    assertThat(stats.getTotalMessages()).isEqualTo(metricRows);
+    assertThat(rolledUp.meanNanos()).isPositive();
+    assertThat(raw.meanNanos()).isPositive();
+  }
+
+  private void seed(int metricRows) {
+    long spacingNanos = RANGE.toNanos() / metricRows;
+    Instant start = END.minus(RANGE);
+    List<Object[]> messages = new ArrayList<>(INSERT_BATCH_SIZE);
+    List<Object[]> tools = new ArrayList<>(INSERT_BATCH_SIZE);
+    for (int index = 0; index < metricRows; index++) {
+      Instant occurredAt = start.plusNanos(spacingNanos * index);
+      String sender = "sender-" + (index * 7919L % SENDERS);
+      String model = MODELS[index % MODELS.length];
+      boolean premium = !"standard".equals(model);
+      messages.add(
+          new Object[] {
+            UUID.randomUUID().toString(),
+            offset(occurredAt),
+            sender,
+            model,
+            model,
+            premium,
+            offset(occurredAt)
+          });
+      if (index % 4 == 0) {
+        tools.add(
+            new Object[] {
+              UUID.randomUUID().toString(),
+              offset(occurredAt),
+              sender,
+              index % 8 == 0 ? "send_text" : "memory_get",
+              index % 10 != 0,
+              (long) (index % 500),
+              model,
+              premium,
+              offset(occurredAt)
+            });
+      }
+      if (messages.size() == INSERT_BATCH_SIZE) {
+        flush(messages, tools);
+      }
+    }
+    flush(messages, tools);
+  }
+
+  private void flush(List<Object[]> messages, List<Object[]> tools) {
+    if (!messages.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          """
+          insert into agent_message_metrics
+            (id, occurred_at, transport, user_key_hash, model_key, model_label, responses_model,
+             is_premium, workflow_mode, created_at)
+          values (?, ?, 'bluebubbles', ?, ?, ?, 'responses-model', ?, 'CADENCE', ?)
+          """,
+          messages);
+      messages.clear();
+    }
+    if (!tools.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          """
+          insert into agent_tool_metrics
+            (id, occurred_at, transport, user_key_hash, tool_name, tool_category, success,
+             duration_ms, model_key, model_label, responses_model, is_premium, workflow_mode,
+             created_at)
+          values (?, ?, 'bluebubbles', ?, ?, 'other', ?, ?, ?, 'Model', 'responses-model', ?,
+                  'CADENCE', ?)
+          """,
+          tools);
+      tools.clear();
+    }
+  }
+
+  private static void printHeap(String name) {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    System.out.printf(
+        Locale.ROOT,
+        "[benchmark] %-48s heap-used=%10.1fMB%n",
+        name,
+        (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0));
+  }
+}
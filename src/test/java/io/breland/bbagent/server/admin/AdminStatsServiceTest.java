@@ -10,11 +10,16 @@ import io.breland.bbagent.server.agent.account.AgentAccountResolver;
 import io.breland.bbagent.server.agent.canary.AgentCanaryService;
 import io.breland.bbagent.server.agent.model_picker.ModelAccessService;
 import io.breland.bbagent.server.agent.persistence.account.AgentAccountRepository;
+import io.breland.bbagent.server.agent.persistence.metrics.AgentMessageMetricEntity;
 import io.breland.bbagent.server.agent.persistence.metrics.AgentMessageMetricRepository;
+import io.breland.bbagent.server.agent.persistence.metrics.AgentToolMetricEntity;
 import io.breland.bbagent.server.agent.persistence.metrics.AgentToolMetricRepository;
+import io.breland.bbagent.server.metrics.AgentMetricRollupStore;
 import io.breland.bbagent.server.metrics.AgentToolMetricEvent;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -29,6 +34,7 @@ class AdminStatsServiceTest {
   @Autowired private AgentAccountResolver accountResolver;
   @Autowired private AgentAccountRepository accountRepository;
   @Autowired private io.breland.bbagent.server.agent.profile.AgentProfileService profileService;
+  @Autowired private AgentMetricRollupStore rollupStore;
 
   @Test
   void recordsAcceptedMessagesAndSummarizesByModelAndUser() {
@@ -175,6 +181,107 @@ class AdminStatsServiceTest {
     assertEquals(0L, stats.getTotalToolCalls());
   }
 
+  @Test
+  void rolledUpRangesMatchRawStatisticsAndIncludeTheUnrolledTail() {
+    metricRepository.deleteAll();
+    toolMetricRepository.deleteAll();
+    Instant start = Instant.parse("2026-09-01T09:30:00Z");
+    for (int index = 0; index < 60; index++) {
+      Instant occurredAt = start.plus(Duration.ofMinutes(75L * index));
+      String sender = "sender-" + (index % 4);
+      boolean premium = index % 3 == 0;
+      metricRepository.saveAndFlush(messageMetric(occurredAt, sender, premium));
+      toolMetricRepository.saveAndFlush(
+          toolMetric(occurredAt, sender, index % 2 == 0 ? "send_text" : "memory_get", premium));
+    }
+    Instant from = Instant.parse("2026-09-01T10:15:00Z");
+    Instant to = Instant.parse("2026-09-04T12:45:00Z");
+    AdminStatsResponse raw = adminStatsService.getStatistics(from, to);
+
+    rollupStore.rollUp(Instant.parse("2026-09-03T17:20:00Z"), 1_000);
+    AdminStatsResponse rolledUp = adminStatsService.getStatistics(from, to);
+
+    assertEquals(Instant.parse("2026-09-03T17:00:00Z"), rollupStore.rolledUntil().orElseThrow());
+    assertEquals(raw, rolledUp);
+    assertEquals(59L, rolledUp.getTotalMessages());
+    assertEquals(4L, rolledUp.getActiveUsers());
+    assertEquals(59L, rolledUp.getTotalToolCalls());
+    assertEquals(4, rolledUp.getTimeline().size());
+
+    AdminStatsResponse hourly =
+        adminStatsService.getStatistics(
+            Instant.parse("2026-09-02T06:00:00Z"), Instant.parse("2026-09-03T20:00:00Z"));
+    assertEquals(38, hourly.getTimeline().size());
+    assertEquals(
+        hourly.getTotalMessages(),
+        hourly.getTimeline().stream().mapToLong(bucket -> bucket.getMessageCount()).sum());
+  }
+
+  @Test
+  void rollsHoursAgainWhenRowsArriveAfterTheyClosed() {
+    metricRepository.deleteAll();
+    toolMetricRepository.deleteAll();
+    Instant start = Instant.parse("2026-09-01T09:30:00Z");
+    for (int index = 0; index < 10; index++) {
+      Instant occurredAt = start.plus(Duration.ofHours(index));
+      metricRepository.saveAndFlush(messageMetric(occurredAt, "sender-1", false));
+      toolMetricRepository.saveAndFlush(toolMetric(occurredAt, "sender-1", "send_text", true));
+    }
+    Instant from = Instant.parse("2026-09-01T00:00:00Z");
+    Instant to = Instant.parse("2026-09-04T00:00:00Z");
+    rollupStore.rollUp(Instant.parse("2026-09-04T00:20:00Z"), 1_000);
+    assertEquals(10L, adminStatsService.getStatistics(from, to).getTotalMessages());
+
+    Instant lateOccurredAt = Instant.parse("2026-09-01T12:10:00Z");
+    metricRepository.saveAndFlush(messageMetric(lateOccurredAt, "sender-2", false));
+    toolMetricRepository.saveAndFlush(toolMetric(lateOccurredAt, "sender-2", "send_text", true));
+    rollupStore.rollUp(Instant.now().plusSeconds(1), 1);
+
+    AdminStatsResponse stats = adminStatsService.getStatistics(from, to);
+    assertEquals(11L, stats.getTotalMessages());
+    assertEquals(2L, stats.getActiveUsers());
+    assertEquals(11L, stats.getTotalToolCalls());
+  }
+
+  private AgentMessageMetricEntity messageMetric(
+      Instant occurredAt, String sender, boolean premium) {
+    return new AgentMessageMetricEntity(
+        UUID.randomUUID().toString(),
+        occurredAt,
+        IncomingMessage.TRANSPORT_BLUEBUBBLES,
+        null,
+        null,
+        sender,
+        premium ? "premium" : "standard",
+        premium ? "Premium" : "Standard",
+        "responses-model",
+        premium,
+        "CADENCE",
+        occurredAt);
+  }
+
+  private AgentToolMetricEntity toolMetric(
+      Instant occurredAt, String sender, String toolName, boolean success) {
+    return new AgentToolMetricEntity(
+        UUID.randomUUID().toString(),
+        occurredAt,
+        IncomingMessage.TRANSPORT_BLUEBUBBLES,
+        null,
+        null,
+        sender,
+        toolName,
+        "other",
+        success,
+        success ? null : "tool_error",
+        40L,
+        "standard",
+        "Standard",
+        "responses-model",
+        false,
+        "CADENCE",
+        occurredAt);
+  }
+
   private IncomingMessage incomingMessage(String chatGuid, String messageGuid, String sender) {
     return new IncomingMessage(
         chatGuid,
@@ -0,0 +1,119 @@
+package io.breland.bbagent.server.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AttachmentCacheTest {
+  @TempDir Path tempDir;
+
+  @Test
+  void coalescesConcurrentDownloadsOfTheSameAttachment() throws Exception {
+    AttachmentCache cache = new AttachmentCache(tempDir, 1024 * 1024, null);
+    AtomicInteger downloads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    AttachmentCache.Downloader downloader =
+        (guid, directory) -> {
+          downloads.incrementAndGet();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return write(directory, "photo-bytes");
+        };
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Optional<AttachmentCache.CachedAttachment>>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> cache.get("att-1", downloader)));
+      }
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<Optional<AttachmentCache.CachedAttachment>> result : results) {
+        assertEquals(
+            base64("photo-bytes"), result.get(5, TimeUnit.SECONDS).orElseThrow().base64());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, downloads.get());
+    assertTrue(cache.get("att-1", downloader).isPresent());
+    assertEquals(1, downloads.get());
+  }
+
+  @Test
+  void storesIdenticalContentOnceAndRemovesDownloadTempFiles() throws Exception {
+    AttachmentCache cache = new AttachmentCache(tempDir, 1024 * 1024, null);
+
+    AttachmentCache.CachedAttachment first =
+        cache.get("att-1", (guid, directory) -> write(directory, "same")).orElseThrow();
+    AttachmentCache.CachedAttachment second =
+        cache.get("att-2", (guid, directory) -> write(directory, "same")).orElseThrow();
+
+    assertEquals(first.contentHash(), second.contentHash());
+    assertEquals(4L, cache.sizeBytes());
+    try (var files = Files.list(tempDir)) {
+      assertEquals(List.of(first.path()), files.toList());
+    }
+    assertEquals("data:image/png;base64," + base64("same"), first.dataUrl("image/png"));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedContentWhenOverBudget() throws Exception {
+    AttachmentCache cache = new AttachmentCache(tempDir, 10, null);
+
+    AttachmentCache.CachedAttachment first =
+        cache.get("att-1", (guid, directory) -> write(directory, "aaaaaa")).orElseThrow();
+    cache.get("att-2", (guid, directory) -> write(directory, "bbbbbb")).orElseThrow();
+
+    assertEquals(6L, cache.sizeBytes());
+    assertFalse(Files.exists(first.path()));
+    AtomicInteger downloads = new AtomicInteger();
+    cache.get(
+        "att-1",
+        (guid, directory) -> {
+          downloads.incrementAndGet();
+          return write(directory, "aaaaaa");
+        });
+    assertEquals(1, downloads.get());
+  }
+
+  @Test
+  void failedDownloadIsNotCached() {
+    AttachmentCache cache = new AttachmentCache(tempDir, 1024, null);
+
+    assertTrue(cache.get("att-1", (guid, directory) -> null).isEmpty());
+    assertEquals(
+        base64("later"),
+        cache.get("att-1", (guid, directory) -> write(directory, "later")).orElseThrow().base64());
+  }
+
+  private static Path write(Path directory, String content) throws java.io.IOException {
+    Path path = Files.createTempFile(directory, "download-", ".bin");
+    Files.writeString(path, content, StandardCharsets.UTF_8);
+    return path;
+  }
+
+  private static String base64(String content) {
+    return Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -372,6 +372,31 @@ class BBHttpClientWrapperTest {
     assertThat(request.getOffset()).isZero();
   }
 
+  @Test
+  void searchConversationHistorySendsTheRequestedDateRange() {
+    V1MessageApi messageApi = Mockito.mock(V1MessageApi.class);
+    BBHttpClientWrapper wrapper =
+        new BBHttpClientWrapper("pw", messageApi, Mockito.mock(V1ContactApi.class));
+    when(messageApi.apiV1MessageQueryPost(Mockito.eq("pw"), Mockito.any()))
+        .thenReturn(
+            Mono.just(
+                ApiV1MessageQueryPost200Response.builder()
+                    .status(200)
+                    .message("Successfully queried messages")
+                    .data(List.of())
+                    .build()));
+    Instant before = Instant.parse("2026-05-15T00:00:00Z");
+
+    wrapper.searchConversationHistory("group-guid", "Wordle", null, null, null, before);
+
+    ArgumentCaptor<ApiV1MessageQueryPostRequest> requestCaptor =
+        ArgumentCaptor.forClass(ApiV1MessageQueryPostRequest.class);
+    verify(messageApi).apiV1MessageQueryPost(Mockito.eq("pw"), requestCaptor.capture());
+    ApiV1MessageQueryPostRequest request = requestCaptor.getValue();
+    assertThat(request.getBefore()).isEqualTo(before.getEpochSecond());
+    assertThat(request.getAfter()).isEqualTo(before.minus(Duration.ofDays(30)).getEpochSecond());
+  }
+
   private static BBHttpClientWrapper wrapper(V1ICloudApi icloudApi) {
     return new BBHttpClientWrapper(
         "pw", Mockito.mock(V1MessageApi.class), Mockito.mock(V1ContactApi.class), icloudApi);
@@ -813,7 +813,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
     IncomingMessage incoming =
         incomingMessage("iMessage;+;chat-llm-metric", "msg-llm-metric", "hello", 1_000L);
 
@@ -1037,7 +1038,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
     String chatGuid = "iMessage;+;chat-cadence-coalesce";
 
     agent.handleIncomingMessage(incomingMessage(chatGuid, "msg-cadence-1", "first", 1_000L));
@@ -1238,7 +1240,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
 
     IncomingMessage incoming =
         new IncomingMessage(
@@ -1316,7 +1319,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
 
     IncomingMessage incoming =
         incomingMessage("iMessage;+;chat-tools", "msg-tools", "what tools are available?", 1_000L);
@@ -1361,7 +1365,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
 
     IncomingMessage incoming =
         incomingMessage("iMessage;+;chat-tool", "msg-tool", "run a retired tool", 1_000L);
@@ -1404,7 +1409,8 @@ class BBMessageAgentTest {
             null,
             null,
             null,
-            new ModelPicker());
+            new ModelPicker(),
+            null);
     IncomingMessage message =
         incomingMessage("iMessage;+;chat-tool-metrics", "msg-tool-metrics", "remember my name", 1L);
 
@@ -1614,7 +1620,8 @@ class BBMessageAgentTest {
         null,
         null,
         null,
-        new ModelPicker());
+        new ModelPicker(),
+        null);
   }
 
   private static BBMessageAgent newAgent(
@@ -1653,7 +1660,8 @@ class BBMessageAgentTest {
         null,
         null,
         null,
-        new ModelPicker());
+        new ModelPicker(),
+        null);
   }
 
   private static BBMessageAgent newAgent(
@@ -1681,7 +1689,8 @@ class BBMessageAgentTest {
         null,
         null,
         null,
-        new ModelPicker());
+        new ModelPicker(),
+        null);
   }
 
   private static BBMessageAgent newAgent(
@@ -1706,7 +1715,8 @@ class BBMessageAgentTest {
         null,
         null,
         null,
-        modelPicker);
+        modelPicker,
+        null);
   }
 
   private static class StubReverseLocationLookup implements ReverseLocationLookup {
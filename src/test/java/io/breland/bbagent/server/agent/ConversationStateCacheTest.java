@@ -0,0 +1,207 @@
+package io.breland.bbagent.server.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.breland.bbagent.server.agent.persistence.ConversationStateCheckpointStore;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ConversationStateCacheTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+  @Test
+  void evictsLeastRecentlyUsedStateAndCheckpointsIt() {
+    ConversationStateCheckpointStore store = mock(ConversationStateCheckpointStore.class);
+    MutableClock clock = new MutableClock(NOW);
+    ConversationStateCache cache =
+        new ConversationStateCache(
+            store, null, 2, Duration.ofHours(2), Duration.ofHours(24), clock);
+
+    cache.put("chat-a", new ConversationState());
+    clock.advance(Duration.ofSeconds(1));
+    cache.put("chat-b", new ConversationState());
+    clock.advance(Duration.ofSeconds(1));
+    assertNotNull(cache.get("chat-a"));
+    clock.advance(Duration.ofSeconds(1));
+    cache.put("chat-c", new ConversationState());
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.containsKey("chat-a"));
+    assertFalse(cache.containsKey("chat-b"));
+    verify(store).save(eq("chat-b"), any(ConversationState.Snapshot.class), eq(clock.instant()));
+  }
+
+  @Test
+  void rehydratesFromCheckpointBeforeCallingTransportLoader() {
+    ConversationStateCheckpointStore store = mock(ConversationStateCheckpointStore.class);
+    ConversationState previous = new ConversationState();
+    previous.recordIncomingTurnIfAbsent(incomingMessage("msg-1", "hello"));
+    when(store.take(eq("chat-a"), any(Instant.class))).thenReturn(Optional.of(previous.snapshot()));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ConversationStateCache cache =
+        new ConversationStateCache(
+            store,
+            new OperationalMetricsService(registry),
+            10,
+            Duration.ofHours(2),
+            Duration.ofHours(24),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+    AtomicInteger transportLoads = new AtomicInteger();
+
+    ConversationState restored =
+        cache.computeIfAbsent(
+            "chat-a",
+            key -> {
+              transportLoads.incrementAndGet();
+              return new ConversationState();
+            });
+
+    assertEquals(0, transportLoads.get());
+    assertEquals(1, restored.history().size());
+    assertTrue(restored.hasSeenIncomingMessage(incomingMessage("msg-1", "hello")));
+    assertSame(restored, cache.computeIfAbsent("chat-a", key -> new ConversationState()));
+    assertEquals(
+        1.0,
+        registry
+            .get("bbagent.conversation.state.cache.lookup.count")
+            .tag("result", "miss")
+            .counter()
+            .count());
+    assertEquals(
+        1L,
+        registry
+            .get("bbagent.conversation.state.rehydrate.duration")
+            .tag("source", "checkpoint")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void idleSweepEvictsOnlyIdleStates() {
+    ConversationStateCheckpointStore store = mock(ConversationStateCheckpointStore.class);
+    MutableClock clock = new MutableClock(NOW);
+    ConversationStateCache cache =
+        new ConversationStateCache(
+            store, null, 10, Duration.ofMinutes(30), Duration.ofHours(24), clock);
+    cache.put("chat-idle", new ConversationState());
+    clock.advance(Duration.ofMinutes(20));
+    cache.put("chat-active", new ConversationState());
+    clock.advance(Duration.ofMinutes(15));
+
+    cache.evictIdleConversations();
+
+    assertFalse(cache.containsKey("chat-idle"));
+    assertTrue(cache.containsKey("chat-active"));
+    verify(store).save(eq("chat-idle"), any(ConversationState.Snapshot.class), any());
+    verify(store, never()).save(eq("chat-active"), any(ConversationState.Snapshot.class), any());
+    verify(store).deleteCheckpointedBefore(clock.instant().minus(Duration.ofHours(24)));
+  }
+
+  @Test
+  void keepsStatesWithWorkflowsInFlightUntilTheyFinish() {
+    ConversationStateCheckpointStore store = mock(ConversationStateCheckpointStore.class);
+    MutableClock clock = new MutableClock(NOW);
+    ConversationStateCache cache =
+        new ConversationStateCache(
+            store, null, 1, Duration.ofMinutes(30), Duration.ofHours(24), clock);
+    ConversationState running = new ConversationState();
+    running.workflowAccepted(clock.instant());
+    cache.put("chat-running", running);
+    clock.advance(Duration.ofSeconds(1));
+    cache.put("chat-b", new ConversationState());
+
+    assertTrue(cache.containsKey("chat-running"));
+    assertTrue(cache.containsKey("chat-b"));
+    assertEquals(2, cache.size());
+
+    running.workflowFinished();
+    clock.advance(Duration.ofSeconds(1));
+    cache.put("chat-c", new ConversationState());
+
+    assertFalse(cache.containsKey("chat-running"));
+    assertFalse(cache.containsKey("chat-b"));
+    assertTrue(cache.containsKey("chat-c"));
+    verify(store).save(eq("chat-running"), any(ConversationState.Snapshot.class), any());
+  }
+
+  @Test
+  void loadingAStateNeverEvictsItWhenOlderStatesArePinned() {
+    ConversationStateCache cache =
+        new ConversationStateCache(
+            null,
+            null,
+            1,
+            Duration.ofMinutes(30),
+            Duration.ofHours(24),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+    ConversationState running = new ConversationState();
+    running.workflowAccepted(NOW);
+    cache.put("chat-running", running);
+
+    ConversationState loaded = cache.computeIfAbsent("chat-b", chatGuid -> new ConversationState());
+
+    assertSame(loaded, cache.get("chat-b"));
+    assertTrue(cache.containsKey("chat-running"));
+  }
+
+  private static IncomingMessage incomingMessage(String messageGuid, String text) {
+    return new IncomingMessage(
+        "iMessage;+;chat-a",
+        messageGuid,
+        null,
+        text,
+        false,
+        "iMessage",
+        "Alice",
+        false,
+        NOW.minusSeconds(60),
+        List.of(),
+        false);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      this.instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
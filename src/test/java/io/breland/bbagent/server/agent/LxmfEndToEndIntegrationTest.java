@@ -298,7 +298,8 @@ class LxmfEndToEndIntegrationTest {
               null,
               null,
               null,
-              new ModelPicker());
+              new ModelPicker(),
+              null);
     }
 
     private void enqueueModelResponse(Response response) {
@@ -0,0 +1,103 @@
+package io.breland.bbagent.server.agent.account;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.account.AgentAccountResolver.ResolvedAccount;
+import io.breland.bbagent.server.agent.persistence.account.AgentAccountEntity;
+import io.breland.bbagent.server.agent.persistence.account.AgentAccountIdentityEntity;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AgentAccountCacheTest {
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-10-01T12:00:00Z"));
+  private final AgentAccountCache cache =
+      new AgentAccountCache(null, Duration.ofSeconds(30), clock);
+
+  @Test
+  void servesCopiesByIdentityAndAccountId() {
+    cache.put(resolved("account-1", "+12125550199"), cache.version());
+
+    ResolvedAccount byIdentity =
+        cache.getByIdentity("test", "imessage_phone", "+12125550199").orElseThrow();
+    byIdentity.account().setPremium(true);
+    byIdentity.identities().getFirst().setAccountId("someone-else");
+
+    ResolvedAccount byAccountId = cache.getByAccountId("test", "account-1").orElseThrow();
+    assertThat(byAccountId.account().isPremium()).isFalse();
+    assertThat(byAccountId.identities().getFirst().getAccountId()).isEqualTo("account-1");
+    assertThat(cache.getByIdentity("test", "imessage_phone", "+12125550100")).isEmpty();
+  }
+
+  @Test
+  void invalidationRetiresEveryEntry() {
+    cache.put(resolved("account-1", "+12125550199"), cache.version());
+
+    cache.invalidateAll();
+
+    assertThat(cache.getByAccountId("test", "account-1")).isEmpty();
+    assertThat(cache.getByIdentity("test", "imessage_phone", "+12125550199")).isEmpty();
+  }
+
+  @Test
+  void skipsAccountsLoadedBeforeAnInvalidation() {
+    long loadedAt = cache.version();
+    cache.invalidateAll();
+
+    cache.put(resolved("account-1", "+12125550199"), loadedAt);
+
+    assertThat(cache.getByAccountId("test", "account-1")).isEmpty();
+  }
+
+  @Test
+  void entriesExpireAfterTheTtl() {
+    cache.put(resolved("account-1", "+12125550199"), cache.version());
+
+    clock.advance(Duration.ofSeconds(29));
+    assertThat(cache.getByAccountId("test", "account-1")).isPresent();
+
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(cache.getByAccountId("test", "account-1")).isEmpty();
+  }
+
+  private static ResolvedAccount resolved(String accountId, String phone) {
+    AgentAccountEntity account = new AgentAccountEntity();
+    account.setAccountId(accountId);
+    AgentAccountIdentityEntity identity = new AgentAccountIdentityEntity();
+    identity.setAccountId(accountId);
+    identity.setIdentityType("imessage_phone");
+    identity.setNormalizedIdentifier(phone);
+    return new ResolvedAccount(account, List.of(identity));
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
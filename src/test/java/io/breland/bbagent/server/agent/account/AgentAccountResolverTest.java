@@ -257,6 +257,33 @@ class AgentAccountResolverTest {
         rowCount("group_catchup_deliveries", "conversation_id", conversationId, targetAccountId));
   }
 
+  @Test
+  void cachedResolutionSeesAccountChangesSavedAfterIt() {
+    accountRepository.deleteAll();
+    String accountId =
+        accountResolver
+            .resolveOrCreate(IncomingMessage.TRANSPORT_BLUEBUBBLES, "+1 (212) 555-0142")
+            .orElseThrow()
+            .account()
+            .getAccountId();
+    assertTrue(
+        accountResolver
+            .resolve(IncomingMessage.TRANSPORT_BLUEBUBBLES, "+1 (212) 555-0142")
+            .isPresent());
+
+    var account = accountRepository.findById(accountId).orElseThrow();
+    account.setPremium(true);
+    accountRepository.save(account);
+
+    assertTrue(
+        accountResolver
+            .resolve(IncomingMessage.TRANSPORT_BLUEBUBBLES, "+1 (212) 555-0142")
+            .orElseThrow()
+            .account()
+            .isPremium());
+    assertTrue(accountResolver.resolveById(accountId).orElseThrow().account().isPremium());
+  }
+
   private int rowCount(String table, String idColumn, String id, String accountId) {
     Integer count =
         jdbcTemplate.queryForObject(
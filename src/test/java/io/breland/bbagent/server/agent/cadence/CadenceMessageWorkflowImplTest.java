@@ -1,7 +1,11 @@
 package io.breland.bbagent.server.agent.cadence;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -12,11 +16,13 @@ import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.cadence.models.CadenceMessageWorkflowRequest;
 import io.breland.bbagent.server.agent.cadence.models.CadenceResponseBundle;
 import io.breland.bbagent.server.agent.cadence.models.CadenceToolCall;
+import io.breland.bbagent.server.agent.cadence.models.ConversationInputDelta;
 import io.breland.bbagent.server.agent.cadence.models.ImageSendResult;
 import java.time.Instant;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 
 class CadenceMessageWorkflowImplTest {
@@ -53,7 +59,8 @@ class CadenceMessageWorkflowImplTest {
   @Test
   void typingWrapsTheCompleteSuccessfulTurn() {
     CadenceResponseBundle bundle = finalBundle("done");
-    when(activities.createResponseBundle("[]", message, context)).thenReturn(bundle);
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
+        .thenReturn(bundle);
     when(activities.handleGeneratedImages("{}", "done", message, context))
         .thenReturn(new ImageSendResult(false, false));
     when(activities.sendThreadAwareText(message, "done", context)).thenReturn(true);
@@ -62,7 +69,7 @@ class CadenceMessageWorkflowImplTest {
 
     InOrder order = inOrder(activities);
     order.verify(activities).startTyping(message, context);
-    order.verify(activities).createResponseBundle("[]", message, context);
+    order.verify(activities).createResponseBundleFromDelta(anyDelta(), eq(message), eq(context));
     order.verify(activities).handleGeneratedImages("{}", "done", message, context);
     order.verify(activities).sendThreadAwareText(message, "done", context);
     order.verify(activities).finalizeWorkflow(message, context, true);
@@ -76,7 +83,7 @@ class CadenceMessageWorkflowImplTest {
     CadenceToolCall toolCall = new CadenceToolCall("call-1", "lookup", "{}");
     CadenceResponseBundle toolBundle = new CadenceResponseBundle("{}", "", "[]", List.of(toolCall));
     CadenceResponseBundle finalBundle = finalBundle("finished");
-    when(activities.createResponseBundle("[]", message, context))
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
         .thenReturn(toolBundle, finalBundle);
     when(activities.executeToolCallsJson(List.of(toolCall), message, context)).thenReturn("[]");
     when(activities.handleGeneratedImages("{}", "finished", message, context))
@@ -87,9 +94,9 @@ class CadenceMessageWorkflowImplTest {
 
     InOrder order = inOrder(activities);
     order.verify(activities).startTyping(message, context);
-    order.verify(activities).createResponseBundle("[]", message, context);
+    order.verify(activities).createResponseBundleFromDelta(anyDelta(), eq(message), eq(context));
     order.verify(activities).executeToolCallsJson(List.of(toolCall), message, context);
-    order.verify(activities).createResponseBundle("[]", message, context);
+    order.verify(activities).createResponseBundleFromDelta(anyDelta(), eq(message), eq(context));
     order.verify(activities).handleGeneratedImages("{}", "finished", message, context);
     order.verify(activities).sendThreadAwareText(message, "finished", context);
     order.verify(activities).finalizeWorkflow(message, context, true);
@@ -100,7 +107,7 @@ class CadenceMessageWorkflowImplTest {
 
   @Test
   void typingStopsWhenModelActivityFails() {
-    when(activities.createResponseBundle("[]", message, context))
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
         .thenThrow(new IllegalStateException("model unavailable"));
 
     assertThatThrownBy(() -> new CadenceMessageWorkflowImpl(activities).run(request))
@@ -109,14 +116,15 @@ class CadenceMessageWorkflowImplTest {
 
     InOrder order = inOrder(activities);
     order.verify(activities).startTyping(message, context);
-    order.verify(activities).createResponseBundle("[]", message, context);
+    order.verify(activities).createResponseBundleFromDelta(anyDelta(), eq(message), eq(context));
     order.verify(activities).stopTyping(message, context);
   }
 
   @Test
   void typingActivityFailuresDoNotFailTheTurn() {
     CadenceResponseBundle bundle = finalBundle("done");
-    when(activities.createResponseBundle("[]", message, context)).thenReturn(bundle);
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
+        .thenReturn(bundle);
     when(activities.handleGeneratedImages("{}", "done", message, context))
         .thenReturn(new ImageSendResult(false, false));
     when(activities.sendThreadAwareText(message, "done", context)).thenReturn(true);
@@ -129,11 +137,97 @@ class CadenceMessageWorkflowImplTest {
 
     new CadenceMessageWorkflowImpl(activities).run(request);
 
-    verify(activities).createResponseBundle("[]", message, context);
+    verify(activities).createResponseBundleFromDelta(anyDelta(), eq(message), eq(context));
     verify(activities).sendThreadAwareText(message, "done", context);
     verify(activities).finalizeWorkflow(message, context, true);
   }
 
+  @Test
+  void toolLoopsSendOnlyTheItemsAddedSinceThePreviousModelCall() {
+    when(activities.buildConversationInputJson(List.of(), message))
+        .thenReturn("[{\"role\":\"user\",\"content\":\"hello\"}]");
+    CadenceToolCall toolCall = new CadenceToolCall("call-1", "lookup", "{}");
+    CadenceResponseBundle toolBundle =
+        new CadenceResponseBundle("{}", "", "[{\"type\":\"context\"}]", List.of(toolCall));
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
+        .thenReturn(toolBundle, finalBundle("finished"));
+    when(activities.executeToolCallsJson(List.of(toolCall), message, context))
+        .thenReturn("[{\"type\":\"output\"}]");
+    when(activities.handleGeneratedImages("{}", "finished", message, context))
+        .thenReturn(new ImageSendResult(false, false));
+    when(activities.sendThreadAwareText(message, "finished", context)).thenReturn(true);
+
+    new CadenceMessageWorkflowImpl(activities, () -> true, () -> "run-id").run(request);
+
+    ArgumentCaptor<ConversationInputDelta> deltas =
+        ArgumentCaptor.forClass(ConversationInputDelta.class);
+    verify(activities, times(2))
+        .createResponseBundleFromDelta(deltas.capture(), eq(message), eq(context));
+    assertThat(deltas.getAllValues())
+        .containsExactly(
+            new ConversationInputDelta(
+                "workflow-id",
+                "run-id",
+                0,
+                "[{\"role\":\"user\",\"content\":\"hello\"}]",
+                false),
+            new ConversationInputDelta(
+                "workflow-id",
+                "run-id",
+                1,
+                "[{\"type\":\"context\"},{\"type\":\"output\"}]",
+                false));
+    verify(activities, never()).createResponseBundle(any(), any(), any());
+  }
+
+  @Test
+  void missingActivityInputIsResentAsASnapshot() {
+    CadenceToolCall toolCall = new CadenceToolCall("call-1", "lookup", "{}");
+    CadenceResponseBundle toolBundle =
+        new CadenceResponseBundle("{}", "", "[{\"type\":\"context\"}]", List.of(toolCall));
+    when(activities.createResponseBundleFromDelta(anyDelta(), eq(message), eq(context)))
+        .thenReturn(toolBundle, CadenceResponseBundle.missingInput(), finalBundle("finished"));
+    when(activities.executeToolCallsJson(List.of(toolCall), message, context)).thenReturn("[]");
+    when(activities.handleGeneratedImages("{}", "finished", message, context))
+        .thenReturn(new ImageSendResult(false, false));
+    when(activities.sendThreadAwareText(message, "finished", context)).thenReturn(true);
+
+    new CadenceMessageWorkflowImpl(activities).run(request);
+
+    ArgumentCaptor<ConversationInputDelta> deltas =
+        ArgumentCaptor.forClass(ConversationInputDelta.class);
+    verify(activities, times(3))
+        .createResponseBundleFromDelta(deltas.capture(), eq(message), eq(context));
+    assertThat(deltas.getAllValues().get(2))
+        .isEqualTo(
+            new ConversationInputDelta("workflow-id", null, 1, "[{\"type\":\"context\"}]", true));
+    verify(activities).sendThreadAwareText(message, "finished", context);
+  }
+
+  @Test
+  void workflowsStartedBeforeDeltasKeepSendingTheMergedInput() {
+    CadenceToolCall toolCall = new CadenceToolCall("call-1", "lookup", "{}");
+    CadenceResponseBundle toolBundle =
+        new CadenceResponseBundle("{}", "", "[{\"type\":\"context\"}]", List.of(toolCall));
+    when(activities.createResponseBundle("[]", message, context)).thenReturn(toolBundle);
+    when(activities.createResponseBundle("[{\"type\":\"context\"}]", message, context))
+        .thenReturn(finalBundle("finished"));
+    when(activities.executeToolCallsJson(List.of(toolCall), message, context)).thenReturn("[]");
+    when(activities.handleGeneratedImages("{}", "finished", message, context))
+        .thenReturn(new ImageSendResult(false, false));
+    when(activities.sendThreadAwareText(message, "finished", context)).thenReturn(true);
+
+    new CadenceMessageWorkflowImpl(activities, () -> false).run(request);
+
+    verify(activities).createResponseBundle("[{\"type\":\"context\"}]", message, context);
+    verify(activities, never()).createResponseBundleFromDelta(any(), any(), any());
+    verify(activities).sendThreadAwareText(message, "finished", context);
+  }
+
+  private static ConversationInputDelta anyDelta() {
+    return any(ConversationInputDelta.class);
+  }
+
   private static CadenceResponseBundle finalBundle(String text) {
     return new CadenceResponseBundle("{}", text, "[]", List.of());
   }
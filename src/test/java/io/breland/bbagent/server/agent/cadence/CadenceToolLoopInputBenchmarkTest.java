@@ -0,0 +1,202 @@
+package io.breland.bbagent.server.agent.cadence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.core.JsonValue;
+import com.openai.models.responses.ResponseInputItem;
+import io.breland.bbagent.server.agent.AgentWorkflowContext;
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.cadence.models.CadenceMessageWorkflowRequest;
+import io.breland.bbagent.server.agent.cadence.models.CadenceResponseBundle;
+import io.breland.bbagent.server.agent.cadence.models.CadenceToolCall;
+import io.breland.bbagent.server.agent.cadence.models.ConversationInputDelta;
+import io.breland.bbagent.server.agent.cadence.models.ImageSendResult;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Runs a workflow turn with 1, 10 and 50 tool loops against fake activities and compares resending
+ * the merged input on every model call with sending deltas to {@link ConversationInputStore}.
+ * Reports the model-input bytes recorded in workflow history and the per-turn latency of
+ * serializing, merging and parsing that input. Run with {@code ./gradlew benchmark}.
+ */
+@Tag(Benchmarks.TAG)
+class CadenceToolLoopInputBenchmarkTest {
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final int HISTORY_TURNS = 40;
+  private static final String TOOL_OUTPUT = "x".repeat(2_048);
+
+  private static final IncomingMessage MESSAGE =
+      new IncomingMessage(
+          "any;-;+15555550123",
+          "message-guid",
+          null,
+          "hello",
+          false,
+          "iMessage",
+          "+15555550123",
+          false,
+          Instant.parse("2026-10-01T12:00:00Z"),
+          List.of(),
+          false);
+  private static final AgentWorkflowContext CONTEXT =
+      new AgentWorkflowContext(
+          "workflow-id",
+          MESSAGE.chatGuid(),
+          MESSAGE.messageGuid(),
+          Instant.parse("2026-10-01T12:00:01Z"));
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 10, 50})
+  void historySizeAndLatencyPerToolLoop(int toolLoops) throws Exception {
+    int iterations = toolLoops >= 50 ? 20 : 100;
+    for (boolean deltas : new boolean[] {false, true}) {
+      FakeActivities fake = new FakeActivities(toolLoops);
+      CadenceMessageWorkflowImpl workflow =
+          new CadenceMessageWorkflowImpl(fake.activities, () -> deltas);
+      CadenceMessageWorkflowRequest request =
+          new CadenceMessageWorkflowRequest(CONTEXT, MESSAGE, null);
+
+      Benchmarks.Result result =
+          Benchmarks.measure(
+              (deltas ? "input-deltas" : "merged-input") + " loops=" + toolLoops,
+              iterations / 5,
+              iterations,
+              () -> {
+                fake.reset();
+                workflow.run(request);
+              });
+
+      assertThat(fake.modelCalls.get()).isEqualTo(toolLoops + 1);
+      System.out.println(
+          String.format(
+              Locale.ROOT,
+              "[benchmark] %-48s history=%10dB per-loop=%10.1fus",
+              (deltas ? "input-deltas" : "merged-input") + " loops=" + toolLoops,
+              fake.historyBytes.get(),
+              result.meanNanos() / 1_000.0 / toolLoops));
+    }
+  }
+
+  /** Stands in for the activity worker; parses model input the way the real activity does. */
+  private static final class FakeActivities {
+    private final CadenceAgentActivities activities = mock(CadenceAgentActivities.class);
+    private final int toolLoops;
+    private final AtomicInteger modelCalls = new AtomicInteger();
+    private final AtomicLong historyBytes = new AtomicLong();
+    private ConversationInputStore store = new ConversationInputStore();
+
+    private FakeActivities(int toolLoops) throws Exception {
+      this.toolLoops = toolLoops;
+      String historyJson = historyJson();
+      when(activities.notifyIfMessageResponseLimitExceeded(MESSAGE, CONTEXT)).thenReturn(false);
+      when(activities.getConversationHistory(MESSAGE)).thenReturn(List.of());
+      when(activities.buildConversationInputJson(List.of(), MESSAGE)).thenReturn(historyJson);
+      when(activities.createResponseBundle(anyString(), any(), any()))
+          .thenAnswer(
+              invocation -> {
+                String inputJson = invocation.getArgument(0);
+                recordInput(inputJson);
+                parse(inputJson);
+                return nextBundle();
+              });
+      when(activities.createResponseBundleFromDelta(any(), any(), any()))
+          .thenAnswer(
+              invocation -> {
+                ConversationInputDelta delta = invocation.getArgument(0);
+                recordInput(delta.itemsJson());
+                boolean held =
+                    store
+                        .apply(
+                            delta.workflowId(),
+                            delta.runId(),
+                            delta.baseVersion(),
+                            parse(delta.itemsJson()),
+                            delta.snapshot())
+                        .isPresent();
+                return held ? nextBundle() : CadenceResponseBundle.missingInput();
+              });
+      when(activities.executeToolCallsJson(anyList(), any(), any()))
+          .thenAnswer(
+              invocation -> {
+                List<CadenceToolCall> calls = invocation.getArgument(0);
+                String output =
+                    JSON.writeValueAsString(
+                        List.of(
+                            Map.of(
+                                "type",
+                                "function_call_output",
+                                "call_id",
+                                calls.get(0).callId(),
+                                "output",
+                                TOOL_OUTPUT)));
+                historyBytes.addAndGet(output.getBytes(StandardCharsets.UTF_8).length);
+                return output;
+              });
+      when(activities.handleGeneratedImages(any(), any(), any(), any()))
+          .thenReturn(new ImageSendResult(false, false));
+      when(activities.sendThreadAwareText(any(), any(), any())).thenReturn(true);
+    }
+
+    private void reset() {
+      modelCalls.set(0);
+      historyBytes.set(0);
+      store = new ConversationInputStore();
+    }
+
+    private void recordInput(String inputJson) {
+      historyBytes.addAndGet(inputJson.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private CadenceResponseBundle nextBundle() throws Exception {
+      int call = modelCalls.getAndIncrement();
+      if (call >= toolLoops) {
+        return new CadenceResponseBundle("{}", "done", "[]", List.of());
+      }
+      String callId = "call-" + call;
+      String arguments = "{\"page\":" + call + "}";
+      String contextItems =
+          "[{\"type\":\"function_call\",\"call_id\":\""
+              + callId
+              + "\",\"name\":\"lookup\",\"arguments\":"
+              + JSON.writeValueAsString(arguments)
+              + "}]";
+      return new CadenceResponseBundle(
+          "{}", "", contextItems, List.of(new CadenceToolCall(callId, "lookup", arguments)));
+    }
+
+    private static List<ResponseInputItem> parse(String inputJson) throws Exception {
+      return JsonValue.fromJsonNode(JSON.readTree(inputJson)).convert(new TypeReference<>() {});
+    }
+
+    private static String historyJson() throws Exception {
+      List<Map<String, String>> turns = new ArrayList<>();
+      for (int turn = 0; turn < HISTORY_TURNS; turn++) {
+        turns.add(
+            Map.of(
+                "role",
+                turn % 2 == 0 ? "user" : "assistant",
+                "content",
+                "turn " + turn + " " + "lorem ipsum ".repeat(20)));
+      }
+      return JSON.writeValueAsString(turns);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package io.breland.bbagent.server.agent.cadence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.openai.models.responses.EasyInputMessage;
+import com.openai.models.responses.ResponseInputItem;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ConversationInputStoreTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+  private static final String RUN = "run-1";
+
+  private final ConversationInputStore store =
+      new ConversationInputStore(2, Duration.ofMinutes(30), Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @Test
+  void deltasAppendToTheStoredInput() {
+    store.apply("workflow-1", RUN, 0, List.of(item("hello")), false);
+
+    assertThat(store.apply("workflow-1", RUN, 1, List.of(item("tool output")), false))
+        .contains(List.of(item("hello"), item("tool output")));
+  }
+
+  @Test
+  void retriedDeltaIsNotAppliedTwice() {
+    store.apply("workflow-1", RUN, 0, List.of(item("hello")), false);
+    store.apply("workflow-1", RUN, 1, List.of(item("tool output")), false);
+
+    assertThat(store.apply("workflow-1", RUN, 1, List.of(item("tool output")), false))
+        .contains(List.of(item("hello"), item("tool output")));
+  }
+
+  @Test
+  void unknownOrStaleBaseReportsMissingInputUntilASnapshotArrives() {
+    assertThat(store.apply("workflow-1", RUN, 3, List.of(item("tool output")), false)).isEmpty();
+
+    store.apply("workflow-2", RUN, 0, List.of(item("hello")), false);
+    assertThat(store.apply("workflow-2", RUN, 4, List.of(item("tool output")), false)).isEmpty();
+    assertThat(store.apply("workflow-2", RUN, 1, List.of(item("tool output")), false)).isEmpty();
+
+    assertThat(store.apply("workflow-2", RUN, 4, List.of(item("hello"), item("tool output")), true))
+        .contains(List.of(item("hello"), item("tool output")));
+    assertThat(store.apply("workflow-2", RUN, 5, List.of(item("next")), false))
+        .contains(List.of(item("hello"), item("tool output"), item("next")));
+  }
+
+  @Test
+  void runsSharingAWorkflowIdKeepSeparateInputs() {
+    store.apply("workflow-1", "old-run", 0, List.of(item("old")), false);
+    store.apply("workflow-1", "new-run", 0, List.of(item("new")), false);
+
+    assertThat(store.apply("workflow-1", "old-run", 1, List.of(item("late output")), false))
+        .contains(List.of(item("old"), item("late output")));
+    assertThat(store.apply("workflow-1", "new-run", 1, List.of(item("tool output")), false))
+        .contains(List.of(item("new"), item("tool output")));
+
+    store.remove("workflow-1", "old-run");
+
+    assertThat(store.apply("workflow-1", "new-run", 2, List.of(item("next")), false))
+        .contains(List.of(item("new"), item("tool output"), item("next")));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedWorkflowsBeyondCapacity() {
+    store.apply("workflow-1", RUN, 0, List.of(item("one")), false);
+    store.apply("workflow-2", RUN, 0, List.of(item("two")), false);
+    store.apply("workflow-1", RUN, 1, List.of(), false);
+    store.apply("workflow-3", RUN, 0, List.of(item("three")), false);
+
+    assertThat(store.size()).isEqualTo(2);
+    assertThat(store.apply("workflow-2", RUN, 1, List.of(), false)).isEmpty();
+    assertThat(store.apply("workflow-1", RUN, 2, List.of(), false)).isPresent();
+  }
+
+  @Test
+  void idleWorkflowsExpire() {
+    MutableClock clock = new MutableClock(NOW);
+    ConversationInputStore expiringStore =
+        new ConversationInputStore(8, Duration.ofMinutes(30), clock);
+    expiringStore.apply("workflow-1", RUN, 0, List.of(item("hello")), false);
+
+    clock.advance(Duration.ofMinutes(31));
+
+    assertThat(expiringStore.apply("workflow-1", RUN, 1, List.of(item("later")), false)).isEmpty();
+    assertThat(expiringStore.size()).isZero();
+  }
+
+  private static ResponseInputItem item(String text) {
+    return ResponseInputItem.ofEasyInputMessage(
+        EasyInputMessage.builder().role(EasyInputMessage.Role.USER).content(text).build());
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      this.instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
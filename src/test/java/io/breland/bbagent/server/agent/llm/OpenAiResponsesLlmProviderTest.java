@@ -0,0 +1,157 @@
+package io.breland.bbagent.server.agent.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.models.responses.Response;
+import com.openai.models.responses.ResponseFunctionToolCall;
+import com.openai.models.responses.ResponseStreamEvent;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OpenAiResponsesLlmProviderTest {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @Test
+  void streamsFunctionCallsBeforeTheResponseCompletes() {
+    List<String> observed = new ArrayList<>();
+    LlmStreamListener listener =
+        new LlmStreamListener() {
+          @Override
+          public void onFirstToken() {
+            observed.add("first_token");
+          }
+
+          @Override
+          public void onFunctionCall(ResponseFunctionToolCall call) {
+            observed.add("call:" + call.name() + ":" + call.arguments());
+          }
+        };
+    List<ResponseStreamEvent> events =
+        List.of(
+            event(
+                """
+                {"type": "response.function_call_arguments.delta", "item_id": "fc-1",
+                 "output_index": 0, "delta": "{\\"q\\"", "sequence_number": 1}
+                """),
+            event(
+                """
+                {"type": "response.function_call_arguments.delta", "item_id": "fc-1",
+                 "output_index": 0, "delta": ": \\"tea\\"}", "sequence_number": 2}
+                """),
+            event(
+                """
+                {"type": "response.output_item.done", "output_index": 0, "sequence_number": 3,
+                 "item": {"type": "function_call", "id": "fc-1", "call_id": "call-1",
+                          "name": "search", "arguments": "{\\"q\\": \\"tea\\"}",
+                          "status": "completed"}}
+                """),
+            event(
+                """
+                {"type": "response.completed", "sequence_number": 4, "response": %s}
+                """
+                    .formatted(responseJson())));
+    List<String> observedBeforeCompletion = new ArrayList<>();
+    Response response =
+        OpenAiResponsesLlmProvider.consume(
+            new RecordingIterator(events, observed, observedBeforeCompletion), listener);
+
+    assertEquals("resp-1", response.id());
+    assertEquals(
+        List.of("first_token", "call:search:{\"q\": \"tea\"}"), observedBeforeCompletion);
+    assertEquals(observedBeforeCompletion, observed);
+  }
+
+  @Test
+  void streamErrorFailsTheCall() {
+    List<ResponseStreamEvent> events =
+        List.of(
+            event(
+                """
+                {"type": "error", "code": "server_error", "message": "overloaded",
+                 "param": null, "sequence_number": 1}
+                """));
+
+    IllegalStateException error =
+        assertThrows(
+            IllegalStateException.class,
+            () -> OpenAiResponsesLlmProvider.consume(events.iterator(), LlmStreamListener.NONE));
+    assertEquals("Model response stream error: overloaded", error.getMessage());
+  }
+
+  @Test
+  void truncatedStreamFailsTheCall() {
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            OpenAiResponsesLlmProvider.consume(
+                List.<ResponseStreamEvent>of().iterator(), LlmStreamListener.NONE));
+  }
+
+  private static ResponseStreamEvent event(String json) {
+    try {
+      return OBJECT_MAPPER.readValue(json, ResponseStreamEvent.class);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to build test stream event", e);
+    }
+  }
+
+  private static String responseJson() {
+    return """
+        {
+          "id": "resp-1",
+          "object": "response",
+          "created_at": 0,
+          "model": "gpt-5-chat-latest",
+          "output": [
+            {
+              "type": "function_call",
+              "id": "fc-1",
+              "call_id": "call-1",
+              "name": "search",
+              "arguments": "{\\"q\\": \\"tea\\"}",
+              "status": "completed"
+            }
+          ],
+          "parallel_tool_calls": false,
+          "temperature": 0.2,
+          "tool_choice": "auto",
+          "tools": [],
+          "top_p": 1.0
+        }
+        """;
+  }
+
+  /** Snapshots listener output just before the terminal event is handed to the provider. */
+  private static final class RecordingIterator implements Iterator<ResponseStreamEvent> {
+    private final Iterator<ResponseStreamEvent> delegate;
+    private final List<String> observed;
+    private final List<String> observedBeforeCompletion;
+
+    private RecordingIterator(
+        List<ResponseStreamEvent> events,
+        List<String> observed,
+        List<String> observedBeforeCompletion) {
+      this.delegate = events.iterator();
+      this.observed = observed;
+      this.observedBeforeCompletion = observedBeforeCompletion;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public ResponseStreamEvent next() {
+      ResponseStreamEvent event = delegate.next();
+      if (event.isCompleted()) {
+        observedBeforeCompletion.addAll(observed);
+      }
+      return event;
+    }
+  }
+}
@@ -2,13 +2,19 @@ package io.breland.bbagent.server.agent.memory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.breland.bbagent.generated.bluebubblesclient.model.ApiV1ChatChatGuidMessageGet200ResponseDataInner;
+import io.breland.bbagent.generated.bluebubblesclient.model.ApiV1ChatChatGuidMessageGet200ResponseDataInnerHandle;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.AuthorizedGroup;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ConversationRecord;
@@ -18,10 +24,20 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMe
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.SummaryMaterial;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.AnswerStatus;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.GroupQuestionAnswer;
+import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
@@ -235,16 +251,6 @@ class ConversationDigestServiceTest {
             "digest-worker");
     Instant periodStart = Instant.parse("2026-08-07T00:00:00Z");
     Instant periodEnd = Instant.parse("2026-08-08T00:00:00Z");
-    ConversationRecord conversation =
-        new ConversationRecord(
-            "conversation-1",
-            "bluebubbles",
-            "iMessage;+;group-1",
-            true,
-            "Trip",
-            periodStart.minusSeconds(1),
-            "account-1",
-            periodEnd);
     DigestWorkClaim claim =
         new DigestWorkClaim(
             "conversation-1",
@@ -271,20 +277,143 @@ class ConversationDigestServiceTest {
             periodStart.plusSeconds(50),
             periodStart.plusSeconds(200),
             periodStart.plusSeconds(200));
-    when(store.findMemoryEnabledConversations()).thenReturn(List.of(conversation));
-    when(store.claimDueDigestWork("digest-worker", reconciliationTime, 20))
+    when(store.claimDueDigestWork("digest-worker", reconciliationTime, 1))
         .thenReturn(List.of(claim));
     when(store.findMessages("conversation-1", periodStart, periodEnd)).thenReturn(List.of(message));
     when(store.findSegments("conversation-1", periodStart, periodEnd)).thenReturn(List.of(segment));
 
     nightly.reconcilePreviousDay();
 
+    verify(store).seedDigestWorkForEnabledGroups(periodStart, periodEnd, reconciliationTime);
     ArgumentCaptor<DigestBatch> batch = ArgumentCaptor.forClass(DigestBatch.class);
     verify(store).saveDigest(org.mockito.ArgumentMatchers.eq(claim), batch.capture());
     assertThat(batch.getValue().summary()).isEqualTo("The group selected Friday.");
     assertThat(batch.getValue().coverageThrough()).isEqualTo(periodStart.plusSeconds(200));
   }
 
+  @Test
+  void nightlyReconciliationRunsClaimsInParallelLanesAndReportsProgress() throws Exception {
+    Instant reconciliationTime = Instant.parse("2026-08-08T03:15:00Z");
+    Instant periodStart = Instant.parse("2026-08-07T00:00:00Z");
+    Instant periodEnd = Instant.parse("2026-08-08T00:00:00Z");
+    OperationalMetricsService metrics = mock(OperationalMetricsService.class);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    ConversationDigestService nightly =
+        new ConversationDigestService(
+            store,
+            mapper,
+            null,
+            null,
+            null,
+            Clock.fixed(reconciliationTime, ZoneOffset.UTC),
+            "digest-worker",
+            metrics,
+            true,
+            executor,
+            2,
+            Duration.ofHours(1));
+    DigestWorkClaim first =
+        new DigestWorkClaim(
+            "conversation-1",
+            periodStart,
+            periodEnd,
+            "digest-worker",
+            reconciliationTime.plusSeconds(300));
+    DigestWorkClaim second =
+        new DigestWorkClaim(
+            "conversation-2",
+            periodStart,
+            periodEnd,
+            "digest-worker",
+            reconciliationTime.plusSeconds(300));
+    when(store.claimDueDigestWork("digest-worker", reconciliationTime, 1))
+        .thenReturn(List.of(first), List.of(second), List.of());
+    when(store.findMessages(any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              bothRunning.countDown();
+              assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+              return List.of();
+            });
+    when(store.countDigestWork()).thenReturn(0L);
+
+    try {
+      nightly.startReconciliation().get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    verify(store).saveDigest(eq(first), any());
+    verify(store).saveDigest(eq(second), any());
+    verify(metrics).updateMemoryDigestRun(2, 0);
+    verify(metrics).recordMemoryDigest(eq("reconcile"), eq(true), isNull(), any());
+  }
+
+  @Test
+  void nightlyReconciliationPagesTheJournalBackfillByTimestamp() {
+    Instant reconciliationTime = Instant.parse("2026-08-08T03:15:00Z");
+    BBHttpClientWrapper bb = mock(BBHttpClientWrapper.class);
+    ConversationJournalService journalService = mock(ConversationJournalService.class);
+    ConversationDigestService nightly =
+        new ConversationDigestService(
+            store,
+            mapper,
+            bb,
+            journalService,
+            Clock.fixed(reconciliationTime, ZoneOffset.UTC),
+            "digest-worker");
+    Instant periodStart = Instant.parse("2026-08-07T00:00:00Z");
+    Instant periodEnd = Instant.parse("2026-08-08T00:00:00Z");
+    ConversationRecord conversation =
+        new ConversationRecord(
+            "conversation-1",
+            "bluebubbles",
+            "iMessage;+;group-1",
+            true,
+            "Trip",
+            periodStart.minusSeconds(1),
+            "account-1",
+            periodEnd);
+    DigestWorkClaim claim =
+        new DigestWorkClaim(
+            "conversation-1",
+            periodStart,
+            periodEnd,
+            "digest-worker",
+            reconciliationTime.plusSeconds(300));
+    List<ApiV1ChatChatGuidMessageGet200ResponseDataInner> firstPage = new ArrayList<>(500);
+    for (int index = 0; index < 500; index++) {
+      firstPage.add(raw("message-" + index, periodStart.plusSeconds(index)));
+    }
+    Instant lastSent = periodStart.plusSeconds(499);
+    when(store.claimDueDigestWork("digest-worker", reconciliationTime, 1))
+        .thenReturn(List.of(claim));
+    when(store.findConversation("conversation-1")).thenReturn(Optional.of(conversation));
+    when(bb.getMessagesInChat("iMessage;+;group-1", periodStart, periodEnd, 0, 500, "ASC"))
+        .thenReturn(firstPage);
+    when(bb.getMessagesInChat(
+            "iMessage;+;group-1", lastSent.minusMillis(1), periodEnd, 0, 500, "ASC"))
+        .thenReturn(
+            List.of(firstPage.getLast(), raw("message-500", lastSent.plusSeconds(1))));
+
+    nightly.reconcilePreviousDay();
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<IncomingMessage>> pages = ArgumentCaptor.forClass(Collection.class);
+    verify(journalService, times(2)).recordEligibleMessages(pages.capture());
+    assertThat(pages.getAllValues().getFirst()).hasSize(500);
+    assertThat(pages.getAllValues().getLast())
+        .singleElement()
+        .satisfies(
+            message -> {
+              assertThat(message.messageGuid()).isEqualTo("message-500");
+              assertThat(message.chatGuid()).isEqualTo("iMessage;+;group-1");
+              assertThat(message.isGroup()).isTrue();
+            });
+    verify(bb, never()).getMessagesInChat(any(), any(), any(), eq(500), anyInt(), any());
+  }
+
   @Test
   void globalFeatureGuardSkipsReconciliationAndReads() {
     ConversationDigestService disabled =
@@ -306,7 +435,7 @@ class ConversationDigestServiceTest {
 
     verify(store, never()).findAuthorizedGroups(any(), any(), any());
     verify(store, never()).findCurrentlyAuthorizedGroups(any(), any());
-    verify(store, never()).findMemoryEnabledConversations();
+    verify(store, never()).seedDigestWorkForEnabledGroups(any(), any(), any());
   }
 
   private static SummaryMaterial material(
@@ -321,6 +450,17 @@ class ConversationDigestServiceTest {
         id, type, "conversation-1", summary, payload, start, end, coverage, "corpus-" + id);
   }
 
+  private static ApiV1ChatChatGuidMessageGet200ResponseDataInner raw(String guid, Instant sentAt) {
+    return new ApiV1ChatChatGuidMessageGet200ResponseDataInner()
+        .guid(guid)
+        .text("text " + guid)
+        .isFromMe(false)
+        .isSystemMessage(false)
+        .isServiceMessage(false)
+        .handle(new ApiV1ChatChatGuidMessageGet200ResponseDataInnerHandle().address("+15555550100"))
+        .dateCreated(sentAt.toEpochMilli());
+  }
+
   private static GroupQuestionAnswer answered(String answer) {
     return new GroupQuestionAnswer(
         AnswerStatus.ANSWERED, answer, null, List.of(), "test-model", false);
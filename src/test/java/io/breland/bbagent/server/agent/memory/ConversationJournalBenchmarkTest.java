@@ -0,0 +1,198 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.account.AgentAccountResolver;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMessage;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Journals the same burst of group messages one message at a time (the previous path: a
+ * conversation upsert, membership upsert, enabled lookup, message upsert and extraction reschedule
+ * per message) and through {@link ConversationMemoryStore#recordJournalBatch}, and reports
+ * messages/second for each. Runs against the test datasource; point {@code spring.datasource.url}
+ * at a local PostgreSQL for representative round-trip costs. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class ConversationJournalBenchmarkTest {
+  private static final int CONVERSATIONS = 20;
+  private static final int MEMBERS = 5;
+  private static final int MESSAGES = 4_000;
+  private static final int BATCH_SIZE = 200;
+  private static final Duration DEBOUNCE = Duration.ofSeconds(60);
+  private static final Instant START = Instant.parse("2026-10-01T12:00:00Z");
+
+  @Autowired private ConversationMemoryStore store;
+  @Autowired private AgentAccountResolver accountResolver;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final List<String> accountIds = new ArrayList<>();
+
+  @BeforeEach
+  void createBenchmarkMembers() {
+    for (int member = 0; member < MEMBERS; member++) {
+      accountIds.add(
+          accountResolver
+              .resolveOrCreate(
+                  IncomingMessage.TRANSPORT_BLUEBUBBLES, "bench-journal-" + member + "@example.com")
+              .orElseThrow()
+              .account()
+              .getAccountId());
+    }
+  }
+
+  @AfterEach
+  void deleteBenchmarkJournal() {
+    jdbcTemplate.update(
+        """
+        delete from conversation_memory_work where conversation_id in (
+          select conversation_id from agent_conversations
+           where external_conversation_id like 'iMessage;+;bench-journal-%')
+        """);
+    jdbcTemplate.update(
+        """
+        delete from agent_conversation_memberships where conversation_id in (
+          select conversation_id from agent_conversations
+           where external_conversation_id like 'iMessage;+;bench-journal-%')
+        """);
+    jdbcTemplate.update(
+        "delete from agent_conversation_messages where message_guid like 'bench-journal-%'");
+    jdbcTemplate.update(
+        """
+        delete from agent_conversations
+         where external_conversation_id like 'iMessage;+;bench-journal-%'
+        """);
+  }
+
+  @Test
+  void journalThroughputPerMessageVersusBatched() {
+    List<JournalEntry> perMessage = burst("per-message");
+    enable("per-message");
+    double perMessageRate =
+        throughput(
+            "memory-journal per-message",
+            () -> {
+              for (JournalEntry entry : perMessage) {
+                journalOneMessage(entry);
+              }
+            });
+
+    List<JournalEntry> batched = burst("batched");
+    enable("batched");
+    double batchedRate =
+        throughput(
+            "memory-journal batched size=" + BATCH_SIZE,
+            () -> {
+              for (int from = 0; from < batched.size(); from += BATCH_SIZE) {
+                store.recordJournalBatch(
+                    batched.subList(from, Math.min(batched.size(), from + BATCH_SIZE)));
+              }
+            });
+
+    assertThat(journaledMessages("per-message")).isEqualTo(MESSAGES);
+    assertThat(journaledMessages("batched")).isEqualTo(MESSAGES);
+    System.out.println(
+        String.format(
+            Locale.ROOT, "[benchmark] memory-journal speedup=%.1fx", batchedRate / perMessageRate));
+  }
+
+  private void journalOneMessage(JournalEntry entry) {
+    String conversationId =
+        store.upsertConversation(
+            entry.transport(), entry.externalConversationId(), true, null, entry.observedAt());
+    store.recordMembership(conversationId, entry.accountId(), entry.observedAt());
+    if (store
+        .findEnabledConversationId(entry.transport(), entry.externalConversationId())
+        .isEmpty()) {
+      return;
+    }
+    store.recordMessage(
+        new JournalMessage(
+            entry.messageGuid(),
+            conversationId,
+            entry.accountId(),
+            entry.text(),
+            entry.observedAt(),
+            false,
+            false,
+            entry.contentHash()));
+    store.scheduleExtraction(conversationId, entry.extractionAvailableAt());
+  }
+
+  private double throughput(String name, Runnable journal) {
+    long startedAt = System.nanoTime();
+    journal.run();
+    long elapsedNanos = System.nanoTime() - startedAt;
+    double rate = MESSAGES / (elapsedNanos / 1_000_000_000.0);
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] %-48s messages=%d in %.1fms (%.0f messages/s)",
+            name,
+            MESSAGES,
+            elapsedNanos / 1_000_000.0,
+            rate));
+    return rate;
+  }
+
+  private void enable(String run) {
+    for (int conversation = 0; conversation < CONVERSATIONS; conversation++) {
+      String conversationId =
+          store.upsertConversation(
+              IncomingMessage.TRANSPORT_BLUEBUBBLES,
+              chatGuid(run, conversation),
+              true,
+              null,
+              START.minusSeconds(1));
+      store.enableMemory(conversationId, accountIds.getFirst(), START.minusSeconds(1));
+    }
+  }
+
+  private List<JournalEntry> burst(String run) {
+    List<JournalEntry> entries = new ArrayList<>(MESSAGES);
+    for (int index = 0; index < MESSAGES; index++) {
+      Instant observedAt = START.plusMillis(index);
+      String text = "benchmark message " + index;
+      entries.add(
+          new JournalEntry(
+              IncomingMessage.TRANSPORT_BLUEBUBBLES,
+              chatGuid(run, index % CONVERSATIONS),
+              true,
+              accountIds.get(index % MEMBERS),
+              observedAt,
+              "bench-journal-" + run + "-" + index,
+              text,
+              Integer.toHexString(text.hashCode()),
+              observedAt.plus(DEBOUNCE)));
+    }
+    return entries;
+  }
+
+  private int journaledMessages(String run) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "select count(*) from agent_conversation_messages where message_guid like ?",
+            Integer.class,
+            "bench-journal-" + run + "-%");
+    return count == null ? 0 : count;
+  }
+
+  private static String chatGuid(String run, int conversation) {
+    return "iMessage;+;bench-journal-" + run + "-" + conversation;
+  }
+}
@@ -38,6 +38,28 @@ class ConversationJournalServiceTest {
     assertThat(store.extractionAvailableAt(conversationId)).contains(NOW.plusSeconds(90));
   }
 
+  @Test
+  void batchJournalsEligibleMessagesBeforeReturning() {
+    String accountId = createAccount("group-member@example.com");
+    String conversationId =
+        store.upsertConversation(
+            IncomingMessage.TRANSPORT_BLUEBUBBLES, "iMessage;+;journal-group", true, null, NOW);
+    store.enableMemory(conversationId, accountId, NOW.minusSeconds(1));
+
+    int eligible =
+        journalService.recordEligibleMessages(
+            List.of(
+                groupMessage("message-1", "first", NOW),
+                groupMessage("reaction", "Loved a message", NOW.plusSeconds(10)),
+                groupMessage("message-2", "second", NOW.plusSeconds(30))));
+
+    assertThat(eligible).isEqualTo(2);
+    assertThat(store.findMessages(conversationId, NOW.minusSeconds(1), NOW.plusSeconds(31)))
+        .extracting(ConversationMemoryModels.JournalMessage::messageGuid)
+        .containsExactly("message-1", "message-2");
+    assertThat(store.extractionAvailableAt(conversationId)).contains(NOW.plusSeconds(90));
+  }
+
   @Test
   void disabledGroupRegistersMembershipWithoutRetainingText() {
     journalService.recordEligibleMessage(groupMessage("disabled-message", "private", NOW));
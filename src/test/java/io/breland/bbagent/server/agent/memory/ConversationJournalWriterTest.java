@@ -0,0 +1,124 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class ConversationJournalWriterTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+  private final ConversationMemoryStore store = mock(ConversationMemoryStore.class);
+  private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+  @Test
+  void writesFullBatchesAndFlushesTheRemainderOnShutdown() {
+    recordBatches();
+    ConversationJournalWriter writer =
+        new ConversationJournalWriter(store, null, true, 100, 3, Duration.ofMinutes(1));
+
+    for (int index = 0; index < 4; index++) {
+      writer.submit(entry("message-" + index));
+    }
+    awaitBatches(1);
+    assertThat(batches).containsExactly(List.of("message-0", "message-1", "message-2"));
+
+    writer.shutdown();
+
+    assertThat(batches).hasSize(2).last().isEqualTo(List.of("message-3"));
+  }
+
+  @Test
+  void failedBatchIsRetriedOneEntryAtATime() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    when(store.recordJournalBatch(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<JournalEntry> entries = invocation.getArgument(0);
+              if (entries.size() > 1 || "poison".equals(entries.getFirst().messageGuid())) {
+                throw new IllegalStateException("constraint violation");
+              }
+              return 1;
+            });
+    ConversationJournalWriter writer =
+        new ConversationJournalWriter(
+            store, new OperationalMetricsService(registry), true, 100, 3, Duration.ofMinutes(1));
+
+    writer.submit(entry("message-1"));
+    writer.submit(entry("poison"));
+    writer.submit(entry("message-2"));
+    writer.shutdown();
+
+    verify(store, times(4)).recordJournalBatch(anyList());
+    assertThat(
+            registry
+                .get("bbagent.memory.journal.messages.count")
+                .tag("mode", ConversationJournalWriter.MODE_RETRY)
+                .counter()
+                .count())
+        .isEqualTo(2.0);
+    assertThat(
+            registry
+                .get("bbagent.memory.journal.flush.duration")
+                .tags("mode", ConversationJournalWriter.MODE_RETRY, "outcome", "failure")
+                .timer()
+                .count())
+        .isEqualTo(1L);
+  }
+
+  @Test
+  void writesInlineWhenAsyncWritesAreDisabled() {
+    recordBatches();
+    ConversationJournalWriter writer =
+        new ConversationJournalWriter(store, null, false, 1, 1, Duration.ofMinutes(1));
+
+    writer.submit(entry("message-1"));
+    writer.writeNow(List.of(entry("message-2"), entry("message-3")));
+
+    assertThat(batches).containsExactly(List.of("message-1"), List.of("message-2", "message-3"));
+  }
+
+  private void recordBatches() {
+    when(store.recordJournalBatch(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<JournalEntry> entries = invocation.getArgument(0);
+              batches.add(entries.stream().map(JournalEntry::messageGuid).toList());
+              return entries.size();
+            });
+  }
+
+  private void awaitBatches(int count) {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (batches.size() < count) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("Timed out waiting for " + count + " journal batches");
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private static JournalEntry entry(String messageGuid) {
+    return new JournalEntry(
+        "bluebubbles",
+        "iMessage;+;chat-1",
+        true,
+        "account-1",
+        NOW,
+        messageGuid,
+        "text",
+        "hash",
+        NOW.plusSeconds(60));
+  }
+}
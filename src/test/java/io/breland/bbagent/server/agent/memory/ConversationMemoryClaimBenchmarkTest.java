@@ -0,0 +1,118 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.WorkClaim;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains a seeded extraction queue with 1, 4 and 16 concurrent workers and reports claim throughput
+ * and contention. Runs against the test datasource; point {@code spring.datasource.url} at a local
+ * PostgreSQL to exercise the {@code SKIP LOCKED} path. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class ConversationMemoryClaimBenchmarkTest {
+  private static final int QUEUE_DEPTH = 2_000;
+  private static final int CLAIM_BATCH_SIZE = 10;
+  private static final Instant AVAILABLE_AT = Instant.parse("2026-10-01T12:00:00Z");
+
+  @Autowired private ConversationMemoryStore store;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @AfterEach
+  void deleteBenchmarkWork() {
+    jdbcTemplate.update("delete from conversation_memory_work where claimed_by like 'bench-%'");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 16})
+  void claimThroughputAndContention(int workers) throws Exception {
+    for (int index = 0; index < QUEUE_DEPTH; index++) {
+      store.scheduleExtraction(UUID.randomUUID().toString(), AVAILABLE_AT);
+    }
+    Instant now = AVAILABLE_AT.plus(Duration.ofSeconds(1));
+    Set<String> claimed = ConcurrentHashMap.newKeySet();
+    AtomicInteger duplicates = new AtomicInteger();
+    AtomicInteger claimCalls = new AtomicInteger();
+    AtomicInteger failedCalls = new AtomicInteger();
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int worker = 0; worker < workers; worker++) {
+      String workerId = "bench-" + workers + "-" + worker;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                while (true) {
+                  List<WorkClaim> claims;
+                  try {
+                    claims =
+                        transactionTemplate.execute(
+                            status -> store.claimDueExtractionWork(workerId, now, CLAIM_BATCH_SIZE));
+                  } catch (RuntimeException e) {
+                    failedCalls.incrementAndGet();
+                    continue;
+                  }
+                  claimCalls.incrementAndGet();
+                  if (claims == null || claims.isEmpty()) {
+                    return null;
+                  }
+                  for (WorkClaim claim : claims) {
+                    if (!claimed.add(claim.conversationId())) {
+                      duplicates.incrementAndGet();
+                    }
+                  }
+                }
+              }));
+    }
+    long startedAt = System.nanoTime();
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(5, TimeUnit.MINUTES);
+    }
+    long elapsedNanos = System.nanoTime() - startedAt;
+    executor.shutdownNow();
+
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] memory-claim workers=%-2d claimed=%d in %.1fms (%.0f rows/s)"
+                + " claimCalls=%d failedCalls=%d duplicates=%d",
+            workers,
+            claimed.size(),
+            elapsedNanos / 1_000_000.0,
+            claimed.size() / (elapsedNanos / 1_000_000_000.0),
+            claimCalls.get(),
+            failedCalls.get(),
+            duplicates.get()));
+    assertThat(duplicates.get()).isZero();
+    assertThat(claimed.size()).isGreaterThanOrEqualTo(QUEUE_DEPTH);
+  }
+}
@@ -1,11 +1,15 @@
 package io.breland.bbagent.server.agent.memory;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.CleanupChunk;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryBacklog;
-import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.MemoryCleanupResult;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import java.time.Clock;
 import java.time.Duration;
@@ -15,14 +19,18 @@ import org.junit.jupiter.api.Test;
 
 class ConversationMemoryMaintenanceServiceTest {
   private static final Instant NOW = Instant.parse("2026-08-08T18:00:00Z");
+  private static final Instant RAW_BEFORE = NOW.minus(Duration.ofDays(30));
+  private static final Instant SEGMENT_BEFORE = NOW.minus(Duration.ofDays(90));
 
   @Test
   void appliesConfiguredRetentionAndPublishesBacklogMetrics() {
     ConversationMemoryStore store = mock(ConversationMemoryStore.class);
     OperationalMetricsService metrics = mock(OperationalMetricsService.class);
-    MemoryCleanupResult cleanupResult = new MemoryCleanupResult(2, 3, 4);
-    when(store.cleanupMemory(NOW, NOW.minus(Duration.ofDays(30)), NOW.minus(Duration.ofDays(90))))
-        .thenReturn(cleanupResult);
+    when(store.clearExpiredMessageText(NOW, RAW_BEFORE, null, 1_000))
+        .thenReturn(new CleanupChunk(2, null));
+    when(store.deleteDigestedSegments(SEGMENT_BEFORE, null, 1_000))
+        .thenReturn(new CleanupChunk(3, null));
+    when(store.expireArtifacts(NOW, null, 1_000)).thenReturn(new CleanupChunk(4, null));
     MemoryBacklog backlog = new MemoryBacklog(Duration.ofSeconds(12), Duration.ofSeconds(34), 5);
     when(store.memoryBacklog(NOW)).thenReturn(backlog);
     ConversationMemoryMaintenanceService service =
@@ -37,11 +45,40 @@ class ConversationMemoryMaintenanceServiceTest {
     service.cleanupExpiredMemory();
     service.publishBacklogMetrics();
 
-    verify(store)
-        .cleanupMemory(NOW, NOW.minus(Duration.ofDays(30)), NOW.minus(Duration.ofDays(90)));
     verify(metrics).recordMemoryCleanup("raw_message", 2, true, null, Duration.ZERO);
     verify(metrics).recordMemoryCleanup("summary_segment", 3, true, null, Duration.ZERO);
     verify(metrics).recordMemoryCleanup("expired_artifact", 4, true, null, Duration.ZERO);
     verify(metrics).updateMemoryBacklog(Duration.ofSeconds(12), Duration.ofSeconds(34), 5);
   }
+
+  @Test
+  void continuesEachStepFromTheLastKeyUntilAChunkComesUpShort() {
+    ConversationMemoryStore store = mock(ConversationMemoryStore.class);
+    OperationalMetricsService metrics = mock(OperationalMetricsService.class);
+    when(store.clearExpiredMessageText(NOW, RAW_BEFORE, null, 2))
+        .thenReturn(new CleanupChunk(2, "message-2"));
+    when(store.clearExpiredMessageText(NOW, RAW_BEFORE, "message-2", 2))
+        .thenReturn(new CleanupChunk(2, "message-4"));
+    when(store.clearExpiredMessageText(NOW, RAW_BEFORE, "message-4", 2))
+        .thenReturn(new CleanupChunk(1, null));
+    when(store.deleteDigestedSegments(SEGMENT_BEFORE, null, 2))
+        .thenReturn(new CleanupChunk(0, null));
+    when(store.expireArtifacts(NOW, null, 2)).thenReturn(new CleanupChunk(0, null));
+    ConversationMemoryMaintenanceService service =
+        new ConversationMemoryMaintenanceService(
+            store,
+            metrics,
+            Clock.fixed(NOW, ZoneOffset.UTC),
+            Duration.ofDays(30),
+            Duration.ofDays(90),
+            true,
+            2,
+            Duration.ofMillis(1));
+
+    service.cleanupExpiredMemory();
+
+    verify(store, times(3)).clearExpiredMessageText(eq(NOW), eq(RAW_BEFORE), any(), eq(2));
+    verify(metrics, times(3)).recordMemoryCleanupChunk(eq("raw_message"), anyInt(), any());
+    verify(metrics).recordMemoryCleanup("raw_message", 5, true, null, Duration.ZERO);
+  }
 }
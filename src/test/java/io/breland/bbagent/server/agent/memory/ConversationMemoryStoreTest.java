@@ -5,12 +5,15 @@ import static io.breland.bbagent.server.agent.memory.ConversationMemoryModels.Ar
 import static io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ArtifactStatus.CONFIRMED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.account.AgentAccountResolver;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.DigestBatch;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.DigestWorkClaim;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionBatch;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ExtractionCandidate;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalEntry;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMessage;
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.WorkClaim;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.MembershipInterval;
@@ -353,6 +356,59 @@ class ConversationMemoryStoreTest {
             });
   }
 
+  @Test
+  void journalBatchRetainsEnabledGroupTextAndReschedulesExtractionOnce() {
+    String alexId = createAccount("batch-alex@example.com");
+    String caseyId = createAccount("batch-casey@example.com");
+    String enabledId =
+        store.upsertConversation("bluebubbles", "iMessage;+;batch-on", true, null, OBSERVED_AT);
+    store.enableMemory(enabledId, alexId, OBSERVED_AT.minusSeconds(1));
+
+    int retained =
+        store.recordJournalBatch(
+            List.of(
+                entry("iMessage;+;batch-on", alexId, "batch-1", "Friday at six", 0),
+                entry("iMessage;+;batch-off", alexId, "batch-2", "private", 5),
+                entry("iMessage;+;batch-on", caseyId, "batch-3", "Works for me", 10),
+                entry("iMessage;+;batch-on", alexId, "batch-1", "Saturday at six", 20)));
+
+    assertThat(retained).isEqualTo(2);
+    assertThat(
+            store.findMessages(enabledId, OBSERVED_AT.minusSeconds(1), OBSERVED_AT.plusSeconds(21)))
+        .extracting(JournalMessage::messageGuid, JournalMessage::text)
+        .containsExactly(tuple("batch-3", "Works for me"), tuple("batch-1", "Saturday at six"));
+    assertThat(store.extractionAvailableAt(enabledId)).contains(OBSERVED_AT.plusSeconds(80));
+    assertThat(store.activeMembershipAccountIds(enabledId, OBSERVED_AT.plusSeconds(20)))
+        .containsExactlyInAnyOrder(alexId, caseyId);
+    String disabledId =
+        store.findConversationId("bluebubbles", "iMessage;+;batch-off").orElseThrow();
+    assertThat(
+            store.findMessages(
+                disabledId, OBSERVED_AT.minusSeconds(1), OBSERVED_AT.plusSeconds(21)))
+        .isEmpty();
+    assertThat(store.extractionAvailableAt(disabledId)).isEmpty();
+    assertThat(store.activeMembershipAccountIds(disabledId, OBSERVED_AT.plusSeconds(5)))
+        .containsExactly(alexId);
+  }
+
+  @Test
+  void journalBatchRecreatesAConversationWhoseCachedIdNoLongerExists() {
+    String accountId = createAccount("batch-stale@example.com");
+    store.recordJournalBatch(List.of(entry("iMessage;+;batch-stale", accountId, null, null, 0)));
+    String staleId =
+        store.findConversationId("bluebubbles", "iMessage;+;batch-stale").orElseThrow();
+    new JdbcTemplate(dataSource)
+        .update("delete from agent_conversations where conversation_id = ?", staleId);
+
+    store.recordJournalBatch(List.of(entry("iMessage;+;batch-stale", accountId, null, null, 10)));
+
+    String conversationId =
+        store.findConversationId("bluebubbles", "iMessage;+;batch-stale").orElseThrow();
+    assertThat(conversationId).isNotEqualTo(staleId);
+    assertThat(store.activeMembershipAccountIds(conversationId, OBSERVED_AT.plusSeconds(10)))
+        .containsExactly(accountId);
+  }
+
   @Test
   void artifactAudienceExcludesAccountsThatJoinLater() {
     String originalAccountId = createAccount("original@example.com");
@@ -591,6 +647,34 @@ class ConversationMemoryStoreTest {
             });
   }
 
+  @Test
+  void retentionChunksClearMessageTextInKeyOrderAndResumeFromTheLastKey() {
+    String accountId = createAccount("chunked-retention@example.com");
+    String conversationId =
+        store.upsertConversation(
+            "bluebubbles", "iMessage;+;chunked-retention", true, "Chunks", OBSERVED_AT);
+    for (String guid : List.of("chunk-a", "chunk-b", "chunk-c")) {
+      store.recordMessage(message(guid, conversationId, accountId, "Text of " + guid));
+    }
+    Instant before = OBSERVED_AT.plusSeconds(1);
+
+    var first = store.clearExpiredMessageText(OBSERVED_AT, before, null, 2);
+    assertThat(first.rows()).isEqualTo(2);
+    assertThat(first.nextKey()).isNotNull();
+    String after = first.nextKey();
+    while (after != null) {
+      var chunk = store.clearExpiredMessageText(OBSERVED_AT, before, after, 2);
+      assertThat(chunk.nextKey() == null || chunk.nextKey().compareTo(after) > 0).isTrue();
+      after = chunk.nextKey();
+    }
+
+    assertThat(store.findMessages(conversationId, OBSERVED_AT.minusSeconds(1), before))
+        .hasSize(3)
+        .extracting(JournalMessage::text)
+        .containsOnlyNulls();
+    assertThat(store.clearExpiredMessageText(OBSERVED_AT, before, null, 2).rows()).isZero();
+  }
+
   @Test
   void onlyOneWorkerCanClaimDueConversation() {
     String conversationId =
@@ -841,6 +925,37 @@ class ConversationMemoryStoreTest {
             });
   }
 
+  @Test
+  void digestSeedingAddsOneWorkItemPerEnabledGroupOnce() {
+    String accountId = createAccount("digest-seed@example.com");
+    Instant periodStart = OBSERVED_AT.minusSeconds(86_400);
+    Instant periodEnd = OBSERVED_AT;
+    String first = seededGroup("seed-1");
+    String second = seededGroup("seed-2");
+    String late = seededGroup("seed-late");
+    String disabled = seededGroup("seed-disabled");
+    store.enableMemory(first, accountId, periodStart.minusSeconds(60));
+    store.enableMemory(second, accountId, periodStart.minusSeconds(60));
+    store.enableMemory(late, accountId, periodEnd.plusSeconds(60));
+    long before = store.countDigestWork();
+
+    int seeded = store.seedDigestWorkForEnabledGroups(periodStart, periodEnd, OBSERVED_AT);
+
+    assertThat(seeded).isGreaterThanOrEqualTo(2);
+    assertThat(store.countDigestWork()).isEqualTo(before + seeded);
+    assertThat(store.seedDigestWorkForEnabledGroups(periodStart, periodEnd, OBSERVED_AT))
+        .isZero();
+    assertThat(store.claimDueDigestWork("digest-seeder", OBSERVED_AT, 100))
+        .extracting(DigestWorkClaim::conversationId)
+        .contains(first, second)
+        .doesNotContain(late, disabled);
+  }
+
+  private String seededGroup(String chat) {
+    return store.upsertConversation(
+        "bluebubbles", "iMessage;+;" + chat, true, chat, OBSERVED_AT.minusSeconds(7_200));
+  }
+
   @Test
   void canonicalMemoryOwnershipCannotMoveAcrossScopes() {
     String accountId = createAccount("memory-owner@example.com");
@@ -868,6 +983,25 @@ class ConversationMemoryStoreTest {
         .getAccountId();
   }
 
+  private JournalEntry entry(
+      String externalConversationId,
+      String accountId,
+      String messageGuid,
+      String text,
+      long secondsAfterObservedAt) {
+    Instant observedAt = OBSERVED_AT.plusSeconds(secondsAfterObservedAt);
+    return new JournalEntry(
+        "bluebubbles",
+        externalConversationId,
+        true,
+        accountId,
+        observedAt,
+        messageGuid,
+        text,
+        text == null ? null : "hash-" + text.replace(' ', '-'),
+        messageGuid == null ? null : observedAt.plusSeconds(60));
+  }
+
   private JournalMessage message(
       String messageGuid, String conversationId, String accountId, String text) {
     return new JournalMessage(
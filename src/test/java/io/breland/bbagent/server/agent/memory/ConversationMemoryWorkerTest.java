@@ -2,8 +2,11 @@ package io.breland.bbagent.server.agent.memory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -16,10 +19,16 @@ import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.ModelExtr
 import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.WorkClaim;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -139,6 +148,90 @@ class ConversationMemoryWorkerTest {
     verify(store, never()).completeUnchangedExtraction(any(), any());
   }
 
+  @Test
+  void processesDistinctConversationsConcurrentlyButEachConversationSerially() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ConversationMemoryWorker pooledWorker =
+        new ConversationMemoryWorker(
+            store,
+            membershipService,
+            modelClient,
+            metrics,
+            Clock.fixed(NOW, ZoneOffset.UTC),
+            "worker-1",
+            true,
+            executor,
+            4);
+    List<WorkClaim> claims =
+        List.of(
+            new WorkClaim("conv-1", "worker-1", NOW.plusSeconds(300)),
+            new WorkClaim("conv-2", "worker-1", NOW.plusSeconds(300)),
+            new WorkClaim("conv-1", "worker-1", NOW.plusSeconds(300)),
+            new WorkClaim("conv-3", "worker-1", NOW.plusSeconds(300)));
+    when(store.claimDueExtractionWork("worker-1", NOW, 10)).thenReturn(claims);
+    when(store.findConversation(anyString()))
+        .thenAnswer(
+            invocation ->
+                Optional.of(
+                    new ConversationRecord(
+                        invocation.getArgument(0),
+                        "bluebubbles",
+                        "iMessage;+;" + invocation.getArgument(0),
+                        true,
+                        "Trip",
+                        NOW.minusSeconds(300),
+                        "account-1",
+                        NOW)));
+    when(store.findCheckpoint(anyString())).thenReturn(Optional.empty());
+    when(store.findMessages(anyString(), any(), any())).thenReturn(List.of());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Map<String, AtomicInteger> runningByConversation = new ConcurrentHashMap<>();
+    AtomicInteger maxRunningPerConversation = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              String conversationId = invocation.getArgument(0);
+              AtomicInteger conversationRunning =
+                  runningByConversation.computeIfAbsent(
+                      conversationId, ignored -> new AtomicInteger());
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              maxRunningPerConversation.accumulateAndGet(
+                  conversationRunning.incrementAndGet(), Math::max);
+              Thread.sleep(100);
+              conversationRunning.decrementAndGet();
+              running.decrementAndGet();
+              return null;
+            })
+        .when(membershipService)
+        .refreshGroupMembership(anyString());
+
+    try {
+      pooledWorker.processDueConversationMemory();
+      pooledWorker.awaitIdle(Duration.ofSeconds(5));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(maxRunning.get()).isGreaterThanOrEqualTo(2);
+    assertThat(maxRunningPerConversation.get()).isEqualTo(1);
+    verify(store, times(4)).completeUnchangedExtraction(any(), any());
+    verify(metrics, times(4))
+        .recordMemoryWorkerClaim(org.mockito.ArgumentMatchers.eq("processed"), any());
+  }
+
+  @Test
+  void skipsClaimsWhoseLeaseIsAboutToExpire() {
+    WorkClaim expiring = new WorkClaim(CONVERSATION_ID, "worker-1", NOW.plusSeconds(30));
+    when(store.claimDueExtractionWork("worker-1", NOW, 10)).thenReturn(List.of(expiring));
+
+    worker.processDueConversationMemory();
+
+    verifyNoInteractions(membershipService, modelClient);
+    verify(store, never()).completeUnchangedExtraction(any(), any());
+    verify(metrics)
+        .recordMemoryWorkerClaim(org.mockito.ArgumentMatchers.eq("lease_expiring"), any());
+  }
+
   private static List<JournalMessage> messages() {
     return List.of(
         message("message-1", "Friday?", NOW.minusSeconds(90), "hash-1"),
@@ -12,6 +12,7 @@ import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -38,6 +39,7 @@ import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModel
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.WindowAction;
 import io.breland.bbagent.server.agent.memory.ConversationQuestionAnsweringModels.WindowFinding;
 import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Clock;
 import java.time.Duration;
@@ -46,6 +48,11 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -159,6 +166,115 @@ class ConversationQuestionAnsweringServiceTest {
         .reduceFindings(eq(QUESTION), eq(NOW), isNull(), anyList(), eq(false), eq(DEADLINE));
   }
 
+  @Test
+  void pipelinedModeDecidesChunksTogetherWhileTheOlderWindowIsFetched() throws Exception {
+    HistoryWindowCursor cursor =
+        new HistoryWindowCursor(HistorySource.BLUEBUBBLES, 0, 500, null, null);
+    QuestionMessage first = message("m1", "Sam", "The first fact.", 1);
+    QuestionMessage second = message("m2", "Lee", "The second fact.", 2);
+    int splitBeforeTwoMessages =
+        payloadSizer.windowInputCharacters(QUESTION, NOW, null, List.of(first, second)) - 1;
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      service = pipelinedService(splitBeforeTwoMessages, executor);
+      when(retriever.retrieveWindow(any(), isNull(), eq(500)))
+          .thenReturn(window(List.of(first, second), cursor, false));
+      when(retriever.retrieveWindow(any(), eq(cursor), eq(500)))
+          .thenReturn(window(List.of(), null, true));
+      CountDownLatch bothDeciding = new CountDownLatch(2);
+      when(model.decide(eq(QUESTION), eq(NOW), isNull(), anyList(), eq(DEADLINE)))
+          .thenAnswer(
+              invocation -> {
+                bothDeciding.countDown();
+                assertThat(bothDeciding.await(5, TimeUnit.SECONDS)).isTrue();
+                List<QuestionMessage> chunk = invocation.getArgument(3);
+                String guid = chunk.getFirst().messageGuid();
+                return routed(needOlder(provisional("A fact is mentioned.", guid)));
+              });
+      when(model.reduceFindings(
+              eq(QUESTION), eq(NOW), isNull(), anyList(), eq(true), eq(DEADLINE)))
+          .thenReturn(
+              routedReduction(
+                  answered("Sam and Lee supplied the relevant facts.", List.of(), List.of()),
+                  List.of()));
+
+      GroupQuestionAnswer answer = service.answer(ACCOUNT, GROUP, QUESTION, null, NOW, null);
+
+      assertThat(answer.status()).isEqualTo(AnswerStatus.ANSWERED);
+      verify(model, times(2)).decide(eq(QUESTION), eq(NOW), isNull(), anyList(), eq(DEADLINE));
+      verify(retriever, timeout(5_000)).retrieveWindow(any(), eq(cursor), eq(500));
+      Tags tags = Tags.of("action", "answered", "mode", "pipelined");
+      assertThat(
+              registry
+                  .get("bbagent.memory.question.answer.parallelism")
+                  .tags(tags)
+                  .summary()
+                  .max())
+          .isEqualTo(2.0);
+      assertThat(
+              registry
+                  .get("bbagent.memory.question.answer.prefetch.discarded.count")
+                  .tags(tags)
+                  .counter()
+                  .count())
+          .isEqualTo(1.0);
+      assertThat(registry.get("bbagent.memory.question.answer.latency").tags(tags).timer().count())
+          .isEqualTo(1);
+      assertQuestionMetric("answered", true);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void pipelinedModeStopsWaitingForOlderChunksOnceANewerChunkAnswersConfidently()
+      throws Exception {
+    QuestionMessage first = message("m1", "Sam", "The old plan was Monday.", 1);
+    QuestionMessage second = message("m2", "Lee", "The plan is Friday now.", 2);
+    int splitBeforeTwoMessages =
+        payloadSizer.windowInputCharacters(QUESTION, NOW, null, List.of(first, second)) - 1;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch releaseOlderChunk = new CountDownLatch(1);
+    try {
+      service = pipelinedService(splitBeforeTwoMessages, executor);
+      when(retriever.retrieveWindow(any(), isNull(), eq(500)))
+          .thenReturn(window(List.of(first, second), null, true));
+      when(model.decide(QUESTION, NOW, null, List.of(first), DEADLINE))
+          .thenAnswer(
+              invocation -> {
+                releaseOlderChunk.await(5, TimeUnit.SECONDS);
+                return routed(answered("The plan was Monday.", "m1", "Sam"));
+              });
+      when(model.decide(QUESTION, NOW, null, List.of(second), DEADLINE))
+          .thenReturn(routed(answered("The plan is Friday.", "m2", "Lee")));
+      when(model.reduceFindings(
+              eq(QUESTION), eq(NOW), isNull(), anyList(), eq(false), eq(DEADLINE)))
+          .thenAnswer(
+              invocation -> {
+                List<QuestionFinding> findings = invocation.getArgument(3);
+                assertThat(findings)
+                    .extracting(QuestionFinding::answer)
+                    .containsExactly("The plan is Friday.");
+                return routedReduction(answered("The plan is Friday.", "m2", "Lee"), findings);
+              });
+
+      GroupQuestionAnswer answer = service.answer(ACCOUNT, GROUP, QUESTION, null, NOW, null);
+
+      assertThat(answer.status()).isEqualTo(AnswerStatus.ANSWERED);
+      assertThat(answer.answer()).isEqualTo("The plan is Friday.");
+      assertThat(
+              registry
+                  .get("bbagent.memory.question.answer.early.stop.count")
+                  .tags("action", "answered", "mode", "pipelined")
+                  .counter()
+                  .count())
+          .isEqualTo(1.0);
+    } finally {
+      releaseOlderChunk.countDown();
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   void noRangeSearchesAllAuthorizedHistoryAndPropagatesTimezone() {
     QuestionMessage message = message("m1", "Sam", "The update is ready.", 1);
@@ -734,6 +850,24 @@ class ConversationQuestionAnsweringServiceTest {
         clock);
   }
 
+  private ConversationQuestionAnsweringService pipelinedService(
+      int maxBatchCharacters, Executor executor) {
+    return new ConversationQuestionAnsweringService(
+        store,
+        retriever,
+        model,
+        metrics,
+        500,
+        100,
+        maxBatchCharacters,
+        5,
+        maxBatchCharacters * 5,
+        Duration.ofSeconds(90),
+        clock,
+        true,
+        executor);
+  }
+
   private HistoryWindow window(
       List<QuestionMessage> messages, HistoryWindowCursor nextCursor, boolean exhausted) {
     return new HistoryWindow(messages, nextCursor, exhausted, true, null, 1);
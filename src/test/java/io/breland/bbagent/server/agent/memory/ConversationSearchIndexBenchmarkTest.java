@@ -0,0 +1,197 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Journals a synthetic corpus spread over 1,000 memory-enabled group chats, then measures how fast
+ * {@link ConversationSearchIndex} indexes it from the journal and how long per-chat searches take
+ * (single words, misspellings, phrases, date ranges and the newest-messages listing). The corpus
+ * defaults to 1M messages so it fits the in-memory test datasource; the full 10M-message run is
+ * {@code BBAGENT_BENCHMARK_SEARCH_MESSAGES=10000000} against a local PostgreSQL set through {@code
+ * spring.datasource.url}. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class ConversationSearchIndexBenchmarkTest {
+  private static final String PREFIX = "bench-search-";
+  private static final int CONVERSATIONS = 1_000;
+  private static final int SEED_BATCH_SIZE = 10_000;
+  private static final Instant ENABLED_AT = Instant.parse("2026-09-01T00:00:00Z");
+  private static final String[] COMMON_WORDS = {
+    "the", "a", "we", "are", "going", "to", "at", "for", "on", "and", "is", "it", "this", "that"
+  };
+  private static final String[] TOPIC_WORDS = {
+    "dinner", "reservation", "hiking", "trail", "saturday", "flight", "hotel", "birthday",
+    "present", "tickets", "concert", "weather", "parking", "soccer", "practice", "groceries",
+    "recipe", "museum", "airport", "pickup", "camping", "beach", "movie", "brunch", "meeting",
+    "deadline", "invoice", "vacation", "sunscreen", "playlist", "wedding", "anniversary"
+  };
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void deleteBenchmarkCorpus() {
+    jdbcTemplate.update(
+        "delete from agent_conversation_messages where message_guid like ?", PREFIX + "%");
+    jdbcTemplate.update(
+        "delete from agent_conversations where external_conversation_id like ?",
+        "iMessage;+;" + PREFIX + "%");
+  }
+
+  @Test
+  void indexingThroughputAndQueryLatency() {
+    int messages = corpusSize();
+    seed(messages);
+
+    ConversationSearchIndex index =
+        new ConversationSearchIndex(
+            jdbcTemplate, new ByteBuffersDirectory(), 5_000, Duration.ofMinutes(1));
+    try {
+      long startedAt = System.nanoTime();
+      int indexed = index.syncPending();
+      long elapsedNanos = System.nanoTime() - startedAt;
+      System.out.println(
+          String.format(
+              Locale.ROOT,
+              "[benchmark] conversation search index messages=%d in %.1fs (%.0f/s)",
+              indexed,
+              elapsedNanos / 1_000_000_000.0,
+              indexed / (elapsedNanos / 1_000_000_000.0)));
+      assertThat(indexed).isGreaterThanOrEqualTo(messages);
+
+      AtomicInteger chat = new AtomicInteger();
+      Instant lastQuarter = ENABLED_AT.plusSeconds(messages / CONVERSATIONS * 60L * 3 / 4);
+      measure(index, chat, "word", "dinner", null);
+      measure(index, chat, "misspelled word", "resrvation", null);
+      measure(index, chat, "stemmed words", "hiked trails", null);
+      measure(index, chat, "quoted phrase", "\"birthday present\"", null);
+      measure(index, chat, "word in date range", "tickets", lastQuarter);
+      measure(index, chat, "newest messages", null, null);
+    } finally {
+      index.close();
+    }
+  }
+
+  private void measure(
+      ConversationSearchIndex index,
+      AtomicInteger chat,
+      String name,
+      String query,
+      Instant after) {
+    Benchmarks.measure(
+        "conversation search " + name,
+        50,
+        500,
+        () ->
+            assertThat(
+                    index.search(
+                        IncomingMessage.TRANSPORT_BLUEBUBBLES,
+                        chatGuid(chat.getAndIncrement() % CONVERSATIONS),
+                        query,
+                        after,
+                        null,
+                        20,
+                        0))
+                .isPresent());
+  }
+
+  private void seed(int messages) {
+    Instant now = Instant.now();
+    List<Object[]> conversations = new ArrayList<>();
+    for (int conversation = 0; conversation < CONVERSATIONS; conversation++) {
+      conversations.add(
+          new Object[] {
+            conversationId(conversation),
+            IncomingMessage.TRANSPORT_BLUEBUBBLES,
+            chatGuid(conversation),
+            offset(ENABLED_AT),
+            offset(now),
+            offset(now),
+            offset(now)
+          });
+    }
+    jdbcTemplate.batchUpdate(
+        """
+        insert into agent_conversations
+          (conversation_id, transport, external_conversation_id, is_group, memory_enabled_at,
+           last_observed_at, created_at, updated_at)
+        values (?, ?, ?, true, ?, ?, ?, ?)
+        """,
+        conversations);
+
+    Random random = new Random(42);
+    List<Object[]> rows = new ArrayList<>(SEED_BATCH_SIZE);
+    for (int message = 0; message < messages; message++) {
+      String text = text(random);
+      // Each chat gets a message a minute, so the corpus spans messages / CONVERSATIONS minutes.
+      Instant sentAt = ENABLED_AT.plusSeconds(message / CONVERSATIONS * 60L);
+      rows.add(
+          new Object[] {
+            String.format(Locale.ROOT, "%s%09d", PREFIX, message),
+            conversationId(message % CONVERSATIONS),
+            text,
+            "hash-" + text.hashCode(),
+            offset(sentAt),
+            offset(sentAt),
+            offset(sentAt)
+          });
+      if (rows.size() == SEED_BATCH_SIZE || message == messages - 1) {
+        jdbcTemplate.batchUpdate(
+            """
+            insert into agent_conversation_messages
+              (message_guid, conversation_id, message_text, content_hash, source_timestamp,
+               from_agent, system_message, removed, first_seen_at, updated_at)
+            values (?, ?, ?, ?, ?, false, false, false, ?, ?)
+            """,
+            rows);
+        rows.clear();
+      }
+    }
+  }
+
+  private static String text(Random random) {
+    int words = 6 + random.nextInt(12);
+    List<String> text = new ArrayList<>(words + 1);
+    // One rare word per message gives the term dictionary a realistic size for fuzzy matching.
+    text.add("w" + Integer.toString(random.nextInt(200_000), 36));
+    for (int word = 0; word < words; word++) {
+      text.add(
+          random.nextInt(3) == 0
+              ? TOPIC_WORDS[random.nextInt(TOPIC_WORDS.length)]
+              : COMMON_WORDS[random.nextInt(COMMON_WORDS.length)]);
+    }
+    return String.join(" ", text);
+  }
+
+  private static int corpusSize() {
+    String configured = System.getenv("BBAGENT_BENCHMARK_SEARCH_MESSAGES");
+    return StringUtils.isNumeric(configured) ? Integer.parseInt(configured) : 1_000_000;
+  }
+
+  private static String conversationId(int conversation) {
+    return String.format(Locale.ROOT, "%s%06d", PREFIX, conversation);
+  }
+
+  private static String chatGuid(int conversation) {
+    return "iMessage;+;" + conversationId(conversation);
+  }
+}
@@ -0,0 +1,148 @@
+package io.breland.bbagent.server.agent.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.account.AgentAccountResolver;
+import io.breland.bbagent.server.agent.memory.ConversationMemoryModels.JournalMessage;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex.SearchHit;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex.SearchResult;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class ConversationSearchIndexTest {
+  private static final String TRANSPORT = IncomingMessage.TRANSPORT_BLUEBUBBLES;
+  private static final String TRIP_CHAT = "iMessage;+;search-trip";
+  private static final String OTHER_CHAT = "iMessage;+;search-other";
+  private static final Instant ENABLED_AT = Instant.parse("2026-08-01T00:00:00Z");
+  private static final Instant SENT_AT = Instant.parse("2026-08-08T17:00:00Z");
+
+  @Autowired private ConversationMemoryStore store;
+  @Autowired private AgentAccountResolver accountResolver;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private ConversationSearchIndex index;
+  private String accountId;
+  private String tripConversationId;
+  private String otherConversationId;
+
+  @BeforeEach
+  void createConversations() {
+    index =
+        new ConversationSearchIndex(
+            jdbcTemplate, new ByteBuffersDirectory(), 2, Duration.ofMinutes(1));
+    accountId =
+        accountResolver
+            .resolveOrCreate(TRANSPORT, "search-index@example.com")
+            .orElseThrow()
+            .account()
+            .getAccountId();
+    tripConversationId = enabledConversation(TRIP_CHAT);
+    otherConversationId = enabledConversation(OTHER_CHAT);
+    record("search-1", tripConversationId, "We are planning the hiking trip for Saturday", 0);
+    record("search-2", tripConversationId, "Dinner reservations at Luigi's are done", 60);
+    record("search-3", tripConversationId, "I hiked the ridge trail yesterday", 120);
+    record("search-4", otherConversationId, "Hiking boots are on sale", 180);
+  }
+
+  @AfterEach
+  void closeIndex() {
+    index.close();
+  }
+
+  @Test
+  void matchesStemsMisspellingsAndPhrasesWithinOneChat() {
+    assertThat(index.search(TRANSPORT, TRIP_CHAT, "hike", null, null, null, null)).isEmpty();
+    index.syncPending();
+
+    assertThat(guids(TRIP_CHAT, "hike")).containsExactlyInAnyOrder("search-1", "search-3");
+    assertThat(guids(TRIP_CHAT, "resrvations")).containsExactly("search-2");
+    assertThat(guids(TRIP_CHAT, "\"ridge trail\"")).containsExactly("search-3");
+    assertThat(guids(TRIP_CHAT, "\"trail ridge\"")).isEmpty();
+    assertThat(guids(OTHER_CHAT, "hike")).containsExactly("search-4");
+
+    SearchHit hit = search(TRIP_CHAT, "dinner", null, null).hits().getFirst();
+    assertThat(hit.text()).isEqualTo("Dinner reservations at Luigi's are done");
+    assertThat(hit.sentAt()).isEqualTo(SENT_AT.plusSeconds(60));
+    assertThat(hit.sender()).isEqualTo("search-index@example.com");
+  }
+
+  @Test
+  void filtersByDateAndListsTheNewestMessagesForABlankQuery() {
+    index.syncPending();
+
+    assertThat(search(TRIP_CHAT, null, null, null).hits())
+        .extracting(SearchHit::messageGuid)
+        .containsExactly("search-3", "search-2", "search-1");
+    assertThat(search(TRIP_CHAT, "", SENT_AT.plusSeconds(60), SENT_AT.plusSeconds(120)).hits())
+        .extracting(SearchHit::messageGuid)
+        .containsExactly("search-2");
+    assertThat(search(TRIP_CHAT, "hike", SENT_AT.plusSeconds(1), null).hits())
+        .extracting(SearchHit::messageGuid)
+        .containsExactly("search-3");
+    assertThat(search(TRIP_CHAT, null, null, null).coveredFrom()).isEqualTo(ENABLED_AT);
+  }
+
+  @Test
+  void followsJournalEditsPurgesAndMemoryOptOuts() {
+    index.syncPending();
+
+    record("search-2", tripConversationId, "Dinner moved to the taqueria", 60);
+    index.syncPending();
+    assertThat(guids(TRIP_CHAT, "reservations")).isEmpty();
+    assertThat(guids(TRIP_CHAT, "taqueria")).containsExactly("search-2");
+
+    store.cleanupMemory(SENT_AT.plusSeconds(600), SENT_AT.plusSeconds(30), SENT_AT);
+    index.syncPending();
+    assertThat(guids(TRIP_CHAT, "hike")).containsExactly("search-3");
+
+    store.disableMemory(otherConversationId, SENT_AT.plusSeconds(600));
+    index.pruneDisabledConversations();
+    assertThat(index.search(TRANSPORT, OTHER_CHAT, "hike", null, null, null, null)).isEmpty();
+  }
+
+  private List<String> guids(String chatGuid, String query) {
+    return search(chatGuid, query, null, null).hits().stream()
+        .map(SearchHit::messageGuid)
+        .toList();
+  }
+
+  private SearchResult search(String chatGuid, String query, Instant after, Instant before) {
+    Optional<SearchResult> result =
+        index.search(TRANSPORT, chatGuid, query, after, before, null, null);
+    assertThat(result).isPresent();
+    return result.get();
+  }
+
+  private String enabledConversation(String chatGuid) {
+    String conversationId =
+        store.upsertConversation(TRANSPORT, chatGuid, true, "Search", ENABLED_AT);
+    store.enableMemory(conversationId, accountId, ENABLED_AT);
+    return conversationId;
+  }
+
+  private void record(String guid, String conversationId, String text, long secondsAfter) {
+    store.recordMessage(
+        new JournalMessage(
+            guid,
+            conversationId,
+            accountId,
+            text,
+            SENT_AT.plusSeconds(secondsAfter),
+            false,
+            false,
+            "hash-" + text.hashCode()));
+  }
+}
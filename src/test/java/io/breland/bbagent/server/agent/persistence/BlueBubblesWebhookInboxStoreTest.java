@@ -0,0 +1,85 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.persistence.BlueBubblesWebhookInboxStore.InboxClaim;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class BlueBubblesWebhookInboxStoreTest {
+  private static final Instant RECEIVED_AT = Instant.parse("2026-10-01T12:00:00Z");
+
+  @Autowired private BlueBubblesWebhookInboxStore store;
+
+  @Test
+  void claimsOnlyTheOldestEntryOfEachChat() {
+    String first = enqueue("iMessage;+;chat-a", "a-1", RECEIVED_AT);
+    String second = enqueue("iMessage;+;chat-a", "a-2", RECEIVED_AT.plusMillis(1));
+    String other = enqueue("iMessage;+;chat-b", "b-1", RECEIVED_AT.plusMillis(2));
+    Instant now = RECEIVED_AT.plusSeconds(1);
+
+    List<InboxClaim> claims = store.claimDue("worker-1", now, 10);
+
+    assertThat(claims).extracting(InboxClaim::inboxId).containsExactly(first, other);
+    assertThat(claims).extracting(InboxClaim::attemptCount).containsOnly(1);
+    assertThat(store.claimDue("worker-2", now, 10)).isEmpty();
+
+    store.complete(claims.getFirst());
+
+    assertThat(store.claimDue("worker-2", now, 10))
+        .extracting(InboxClaim::inboxId)
+        .containsExactly(second);
+    assertThat(store.countPending()).isEqualTo(2);
+  }
+
+  @Test
+  void retriedEntriesWaitForTheirRetryTimeAndKeepBlockingTheirChat() {
+    String first = enqueue("iMessage;+;chat-a", "a-1", RECEIVED_AT);
+    enqueue("iMessage;+;chat-a", "a-2", RECEIVED_AT.plusMillis(1));
+    Instant now = RECEIVED_AT.plusSeconds(1);
+    InboxClaim claim = store.claimDue("worker-1", now, 10).getFirst();
+
+    store.retryLater(claim, now.plus(Duration.ofSeconds(30)), "tool_error", now);
+
+    assertThat(store.claimDue("worker-1", now.plusSeconds(10), 10)).isEmpty();
+    List<InboxClaim> retried = store.claimDue("worker-1", now.plusSeconds(31), 10);
+    assertThat(retried).extracting(InboxClaim::inboxId).containsExactly(first);
+    assertThat(retried.getFirst().attemptCount()).isEqualTo(2);
+  }
+
+  @Test
+  void expiredLeasesAreClaimedAgain() {
+    String first = enqueue("iMessage;+;chat-a", "a-1", RECEIVED_AT);
+    store.claimDue("worker-1", RECEIVED_AT, 10);
+
+    List<InboxClaim> reclaimed =
+        store.claimDue(
+            "worker-2",
+            RECEIVED_AT.plus(BlueBubblesWebhookInboxStore.LEASE).plusSeconds(1),
+            10);
+
+    assertThat(reclaimed).extracting(InboxClaim::inboxId).containsExactly(first);
+    assertThat(reclaimed.getFirst().workerId()).isEqualTo("worker-2");
+  }
+
+  @Test
+  void entriesWithoutAChatAreNotOrderedAgainstEachOther() {
+    String first = enqueue(null, "x-1", RECEIVED_AT);
+    String second = enqueue(null, "x-2", RECEIVED_AT.plusMillis(1));
+
+    assertThat(store.claimDue("worker-1", RECEIVED_AT.plusSeconds(1), 10))
+        .extracting(InboxClaim::inboxId)
+        .containsExactly(first, second);
+  }
+
+  private String enqueue(String chatGuid, String messageGuid, Instant receivedAt) {
+    return store.enqueue(chatGuid, "NEW_MESSAGE", messageGuid, "{}", receivedAt);
+  }
+}
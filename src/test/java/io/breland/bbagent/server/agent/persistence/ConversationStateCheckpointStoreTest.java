@@ -0,0 +1,92 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.ConversationState;
+import io.breland.bbagent.server.agent.ConversationTurn;
+import io.breland.bbagent.server.agent.IncomingMessage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class ConversationStateCheckpointStoreTest {
+  private static final Instant CHECKPOINTED_AT = Instant.parse("2026-10-01T12:00:00Z");
+
+  @Autowired private ConversationStateCheckpointStore store;
+
+  @Test
+  void takeReturnsSnapshotOnceAndDeletesIt() {
+    ConversationState state = new ConversationState();
+    state.recordIncomingTurnIfAbsent(incomingMessage("msg-1", "hello"));
+    state.addTurn(ConversationTurn.assistant("hi there", CHECKPOINTED_AT));
+    state.recordPendingIncomingTurn(incomingMessage("msg-2", "are you there?"));
+    state.setLatestWorkflowRunId("run-1");
+    state.setLatestWorkflowMessageGuid("msg-2");
+
+    store.save("iMessage;+;checkpoint", state.snapshot(), CHECKPOINTED_AT);
+
+    ConversationState restored =
+        ConversationState.fromSnapshot(
+            store
+                .take("iMessage;+;checkpoint", CHECKPOINTED_AT.minus(Duration.ofHours(1)))
+                .orElseThrow());
+    assertThat(restored.history()).extracting(ConversationTurn::content).hasSize(2);
+    assertThat(restored.pendingIncomingTurns()).hasSize(1);
+    assertThat(restored.hasSeenIncomingMessage(incomingMessage("msg-2", "are you there?")))
+        .isTrue();
+    assertThat(restored.getLatestProcessedMessageTimestamp())
+        .isEqualTo(state.getLatestProcessedMessageTimestamp());
+    assertThat(restored.getLatestWorkflowRunId()).isEqualTo("run-1");
+    assertThat(restored.getLatestWorkflowMessageGuid()).isEqualTo("msg-2");
+    assertThat(store.take("iMessage;+;checkpoint", CHECKPOINTED_AT.minus(Duration.ofHours(1))))
+        .isEmpty();
+  }
+
+  @Test
+  void saveOverwritesAnExistingCheckpoint() {
+    ConversationState first = new ConversationState();
+    first.addTurn(ConversationTurn.assistant("first", CHECKPOINTED_AT));
+    ConversationState second = new ConversationState();
+    second.addTurn(ConversationTurn.assistant("second", CHECKPOINTED_AT));
+
+    store.save("iMessage;+;overwrite", first.snapshot(), CHECKPOINTED_AT);
+    store.save("iMessage;+;overwrite", second.snapshot(), CHECKPOINTED_AT.plusSeconds(1));
+
+    assertThat(
+            store
+                .take("iMessage;+;overwrite", CHECKPOINTED_AT.plusSeconds(1))
+                .orElseThrow()
+                .history())
+        .extracting(ConversationTurn::content)
+        .containsExactly("second");
+  }
+
+  @Test
+  void takeDiscardsCheckpointsOlderThanCutoff() {
+    store.save("iMessage;+;stale", new ConversationState().snapshot(), CHECKPOINTED_AT);
+
+    assertThat(store.take("iMessage;+;stale", CHECKPOINTED_AT.plusSeconds(1))).isEmpty();
+    assertThat(store.take("iMessage;+;stale", CHECKPOINTED_AT.minusSeconds(1))).isEmpty();
+  }
+
+  private static IncomingMessage incomingMessage(String messageGuid, String text) {
+    return new IncomingMessage(
+        "iMessage;+;checkpoint",
+        messageGuid,
+        null,
+        text,
+        false,
+        "iMessage",
+        "Alice",
+        false,
+        CHECKPOINTED_AT.minusSeconds(60),
+        List.of(),
+        false);
+  }
+}
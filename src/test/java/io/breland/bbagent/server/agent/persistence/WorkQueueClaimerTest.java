@@ -0,0 +1,38 @@
+package io.breland.bbagent.server.agent.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WorkQueueClaimerTest {
+  private static final WorkQueueClaimer.Queue QUEUE =
+      new WorkQueueClaimer.Queue(
+          "group_catchup_preferences",
+          "preference",
+          List.of("account_id", "conversation_id"),
+          """
+          select preference.account_id, preference.conversation_id
+            from group_catchup_preferences preference
+           where preference.next_delivery_at <= ?
+           order by preference.next_delivery_at
+           limit ?
+          """,
+          "claimed_by = ?, claimed_until = ?, updated_at = ?",
+          "next_delivery_at <= ?",
+          "select account_id from claimed order by next_delivery_at");
+
+  @Test
+  void postgresClaimIsOneStatementThatLocksOnlyTheQueueRows() {
+    String sql = WorkQueueClaimer.skipLockedSql(QUEUE);
+
+    assertThat(sql)
+        .contains("limit ?\n for update of preference skip locked")
+        .contains("update group_catchup_preferences\n     set claimed_by = ?")
+        .contains(
+            "where group_catchup_preferences.account_id = candidates.account_id"
+                + " and group_catchup_preferences.conversation_id = candidates.conversation_id")
+        .contains("returning group_catchup_preferences.*")
+        .endsWith("select account_id from claimed order by next_delivery_at\n");
+  }
+}
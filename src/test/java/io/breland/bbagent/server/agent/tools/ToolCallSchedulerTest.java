@@ -0,0 +1,212 @@
+package io.breland.bbagent.server.agent.tools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ToolCallSchedulerTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ToolCallScheduler scheduler =
+      new ToolCallScheduler(4, Duration.ofSeconds(5), new OperationalMetricsService(registry));
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  void runsAdjacentParallelCallsTogetherAndReturnsResultsInCallOrder() {
+    CountDownLatch allStarted = new CountDownLatch(3);
+    List<ToolCallScheduler.ScheduledCall<String>> calls = new ArrayList<>();
+    for (String calendar : List.of("work", "home", "shared")) {
+      calls.add(
+          call(
+              "list_events",
+              ToolConcurrency.PARALLEL,
+              null,
+              () -> {
+                allStarted.countDown();
+                await(allStarted);
+                return calendar;
+              }));
+    }
+
+    List<String> results = scheduler.run(calls);
+
+    assertEquals(List.of("work", "home", "shared"), results);
+    assertEquals(
+        1L,
+        registry
+            .get("bbagent.agent.tool.batch.wall.duration")
+            .tag("batch_size", "2_3")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void serialCallsActAsBarriersBetweenParallelGroups() {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunningDuringSerial = new AtomicInteger();
+
+    List<String> results =
+        scheduler.run(
+            List.of(
+                call(
+                    "memory_get",
+                    ToolConcurrency.PARALLEL,
+                    null,
+                    () -> step(events, running, "a")),
+                call(
+                    "search_convo_history",
+                    ToolConcurrency.PARALLEL,
+                    null,
+                    () -> step(events, running, "b")),
+                call(
+                    "send_text",
+                    ToolConcurrency.SERIAL,
+                    null,
+                    () -> {
+                      maxRunningDuringSerial.set(running.incrementAndGet());
+                      events.add("send");
+                      running.decrementAndGet();
+                      return "send";
+                    }),
+                call(
+                    "memory_get",
+                    ToolConcurrency.PARALLEL,
+                    null,
+                    () -> step(events, running, "c"))));
+
+    assertEquals(List.of("a", "b", "send", "c"), results);
+    assertEquals(1, maxRunningDuringSerial.get());
+    assertEquals(2, events.indexOf("send"));
+    assertEquals("c", events.get(3));
+  }
+
+  @Test
+  void callsThatExceedTheirTimeoutReturnTheTimeoutResult() {
+    CountDownLatch never = new CountDownLatch(1);
+
+    List<String> results =
+        scheduler.run(
+            List.of(
+                call(
+                    "kubernetes_get_pod_logs",
+                    ToolConcurrency.PARALLEL,
+                    Duration.ofMillis(50),
+                    () -> {
+                      await(never);
+                      return "logs";
+                    }),
+                call("get_current_time", ToolConcurrency.PARALLEL, null, () -> "now")));
+
+    assertEquals(List.of("timed out after 50ms", "now"), results);
+    assertEquals(
+        1.0,
+        registry
+            .get("bbagent.agent.tool.timeout.count")
+            .tag("tool_name", "kubernetes_get_pod_logs")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void declaredTimeoutReplacesTheSchedulerDefault() {
+    ToolCallScheduler shortDefault =
+        new ToolCallScheduler(4, Duration.ofMillis(50), new OperationalMetricsService(registry));
+    try {
+      List<String> results =
+          shortDefault.run(
+              List.of(
+                  call(
+                      "search_convo_history",
+                      ToolConcurrency.PARALLEL,
+                      Duration.ofSeconds(5),
+                      () -> {
+                        try {
+                          Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                          Thread.currentThread().interrupt();
+                          return "interrupted";
+                        }
+                        return "messages";
+                      }),
+                  call("get_current_time", ToolConcurrency.PARALLEL, null, () -> "now")));
+
+      assertEquals(List.of("messages", "now"), results);
+      assertTrue(registry.find("bbagent.agent.tool.timeout.count").counters().isEmpty());
+    } finally {
+      shortDefault.shutdown();
+    }
+  }
+
+  @Test
+  void serialCallsRunToCompletionPastTheirTimeout() {
+    AtomicInteger sends = new AtomicInteger();
+
+    List<String> results =
+        scheduler.run(
+            List.of(
+                call(
+                    "send_text",
+                    ToolConcurrency.SERIAL,
+                    Duration.ofMillis(10),
+                    () -> {
+                      try {
+                        Thread.sleep(100);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return "interrupted";
+                      }
+                      sends.incrementAndGet();
+                      return "sent";
+                    })));
+
+    assertEquals(List.of("sent"), results);
+    assertEquals(1, sends.get());
+    assertTrue(registry.find("bbagent.agent.tool.timeout.count").counters().isEmpty());
+  }
+
+  private static ToolCallScheduler.ScheduledCall<String> call(
+      String toolName, ToolConcurrency concurrency, Duration timeout, Supplier<String> task) {
+    return new ToolCallScheduler.ScheduledCall<>(
+        toolName,
+        concurrency,
+        timeout,
+        task,
+        elapsed -> "timed out after " + elapsed.toMillis() + "ms");
+  }
+
+  private static String step(List<String> events, AtomicInteger running, String name) {
+    running.incrementAndGet();
+    try {
+      Thread.sleep(20);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    events.add(name);
+    running.decrementAndGet();
+    return name;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
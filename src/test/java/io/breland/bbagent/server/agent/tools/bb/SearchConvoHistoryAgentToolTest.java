@@ -1,18 +1,27 @@
 package io.breland.bbagent.server.agent.tools.bb;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.breland.bbagent.generated.bluebubblesclient.model.Message;
 import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex.SearchHit;
+import io.breland.bbagent.server.agent.memory.ConversationSearchIndex.SearchResult;
+import io.breland.bbagent.server.agent.memory.MemoryScopeResolver;
 import io.breland.bbagent.server.agent.tools.ToolContext;
 import io.breland.bbagent.server.agent.transport.bb.BBHttpClientWrapper;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 
@@ -23,7 +32,7 @@ class SearchConvoHistoryAgentToolTest {
   @Test
   void serializesLegacySenderAsAddressScalarOrNull() throws Exception {
     when(wrapper.getObjectMapper()).thenReturn(mapper);
-    when(wrapper.searchConversationHistory("iMessage;+;group", "Wordle", 20, 0))
+    when(wrapper.searchConversationHistory("iMessage;+;group", "Wordle", 20, 0, null, null))
         .thenReturn(
             List.of(
                 message("00000000-0000-0000-0000-000000000101", Map.of("address", "+15555550199")),
@@ -44,6 +53,99 @@ class SearchConvoHistoryAgentToolTest {
     assertThat(messages.get(1).get("sender").isNull()).isTrue();
   }
 
+  @Test
+  void answersFromTheLocalIndexWhenItCoversTheChat() throws Exception {
+    when(wrapper.getObjectMapper()).thenReturn(mapper);
+    ConversationSearchIndex index = mock(ConversationSearchIndex.class);
+    MemoryScopeResolver scopeResolver = mock(MemoryScopeResolver.class);
+    when(scopeResolver.conversationSearchIndex()).thenReturn(Optional.of(index));
+    Instant after = Instant.parse("2026-08-01T00:00:00Z");
+    when(index.search(anyString(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(
+            Optional.of(
+                new SearchResult(
+                    List.of(
+                        new SearchHit(
+                            "local-1",
+                            "Wordle 412 3/6",
+                            Instant.parse("2026-08-09T11:00:00Z"),
+                            false,
+                            "+15555550199")),
+                    Instant.parse("2026-06-01T00:00:00Z"))));
+    ToolContext context = mock(ToolContext.class);
+    when(context.message()).thenReturn(incoming());
+    when(context.getMapper()).thenReturn(mapper);
+
+    String output =
+        new SearchConvoHistoryAgentTool(wrapper, scopeResolver)
+            .getTool()
+            .handler()
+            .apply(
+                context,
+                mapper.readTree("{\"query\":\"wordel\",\"after\":\"2026-08-01T00:00:00Z\"}"));
+
+    JsonNode message = mapper.readTree(output).get("messages").get(0);
+    assertThat(message.get("guid").asText()).isEqualTo("local-1");
+    assertThat(message.get("sender").asText()).isEqualTo("+15555550199");
+    assertThat(message.get("dateCreated").asLong())
+        .isEqualTo(Instant.parse("2026-08-09T11:00:00Z").toEpochMilli());
+    verify(index).search("bluebubbles", "iMessage;+;group", "wordel", after, null, null, null);
+    verify(wrapper, never()).searchConversationHistory(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void fallsBackToBlueBubblesWhenTheIndexDoesNotCoverTheChat() throws Exception {
+    when(wrapper.getObjectMapper()).thenReturn(mapper);
+    when(wrapper.searchConversationHistory("iMessage;+;group", "Wordle", null, null, null, null))
+        .thenReturn(
+            List.of(message("00000000-0000-0000-0000-000000000103", Map.of("address", "+1"))));
+    ConversationSearchIndex index = mock(ConversationSearchIndex.class);
+    MemoryScopeResolver scopeResolver = mock(MemoryScopeResolver.class);
+    when(scopeResolver.conversationSearchIndex()).thenReturn(Optional.of(index));
+    when(index.search(anyString(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(Optional.empty());
+    ToolContext context = mock(ToolContext.class);
+    when(context.message()).thenReturn(incoming());
+    when(context.getMapper()).thenReturn(mapper);
+
+    String output =
+        new SearchConvoHistoryAgentTool(wrapper, scopeResolver)
+            .getTool()
+            .handler()
+            .apply(context, mapper.readTree("{\"query\":\"Wordle\"}"));
+
+    assertThat(mapper.readTree(output).get("messages").get(0).get("guid").asText())
+        .isEqualTo("00000000-0000-0000-0000-000000000103");
+  }
+
+  @Test
+  void fallbackSearchesBlueBubblesForTheQuotedTextWithinTheRequestedDates() throws Exception {
+    when(wrapper.getObjectMapper()).thenReturn(mapper);
+    Instant after = Instant.parse("2026-05-01T00:00:00Z");
+    Instant before = Instant.parse("2026-05-15T00:00:00Z");
+    when(wrapper.searchConversationHistory(
+            "iMessage;+;group", "wordle 412", null, null, after, before))
+        .thenReturn(
+            List.of(message("00000000-0000-0000-0000-000000000104", Map.of("address", "+1"))));
+    ToolContext context = mock(ToolContext.class);
+    when(context.message()).thenReturn(incoming());
+    when(context.getMapper()).thenReturn(mapper);
+    SearchConvoHistoryAgentTool tool = new SearchConvoHistoryAgentTool(wrapper);
+
+    String output =
+        tool.getTool()
+            .handler()
+            .apply(
+                context,
+                mapper.readTree(
+                    "{\"query\":\"\\\"wordle 412\\\"\",\"after\":\"2026-05-01T00:00:00Z\","
+                        + "\"before\":\"2026-05-15T00:00:00Z\"}"));
+
+    assertThat(mapper.readTree(output).get("messages").get(0).get("guid").asText())
+        .isEqualTo("00000000-0000-0000-0000-000000000104");
+    assertThat(tool.getTool().description()).doesNotContain("misspellings");
+  }
+
   private static Message message(String guid, Object handle) {
     return new Message()
         .guid(UUID.fromString(guid))
@@ -0,0 +1,168 @@
+package io.breland.bbagent.server.agent.tools.gcal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.json.Json;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import io.breland.bbagent.server.agent.persistence.GcalCredentialEntity;
+import io.breland.bbagent.server.agent.persistence.GcalCredentialRepository;
+import io.breland.bbagent.server.agent.tools.ToolContext;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs back-to-back {@code list_events} and {@code get_freebusy} calls for one account through a
+ * fresh {@link GcalClient} per call (the previous cost: client secrets parsed, a trusted transport
+ * and data store built, and the credential loaded on every call) and through one long-lived client.
+ * Calendar API responses come from an in-process transport, so the numbers exclude Google's own
+ * latency. Run with {@code ./gradlew benchmark}.
+ */
+@Tag(Benchmarks.TAG)
+class GcalClientBenchmarkTest {
+  private static final String CLIENT_SECRET_JSON =
+      """
+      {
+        "web": {
+          "client_id": "client-id.apps.googleusercontent.com",
+          "client_secret": "client-secret",
+          "auth_uri": "https://accounts.google.com/o/oauth2/auth",
+          "token_uri": "https://oauth2.googleapis.com/token"
+        }
+      }
+      """;
+  private static final String ACCOUNT_KEY = "account-1::person@example.com";
+  private static final int WARMUP = 20;
+  private static final int ITERATIONS = 200;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void backToBackCalendarToolCalls() {
+    GcalCredentialRepository repository = repository();
+    ToolContext context = mock(ToolContext.class);
+    when(context.getMapper()).thenReturn(objectMapper);
+    Map<String, Object> listArgs =
+        Map.of("account_key", ACCOUNT_KEY, "time_min", "2026-10-01T00:00:00Z");
+    Map<String, Object> freebusyArgs =
+        Map.of(
+            "account_key",
+            ACCOUNT_KEY,
+            "time_min",
+            "2026-10-01T00:00:00Z",
+            "time_max",
+            "2026-10-02T00:00:00Z",
+            "calendars",
+            List.of("primary"));
+
+    Benchmarks.Result perCall =
+        Benchmarks.measure(
+            "gcal list_events+get_freebusy client-per-call",
+            WARMUP,
+            ITERATIONS,
+            () -> {
+              String events =
+                  new ListEventsAgentTool(client(repository))
+                      .getTool()
+                      .handler()
+                      .apply(context, objectMapper.valueToTree(listArgs));
+              String freebusy =
+                  new GetFreebusyAgentTool(client(repository))
+                      .getTool()
+                      .handler()
+                      .apply(context, objectMapper.valueToTree(freebusyArgs));
+              assertThat(events).doesNotStartWith("error");
+              assertThat(freebusy).doesNotStartWith("error");
+            });
+
+    GcalClient shared = client(repository);
+    ListEventsAgentTool listEvents = new ListEventsAgentTool(shared);
+    GetFreebusyAgentTool getFreebusy = new GetFreebusyAgentTool(shared);
+    Benchmarks.Result cached =
+        Benchmarks.measure(
+            "gcal list_events+get_freebusy cached-client",
+            WARMUP,
+            ITERATIONS,
+            () -> {
+              String events =
+                  listEvents.getTool().handler().apply(context, objectMapper.valueToTree(listArgs));
+              String freebusy =
+                  getFreebusy
+                      .getTool()
+                      .handler()
+                      .apply(context, objectMapper.valueToTree(freebusyArgs));
+              assertThat(events).doesNotStartWith("error");
+              assertThat(freebusy).doesNotStartWith("error");
+            });
+
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] gcal cached-client speedup=%.1fx",
+            perCall.meanNanos() / cached.meanNanos()));
+  }
+
+  private GcalClient client(GcalCredentialRepository repository) {
+    return new GcalClient(
+        "",
+        CLIENT_SECRET_JSON,
+        "http://localhost:8080/api/v1/gcal/completeOauth.gcal",
+        "state-secret",
+        "BlueChat",
+        repository,
+        objectMapper,
+        null,
+        Clock.systemUTC(),
+        () -> {
+          // What each call used to pay, before handing requests to the in-process transport.
+          GoogleNetHttpTransport.newTrustedTransport();
+          return calendarApi();
+        });
+  }
+
+  private static GcalCredentialRepository repository() {
+    GcalCredentialRepository repository = mock(GcalCredentialRepository.class);
+    String id = StoredCredential.DEFAULT_DATA_STORE_ID + ":" + ACCOUNT_KEY;
+    AccountKeyParts parts = AccountKeyParts.parse(ACCOUNT_KEY);
+    when(repository.findById(id))
+        .thenReturn(
+            Optional.of(
+                new GcalCredentialEntity(
+                    id,
+                    StoredCredential.DEFAULT_DATA_STORE_ID,
+                    ACCOUNT_KEY,
+                    parts.accountId(),
+                    parts.googleAccountId(),
+                    "access",
+                    "refresh",
+                    Instant.now().plus(Duration.ofDays(1)).toEpochMilli())));
+    return repository;
+  }
+
+  private static HttpTransport calendarApi() {
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url)
+            .setResponse(
+                new MockLowLevelHttpResponse().setContentType(Json.MEDIA_TYPE).setContent("{}"));
+      }
+    };
+  }
+}
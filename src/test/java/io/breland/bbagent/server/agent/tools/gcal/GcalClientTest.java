@@ -2,19 +2,28 @@ package io.breland.bbagent.server.agent.tools.gcal;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.services.calendar.Calendar;
 import io.breland.bbagent.server.agent.persistence.GcalCredentialEntity;
 import io.breland.bbagent.server.agent.persistence.GcalCredentialRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 class GcalClientTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
   private static final String CLIENT_SECRET_JSON =
       """
       {
@@ -64,7 +73,52 @@ class GcalClientTest {
     verify(repository).deleteById(fromId);
   }
 
+  @Test
+  void calendarClientIsReusedUntilTheAccountIsRevoked() throws Exception {
+    GcalCredentialRepository repository = mock(GcalCredentialRepository.class);
+    GcalClient client = client(repository, Clock.fixed(NOW, ZoneOffset.UTC));
+    String accountKey = "account-1::person@example.com";
+    String id = StoredCredential.DEFAULT_DATA_STORE_ID + ":" + accountKey;
+    when(repository.findById(id))
+        .thenReturn(Optional.of(credential(id, accountKey, "access", "refresh", 1_000L)));
+
+    Calendar first = client.getCalendarService(accountKey);
+    Calendar second = client.getCalendarService(accountKey);
+    client.revokeAccount(accountKey);
+    Calendar afterRevoke = client.getCalendarService(accountKey);
+
+    assertThat(second).isSameAs(first);
+    assertThat(afterRevoke).isNotSameAs(first);
+    verify(repository, times(2)).findById(id);
+  }
+
+  @Test
+  void calendarClientIsReloadedOnceAnUnrefreshableAccessTokenExpires() throws Exception {
+    GcalCredentialRepository repository = mock(GcalCredentialRepository.class);
+    MutableClock clock = new MutableClock(NOW);
+    GcalClient client = client(repository, clock);
+    String accountKey = "account-1::person@example.com";
+    String id = StoredCredential.DEFAULT_DATA_STORE_ID + ":" + accountKey;
+    long expiresAt = NOW.plus(Duration.ofMinutes(5)).toEpochMilli();
+    when(repository.findById(id))
+        .thenReturn(Optional.of(credential(id, accountKey, "access", null, expiresAt)));
+
+    Calendar first = client.getCalendarService(accountKey);
+    clock.advance(Duration.ofMinutes(2));
+    Calendar beforeExpiry = client.getCalendarService(accountKey);
+    clock.advance(Duration.ofMinutes(2).plusSeconds(30));
+    Calendar nearExpiry = client.getCalendarService(accountKey);
+
+    assertThat(beforeExpiry).isSameAs(first);
+    assertThat(nearExpiry).isNotSameAs(first);
+    verify(repository, times(2)).findById(id);
+  }
+
   private static GcalClient client(GcalCredentialRepository repository) {
+    return client(repository, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  private static GcalClient client(GcalCredentialRepository repository, Clock clock) {
     return new GcalClient(
         "",
         CLIENT_SECRET_JSON,
@@ -72,7 +126,10 @@ class GcalClientTest {
         "state-secret",
         "BlueChat",
         repository,
-        new ObjectMapper());
+        new ObjectMapper(),
+        null,
+        clock,
+        MockHttpTransport::new);
   }
 
   private static GcalCredentialEntity credential(
@@ -92,4 +149,31 @@ class GcalClientTest {
         refreshToken,
         expirationTimeMs);
   }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
 }
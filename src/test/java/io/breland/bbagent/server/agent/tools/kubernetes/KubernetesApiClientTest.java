@@ -1,11 +1,19 @@
 package io.breland.bbagent.server.agent.tools.kubernetes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class KubernetesApiClientTest {
   private final KubernetesApiClient client = new KubernetesApiClient();
@@ -64,4 +72,53 @@ class KubernetesApiClientTest {
     assertEquals(500, client.clamp(5000, 1, 500));
     assertEquals(25, client.clamp(25, 1, 500));
   }
+
+  @Test
+  void podLogsKeepTheNewestLinesWithinTheCap() throws Exception {
+    KubernetesApiClient.PodLogs logs =
+        KubernetesApiClient.readPodLogs(200, new StringReader("first\nsecond\nthird\nlast"), 12);
+
+    assertEquals("third\nlast", logs.body());
+    assertEquals(2, logs.omittedLines());
+    assertTrue(logs.truncated());
+  }
+
+  @Test
+  void podLogsUnderTheCapAreReturnedWhole() throws Exception {
+    KubernetesApiClient.PodLogs logs =
+        KubernetesApiClient.readPodLogs(404, new StringReader("line 1\nline 2\n"), 1024);
+
+    assertEquals(404, logs.status());
+    assertEquals("line 1\nline 2\n", logs.body());
+    assertFalse(logs.truncated());
+  }
+
+  @Test
+  void podLogsCutALineLongerThanTheCap() throws Exception {
+    KubernetesApiClient.PodLogs logs =
+        KubernetesApiClient.readPodLogs(200, new StringReader("abcdefghij\nok\n"), 4);
+
+    assertEquals("ok\n", logs.body());
+    assertTrue(logs.lineTruncated());
+  }
+
+  @Test
+  void serviceAccountTokenIsReloadedOnlyWhenTheFileChanges(@TempDir Path directory)
+      throws Exception {
+    Path tokenPath = directory.resolve("token");
+    FileTime issuedAt = FileTime.from(Instant.parse("2026-10-01T12:00:00Z"));
+    Files.writeString(tokenPath, "token-1\n");
+    Files.setLastModifiedTime(tokenPath, issuedAt);
+    KubernetesApiClient tokenClient =
+        new KubernetesApiClient(tokenPath, directory.resolve("ca.crt"));
+
+    assertEquals("token-1", tokenClient.serviceAccountToken());
+
+    Files.writeString(tokenPath, "token-2\n");
+    Files.setLastModifiedTime(tokenPath, issuedAt);
+    assertEquals("token-1", tokenClient.serviceAccountToken());
+
+    Files.setLastModifiedTime(tokenPath, FileTime.from(Instant.parse("2026-10-01T13:00:00Z")));
+    assertEquals("token-2", tokenClient.serviceAccountToken());
+  }
 }
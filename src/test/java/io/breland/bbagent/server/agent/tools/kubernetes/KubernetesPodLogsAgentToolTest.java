@@ -1,32 +1,28 @@
 package io.breland.bbagent.server.agent.tools.kubernetes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.net.URI;
-import java.net.http.HttpResponse;
 import org.junit.jupiter.api.Test;
 
 class KubernetesPodLogsAgentToolTest {
   private final ObjectMapper objectMapper = new ObjectMapper();
 
   @Test
-  void fetchesPodLogsWithNegotiationFriendlyAcceptHeader() throws Exception {
+  void fetchesPodLogsThroughTheSizeCappedStream() throws Exception {
     KubernetesApiClient kubernetesApi = spy(new KubernetesApiClient());
-    @SuppressWarnings("unchecked")
-    HttpResponse<String> response = mock(HttpResponse.class);
-    when(response.statusCode()).thenReturn(200);
-    when(response.body()).thenReturn("line 1\nline 2\n");
-    doReturn(response).when(kubernetesApi).get(any(URI.class), anyString());
+    doReturn(new KubernetesApiClient.PodLogs(200, "line 1\nline 2\n", 0, false))
+        .when(kubernetesApi)
+        .getPodLogs(any(URI.class), anyInt());
 
     KubernetesPodLogsAgentTool toolProvider =
         new KubernetesPodLogsAgentTool(objectMapper, kubernetesApi);
@@ -40,11 +36,37 @@ class KubernetesPodLogsAgentToolTest {
     URI expectedUri =
         URI.create(
             "https://kubernetes.default.svc/api/v1/namespaces/default/pods/app/log?tailLines=100");
-    verify(kubernetesApi).get(eq(expectedUri), eq(KubernetesApiClient.POD_LOGS_ACCEPT_HEADER));
+    verify(kubernetesApi).getPodLogs(eq(expectedUri), eq(KubernetesApiClient.MAX_POD_LOG_CHARS));
 
     var payload = objectMapper.readTree(result);
     assertEquals(200, payload.get("status").asInt());
     assertEquals(expectedUri.toString(), payload.get("request_uri").asText());
     assertEquals("line 1\nline 2\n", payload.get("response").asText());
+    assertFalse(payload.has("truncated"));
+  }
+
+  @Test
+  void followedLogsAskTheServerToStopAtTheSizeCap() throws Exception {
+    KubernetesApiClient kubernetesApi = spy(new KubernetesApiClient());
+    doReturn(new KubernetesApiClient.PodLogs(200, "tail\n", 12, false))
+        .when(kubernetesApi)
+        .getPodLogs(any(URI.class), anyInt());
+
+    KubernetesPodLogsAgentTool toolProvider =
+        new KubernetesPodLogsAgentTool(objectMapper, kubernetesApi);
+    ObjectNode args = objectMapper.createObjectNode();
+    args.put("namespace", "default");
+    args.put("pod", "app");
+    args.put("follow", true);
+
+    var payload = objectMapper.readTree(toolProvider.getTool().handler().apply(null, args));
+
+    assertEquals(
+        "https://kubernetes.default.svc/api/v1/namespaces/default/pods/app/log?follow=true"
+            + "&limitBytes="
+            + KubernetesApiClient.MAX_POD_LOG_CHARS,
+        payload.get("request_uri").asText());
+    assertEquals(true, payload.get("truncated").asBoolean());
+    assertEquals(12, payload.get("omitted_lines").asInt());
   }
 }
@@ -0,0 +1,98 @@
+package io.breland.bbagent.server.agent.tools.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.ai.tool.toolsearch.ToolReference;
+import org.springframework.ai.tool.toolsearch.ToolSearchRequest;
+import org.springframework.ai.tool.toolsearch.index.lucene.LuceneToolIndex;
+
+/**
+ * Compares the previous per-call {@link LuceneToolIndex} rebuild against the long-lived {@link
+ * ToolSearchIndex}. Run with {@code ./gradlew benchmark}.
+ */
+@Tag(Benchmarks.TAG)
+class ToolSearchIndexBenchmarkTest {
+  private static final String[] CATEGORIES = {
+    "bluebubbles", "google_calendar", "memory", "scheduled", "assistant", "other"
+  };
+  private static final String[] WORDS = {
+    "send", "message", "calendar", "event", "remember", "preference", "schedule", "reminder",
+    "rename", "group", "poll", "reaction", "search", "history", "account", "link", "usage",
+    "limit", "pod", "logs", "feedback", "model", "catchup", "summary", "icon", "giphy"
+  };
+  private static final String QUERY = "schedule a reminder event for the group";
+  private static final ToolVisibility VISIBILITY =
+      new ToolVisibility(
+          EnumSet.of(ToolRequirement.DIRECT_CHAT, ToolRequirement.BLUEBUBBLES_TRANSPORT));
+
+  @ParameterizedTest
+  @ValueSource(ints = {50, 500, 5_000})
+  void searchLatencyAndAllocation(int toolCount) throws Exception {
+    List<SyntheticTool> tools = syntheticTools(toolCount);
+    int iterations = toolCount >= 5_000 ? 50 : 200;
+
+    Benchmarks.measure(
+        "rebuild-per-call tools=" + toolCount,
+        iterations / 5,
+        iterations,
+        () -> {
+          String sessionId = "benchmark";
+          try (LuceneToolIndex index = new LuceneToolIndex(ToolSearchIndex.MIN_SCORE)) {
+            for (SyntheticTool tool : tools) {
+              if (VISIBILITY.allows(tool.requirements())) {
+                index.indexTool(
+                    sessionId,
+                    ToolReference.builder().toolName(tool.name()).summary(tool.summary()).build());
+              }
+            }
+            index.search(new ToolSearchRequest(sessionId, QUERY, 5, null));
+          }
+        });
+
+    ToolSearchIndex index = new ToolSearchIndex();
+    for (SyntheticTool tool : tools) {
+      index.upsert(tool.name(), tool.category(), tool.requirements(), tool.summary());
+    }
+    Benchmarks.Result persistent =
+        Benchmarks.measure(
+            "persistent-index tools=" + toolCount,
+            iterations * 5,
+            iterations * 10,
+            () -> index.search(QUERY, 5, VISIBILITY, null));
+    index.close();
+
+    assertThat(persistent.iterations()).isPositive();
+  }
+
+  private static List<SyntheticTool> syntheticTools(int count) {
+    List<SyntheticTool> tools = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder summary = new StringBuilder("synthetic tool ").append(i);
+      for (int word = 0; word < 12; word++) {
+        summary.append(' ').append(WORDS[(i * 7 + word * 3) % WORDS.length]);
+      }
+      Set<ToolRequirement> requirements =
+          i % 10 == 0
+              ? EnumSet.of(ToolRequirement.GROUP_CHAT)
+              : EnumSet.noneOf(ToolRequirement.class);
+      tools.add(
+          new SyntheticTool(
+              "synthetic_tool_" + i,
+              CATEGORIES[i % CATEGORIES.length],
+              requirements,
+              summary.toString()));
+    }
+    return tools;
+  }
+
+  private record SyntheticTool(
+      String name, String category, Set<ToolRequirement> requirements, String summary) {}
+}
@@ -0,0 +1,56 @@
+package io.breland.bbagent.server.agent.tools.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ToolSearchIndexTest {
+  private static final ToolVisibility DIRECT_BLUEBUBBLES =
+      new ToolVisibility(
+          EnumSet.of(ToolRequirement.DIRECT_CHAT, ToolRequirement.BLUEBUBBLES_TRANSPORT));
+
+  @Test
+  void filtersToolsWhoseRequirementsAreNotSatisfied() {
+    ToolSearchIndex index = new ToolSearchIndex();
+    index.upsert("rename_conversation", "bluebubbles", groupOnly(), "rename the group chat");
+    index.upsert("get_conversation_info", "bluebubbles", Set.of(), "describe the group chat");
+
+    assertThat(index.search("group chat", 10, DIRECT_BLUEBUBBLES, null))
+        .containsExactly("get_conversation_info");
+    assertThat(
+            index.search(
+                "group chat",
+                10,
+                new ToolVisibility(
+                    EnumSet.of(ToolRequirement.GROUP_CHAT, ToolRequirement.BLUEBUBBLES_TRANSPORT)),
+                null))
+        .containsExactlyInAnyOrder("rename_conversation", "get_conversation_info");
+  }
+
+  @Test
+  void appliesCategoryFilterCaseInsensitively() {
+    ToolSearchIndex index = new ToolSearchIndex();
+    index.upsert("create_event", "google_calendar", Set.of(), "create a calendar event");
+    index.upsert("schedule_event", "scheduled", Set.of(), "schedule a reminder event");
+
+    assertThat(index.search("event", 10, DIRECT_BLUEBUBBLES, " Google_Calendar "))
+        .containsExactly("create_event");
+  }
+
+  @Test
+  void upsertReplacesPreviouslyIndexedTool() {
+    ToolSearchIndex index = new ToolSearchIndex();
+    index.upsert("send_text", "bluebubbles", Set.of(), "send a plain text message");
+    index.upsert("send_text", "bluebubbles", Set.of(), "deliver words to the chat");
+
+    assertThat(index.search("plain", 10, DIRECT_BLUEBUBBLES, null)).isEmpty();
+    assertThat(index.search("deliver words", 10, DIRECT_BLUEBUBBLES, null))
+        .containsExactly("send_text");
+  }
+
+  private static Set<ToolRequirement> groupOnly() {
+    return EnumSet.of(ToolRequirement.GROUP_CHAT, ToolRequirement.BLUEBUBBLES_TRANSPORT);
+  }
+}
@@ -0,0 +1,167 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BlueBubblesChatMetadataCacheTest {
+  private static final String CHAT = "iMessage;+;chat-1";
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-10-01T12:00:00Z"));
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final BlueBubblesChatMetadataCache cache =
+      new BlueBubblesChatMetadataCache(
+          clock, Duration.ofMinutes(5), 16, new OperationalMetricsService(registry));
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void servesRepeatLookupsUntilTheTtlExpires() {
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-1");
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-1");
+
+    clock.advance(Duration.ofMinutes(6));
+
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-2");
+    assertThat(lookups("hit")).isEqualTo(1.0);
+    assertThat(lookups("miss")).isEqualTo(2.0);
+  }
+
+  @Test
+  void invalidationDropsEveryViewOfTheChat() {
+    cache.get(CHAT, "chat", this::load);
+    cache.get(CHAT, "json", this::load);
+    cache.get("iMessage;+;chat-2", "chat", this::load);
+
+    cache.invalidate(CHAT, "rename");
+
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-4");
+    assertThat(
+            registry
+                .get("bbagent.bluebubbles.chat_metadata.cache.invalidation.count")
+                .tag("reason", "rename")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void concurrentLookupsShareOneLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                cache.get(
+                    CHAT,
+                    "chat",
+                    () -> {
+                      loading.countDown();
+                      await(release);
+                      return load();
+                    }));
+    assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(() -> cache.get(CHAT, "chat", this::load));
+    while (lookups("coalesced") < 1.0) {
+      Thread.onSpinWait();
+    }
+
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("load-1");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("load-1");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void loadThatRacesAnInvalidationIsNotCached() {
+    String value =
+        cache.get(
+            CHAT,
+            "chat",
+            () -> {
+              cache.invalidate(CHAT, "participants");
+              return load();
+            });
+
+    assertThat(value).isEqualTo("load-1");
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-2");
+  }
+
+  @Test
+  void failedLoadsAreNotCached() {
+    assertThatThrownBy(
+            () ->
+                cache.get(
+                    CHAT,
+                    "chat",
+                    () -> {
+                      throw new IllegalStateException("down");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(cache.get(CHAT, "chat", this::load)).isEqualTo("load-1");
+  }
+
+  private String load() {
+    return "load-" + loads.incrementAndGet();
+  }
+
+  private double lookups(String result) {
+    return registry
+        .find("bbagent.bluebubbles.chat_metadata.cache.lookup.count")
+        .tag("result", result)
+        .counters()
+        .stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      this.instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BlueBubblesContactDirectoryTest {
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final BlueBubblesContactIdentity ALICE =
+      new BlueBubblesContactIdentity("Alice", List.of("+1 (555) 555-0123", "Alice@Example.com"));
+  private static final BlueBubblesContactIdentity BOB =
+      new BlueBubblesContactIdentity("Bob", List.of("bob@example.com"));
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-10-01T12:00:00Z"));
+  private final List<List<BlueBubblesContactIdentity>> books = new ArrayList<>();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void resolvesEquivalentPhoneAndEmailFormsFromOneLoad() {
+    books.add(List.of(ALICE, BOB));
+    BlueBubblesContactDirectory directory = directory(null);
+
+    assertThat(directory.addressesFor("tel:555-555-0123", TIMEOUT))
+        .containsExactly("+1 (555) 555-0123", "Alice@Example.com");
+    assertThat(directory.addressesFor("mailto:alice@example.com", TIMEOUT))
+        .containsExactly("+1 (555) 555-0123", "Alice@Example.com");
+    assertThat(directory.addressesFor("+15555550123", TIMEOUT)).hasSize(2);
+    assertThat(directory.addressesFor("bob@example.com", TIMEOUT))
+        .containsExactly("bob@example.com");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void unchangedRefreshKeepsSharedContactSnapshots() {
+    books.add(List.of(ALICE, BOB));
+    books.add(
+        List.of(
+            new BlueBubblesContactIdentity("Alice", ALICE.addresses()),
+            new BlueBubblesContactIdentity("Bob", BOB.addresses())));
+    BlueBubblesContactDirectory directory = directory(null);
+    List<BlueBubblesContactIdentity> before = directory.contacts(TIMEOUT);
+
+    assertThat(directory.refresh(TIMEOUT)).isFalse();
+
+    assertThat(directory.contacts(TIMEOUT)).isSameAs(before);
+  }
+
+  @Test
+  void missReloadsAtMostOncePerInterval() {
+    BlueBubblesContactIdentity carol =
+        new BlueBubblesContactIdentity("Carol", List.of("carol@example.com"));
+    books.add(List.of(ALICE));
+    books.add(List.of(ALICE, carol));
+    BlueBubblesContactDirectory directory = directory(null);
+
+    assertThat(directory.addressesFor("carol@example.com", TIMEOUT)).isEmpty();
+    assertThat(loads).hasValue(1);
+
+    clock.advance(Duration.ofMinutes(2));
+
+    assertThat(directory.addressesFor("carol@example.com", TIMEOUT))
+        .containsExactly("carol@example.com");
+    assertThat(directory.addressesFor("dave@example.com", TIMEOUT)).isEmpty();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void failedRefreshKeepsServingThePreviousSnapshotAndIsRecorded() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    books.add(List.of(ALICE));
+    BlueBubblesContactDirectory directory = directory(new OperationalMetricsService(registry));
+    directory.contacts(TIMEOUT);
+
+    assertThatThrownBy(() -> directory.refresh(TIMEOUT)).isInstanceOf(IllegalStateException.class);
+
+    assertThat(directory.addressesFor("alice@example.com", TIMEOUT)).hasSize(2);
+    assertThat(
+            registry
+                .get("bbagent.bluebubbles.contacts.refresh.duration")
+                .tag("outcome", "failure")
+                .timer()
+                .count())
+        .isEqualTo(1L);
+    assertThat(
+            registry
+                .get("bbagent.bluebubbles.contacts.lookup.duration")
+                .tag("result", "hit")
+                .timer()
+                .count())
+        .isEqualTo(1L);
+  }
+
+  private BlueBubblesContactDirectory directory(OperationalMetricsService metrics) {
+    return new BlueBubblesContactDirectory(
+        timeout -> {
+          int load = loads.getAndIncrement();
+          if (load >= books.size()) {
+            throw new IllegalStateException("contacts unavailable");
+          }
+          return books.get(load);
+        },
+        clock,
+        Duration.ofMinutes(1),
+        metrics);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    private void advance(Duration duration) {
+      this.instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
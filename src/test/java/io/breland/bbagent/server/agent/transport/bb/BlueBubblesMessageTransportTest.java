@@ -177,6 +177,30 @@ class BlueBubblesMessageTransportTest {
     assertEquals(3, wrapper.messageLookupCalls);
   }
 
+  @Test
+  void wrapperConfirmsDirectSendFromWebhookEchoWithoutReadingHistory() {
+    V1MessageApi messageApi = Mockito.mock(V1MessageApi.class);
+    SendConfirmingBBHttpClientWrapper wrapper = new SendConfirmingBBHttpClientWrapper(messageApi);
+    when(messageApi.apiV1MessageTextPost(eq("pw"), any()))
+        .thenAnswer(
+            invocation -> {
+              wrapper.observeSentMessageEcho(
+                  null, "iMessage;-;mindstorms6+apple@gmail.com", "hello", Instant.now());
+              return Mono.empty();
+            });
+
+    ApiV1MessageTextPostRequest request =
+        ApiV1MessageTextPostRequest.builder()
+            .chatGuid("any;-;mindstorms6+apple@gmail.com")
+            .tempGuid("tmp")
+            .message("hello")
+            .build();
+
+    assertTrue(wrapper.sendTextDirect(request));
+    verify(messageApi).apiV1MessageTextPost(eq("pw"), any());
+    assertEquals(0, wrapper.messageLookupCalls);
+  }
+
   @Test
   void wrapperConfirmsDirectSendTimeoutFromChatHistory() {
     V1MessageApi messageApi = Mockito.mock(V1MessageApi.class);
@@ -0,0 +1,87 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BlueBubblesSendConfirmationsTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+  private final BlueBubblesSendConfirmations confirmations =
+      new BlueBubblesSendConfirmations(Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofSeconds(10));
+
+  @Test
+  void tempGuidEchoConfirmsTheSend() throws Exception {
+    try (BlueBubblesSendConfirmations.PendingSend pending =
+        confirmations.register("temp-1", List.of("iMessage;-;+15555550123"), "hello", NOW)) {
+      assertThat(confirmations.observeEcho("temp-1", "iMessage;-;+15555550123", "hi", NOW))
+          .isTrue();
+
+      assertThat(pending.await(Duration.ZERO)).isTrue();
+      assertThat(pending.echoedAt()).contains(NOW);
+    }
+  }
+
+  @Test
+  void contentEchoMatchesAcrossServicePrefixes() throws Exception {
+    try (BlueBubblesSendConfirmations.PendingSend pending =
+        confirmations.register(
+            "temp-1", List.of("any;-;+15555550123", "iMessage;-;+15555550123"), "hello", NOW)) {
+      assertThat(confirmations.observeEcho(null, "SMS;-;+15555550123", "hello", NOW)).isTrue();
+
+      assertThat(pending.await(Duration.ZERO)).isTrue();
+    }
+  }
+
+  @Test
+  void contentEchoIgnoresOtherTextChatsAndOlderMessages() throws Exception {
+    try (BlueBubblesSendConfirmations.PendingSend pending =
+        confirmations.register("temp-1", List.of("iMessage;-;+15555550123"), "hello", NOW)) {
+      assertThat(confirmations.observeEcho(null, "iMessage;-;+15555550123", "bye", NOW)).isFalse();
+      assertThat(confirmations.observeEcho(null, "iMessage;-;+15555550999", "hello", NOW))
+          .isFalse();
+      assertThat(
+              confirmations.observeEcho(
+                  null, "iMessage;-;+15555550123", "hello", NOW.minus(Duration.ofMinutes(1))))
+          .isFalse();
+
+      assertThat(pending.await(Duration.ZERO)).isFalse();
+    }
+  }
+
+  @Test
+  void awaitReturnsAsSoonAsTheEchoArrives() throws Exception {
+    try (BlueBubblesSendConfirmations.PendingSend pending =
+        confirmations.register("temp-1", List.of("iMessage;-;+15555550123"), "hello", NOW)) {
+      CompletableFuture<Boolean> waiting =
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return pending.await(Duration.ofMinutes(1));
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return false;
+                }
+              });
+
+      confirmations.observeEcho("temp-1", null, null, null);
+
+      assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  void closedSendsAreNoLongerMatched() {
+    confirmations.register("temp-1", List.of("iMessage;-;+15555550123"), "hello", NOW).close();
+
+    assertThat(confirmations.observeEcho("temp-1", null, null, null)).isFalse();
+    assertThat(confirmations.observeEcho(null, "iMessage;-;+15555550123", "hello", NOW)).isFalse();
+  }
+}
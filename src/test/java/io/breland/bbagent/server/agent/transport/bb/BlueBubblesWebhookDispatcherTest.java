@@ -0,0 +1,223 @@
+package io.breland.bbagent.server.agent.transport.bb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uber.cadence.WorkflowExecution;
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequest;
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestData;
+import io.breland.bbagent.generated.model.BlueBubblesMessageReceivedRequestDataChatsInner;
+import io.breland.bbagent.server.agent.BBMessageAgent;
+import io.breland.bbagent.server.agent.ConversationState;
+import io.breland.bbagent.server.agent.IncomingMessage;
+import io.breland.bbagent.server.agent.cadence.CadenceIncomingMessageHandler;
+import io.breland.bbagent.server.agent.cadence.CadenceWorkflowLauncher;
+import io.breland.bbagent.server.agent.persistence.BlueBubblesWebhookInboxStore;
+import io.breland.bbagent.server.agent.persistence.BlueBubblesWebhookInboxStore.InboxClaim;
+import io.breland.bbagent.server.agent.profile.AgentProfileService;
+import io.breland.bbagent.server.agent.terms.TermsAgreementValidator;
+import io.breland.bbagent.server.agent.transport.MessageTransport;
+import io.breland.bbagent.server.agent.transport.MessageTransportRegistry;
+import io.breland.bbagent.server.metrics.OperationalMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class BlueBubblesWebhookDispatcherTest {
+  private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+  private static final String CHAT_GUID = "iMessage;+;chat-a";
+
+  private final BlueBubblesWebhookInboxStore store = mock(BlueBubblesWebhookInboxStore.class);
+  private final BlueBubblesWebhookProcessor processor = mock(BlueBubblesWebhookProcessor.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void acceptPersistsTheWebhookAndProcessesItFromTheInbox() {
+    BlueBubblesWebhookDispatcher dispatcher = dispatcher(5);
+    ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+    when(store.enqueue(
+            eq(CHAT_GUID), eq("new-message"), eq("message-guid"), payload.capture(), eq(NOW)))
+        .thenReturn("inbox-1");
+    when(store.claimDue(anyString(), any(), anyInt()))
+        .thenAnswer(
+            invocation ->
+                List.of(new InboxClaim("inbox-1", "new-message", payload.getValue(), NOW, 1, "w")))
+        .thenReturn(List.of());
+
+    dispatcher.accept(request());
+
+    ArgumentCaptor<BlueBubblesMessageReceivedRequestData> processed =
+        ArgumentCaptor.forClass(BlueBubblesMessageReceivedRequestData.class);
+    verify(processor).process(processed.capture());
+    assertEquals("message-guid", processed.getValue().getGuid());
+    assertEquals("hello", processed.getValue().getText());
+    assertEquals(CHAT_GUID, processed.getValue().getChats().getFirst().getGuid());
+    verify(store).complete(any());
+    assertEquals(
+        1L,
+        registry
+            .get("bbagent.bluebubbles.webhook.inbox.dispatch.latency")
+            .tag("redelivery", "false")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void failedEntriesAreRetriedWithBackoffUntilAttemptsRunOut() {
+    BlueBubblesWebhookDispatcher dispatcher = dispatcher(2);
+    String payload = "{\"type\":\"new-message\",\"data\":{\"guid\":\"message-guid\"}}";
+    InboxClaim firstAttempt = new InboxClaim("inbox-1", "new-message", payload, NOW, 1, "w");
+    InboxClaim lastAttempt = new InboxClaim("inbox-1", "new-message", payload, NOW, 2, "w");
+    when(store.claimDue(anyString(), any(), anyInt()))
+        .thenReturn(List.of(firstAttempt))
+        .thenReturn(List.of())
+        .thenReturn(List.of(lastAttempt))
+        .thenReturn(List.of());
+    doThrow(new IllegalStateException("agent down")).when(processor).process(any());
+
+    dispatcher.drainInbox();
+
+    verify(store).retryLater(eq(firstAttempt), eq(NOW.plusSeconds(5)), anyString(), eq(NOW));
+    verify(store, never()).complete(firstAttempt);
+
+    dispatcher.drainInbox();
+
+    verify(store).complete(lastAttempt);
+    assertEquals(
+        1.0,
+        registry.get("bbagent.bluebubbles.webhook.inbox.redelivery.count").counter().count());
+  }
+
+  @Test
+  void retryStartsTheWorkflowWhenTheFirstStartFailed() {
+    BlueBubblesWebhookDispatcher dispatcher = dispatcher(5);
+    CadenceWorkflowLauncher launcher = mock(CadenceWorkflowLauncher.class);
+    CadenceIncomingMessageHandler handler = handler(launcher);
+    IncomingMessage message =
+        new IncomingMessage(
+            IncomingMessage.TRANSPORT_BLUEBUBBLES,
+            CHAT_GUID,
+            "message-guid",
+            null,
+            "hello",
+            false,
+            BBMessageAgent.IMESSAGE_SERVICE,
+            "member@example.com",
+            false,
+            NOW,
+            List.of(),
+            false);
+    doAnswer(
+            invocation -> {
+              handler.handleIncomingMessage(message);
+              return null;
+            })
+        .when(processor)
+        .process(any());
+    WorkflowExecution execution = new WorkflowExecution();
+    execution.setRunId("run-1");
+    when(launcher.startWorkflow(any()))
+        .thenThrow(new IllegalStateException("cadence unavailable"))
+        .thenReturn(execution);
+    String payload = "{\"type\":\"new-message\",\"data\":{\"guid\":\"message-guid\"}}";
+    InboxClaim firstAttempt = new InboxClaim("inbox-1", "new-message", payload, NOW, 1, "w");
+    InboxClaim secondAttempt = new InboxClaim("inbox-1", "new-message", payload, NOW, 2, "w");
+    when(store.claimDue(anyString(), any(), anyInt()))
+        .thenReturn(List.of(firstAttempt))
+        .thenReturn(List.of())
+        .thenReturn(List.of(secondAttempt))
+        .thenReturn(List.of());
+
+    dispatcher.drainInbox();
+    verify(store).retryLater(eq(firstAttempt), eq(NOW.plusSeconds(5)), anyString(), eq(NOW));
+
+    dispatcher.drainInbox();
+
+    verify(launcher, times(2)).startWorkflow(any());
+    verify(store).complete(secondAttempt);
+  }
+
+  @Test
+  void processesInlineWhenTheInboxCannotBeWritten() {
+    BlueBubblesWebhookDispatcher dispatcher = dispatcher(5);
+    when(store.enqueue(any(), anyString(), any(), anyString(), any()))
+        .thenThrow(new IllegalStateException("database down"));
+    BlueBubblesMessageReceivedRequest request = request();
+
+    dispatcher.accept(request);
+
+    verify(processor).process(request.getData());
+    verify(store, never()).claimDue(anyString(), any(), anyInt());
+  }
+
+  @Test
+  void retryDelayDoublesUpToTheCap() {
+    assertEquals(Duration.ofSeconds(5), BlueBubblesWebhookDispatcher.retryDelay(1));
+    assertEquals(Duration.ofSeconds(10), BlueBubblesWebhookDispatcher.retryDelay(2));
+    assertEquals(Duration.ofSeconds(40), BlueBubblesWebhookDispatcher.retryDelay(4));
+    assertEquals(Duration.ofMinutes(5), BlueBubblesWebhookDispatcher.retryDelay(40));
+  }
+
+  private BlueBubblesWebhookDispatcher dispatcher(int maxAttempts) {
+    return new BlueBubblesWebhookDispatcher(
+        store,
+        processor,
+        new OperationalMetricsService(registry),
+        Clock.fixed(NOW, ZoneOffset.UTC),
+        "worker-1",
+        true,
+        Runnable::run,
+        2,
+        maxAttempts);
+  }
+
+  private static CadenceIncomingMessageHandler handler(CadenceWorkflowLauncher launcher) {
+    AgentProfileService profileService = mock(AgentProfileService.class);
+    MessageTransportRegistry transportRegistry = mock(MessageTransportRegistry.class);
+    MessageTransport transport = mock(MessageTransport.class);
+    when(transportRegistry.resolve(any())).thenReturn(transport);
+    when(transport.displayName()).thenReturn("test");
+    when(transport.hydrateConversationState(any(), any())).thenReturn(new ConversationState());
+    return new CadenceIncomingMessageHandler(
+        mock(BBMessageAgent.class),
+        new ConcurrentHashMap<>(),
+        profileService,
+        transportRegistry,
+        mock(BBHttpClientWrapper.class),
+        launcher,
+        null,
+        () -> "https://example.com/terms",
+        new TermsAgreementValidator(
+            () -> null, new ObjectMapper(), () -> TermsAgreementValidator.DEFAULT_RESPONSES_MODEL),
+        null);
+  }
+
+  private static BlueBubblesMessageReceivedRequest request() {
+    BlueBubblesMessageReceivedRequestDataChatsInner chat =
+        new BlueBubblesMessageReceivedRequestDataChatsInner();
+    chat.setGuid(CHAT_GUID);
+    BlueBubblesMessageReceivedRequestData data = new BlueBubblesMessageReceivedRequestData();
+    data.setGuid("message-guid");
+    data.setText("hello");
+    data.setChats(List.of(chat));
+    return new BlueBubblesMessageReceivedRequest(
+        BlueBubblesMessageReceivedRequest.TypeEnum.NEW_MESSAGE, data);
+  }
+}
@@ -0,0 +1,83 @@
+package io.breland.bbagent.server.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal warmup/measure harness for the {@code @Tag("benchmark")} tests run by {@code ./gradlew
+ * benchmark}. Reports per-operation latency percentiles and bytes allocated by the calling thread.
+ */
+public final class Benchmarks {
+  public static final String TAG = "benchmark";
+
+  private Benchmarks() {}
+
+  public static Result measure(
+      String name, int warmupIterations, int measuredIterations, ThrowingRunnable operation) {
+    try {
+      for (int i = 0; i < warmupIterations; i++) {
+        operation.run();
+      }
+      long[] latencies = new long[measuredIterations];
+      long allocatedBefore = allocatedBytes();
+      for (int i = 0; i < measuredIterations; i++) {
+        long startedAt = System.nanoTime();
+        operation.run();
+        latencies[i] = System.nanoTime() - startedAt;
+      }
+      long allocated = allocatedBytes() - allocatedBefore;
+      Arrays.sort(latencies);
+      Result result =
+          new Result(
+              name,
+              measuredIterations,
+              Arrays.stream(latencies).sum() / (double) measuredIterations,
+              percentile(latencies, 0.50),
+              percentile(latencies, 0.99),
+              allocated < 0 ? -1 : allocated / (double) measuredIterations);
+      System.out.println(result.format());
+      return result;
+    } catch (Exception e) {
+      throw new IllegalStateException("Benchmark " + name + " failed", e);
+    }
+  }
+
+  private static long percentile(long[] sortedLatencies, double percentile) {
+    int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+    return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))];
+  }
+
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean()
+        instanceof com.sun.management.ThreadMXBean threadMXBean) {
+      return threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  @FunctionalInterface
+  public interface ThrowingRunnable {
+    void run() throws Exception;
+  }
+
+  public record Result(
+      String name,
+      int iterations,
+      double meanNanos,
+      long p50Nanos,
+      long p99Nanos,
+      double allocatedBytesPerOp) {
+    public String format() {
+      return String.format(
+          Locale.ROOT,
+          "[benchmark] %-48s n=%-6d mean=%10.1fus p50=%10.1fus p99=%10.1fus alloc=%12.0fB/op",
+          name,
+          iterations,
+          meanNanos / 1_000.0,
+          p50Nanos / 1_000.0,
+          p99Nanos / 1_000.0,
+          allocatedBytesPerOp);
+    }
+  }
+}
@@ -114,7 +114,7 @@ class AdminControllerTest {
 
   @Test
   void adminRateLimitUsageReturnsUsageForAdminRole() throws Exception {
-    when(messageResponseRateLimitService.adminUsage(any(), anyInt()))
+    when(messageResponseRateLimitService.adminUsage(any(), anyInt(), any()))
         .thenReturn(
             new AdminRateLimitUsageResponse()
                 .generatedAt(OffsetDateTime.parse("2026-05-01T00:00:00Z"))
@@ -3,6 +3,7 @@ package io.breland.bbagent.server.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 class BluebubblesWebhookControllerTest {
@@ -94,6 +96,24 @@ class BluebubblesWebhookControllerTest {
     assertTrue(captor.getValue().isGroup());
   }
 
+  @Test
+  void groupRenameWebhookInvalidatesChatMetadataBeforeLookup() {
+    BBMessageAgent messageAgent = Mockito.mock(BBMessageAgent.class);
+    BBHttpClientWrapper bbHttpClientWrapper = Mockito.mock(BBHttpClientWrapper.class);
+    BluebubblesWebhookController controller =
+        new BluebubblesWebhookController(null, messageAgent, bbHttpClientWrapper);
+    String chatGuid = "iMessage;+;chat293505621450166166";
+    BlueBubblesMessageReceivedRequest request = webhookRequest(chatGuid);
+    request.getData().setItemType(2);
+    when(bbHttpClientWrapper.getConversationInfo(chatGuid)).thenReturn(chatWithParticipants(3));
+
+    controller.bluebubblesMessageReceived(request);
+
+    InOrder inOrder = inOrder(bbHttpClientWrapper);
+    inOrder.verify(bbHttpClientWrapper).invalidateConversationInfo(chatGuid, "rename");
+    inOrder.verify(bbHttpClientWrapper).getConversationInfo(chatGuid);
+  }
+
   @Test
   void resolveIsGroupUsesHistoryParticipantsWhenPresent() {
     ApiV1ChatChatGuidMessageGet200ResponseDataInner group =
@@ -0,0 +1,71 @@
+package io.breland.bbagent.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.breland.bbagent.server.metrics.AgentMetricRollupStore.Segment;
+import io.breland.bbagent.server.metrics.AgentMetricRollupStore.Source;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AgentMetricRollupStoreTest {
+
+  @Test
+  void readsRawRowsOnlyForPartialHoursAndTheUnrolledTail() {
+    List<Segment> segments =
+        AgentMetricRollupStore.plan(
+            instant("2026-09-01T10:15:00Z"),
+            instant("2026-09-04T12:45:00Z"),
+            instant("2026-09-03T17:00:00Z"),
+            ChronoUnit.DAYS);
+
+    assertEquals(
+        List.of(
+            segment(Source.RAW, "2026-09-01T10:15:00Z", "2026-09-01T11:00:00Z"),
+            segment(Source.HOURLY, "2026-09-01T11:00:00Z", "2026-09-02T00:00:00Z"),
+            segment(Source.DAILY, "2026-09-02T00:00:00Z", "2026-09-03T00:00:00Z"),
+            segment(Source.HOURLY, "2026-09-03T00:00:00Z", "2026-09-03T17:00:00Z"),
+            segment(Source.RAW, "2026-09-03T17:00:00Z", "2026-09-04T12:45:00Z")),
+        segments);
+  }
+
+  @Test
+  void hourlyBucketsNeverReadDailyRollups() {
+    List<Segment> segments =
+        AgentMetricRollupStore.plan(
+            instant("2026-09-01T00:00:00Z"),
+            instant("2026-09-03T00:00:00Z"),
+            instant("2026-09-04T00:00:00Z"),
+            ChronoUnit.HOURS);
+
+    assertEquals(
+        List.of(segment(Source.HOURLY, "2026-09-01T00:00:00Z", "2026-09-03T00:00:00Z")), segments);
+  }
+
+  @Test
+  void readsRawRowsWhenNothingInTheRangeIsRolledUp() {
+    assertEquals(
+        List.of(segment(Source.RAW, "2026-09-01T10:15:00Z", "2026-09-01T12:45:00Z")),
+        AgentMetricRollupStore.plan(
+            instant("2026-09-01T10:15:00Z"),
+            instant("2026-09-01T12:45:00Z"),
+            null,
+            ChronoUnit.HOURS));
+    assertEquals(
+        List.of(segment(Source.RAW, "2026-09-01T10:15:00Z", "2026-09-01T12:45:00Z")),
+        AgentMetricRollupStore.plan(
+            instant("2026-09-01T10:15:00Z"),
+            instant("2026-09-01T12:45:00Z"),
+            instant("2026-09-01T11:00:00Z"),
+            ChronoUnit.HOURS));
+  }
+
+  private static Segment segment(Source source, String from, String to) {
+    return new Segment(source, instant(from), instant(to));
+  }
+
+  private static Instant instant(String value) {
+    return Instant.parse(value);
+  }
+}
@@ -0,0 +1,272 @@
+package io.breland.bbagent.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AgentMetricsWriteQueueTest {
+
+  @Test
+  void writesFullBatchesAndFlushesTheRemainderOnShutdown() throws Exception {
+    RecordingWriter writer = new RecordingWriter();
+    AgentMetricsWriteQueue queue =
+        new AgentMetricsWriteQueue(
+            writer,
+            null,
+            true,
+            100,
+            3,
+            Duration.ofMinutes(1),
+            AgentMetricsWriteQueue.OverflowPolicy.DROP,
+            Duration.ZERO);
+
+    for (int index = 0; index < 7; index++) {
+      if (index % 2 == 0) {
+        queue.submit(message("m-" + index));
+      } else {
+        queue.submit(tool("t-" + index));
+      }
+    }
+    writer.awaitBatches(2);
+    assertEquals(List.of(3, 3), writer.batchSizes());
+
+    queue.shutdown();
+
+    assertEquals(List.of(3, 3, 1), writer.batchSizes());
+    assertEquals(4, writer.messageIds.size());
+    assertEquals(3, writer.toolIds.size());
+  }
+
+  @Test
+  void flushesAPartialBatchOnceTheFlushIntervalPasses() throws Exception {
+    RecordingWriter writer = new RecordingWriter();
+    AgentMetricsWriteQueue queue =
+        new AgentMetricsWriteQueue(
+            writer,
+            null,
+            true,
+            100,
+            500,
+            Duration.ofMillis(20),
+            AgentMetricsWriteQueue.OverflowPolicy.DROP,
+            Duration.ZERO);
+    try {
+      queue.submit(message("m-1"));
+      queue.submit(tool("t-1"));
+
+      writer.awaitBatches(1);
+      assertEquals(List.of("m-1"), writer.messageIds);
+      assertEquals(List.of("t-1"), writer.toolIds);
+    } finally {
+      queue.shutdown();
+    }
+  }
+
+  @Test
+  void dropsAndCountsEventsWhenTheBufferIsFull() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    OperationalMetricsService metrics = new OperationalMetricsService(registry);
+    RecordingWriter writer = new RecordingWriter();
+    writer.block();
+    AgentMetricsWriteQueue queue =
+        new AgentMetricsWriteQueue(
+            writer,
+            metrics,
+            true,
+            2,
+            1,
+            Duration.ofMillis(10),
+            AgentMetricsWriteQueue.OverflowPolicy.DROP,
+            Duration.ZERO);
+
+    queue.submit(message("in-flight"));
+    assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+    queue.submit(message("buffered-1"));
+    queue.submit(message("buffered-2"));
+    queue.submit(message("dropped"));
+
+    assertEquals(
+        1.0,
+        registry
+            .get("bbagent.metrics.writer.dropped.count")
+            .tag("reason", AgentMetricsWriteQueue.DROP_REASON_OVERFLOW)
+            .counter()
+            .count());
+    assertEquals(2.0, registry.get("bbagent.metrics.writer.queue.depth").gauge().value());
+
+    writer.unblock();
+    queue.shutdown();
+
+    assertEquals(List.of("in-flight", "buffered-1", "buffered-2"), writer.messageIds);
+    assertEquals(
+        3.0,
+        registry
+            .get("bbagent.metrics.writer.written.count")
+            .tag("outcome", "success")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void countsFailedBatchesAsDropped() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    OperationalMetricsService metrics = new OperationalMetricsService(registry);
+    RecordingWriter writer = new RecordingWriter();
+    writer.failing = true;
+    AgentMetricsWriteQueue queue =
+        new AgentMetricsWriteQueue(
+            writer,
+            metrics,
+            true,
+            100,
+            2,
+            Duration.ofMinutes(1),
+            AgentMetricsWriteQueue.OverflowPolicy.BLOCK,
+            Duration.ofSeconds(1));
+
+    queue.submit(message("m-1"));
+    queue.submit(tool("t-1"));
+    queue.shutdown();
+
+    assertEquals(
+        2.0,
+        registry
+            .get("bbagent.metrics.writer.dropped.count")
+            .tag("reason", AgentMetricsWriteQueue.DROP_REASON_WRITE_FAILED)
+            .counter()
+            .count());
+  }
+
+  @Test
+  void writesInlineWhenAsyncWritesAreDisabled() {
+    RecordingWriter writer = new RecordingWriter();
+    AgentMetricsWriteQueue queue =
+        new AgentMetricsWriteQueue(
+            writer,
+            null,
+            false,
+            1,
+            1,
+            Duration.ofMinutes(1),
+            AgentMetricsWriteQueue.OverflowPolicy.DROP,
+            Duration.ZERO);
+
+    queue.submit(message("m-1"));
+
+    assertEquals(List.of("m-1"), writer.messageIds);
+  }
+
+  private static AgentMessageMetric message(String id) {
+    Instant now = Instant.parse("2026-09-01T10:00:00Z");
+    return new AgentMessageMetric(
+        id,
+        now,
+        "bluebubbles",
+        "message-guid",
+        "chat-hash",
+        "user-hash",
+        "standard",
+        "Standard",
+        "responses-model",
+        false,
+        "CADENCE",
+        now);
+  }
+
+  private static AgentToolMetric tool(String id) {
+    Instant now = Instant.parse("2026-09-01T10:00:00Z");
+    return new AgentToolMetric(
+        id,
+        now,
+        "bluebubbles",
+        "message-guid",
+        "chat-hash",
+        "user-hash",
+        "send_text",
+        "bluebubbles",
+        true,
+        null,
+        12L,
+        "standard",
+        "Standard",
+        "responses-model",
+        false,
+        "CADENCE",
+        now);
+  }
+
+  private static final class RecordingWriter extends AgentMetricsBatchWriter {
+    private final List<String> messageIds = new CopyOnWriteArrayList<>();
+    private final List<String> toolIds = new CopyOnWriteArrayList<>();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile boolean failing;
+    private int pendingMessages;
+
+    private RecordingWriter() {
+      super(new JdbcTemplate());
+    }
+
+    @Override
+    public void insertMessageMetrics(List<AgentMessageMetric> metrics) {
+      started.countDown();
+      awaitRelease();
+      if (failing) {
+        throw new IllegalStateException("database unavailable");
+      }
+      metrics.forEach(metric -> messageIds.add(metric.id()));
+      pendingMessages = metrics.size();
+    }
+
+    @Override
+    public void insertToolMetrics(List<AgentToolMetric> metrics) {
+      metrics.forEach(metric -> toolIds.add(metric.id()));
+      synchronized (this) {
+        batchSizes.add(pendingMessages + metrics.size());
+        pendingMessages = 0;
+        notifyAll();
+      }
+    }
+
+    private void block() {
+      release = new CountDownLatch(1);
+    }
+
+    private void unblock() {
+      release.countDown();
+    }
+
+    private List<Integer> batchSizes() {
+      return List.copyOf(batchSizes);
+    }
+
+    private synchronized void awaitBatches(int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (batchSizes.size() < count) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+          throw new AssertionError("Timed out waiting for " + count + " metric batches");
+        }
+        wait(remainingMillis);
+      }
+    }
+
+    private void awaitRelease() {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
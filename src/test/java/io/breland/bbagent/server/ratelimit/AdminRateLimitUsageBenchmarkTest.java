@@ -0,0 +1,123 @@
+package io.breland.bbagent.server.ratelimit;
+
+import static io.breland.bbagent.server.TimeSupport.offset;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.generated.model.AdminRateLimitUsageResponse;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds 10k and 100k accounts with current-month response usage (one in ten premium) and measures
+ * the admin usage report: the first 500-row page, and walking every page by cursor. Runs against
+ * the test datasource; point {@code spring.datasource.url} at a local PostgreSQL for production
+ * plans. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class AdminRateLimitUsageBenchmarkTest {
+  private static final String ACCOUNT_PREFIX = "bench-usage-";
+  private static final int PAGE_SIZE = 500;
+  private static final int SEED_BATCH_SIZE = 1_000;
+
+  @Autowired private MessageResponseRateLimitService service;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void deleteBenchmarkAccounts() {
+    jdbcTemplate.update(
+        "delete from app_rate_limit_usage where scope_key like ?", ACCOUNT_PREFIX + "%");
+    jdbcTemplate.update("delete from agent_accounts where account_id like ?", ACCOUNT_PREFIX + "%");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {10_000, 100_000})
+  void usageReportLatency(int accounts) {
+    seed(accounts);
+
+    Benchmarks.measure(
+        "admin rate-limit usage first page accounts=" + accounts,
+        3,
+        20,
+        () -> assertThat(service.adminUsage(null, PAGE_SIZE, null).getUsages()).hasSize(PAGE_SIZE));
+
+    AtomicInteger rows = new AtomicInteger();
+    AtomicInteger pages = new AtomicInteger();
+    Benchmarks.Result walk =
+        Benchmarks.measure(
+            "admin rate-limit usage all pages accounts=" + accounts,
+            0,
+            1,
+            () -> {
+              String cursor = null;
+              do {
+                AdminRateLimitUsageResponse page = service.adminUsage(null, PAGE_SIZE, cursor);
+                rows.addAndGet(page.getUsages().size());
+                pages.incrementAndGet();
+                cursor = page.getNextCursor();
+              } while (cursor != null);
+            });
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] admin rate-limit usage accounts=%d pages=%d mean-page=%.1fms",
+            accounts,
+            pages.get(),
+            walk.meanNanos() / pages.get() / 1_000_000.0));
+    assertThat(rows.get()).isGreaterThanOrEqualTo(accounts);
+  }
+
+  private void seed(int accounts) {
+    YearMonth month = YearMonth.now(ZoneOffset.UTC);
+    Instant windowStart = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    Instant windowEnd = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    Instant now = Instant.now();
+    List<Object[]> accountRows = new ArrayList<>();
+    List<Object[]> usageRows = new ArrayList<>();
+    for (int index = 0; index < accounts; index++) {
+      String accountId = String.format(Locale.ROOT, "%s%07d", ACCOUNT_PREFIX, index);
+      accountRows.add(new Object[] {accountId, index % 10 == 0, offset(now), offset(now)});
+      usageRows.add(
+          new Object[] {
+            accountId,
+            accountId,
+            offset(windowStart),
+            offset(windowEnd),
+            (long) (index * 7919L % 5_000L),
+            offset(now),
+            offset(now)
+          });
+      if (accountRows.size() == SEED_BATCH_SIZE || index == accounts - 1) {
+        jdbcTemplate.batchUpdate(
+            """
+            insert into agent_accounts (account_id, is_premium, created_at, updated_at)
+            values (?, ?, ?, ?)
+            """,
+            accountRows);
+        jdbcTemplate.batchUpdate(
+            """
+            insert into app_rate_limit_usage
+              (id, limit_key, scope_type, scope_key, window_start, window_end, amount, created_at,
+               updated_at)
+            values (?, 'message_responses_per_month', 'account', ?, ?, ?, ?, ?, ?)
+            """,
+            usageRows);
+        accountRows.clear();
+        usageRows.clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package io.breland.bbagent.server.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageEntity;
+import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+class LeasedRateLimiterTest {
+  private static final Instant WINDOW_START = Instant.parse("2026-10-01T00:00:00Z");
+  private static final Instant WINDOW_END = Instant.parse("2026-11-01T00:00:00Z");
+
+  @Autowired private RateLimitService rateLimitService;
+  @Autowired private AppRateLimitUsageRepository usageRepository;
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-10-15T12:00:00Z"));
+
+  @Test
+  void servesUnitsFromALeaseAndReturnsTheUnspentRest() {
+    LeasedRateLimiter limiter = limiter();
+    RateLimitPolicy policy = policy(100);
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(limiter.tryConsume(policy).allowed());
+    }
+
+    assertEquals(10L, rowAmount(policy));
+    assertEquals(3L, limiter.check(policy).used());
+    assertEquals(97L, limiter.check(policy).remaining());
+
+    limiter.releaseAllLeases();
+
+    assertEquals(3L, rowAmount(policy));
+    assertEquals(0, limiter.leaseCount());
+    assertEquals(3L, limiter.check(policy).used());
+  }
+
+  @Test
+  void replicasSharingARowNeverAdmitMoreThanTheLimit() {
+    LeasedRateLimiter first = limiter();
+    LeasedRateLimiter second = limiter();
+    RateLimitPolicy policy = policy(25);
+
+    int allowed = 0;
+    for (int i = 0; i < 40; i++) {
+      LeasedRateLimiter replica = i % 2 == 0 ? first : second;
+      if (replica.tryConsume(policy).allowed()) {
+        allowed++;
+      }
+    }
+
+    assertEquals(25, allowed);
+    assertEquals(25L, rowAmount(policy));
+    RateLimitDecision denied = first.tryConsume(policy);
+    assertFalse(denied.allowed());
+    assertTrue(denied.status().exhausted());
+  }
+
+  @Test
+  void idleLeasesAreReturnedToTheRow() {
+    LeasedRateLimiter limiter = limiter();
+    RateLimitPolicy busy = policy(100);
+    RateLimitPolicy idle = policy(100);
+    assertTrue(limiter.tryConsume(idle).allowed());
+
+    clock.advance(Duration.ofSeconds(45));
+    assertTrue(limiter.tryConsume(busy).allowed());
+    clock.advance(Duration.ofSeconds(30));
+    limiter.releaseIdleLeases();
+
+    assertEquals(1, limiter.leaseCount());
+    assertEquals(1L, rowAmount(idle));
+    assertEquals(10L, rowAmount(busy));
+  }
+
+  private LeasedRateLimiter limiter() {
+    return new LeasedRateLimiter(rateLimitService, null, 10L, Duration.ofMinutes(1), clock);
+  }
+
+  private long rowAmount(RateLimitPolicy policy) {
+    return usageRepository
+        .findByLimitKeyAndScopeTypeAndScopeKeyAndWindowStart(
+            policy.limitKey(), policy.scopeType(), policy.scopeKey(), policy.windowStart())
+        .map(AppRateLimitUsageEntity::getAmount)
+        .orElse(0L);
+  }
+
+  private static RateLimitPolicy policy(long limit) {
+    return new RateLimitPolicy(
+        "test_limit",
+        "Test limit",
+        "account",
+        UUID.randomUUID().toString(),
+        limit,
+        WINDOW_START,
+        WINDOW_END);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -2,6 +2,8 @@ package io.breland.bbagent.server.ratelimit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.breland.bbagent.generated.model.AdminRateLimitUsage;
@@ -9,14 +11,19 @@ import io.breland.bbagent.generated.model.AdminRateLimitUsageResponse;
 import io.breland.bbagent.server.agent.IncomingMessage;
 import io.breland.bbagent.server.agent.account.AgentAccountResolver;
 import io.breland.bbagent.server.agent.persistence.account.AgentAccountRepository;
+import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageEntity;
 import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageRepository;
 import java.time.Instant;
+import java.time.YearMonth;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 @SpringBootTest
 @Transactional
@@ -117,6 +124,77 @@ class MessageResponseRateLimitServiceTest {
     assertEquals(200L, response.getUsages().get(0).getLimit());
   }
 
+  @Test
+  void adminUsagePagesByShareOfLimitUsed() {
+    usageRepository.deleteAll();
+    String nearlyExhausted = accountId("Alice");
+    String premium = accountId("Bob");
+    String light = accountId("Carol");
+    var premiumAccount = accountRepository.findById(premium).orElseThrow();
+    premiumAccount.setPremium(true);
+    accountRepository.saveAndFlush(premiumAccount);
+    saveUsage(nearlyExhausted, 150L);
+    saveUsage(premium, 1_000L);
+    saveUsage(light, 40L);
+    saveUsage("not-an-account", 10L);
+
+    AdminRateLimitUsageResponse first = service.adminUsage(null, 2, null);
+    AdminRateLimitUsageResponse second = service.adminUsage(null, 2, first.getNextCursor());
+    AdminRateLimitUsageResponse third = service.adminUsage(null, 2, second.getNextCursor());
+
+    List<String> tied = Stream.of(premium, light).sorted().toList();
+    assertEquals(
+        List.of(nearlyExhausted, tied.get(0)),
+        first.getUsages().stream().map(AdminRateLimitUsage::getAccountId).toList());
+    assertEquals(
+        List.of(tied.get(1), "not-an-account"),
+        second.getUsages().stream().map(AdminRateLimitUsage::getAccountId).toList());
+    assertTrue(third.getUsages().isEmpty());
+    assertNull(third.getNextCursor());
+
+    AdminRateLimitUsage top = first.getUsages().get(0);
+    assertEquals(150L, top.getUsed());
+    assertEquals(200L, top.getLimit());
+    assertEquals(0.75, top.getPercentage());
+    AdminRateLimitUsage premiumUsage =
+        Stream.concat(first.getUsages().stream(), second.getUsages().stream())
+            .filter(usage -> premium.equals(usage.getAccountId()))
+            .findFirst()
+            .orElseThrow();
+    assertTrue(premiumUsage.getIsPremium());
+    assertEquals(5_000L, premiumUsage.getLimit());
+    assertEquals(4_000L, premiumUsage.getRemaining());
+  }
+
+  @Test
+  void adminUsageRejectsMalformedCursors() {
+    assertThrows(ResponseStatusException.class, () -> service.adminUsage(null, 10, "not base64!"));
+  }
+
+  private String accountId(String sender) {
+    return accountResolver
+        .resolveOrCreate(IncomingMessage.TRANSPORT_BLUEBUBBLES, sender)
+        .orElseThrow()
+        .account()
+        .getAccountId();
+  }
+
+  private void saveUsage(String scopeKey, long amount) {
+    YearMonth month = YearMonth.now(ZoneOffset.UTC);
+    Instant now = Instant.now();
+    usageRepository.save(
+        new AppRateLimitUsageEntity(
+            UUID.randomUUID().toString(),
+            MessageResponseRateLimitService.LIMIT_KEY,
+            MessageResponseRateLimitService.SCOPE_TYPE_ACCOUNT,
+            scopeKey,
+            month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+            month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+            amount,
+            now,
+            now));
+  }
+
   private void assertMonthlyWindow(RateLimitStatus status) {
     var start = status.windowStart().atOffset(ZoneOffset.UTC);
     var end = status.windowEnd().atOffset(ZoneOffset.UTC);
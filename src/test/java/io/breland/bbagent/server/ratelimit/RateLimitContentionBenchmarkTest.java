@@ -0,0 +1,144 @@
+package io.breland.bbagent.server.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageEntity;
+import io.breland.bbagent.server.agent.persistence.ratelimit.AppRateLimitUsageRepository;
+import io.breland.bbagent.server.benchmark.Benchmarks;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Has 1, 8 and 32 concurrent consumers spend one account's monthly allowance, once through the
+ * locked usage row per unit and once through {@link LeasedRateLimiter}, and reports throughput.
+ * Attempts exceed the limit so both runs also check that nothing is admitted past it. Runs against
+ * the test datasource; point {@code spring.datasource.url} at a local PostgreSQL for realistic row
+ * lock costs. Run with {@code ./gradlew benchmark}.
+ */
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+class RateLimitContentionBenchmarkTest {
+  private static final String LIMIT_KEY = "bench_message_responses";
+  private static final long LIMIT = 2_000L;
+  private static final int ATTEMPTS = 2_400;
+  private static final Instant WINDOW_START = Instant.parse("2026-10-01T00:00:00Z");
+  private static final Instant WINDOW_END = Instant.parse("2026-11-01T00:00:00Z");
+
+  @Autowired private RateLimitService rateLimitService;
+  @Autowired private AppRateLimitUsageRepository usageRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void deleteBenchmarkUsage() {
+    jdbcTemplate.update("delete from app_rate_limit_usage where limit_key = ?", LIMIT_KEY);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 8, 32})
+  void concurrentConsumersOnOneAccount(int consumers) throws Exception {
+    double lockedNanos =
+        run("locked-row", consumers, policy -> rateLimitService.tryConsume(policy, 1L));
+
+    LeasedRateLimiter limiter =
+        new LeasedRateLimiter(rateLimitService, null, 10L, Duration.ofMinutes(1));
+    double leasedNanos = run("leased", consumers, limiter::tryConsume);
+    limiter.releaseAllLeases();
+
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] rate-limit consumers=%-2d leased speedup=%.1fx",
+            consumers,
+            lockedNanos / leasedNanos));
+  }
+
+  private double run(
+      String name, int consumers, Function<RateLimitPolicy, RateLimitDecision> consume)
+      throws Exception {
+    RateLimitPolicy policy =
+        new RateLimitPolicy(
+            LIMIT_KEY,
+            "Benchmark responses",
+            "account",
+            UUID.randomUUID().toString(),
+            LIMIT,
+            WINDOW_START,
+            WINDOW_END);
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger allowed = new AtomicInteger();
+    AtomicInteger failedCalls = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(consumers);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int consumer = 0; consumer < consumers; consumer++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                while (attempts.get() < ATTEMPTS) {
+                  RateLimitDecision decision;
+                  try {
+                    decision = consume.apply(policy);
+                  } catch (RuntimeException e) {
+                    // Lock timeouts and first-row insert races; nothing was consumed.
+                    failedCalls.incrementAndGet();
+                    continue;
+                  }
+                  attempts.incrementAndGet();
+                  if (decision.allowed()) {
+                    allowed.incrementAndGet();
+                  }
+                }
+                return null;
+              }));
+    }
+    long startedAt = System.nanoTime();
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(5, TimeUnit.MINUTES);
+    }
+    long elapsedNanos = System.nanoTime() - startedAt;
+    executor.shutdownNow();
+
+    long rowAmount =
+        usageRepository
+            .findByLimitKeyAndScopeTypeAndScopeKeyAndWindowStart(
+                policy.limitKey(), policy.scopeType(), policy.scopeKey(), policy.windowStart())
+            .map(AppRateLimitUsageEntity::getAmount)
+            .orElse(0L);
+    System.out.println(
+        String.format(
+            Locale.ROOT,
+            "[benchmark] rate-limit %-10s consumers=%-2d %d attempts in %.1fms (%.0f/s)"
+                + " allowed=%d row=%d failedCalls=%d",
+            name,
+            consumers,
+            attempts.get(),
+            elapsedNanos / 1_000_000.0,
+            attempts.get() / (elapsedNanos / 1_000_000_000.0),
+            allowed.get(),
+            rowAmount,
+            failedCalls.get()));
+    assertThat(allowed.get()).isEqualTo((int) LIMIT);
+    assertThat(rowAmount).isEqualTo(LIMIT);
+    return elapsedNanos;
+  }
+}